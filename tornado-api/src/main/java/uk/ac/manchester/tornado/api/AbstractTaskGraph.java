@@ -87,6 +87,8 @@ public interface AbstractTaskGraph extends ProfileInterface {
 
     void transferToHost(Object... objects);
 
+    void transferToHostWithMode(final int mode, Object... objects);
+
     void dump();
 
     void warmup();
@@ -99,6 +101,8 @@ public interface AbstractTaskGraph extends ProfileInterface {
 
     void unlockObjectsFromMemory(Object[] objects);
 
+    void markDirtyRange(Object object, int fromIndex, int toIndex);
+
     void syncObject(Object object);
 
     void syncObjects();
@@ -119,6 +123,8 @@ public interface AbstractTaskGraph extends ProfileInterface {
 
     AbstractTaskGraph scheduleWithProfileSequentialGlobal(Policy policy);
 
+    DynamicReconfigurationResult getDynamicReconfigurationResult();
+
     void addTask(TaskPackage taskPackage);
 
     void addPrebuiltTask(String id, String entryPoint, String filename, Object[] args, Access[] accesses, TornadoDevice device, int[] dimensions);
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api;
+
+/**
+ * Result of a race among all devices (and the JVM) for a dynamic
+ * reconfiguration policy. Times are expressed in nanoseconds if
+ * `tornado.ns.time` is enabled, and in milliseconds otherwise.
+ */
+public class DynamicReconfigurationResult {
+
+    public enum Status {
+        COMPLETED, CANCELLED, FAILED
+    }
+
+    private final Policy policy;
+    private final int winnerIndex;
+    private final String[] contenders;
+    private final long[] times;
+    private final Status[] status;
+
+    public DynamicReconfigurationResult(Policy policy, int winnerIndex, String[] contenders, long[] times, Status[] status) {
+        this.policy = policy;
+        this.winnerIndex = winnerIndex;
+        this.contenders = contenders;
+        this.times = times;
+        this.status = status;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Index of the winner contender. The last index corresponds to the sequential
+     * execution in the JVM.
+     */
+    public int getWinnerIndex() {
+        return winnerIndex;
+    }
+
+    public int getNumContenders() {
+        return contenders.length;
+    }
+
+    public String getContenderName(int index) {
+        return contenders[index];
+    }
+
+    /**
+     * Time of the contender, or {@link Long#MAX_VALUE} if it did not complete.
+     */
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public Status getStatus(int index) {
+        return status[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Policy: " + policy + ", winner: #" + winnerIndex + " " + contenders[winnerIndex] + "\n");
+        for (int i = 0; i < contenders.length; i++) {
+            String time = (status[i] == Status.COMPLETED) ? Long.toString(times[i]) : "-";
+            sb.append(String.format("  #%d %-40s %-10s %s%n", i, contenders[i], status[i], time));
+        }
+        return sb.toString();
+    }
+}
@@ -46,6 +46,7 @@ public enum Policy {
     PERFORMANCE("Performance"), //
     END_2_END("End_2_End"), //
     LATENCY("Latency"), //
+    ADAPTIVE("Adaptive"), //
     ENERGY("Energy"); //
 
     private final String policyName;
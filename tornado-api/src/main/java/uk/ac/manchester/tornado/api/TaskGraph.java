@@ -277,6 +277,12 @@ public class TaskGraph implements TornadoAPI, ProfileInterface {
         return this;
     }
 
+    @Override
+    public TaskGraph transferToHostWithMode(final int mode, Object... objects) {
+        taskScheduleImpl.transferToHostWithMode(mode, objects);
+        return this;
+    }
+
     @Override
     public TaskGraph schedule() {
         taskScheduleImpl.scheduleInner();
@@ -314,6 +320,11 @@ public class TaskGraph implements TornadoAPI, ProfileInterface {
         taskScheduleImpl.scheduleWithProfileSequentialGlobal(policy).waitOn();
     }
 
+    @Override
+    public DynamicReconfigurationResult getDynamicReconfigurationResult() {
+        return taskScheduleImpl.getDynamicReconfigurationResult();
+    }
+
     @Override
     public void warmup() {
         taskScheduleImpl.warmup();
@@ -363,6 +374,12 @@ public class TaskGraph implements TornadoAPI, ProfileInterface {
         return this;
     }
 
+    @Override
+    public TaskGraph markDirtyRange(Object object, int fromIndex, int toIndex) {
+        taskScheduleImpl.markDirtyRange(object, fromIndex, toIndex);
+        return this;
+    }
+
     @Override
     public void syncObjects() {
         taskScheduleImpl.syncObjects();
@@ -463,6 +480,21 @@ public class TaskGraph implements TornadoAPI, ProfileInterface {
         return taskScheduleImpl.getDeviceReadTime();
     }
 
+    @Override
+    public long getTotalBytesCopyIn() {
+        return taskScheduleImpl.getTotalBytesCopyIn();
+    }
+
+    @Override
+    public long getTotalBytesCopyOut() {
+        return taskScheduleImpl.getTotalBytesCopyOut();
+    }
+
+    @Override
+    public long getNumKernelLaunches() {
+        return taskScheduleImpl.getNumKernelLaunches();
+    }
+
     @Override
     public String getProfileLog() {
         return taskScheduleImpl.getProfileLog();
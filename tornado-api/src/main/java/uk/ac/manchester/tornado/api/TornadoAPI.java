@@ -571,6 +571,22 @@ public interface TornadoAPI {
      */
     TornadoAPI transferToHost(Object... objects);
 
+    /**
+     * Open a stream channel between the device and the host with the given mode.
+     * A separate method name is used since an overload of
+     * {@link #transferToHost(Object...)} with a leading int would be ambiguous.
+     * With {@link uk.ac.manchester.tornado.api.enums.DataTransferMode#UNDER_DEMAND},
+     * objects stay on the device and are copied to the host only when they are
+     * synchronized.
+     *
+     * @param mode
+     *            {@link uk.ac.manchester.tornado.api.enums.DataTransferMode}
+     * @param objects
+     *            list of output objects to be streamed.
+     * @return link to the {@TornadoAPI} to allow function composition.
+     */
+    TornadoAPI transferToHostWithMode(final int mode, Object... objects);
+
     /**
      * Internal call to run the task-schedule
      *
@@ -623,6 +639,13 @@ public interface TornadoAPI {
      */
     void executeWithProfilerSequentialGlobal(Policy policy);
 
+    /**
+     * Returns the winner, the time and the status of each contender of the last
+     * race among devices run by {@link #executeWithProfiler(Policy)}, or null if
+     * no race has been run yet.
+     */
+    DynamicReconfigurationResult getDynamicReconfigurationResult();
+
     /**
      * It performs JIT compilation without running the task-schedule
      */
@@ -654,6 +677,24 @@ public interface TornadoAPI {
 
     TornadoAPI unlockObjectsFromMemory(Object... objects);
 
+    /**
+     * Marks a range of elements of a primitive array as modified on the host.
+     * When an array that is copied in on every execution has dirty ranges, the
+     * next execution only copies those ranges, as long as the device already
+     * holds a copy of the array. The ranges are cleared after each copy. An empty
+     * range ({@code fromIndex == toIndex}) skips the next copy of the array.
+     * Elements outside the ranges must match the device copy, so an array
+     * written by a task should also be copied back to the host.
+     *
+     * @param object
+     *            Primitive array or native array modified on the host.
+     * @param fromIndex
+     *            First modified element, inclusive.
+     * @param toIndex
+     *            Last modified element, exclusive.
+     */
+    TornadoAPI markDirtyRange(Object object, int fromIndex, int toIndex);
+
     void syncObjects();
 
     void syncObject(Object object);
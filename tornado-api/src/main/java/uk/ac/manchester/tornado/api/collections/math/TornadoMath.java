@@ -49,6 +49,7 @@ import static uk.ac.manchester.tornado.api.collections.types.FloatOps.compare;
 
 import uk.ac.manchester.tornado.api.collections.types.DoubleOps;
 import uk.ac.manchester.tornado.api.collections.types.FloatOps;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloat;
 
 public class TornadoMath {
 
@@ -341,4 +342,35 @@ public class TornadoMath {
     public static double signum(double a) {
         return Math.signum(a);
     }
+
+    /**
+     * Multiply-add in single precision. It is compiled as a multiplication
+     * followed by an addition, which the PTX backend fuses when
+     * {@code tornado.enable.fma} is set.
+     */
+    public static float fma(float a, float b, float c) {
+        return a * b + c;
+    }
+
+    /**
+     * Multiplies two half-precision values and adds the product to a single
+     * precision accumulator, so that reductions over FP16 data do not lose
+     * precision. Integer operands bind to {@link #fma(float, float, float)}, so
+     * this variant has its own name.
+     *
+     * @param a
+     *            16-bit encoding of the first operand
+     * @param b
+     *            16-bit encoding of the second operand
+     * @param accumulator
+     *            float accumulator
+     * @return a * b + accumulator, in single precision
+     */
+    public static float fmaHalf(short a, short b, float accumulator) {
+        return fma(HalfFloat.halfToFloat(a), HalfFloat.halfToFloat(b), accumulator);
+    }
+
+    public static float fma(HalfFloat a, HalfFloat b, float accumulator) {
+        return fma(a.getFloat32(), b.getFloat32(), accumulator);
+    }
 }
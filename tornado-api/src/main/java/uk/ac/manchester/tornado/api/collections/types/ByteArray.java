@@ -0,0 +1,119 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import java.util.Arrays;
+
+/**
+ * Off-heap array of bytes. Kernels access it with {@link #get(int)},
+ * {@link #set(int, byte)} and {@link #getSize()}.
+ */
+public final class ByteArray extends TornadoNativeArray {
+
+    private static final int ELEMENT_BYTES = 1;
+
+    public ByteArray(int numberOfElements) {
+        super(numberOfElements, ELEMENT_BYTES);
+    }
+
+    /**
+     * Creates a native array with a copy of the given values.
+     *
+     * @param values
+     *            Array to be copied
+     * @return a new {@link ByteArray}
+     */
+    public static ByteArray fromArray(byte[] values) {
+        final ByteArray array = new ByteArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * @return a copy of the elements in a Java array.
+     */
+    public byte[] toHeapArray() {
+        final byte[] values = new byte[getSize()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = get(i);
+        }
+        return values;
+    }
+
+    public byte get(int index) {
+        return segment.get(toOffset(index));
+    }
+
+    public void set(int index, byte value) {
+        segment.put(toOffset(index), value);
+    }
+
+    /**
+     * Sets all elements to value.
+     */
+    public void init(byte value) {
+        for (int i = 0; i < getSize(); i++) {
+            set(i, value);
+        }
+    }
+
+    @Override
+    public Class<?> getElementType() {
+        return byte.class;
+    }
+
+    @Override
+    public int getElementSize() {
+        return ELEMENT_BYTES;
+    }
+
+    @Override
+    public String toString() {
+        String str = String.format("ByteArray <%d>", getSize());
+        if (getSize() < 32) {
+            str += " " + Arrays.toString(toHeapArray());
+        }
+        return str;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+/**
+ * IEEE 754 half-precision (binary16) value. The value is stored in 16 bits and
+ * arithmetic is performed in single precision, as done by the backends.
+ *
+ * <p>
+ * {@link #halfToFloat(short)} and {@link #floatToHalf(float)} are intrinsics:
+ * the OpenCL, PTX and SPIR-V backends replace them with the native FP16
+ * conversions, and the Java implementations below are used for sequential
+ * execution.
+ * </p>
+ */
+public final class HalfFloat {
+
+    private final short halfFloatValue;
+
+    public HalfFloat(float value) {
+        this.halfFloatValue = floatToHalf(value);
+    }
+
+    public HalfFloat(short halfFloatValue) {
+        this.halfFloatValue = halfFloatValue;
+    }
+
+    /**
+     * @return the 16-bit encoding of this value.
+     */
+    public short getHalfFloatValue() {
+        return halfFloatValue;
+    }
+
+    /**
+     * @return this value widened to single precision.
+     */
+    public float getFloat32() {
+        return halfToFloat(halfFloatValue);
+    }
+
+    public static HalfFloat add(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() + b.getFloat32());
+    }
+
+    public static HalfFloat sub(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() - b.getFloat32());
+    }
+
+    public static HalfFloat mult(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() * b.getFloat32());
+    }
+
+    public static HalfFloat div(HalfFloat a, HalfFloat b) {
+        return new HalfFloat(a.getFloat32() / b.getFloat32());
+    }
+
+    /**
+     * Widens a half-precision value to single precision. The conversion is
+     * exact.
+     *
+     * @param half
+     *            16-bit encoding of the value
+     * @return the value as a float
+     */
+    public static float halfToFloat(short half) {
+        final int bits = half & 0xffff;
+        final int sign = (bits & 0x8000) << 16;
+        final int exponent = (bits >>> 10) & 0x1f;
+        final int mantissa = bits & 0x3ff;
+
+        if (exponent == 0) {
+            // zero or subnormal: mantissa * 2^-24
+            final float value = mantissa * 0x1p-24f;
+            return (sign != 0) ? -value : value;
+        } else if (exponent == 0x1f) {
+            // infinity or NaN
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * Narrows a single precision value to half precision, rounding to the
+     * nearest even value.
+     *
+     * @param value
+     *            float value
+     * @return the 16-bit encoding of the value
+     */
+    public static short floatToHalf(float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int abs = bits & 0x7fffffff;
+
+        if (abs >= 0x7f800000) {
+            // infinity or NaN. NaNs keep the top of their payload and stay quiet.
+            final int nan = (abs > 0x7f800000) ? (0x200 | ((abs >>> 13) & 0x3ff)) : 0;
+            return (short) (sign | 0x7c00 | nan);
+        }
+        if (abs >= 0x477ff000) {
+            // rounds above 65504, the largest half value
+            return (short) (sign | 0x7c00);
+        }
+        if (abs <= 0x33000000) {
+            // rounds to zero (2^-25 is a tie and rounds to the even value)
+            return (short) sign;
+        }
+        if (abs < 0x38800000) {
+            // subnormal half: count units of 2^-24
+            final int exponent = abs >>> 23;
+            final int mantissa = (abs & 0x7fffff) | 0x800000;
+            final int shift = 126 - exponent;
+            final int halfway = 1 << (shift - 1);
+            final int remainder = mantissa & ((1 << shift) - 1);
+            int result = mantissa >>> shift;
+            if (remainder > halfway || (remainder == halfway && (result & 1) != 0)) {
+                result++;
+            }
+            return (short) (sign | result);
+        }
+
+        // normal half: re-bias the exponent and drop 13 bits of mantissa
+        final int rebiased = abs - 0x38000000;
+        final int remainder = rebiased & 0x1fff;
+        int result = rebiased >>> 13;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (result & 1) != 0)) {
+            result++;
+        }
+        return (short) (sign | result);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HalfFloat)) {
+            return false;
+        }
+        return halfFloatValue == ((HalfFloat) obj).halfFloatValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return halfFloatValue;
+    }
+
+    @Override
+    public String toString() {
+        return Float.toString(getFloat32());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import java.util.Arrays;
+
+/**
+ * Off-heap array of half-precision floats. Each element takes two bytes, which
+ * halves the memory traffic of a {@link FloatArray}. Kernels read and write
+ * elements as floats with {@link #getFloat(int)} and
+ * {@link #setFloat(int, float)}, or as raw 16-bit values with
+ * {@link #getHalfFloatValue(int)} and {@link #setHalfFloatValue(int, short)}.
+ */
+public final class HalfFloatArray extends TornadoNativeArray {
+
+    private static final int ELEMENT_BYTES = 2;
+
+    public HalfFloatArray(int numberOfElements) {
+        super(numberOfElements, ELEMENT_BYTES);
+    }
+
+    /**
+     * Creates a native array with the given values rounded to half precision.
+     *
+     * @param values
+     *            Array to be copied
+     * @return a new {@link HalfFloatArray}
+     */
+    public static HalfFloatArray fromArray(float[] values) {
+        final HalfFloatArray array = new HalfFloatArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.setFloat(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * @return a copy of the elements, widened to float, in a Java array.
+     */
+    public float[] toHeapArray() {
+        final float[] values = new float[getSize()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getFloat(i);
+        }
+        return values;
+    }
+
+    public HalfFloat get(int index) {
+        return new HalfFloat(getHalfFloatValue(index));
+    }
+
+    public void set(int index, HalfFloat value) {
+        setHalfFloatValue(index, value.getHalfFloatValue());
+    }
+
+    public short getHalfFloatValue(int index) {
+        return segment.getShort(toOffset(index));
+    }
+
+    public void setHalfFloatValue(int index, short value) {
+        segment.putShort(toOffset(index), value);
+    }
+
+    public float getFloat(int index) {
+        return HalfFloat.halfToFloat(getHalfFloatValue(index));
+    }
+
+    public void setFloat(int index, float value) {
+        setHalfFloatValue(index, HalfFloat.floatToHalf(value));
+    }
+
+    /**
+     * Sets all elements to value.
+     */
+    public void init(HalfFloat value) {
+        for (int i = 0; i < getSize(); i++) {
+            set(i, value);
+        }
+    }
+
+    /**
+     * Elements are transferred as their 16-bit encoding.
+     */
+    @Override
+    public Class<?> getElementType() {
+        return short.class;
+    }
+
+    @Override
+    public int getElementSize() {
+        return ELEMENT_BYTES;
+    }
+
+    @Override
+    public String toString() {
+        String str = String.format("HalfFloatArray <%d>", getSize());
+        if (getSize() < 32) {
+            str += " " + Arrays.toString(toHeapArray());
+        }
+        return str;
+    }
+}
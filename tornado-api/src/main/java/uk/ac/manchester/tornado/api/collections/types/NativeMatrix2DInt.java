@@ -0,0 +1,163 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import static java.lang.String.format;
+import static uk.ac.manchester.tornado.api.collections.types.StorageFormats.toRowMajor;
+
+import java.nio.IntBuffer;
+
+/**
+ * Row-major matrix of ints stored off-heap in a {@link IntArray}. It provides the
+ * same accessors as {@link Matrix2DInt}.
+ */
+public class NativeMatrix2DInt extends Matrix2DType implements PrimitiveStorage<IntBuffer> {
+
+    /**
+     * backing array
+     */
+    protected final IntArray storage;
+
+    /**
+     * number of elements in the storage
+     */
+    private final int numElements;
+
+    /**
+     * Storage format for matrix
+     *
+     * @param rows
+     *            number of rows
+     * @param columns
+     *            number of columns
+     * @param array
+     *            native array which contains data
+     */
+    public NativeMatrix2DInt(int rows, int columns, IntArray array) {
+        super(rows, columns);
+        storage = array;
+        numElements = columns * rows;
+    }
+
+    public NativeMatrix2DInt(int rows, int columns) {
+        this(rows, columns, new IntArray(rows * columns));
+    }
+
+    public IntArray getArray() {
+        return storage;
+    }
+
+    public int get(int i, int j) {
+        return storage.get(toRowMajor(i, j, COLUMNS));
+    }
+
+    public void set(int i, int j, int value) {
+        storage.set(toRowMajor(i, j, COLUMNS), value);
+    }
+
+    public NativeVectorInt row(int row) {
+        final NativeVectorInt vector = new NativeVectorInt(COLUMNS);
+        for (int j = 0; j < COLUMNS; j++) {
+            vector.set(j, get(row, j));
+        }
+        return vector;
+    }
+
+    public NativeVectorInt column(int col) {
+        final NativeVectorInt vector = new NativeVectorInt(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            vector.set(i, get(i, col));
+        }
+        return vector;
+    }
+
+    public void fill(int value) {
+        storage.init(value);
+    }
+
+    public NativeMatrix2DInt duplicate() {
+        NativeMatrix2DInt matrix = new NativeMatrix2DInt(ROWS, COLUMNS);
+        matrix.set(this);
+        return matrix;
+    }
+
+    public void set(NativeMatrix2DInt m) {
+        for (int i = 0; i < m.numElements; i++) {
+            this.storage.set(i, m.storage.get(i));
+        }
+    }
+
+    public String toString(String fmt) {
+        StringBuilder str = new StringBuilder("");
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLUMNS; j++) {
+                str.append(format(fmt, get(i, j)) + " ");
+            }
+            str.append("\n");
+        }
+        return str.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        String result = format("NativeMatrix2DInt <%d x %d>", ROWS, COLUMNS);
+        if (ROWS < 16 && COLUMNS < 16) {
+            result += "\n" + toString(IntOps.FMT);
+        }
+        return result;
+    }
+
+    @Override
+    public void loadFromBuffer(IntBuffer buffer) {
+        asBuffer().put(buffer);
+    }
+
+    @Override
+    public IntBuffer asBuffer() {
+        return storage.elementsView().asIntBuffer();
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Vector of floats stored off-heap in a {@link FloatArray}. It provides the same
+ * accessors as {@link VectorFloat}.
+ */
+public class NativeVectorFloat implements PrimitiveStorage<FloatBuffer> {
+
+    private final int numElements;
+    private final FloatArray storage;
+
+    /**
+     * Creates an new vector from the provided storage
+     *
+     * @param storage
+     *            Native array to be stored
+     */
+    public NativeVectorFloat(FloatArray storage) {
+        this.numElements = storage.getSize();
+        this.storage = storage;
+    }
+
+    /**
+     * Creates an empty vector with
+     *
+     * @param numElements
+     *            Number of elements
+     */
+    public NativeVectorFloat(int numElements) {
+        this(new FloatArray(numElements));
+    }
+
+    public FloatArray getArray() {
+        return storage;
+    }
+
+    public float get(int index) {
+        return storage.get(index);
+    }
+
+    public void set(int index, float value) {
+        storage.set(index, value);
+    }
+
+    /**
+     * Sets the elements of this vector to that of the provided vector
+     */
+    public void set(NativeVectorFloat values) {
+        for (int i = 0; i < values.numElements; i++) {
+            storage.set(i, values.get(i));
+        }
+    }
+
+    /**
+     * Sets all elements to value
+     */
+    public void fill(float value) {
+        storage.init(value);
+    }
+
+    /**
+     * Duplicates this vector
+     *
+     * @return a new vector
+     */
+    public NativeVectorFloat duplicate() {
+        final NativeVectorFloat vector = new NativeVectorFloat(numElements);
+        vector.set(this);
+        return vector;
+    }
+
+    public String toString(String fmt) {
+        StringBuilder sb = new StringBuilder("[");
+        sb.append("[ ");
+        for (int i = 0; i < numElements; i++) {
+            sb.append(String.format(fmt, get(i)) + " ");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        String str = String.format("NativeVectorFloat <%d>", numElements);
+        if (numElements < 32) {
+            str += toString(FloatOps.FMT);
+        }
+        return str;
+    }
+
+    @Override
+    public void loadFromBuffer(FloatBuffer buffer) {
+        asBuffer().put(buffer);
+    }
+
+    @Override
+    public FloatBuffer asBuffer() {
+        return storage.elementsView().asFloatBuffer();
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+
+    public int getLength() {
+        return numElements;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base class of the off-heap arrays. The elements are stored in native memory,
+ * outside the Java heap, after a header of {@link #ARRAY_HEADER} bytes. The
+ * drivers fill the header with the layout of a Java array of the same kind, so
+ * the header and the elements are copied to the device in a single transfer and
+ * the kernels access them as regular arrays.
+ */
+public abstract class TornadoNativeArray {
+
+    /**
+     * Number of bytes reserved in front of the elements. It is large enough to
+     * hold the header of any Java array in HotSpot.
+     */
+    public static final int ARRAY_HEADER = 24;
+
+    protected final ByteBuffer segment;
+
+    private final int numberOfElements;
+
+    protected TornadoNativeArray(int numberOfElements, int elementSize) {
+        final long numBytes = ARRAY_HEADER + (long) numberOfElements * elementSize;
+        if (numberOfElements < 0 || numBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid number of elements for a native array: " + numberOfElements);
+        }
+        this.numberOfElements = numberOfElements;
+        this.segment = ByteBuffer.allocateDirect((int) numBytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return the number of elements of the array.
+     */
+    public final int getSize() {
+        return numberOfElements;
+    }
+
+    /**
+     * @return the native memory that backs the array, including the header.
+     */
+    public ByteBuffer getSegment() {
+        return segment;
+    }
+
+    public long getNumBytesOfSegment() {
+        return segment.capacity();
+    }
+
+    public long getNumBytesWithoutHeader() {
+        return segment.capacity() - ARRAY_HEADER;
+    }
+
+    /**
+     * @return the primitive type of the elements, e.g. {@code float.class}.
+     */
+    public abstract Class<?> getElementType();
+
+    public abstract int getElementSize();
+
+    /**
+     * Sets all the elements of the array to zero.
+     */
+    public void clear() {
+        for (int i = ARRAY_HEADER; i < segment.capacity(); i++) {
+            segment.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * @return a view of the elements, without the header, in native byte order.
+     */
+    ByteBuffer elementsView() {
+        final ByteBuffer view = segment.duplicate();
+        view.position(ARRAY_HEADER);
+        return view.slice().order(segment.order());
+    }
+
+    protected int toOffset(int index) {
+        if (index < 0 || index >= numberOfElements) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return ARRAY_HEADER + index * getElementSize();
+    }
+}
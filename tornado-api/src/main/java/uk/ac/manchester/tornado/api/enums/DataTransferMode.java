@@ -59,4 +59,17 @@ public class DataTransferMode {
      * task-graph ({@link uk.ac.manchester.tornado.api.TaskGraph}) is invoked.
      */
     public static final int EVERY_EXECUTION = 1;
+
+    /**
+     * Flag to keep data on the device after the execution of a task-graph and
+     * copy it to the host only when it is requested with
+     * {@link uk.ac.manchester.tornado.api.TaskGraph#syncObject(Object)} or
+     * {@link uk.ac.manchester.tornado.api.TaskGraph#syncObjects()}. It is only
+     * valid for
+     * {@link uk.ac.manchester.tornado.api.TaskGraph#transferToHostWithMode(int, Object...)}.
+     * Since the device holds the most
+     * recent copy of these objects, they are copied in only during the first
+     * execution.
+     */
+    public static final int UNDER_DEMAND = 2;
 }
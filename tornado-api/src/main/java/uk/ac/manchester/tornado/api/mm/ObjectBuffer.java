@@ -74,12 +74,40 @@ public interface ObjectBuffer {
 
     List<Integer> enqueueWrite(Object reference, long batchSize, long hostOffset, int[] events, boolean useDeps);
 
+    /**
+     * Copies only the given element ranges of the object to a device buffer that
+     * already holds a previous copy of it. Buffers that cannot copy partial
+     * ranges copy the whole object.
+     *
+     * @param ranges
+     *            Sorted, non-overlapping {@code from, to} pairs of element
+     *            indexes, with {@code to} exclusive.
+     */
+    default List<Integer> enqueueWriteRanges(Object reference, long[] ranges, int[] events, boolean useDeps) {
+        return enqueueWrite(reference, 0, 0, events, useDeps);
+    }
+
+    /**
+     * Notifies the buffer that a kernel may have written to it, so any host copy
+     * of its device contents is out of date.
+     */
+    default void markModifiedOnDevice() {
+    }
+
     void allocate(Object reference, long batchSize) throws TornadoOutOfMemoryException, TornadoMemoryException;
 
     void deallocate() throws TornadoMemoryException;
 
     long size();
 
+    /**
+     * @return number of bytes copied to the device by the last write. Buffers
+     *         that always copy the whole object return their size.
+     */
+    default long getLastWriteSize() {
+        return size();
+    }
+
     default int[] getIntBuffer() {
         return null;
     }
@@ -67,6 +67,12 @@ public interface ProfileInterface {
 
     long getDeviceReadTime();
 
+    long getTotalBytesCopyIn();
+
+    long getTotalBytesCopyOut();
+
+    long getNumKernelLaunches();
+
     String getProfileLog();
 
 }
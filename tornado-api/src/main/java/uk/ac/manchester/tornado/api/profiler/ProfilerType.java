@@ -41,8 +41,11 @@ public enum ProfilerType {
     DEVICE("Device"),
     TOTAL_COPY_IN_SIZE_BYTES("CopyIn-Size-(Bytes)"),
     TOTAL_COPY_OUT_SIZE_BYTES("CopyOut-Size-(Bytes)"),
+    TOTAL_COPY_IN_SIZE_BYTES_SAVED("CopyIn-Size-Saved-(Bytes)"),
     TASK_COMPILE_DRIVER_TIME("Task-Compile-Driver"),
     TASK_COMPILE_GRAAL_TIME("Task-Compile-Graal"),
+    TASK_KERNEL_CACHE_HIT("Task-Kernel-Cache-Hit"),
+    TASK_KERNEL_CACHE_MISS("Task-Kernel-Cache-Miss"),
 
     TASK_CODE_GENERATION_TIME("Task-Code-Generation"),
     TASK_KERNEL_TIME("Task-Kernel"),
@@ -52,6 +55,7 @@ public enum ProfilerType {
 
     TOTAL_CODE_GENERATION_TIME("Total-Task-Code-Generation-Time"),
     TOTAL_KERNEL_TIME("Kernel-Time"),
+    TOTAL_KERNEL_LAUNCHES("Kernel-Launches"),
     TOTAL_TASK_SCHEDULE_TIME("TS-Total-Time"),
 
     BACKEND("Backend");
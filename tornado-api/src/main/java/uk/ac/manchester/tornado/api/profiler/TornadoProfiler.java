@@ -47,6 +47,8 @@ public interface TornadoProfiler {
 
     long getTaskTimer(ProfilerType type, String taskName);
 
+    long getMetric(ProfilerType type, String taskName);
+
     void setTimer(ProfilerType type, long time);
 
     void dump();
@@ -55,6 +55,9 @@ __TEST_THE_WORLD__ = [
     ## TornadoVM standard test-suite
     TestEntry("uk.ac.manchester.tornado.unittests.TestHello"),
     TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestArrays"),
+    TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestNativeArrays"),
+    TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestHalfFloats"),
+    TestEntry("uk.ac.manchester.tornado.unittests.arrays.TestMultiDimArrays"),
     TestEntry("uk.ac.manchester.tornado.unittests.functional.TestLambdas"),
     TestEntry("uk.ac.manchester.tornado.unittests.vectortypes.TestFloats"),
     TestEntry("uk.ac.manchester.tornado.unittests.vectortypes.TestDoubles"),
@@ -95,6 +98,7 @@ __TEST_THE_WORLD__ = [
     TestEntry("uk.ac.manchester.tornado.unittests.reductions.TestReductionsAutomatic"),
     TestEntry("uk.ac.manchester.tornado.unittests.fields.TestFields"),
     TestEntry("uk.ac.manchester.tornado.unittests.profiler.TestProfiler"),
+    TestEntry("uk.ac.manchester.tornado.unittests.profiler.TestProfilerMetrics"),
     TestEntry("uk.ac.manchester.tornado.unittests.reductions.MultipleReductions"),
     TestEntry("uk.ac.manchester.tornado.unittests.bitsets.BitSetTests"),
     TestEntry("uk.ac.manchester.tornado.unittests.fails.TestFails"),
@@ -110,9 +114,15 @@ __TEST_THE_WORLD__ = [
     TestEntry("uk.ac.manchester.tornado.unittests.codegen.CodeGen"),
     TestEntry("uk.ac.manchester.tornado.unittests.grid.TestGrid"),
     TestEntry("uk.ac.manchester.tornado.unittests.grid.TestGridScheduler"),
+    TestEntry("uk.ac.manchester.tornado.unittests.grid.TestGlobalWorkPadding"),
     TestEntry("uk.ac.manchester.tornado.unittests.atomics.TestAtomics"),
     TestEntry("uk.ac.manchester.tornado.unittests.compute.ComputeTests"),
     TestEntry("uk.ac.manchester.tornado.unittests.dynamic.TestDynamic"),
+    TestEntry("uk.ac.manchester.tornado.unittests.dynamic.TestAdaptiveDeviceSelector"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestSizeClassBufferAllocator"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestObjectStateRegistry"),
+    TestEntry("uk.ac.manchester.tornado.unittests.memory.TestDirtyRangeSet"),
+    TestEntry("uk.ac.manchester.tornado.unittests.cache.TestPersistentKernelCache"),
     TestEntry("uk.ac.manchester.tornado.unittests.tasks.TestMultipleFunctions"),
 
     ## Test for function calls - We force not to inline methods
@@ -120,6 +130,36 @@ __TEST_THE_WORLD__ = [
               testParameters=[
                   "-XX:CompileCommand=dontinline,uk/ac/manchester/tornado/unittests/tasks/TestMultipleFunctions.*"]),
 
+    ## Tests for concurrent task-graphs sharing the same device
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.tasks.TestConcurrentTaskGraphs",
+              testParameters=["-Dtornado.concurrent.execution=True"]),
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.tasks.TestConcurrentTaskGraphs",
+              testParameters=[
+                  "-Dtornado.device.desc=" + os.environ["TORNADO_SDK"] + "/examples/virtual-device-GPU.json",
+                  "-Dtornado.virtual.device=True", "-Dtornado.concurrent.execution=True"]),
+
+    ## Tests for the statistics and the size bound of the sketch cache
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.cache.TestSketcherCache",
+              testParameters=["-Dtornado.sketcher.cache.size=2"]),
+
+    ## Tests for the work-group auto-tuner
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.tuning.TestWorkGroupTuner",
+              testParameters=[
+                  "-Dtornado.tuning.enable=True",
+                  "-Dtornado.tuning.file=" + os.environ["TORNADO_SDK"] + "/tuningTableTest.properties"]),
+
+    ## Tests for the auto-paralleliser of loops without annotations
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.loops.TestAutoParallelisation",
+              testParameters=["-Dtornado.parallelise.auto=True"]),
+
+    ## Tests for producer-consumer task fusion
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion",
+              testParameters=["-Dtornado.fusion.enable=True"]),
+
+    ## Tests for the local-memory tiling of 2D loops
+    TestEntry(testName="uk.ac.manchester.tornado.unittests.loops.TestLocalMemoryTiling",
+              testParameters=["-Dtornado.tiling=True"]),
+
     ## Tests for Virtual Devices
     TestEntry(testName="uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceKernel",
               testMethods=["testVirtualDeviceKernelGPU"],
@@ -8,9 +8,12 @@ module tornado.benchmarks {
     requires transitive lucene.core;
     requires transitive tornado.api;
     requires transitive tornado.matrices;
+    requires tornado.runtime;
+    requires tornado.drivers.common;
 
     exports uk.ac.manchester.tornado.benchmarks;
     exports uk.ac.manchester.tornado.benchmarks.addImage;
+    exports uk.ac.manchester.tornado.benchmarks.batch;
     exports uk.ac.manchester.tornado.benchmarks.blackscholes;
     exports uk.ac.manchester.tornado.benchmarks.blurFilter;
     exports uk.ac.manchester.tornado.benchmarks.convolvearray;
@@ -26,6 +29,7 @@ module tornado.benchmarks {
     exports uk.ac.manchester.tornado.benchmarks.nbody;
     exports uk.ac.manchester.tornado.benchmarks.rotateimage;
     exports uk.ac.manchester.tornado.benchmarks.rotatevector;
+    exports uk.ac.manchester.tornado.benchmarks.runtime;
     exports uk.ac.manchester.tornado.benchmarks.saxpy;
     exports uk.ac.manchester.tornado.benchmarks.sgemm;
     exports uk.ac.manchester.tornado.benchmarks.sgemv;
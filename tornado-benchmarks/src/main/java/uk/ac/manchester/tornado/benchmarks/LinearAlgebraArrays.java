@@ -27,6 +27,12 @@ public class LinearAlgebraArrays {
         }
     }
 
+    public static void saxpy(float alpha, float[] x, float[] y, float[] z) {
+        for (@Parallel int i = 0; i < z.length; i++) {
+            z[i] = alpha * x[i] + y[i];
+        }
+    }
+
     public static void sgemv(int M, int N, float[] A, float[] X, float[] Y) {
         for (@Parallel int i = 0; i < M; i++) {
             float y0 = 0f;
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.benchmarks.batch;
+
+import static uk.ac.manchester.tornado.api.collections.math.TornadoMath.findULPDistance;
+import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.saxpy;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
+import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+
+/**
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado -Dtornado.batch.pipeline.depth=2 -Dtornado.ooo-execution.enable=True -Dtornado.profiler=True -m tornado.benchmarks/uk.ac.manchester.tornado.benchmarks.BenchmarkRunner batch
+ * </code>
+ *
+ * <p>
+ * With the profiler enabled, the summary reports the overlap of the batch
+ * schedule executed by the TornadoVM: the ratio between the time the device
+ * spends in copy-ins, kernels and copy-outs, and the total time of the
+ * task-graph. Values greater than 1 mean that the transfers of a batch ran
+ * concurrently with the kernel of another one.
+ * </p>
+ */
+public class BatchTornado extends BenchmarkDriver {
+
+    private final int numElements;
+    private final int batchSizeMB;
+
+    private float[] x;
+    private float[] y;
+    private float[] z;
+    private final float alpha = 2f;
+
+    private long deviceTime;
+    private long totalTime;
+
+    public BatchTornado(int iterations, int numElements, int batchSizeMB) {
+        super(iterations);
+        this.numElements = numElements;
+        this.batchSizeMB = batchSizeMB;
+    }
+
+    @Override
+    public void setUp() {
+        x = new float[numElements];
+        y = new float[numElements];
+        z = new float[numElements];
+
+        for (int i = 0; i < numElements; i++) {
+            x[i] = i;
+            y[i] = numElements - i;
+        }
+
+        taskGraph = new TaskGraph("benchmark");
+        taskGraph.batch(batchSizeMB + "MB");
+        taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, x, y);
+        taskGraph.task("saxpy", LinearAlgebraArrays::saxpy, alpha, x, y, z);
+        taskGraph.transferToHost(z);
+        taskGraph.warmup();
+    }
+
+    @Override
+    public void tearDown() {
+        taskGraph.dumpProfiles();
+
+        x = null;
+        y = null;
+        z = null;
+
+        taskGraph.getDevice().reset();
+        super.tearDown();
+    }
+
+    @Override
+    public void benchmarkMethod(TornadoDevice device) {
+        taskGraph.mapAllTo(device);
+        taskGraph.execute();
+        deviceTime += taskGraph.getDeviceWriteTime() + taskGraph.getDeviceKernelTime() + taskGraph.getDeviceReadTime();
+        totalTime += taskGraph.getTotalTime();
+    }
+
+    @Override
+    public boolean validate(TornadoDevice device) {
+
+        final float[] result = new float[numElements];
+
+        benchmarkMethod(device);
+        taskGraph.clearProfiles();
+
+        saxpy(alpha, x, y, result);
+
+        final float ulp = findULPDistance(z, result);
+        return ulp < MAX_ULP;
+    }
+
+    private String getOverlap() {
+        return (totalTime == 0) ? "n/a" : String.format("%.2f", (double) deviceTime / totalTime);
+    }
+
+    @Override
+    public String getPreciseSummary() {
+        return String.format("%s, overlap=%s", super.getPreciseSummary(), getOverlap());
+    }
+
+    public void printSummary() {
+        if (isValid()) {
+            System.out.printf("id=%s, elapsed=%f, per iteration=%f, overlap=%s\n", TornadoRuntime.getProperty("benchmark.device"), getElapsed(), getElapsedPerIteration(), getOverlap());
+        } else {
+            System.out.printf("id=%s produced invalid result\n", TornadoRuntime.getProperty("benchmark.device"));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.benchmarks.batch;
+
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
+import uk.ac.manchester.tornado.benchmarks.BenchmarkRunner;
+
+/**
+ * Saxpy over arrays processed in batches. The number of device buffers per
+ * object is taken from {@code -Dtornado.batch.pipeline.depth}, so the same
+ * benchmark can be used to compare the serial and the pipelined batch
+ * schedules.
+ */
+public class Benchmark extends BenchmarkRunner {
+
+    private int size;
+    private int batchSizeMB;
+    private final int depth = Integer.parseInt(TornadoRuntime.getProperty("tornado.batch.pipeline.depth", "1"));
+
+    @Override
+    public void parseArgs(String[] args) {
+        if (args.length == 3) {
+            iterations = Integer.parseInt(args[0]);
+            size = Integer.parseInt(args[1]);
+            batchSizeMB = Integer.parseInt(args[2]);
+        } else {
+            iterations = 31;
+            size = 67108864;
+            batchSizeMB = 32;
+        }
+    }
+
+    @Override
+    protected String getName() {
+        return "batch";
+    }
+
+    @Override
+    protected String getIdString() {
+        return String.format("%s-%d-%d-%d-%d", getName(), iterations, size, batchSizeMB, depth);
+    }
+
+    @Override
+    protected String getConfigString() {
+        return String.format("num elements=%d, batch=%dMB, pipeline depth=%d", size, batchSizeMB, depth);
+    }
+
+    @Override
+    protected BenchmarkDriver getJavaDriver() {
+        return new BatchJava(iterations, size);
+    }
+
+    @Override
+    protected BenchmarkDriver getTornadoDriver() {
+        return new BatchTornado(iterations, size, batchSizeMB);
+    }
+
+}
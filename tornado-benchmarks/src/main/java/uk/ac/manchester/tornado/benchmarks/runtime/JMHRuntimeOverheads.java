@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+package uk.ac.manchester.tornado.benchmarks.runtime;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.drivers.common.mm.NativeBufferAllocator;
+import uk.ac.manchester.tornado.drivers.common.mm.SizeClassBufferAllocator;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+
+/**
+ * <p>
+ * Measures the host-side cost of the TornadoVM runtime per invocation, rather
+ * than the kernel time. The kernel is a small vector addition, so the results
+ * are dominated by the TornadoVM bytecode interpreter, the task-graph
+ * compilation, the sketch lookup, the kernel-argument marshalling and the
+ * buffer allocation.
+ * </p>
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ *    tornado -jar benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.runtime.JMHRuntimeOverheads
+ * </code>
+ * <p>
+ * On machines without a GPU, it can run on any CPU OpenCL platform (e.g.
+ * PoCL). With {@code -Dtornado.virtual.device=True} the interpreter skips the
+ * device commands, so {@code taskGraphExecute*} only measure the dispatch
+ * loop. {@code bufferAllocation} and {@code argumentMarshalling} do not use the
+ * device: the buffers come from a fake native allocator, and the arguments are
+ * encoded into a host buffer.
+ * </p>
+ */
+public class JMHRuntimeOverheads {
+
+    public static void vectorAdd(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    /**
+     * Native allocator that hands out increasing handles without calling the
+     * driver, so the benchmark only measures the size-class bookkeeping.
+     */
+    private static class FakeNativeAllocator implements NativeBufferAllocator {
+        private long nextHandle = 0x1000;
+
+        @Override
+        public long allocateBuffer(long size) {
+            return nextHandle++;
+        }
+
+        @Override
+        public void releaseBuffer(long buffer) {
+        }
+
+        @Override
+        public boolean supportsSubBuffers() {
+            return true;
+        }
+
+        @Override
+        public long allocateSubBuffer(long buffer, long offset, long size) {
+            return nextHandle++;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private int numElements = Integer.parseInt(System.getProperty("x", "256"));
+        private float[] a;
+        private float[] b;
+        private float[] c;
+        private long bufferSize;
+
+        private TaskGraph executeGraph;
+        private TaskGraph noTransfersGraph;
+
+        private Method method;
+        private int driverIndex;
+        private int deviceIndex;
+
+        private SizeClassBufferAllocator allocator;
+        private CallArguments callArguments;
+        private ByteBuffer argumentBuffer;
+        private long[] pointers;
+        private Object size;
+
+        @Setup(Level.Trial)
+        public void doSetup() throws NoSuchMethodException {
+            a = new float[numElements];
+            b = new float[numElements];
+            c = new float[numElements];
+            bufferSize = (long) numElements * Float.BYTES;
+            for (int i = 0; i < numElements; i++) {
+                a[i] = i;
+                b[i] = 2 * i;
+            }
+
+            executeGraph = new TaskGraph("overheads") //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                    .task("add", JMHRuntimeOverheads::vectorAdd, a, b, c) //
+                    .transferToHost(c);
+            executeGraph.execute();
+
+            noTransfersGraph = new TaskGraph("overheadsNoTransfers") //
+                    .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                    .task("add", JMHRuntimeOverheads::vectorAdd, a, b, c);
+            noTransfersGraph.execute();
+
+            // Compile the task used by the graph-construction benchmark
+            buildTaskGraph(this).execute();
+
+            TornadoAcceleratorDevice device = TornadoCoreRuntime.getTornadoRuntime().getDefaultDevice();
+            driverIndex = device.getDeviceContext().getDriverIndex();
+            deviceIndex = device.getDeviceContext().getDeviceIndex();
+            method = JMHRuntimeOverheads.class.getMethod("vectorAdd", float[].class, float[].class, float[].class);
+
+            allocator = new SizeClassBufferAllocator(new FakeNativeAllocator(), TornadoOptions.DEVICE_AVAILABLE_MEMORY, TornadoOptions.DEVICE_AVAILABLE_MEMORY, TornadoOptions.DEVICE_MEMORY_SLAB_SIZE);
+
+            // Kernel context, the three arrays of the vector addition and its size
+            callArguments = new CallArguments(5);
+            argumentBuffer = ByteBuffer.allocateDirect(5 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            pointers = new long[] { 0x1000, 0x2000, 0x3000 };
+            size = numElements;
+        }
+    }
+
+    private static TaskGraph buildTaskGraph(BenchmarkSetup state) {
+        return new TaskGraph("overheadsBuild") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, state.a, state.b) //
+                .task("add", JMHRuntimeOverheads::vectorAdd, state.a, state.b, state.c) //
+                .transferToHost(state.c);
+    }
+
+    /**
+     * Full invocation: interpreter dispatch, copy-in, kernel-argument marshalling,
+     * launch and copy-out of a small kernel.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void taskGraphExecute(BenchmarkSetup state, Blackhole blackhole) {
+        TaskGraph taskGraph = state.executeGraph;
+        taskGraph.execute();
+        blackhole.consume(taskGraph);
+    }
+
+    /**
+     * Interpreter dispatch, kernel-argument marshalling and launch, without data
+     * transfers.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void taskGraphExecuteNoTransfers(BenchmarkSetup state, Blackhole blackhole) {
+        TaskGraph taskGraph = state.noTransfersGraph;
+        taskGraph.execute();
+        blackhole.consume(taskGraph);
+    }
+
+    /**
+     * Building a new task-graph and compiling it to TornadoVM bytecodes. The
+     * kernel is already installed, so this only measures the graph analysis, the
+     * bytecode generation and the code-cache lookup.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void taskGraphBuild(BenchmarkSetup state, Blackhole blackhole) {
+        TaskGraph taskGraph = buildTaskGraph(state);
+        taskGraph.warmup();
+        blackhole.consume(taskGraph);
+    }
+
+    /**
+     * Method resolution and sketch lookup, as done for every task when a
+     * task-graph is compiled.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void sketchLookup(BenchmarkSetup state, Blackhole blackhole) {
+        blackhole.consume(TornadoSketcher.lookup(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(state.method), state.driverIndex, state.deviceIndex));
+    }
+
+    /**
+     * Allocation and release of a buffer through the size-class allocator of the
+     * buffer providers. The native allocator is a fake one, so the results do
+     * not include the cost of the driver.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void bufferAllocation(BenchmarkSetup state, Blackhole blackhole) {
+        long buffer = state.allocator.allocate(state.bufferSize);
+        state.allocator.release(buffer);
+        blackhole.consume(buffer);
+    }
+
+    /**
+     * Encoding of the kernel arguments of one launch, as the TornadoVM
+     * interpreter and the backends do it, without the launch.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void argumentMarshalling(BenchmarkSetup state, Blackhole blackhole) {
+        CallArguments callArguments = state.callArguments;
+        callArguments.reset();
+        callArguments.putKernelContext();
+        for (long pointer : state.pointers) {
+            callArguments.putPointer(pointer);
+        }
+        callArguments.putConstant(state.size);
+
+        ByteBuffer buffer = state.argumentBuffer;
+        buffer.clear();
+        for (int i = 0; i < callArguments.size(); i++) {
+            callArguments.write(buffer, i);
+        }
+        blackhole.consume(buffer);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHRuntimeOverheads.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.NANOSECONDS) //
+                .warmupTime(TimeValue.seconds(2)) //
+                .warmupIterations(5) //
+                .measurementTime(TimeValue.seconds(2)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+
+/**
+ * Policy used by a buffer provider to map buffer requests of the TornadoVM
+ * runtime to native device buffers. Implementations keep released buffers
+ * cached for later requests and return device memory to the backend when the
+ * budget set by {@code tornado.device.memory} is exhausted.
+ */
+public interface BufferAllocationStrategy {
+
+    /**
+     * Returns a buffer handle with at least {@code sizeInBytes} bytes.
+     *
+     * @throws TornadoOutOfMemoryException
+     *             if the request cannot be served within the device memory budget.
+     */
+    long allocate(long sizeInBytes) throws TornadoOutOfMemoryException;
+
+    /**
+     * Marks a buffer obtained with {@link #allocate(long)} as free. The buffer
+     * might be kept in a cache and returned by subsequent allocations.
+     */
+    void release(long buffer);
+
+    /**
+     * @return Number of cached buffers that can be handed out without a native
+     *         allocation.
+     */
+    int getNumFreeBuffers();
+
+    /**
+     * @return Device memory, in bytes, that can still be allocated natively.
+     */
+    long getAvailableMemory();
+
+    /**
+     * Releases all cached buffers that are not in use.
+     */
+    void reset();
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+import java.util.ArrayList;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+
+/**
+ * Allocation strategy that keeps a list of used buffers and another list of
+ * free buffers. When performing an allocation, it first checks if memory is
+ * available on the device. If it is not, then it will try to reuse the smallest
+ * buffer from the free list that fits the request. Lookups are sequential.
+ *
+ * <p>
+ * Use {@code -Dtornado.device.memory.allocator=firstfit} to select it.
+ * </p>
+ */
+public class FirstFitBufferAllocator implements BufferAllocationStrategy {
+
+    private static class BufferInfo {
+        private final long buffer;
+        private final long size;
+
+        BufferInfo(long buffer, long size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+    }
+
+    private final NativeBufferAllocator nativeAllocator;
+    private final ArrayList<BufferInfo> freeBuffers;
+    private final ArrayList<BufferInfo> usedBuffers;
+    private long currentMemoryAvailable;
+
+    public FirstFitBufferAllocator(NativeBufferAllocator nativeAllocator, long deviceMemoryBudget) {
+        this.nativeAllocator = nativeAllocator;
+        this.freeBuffers = new ArrayList<>();
+        this.usedBuffers = new ArrayList<>();
+        this.currentMemoryAvailable = deviceMemoryBudget;
+    }
+
+    private long allocateNative(long size) {
+        long buffer = nativeAllocator.allocateBuffer(size);
+        currentMemoryAvailable -= size;
+        usedBuffers.add(new BufferInfo(buffer, size));
+        return buffer;
+    }
+
+    private void freeBuffers(long size) {
+        // Attempts to free buffers of given size.
+        long remainingSize = size;
+        while (!freeBuffers.isEmpty() && remainingSize > 0) {
+            BufferInfo bufferInfo = freeBuffers.remove(0);
+            remainingSize -= bufferInfo.size;
+            currentMemoryAvailable += bufferInfo.size;
+            nativeAllocator.releaseBuffer(bufferInfo.buffer);
+        }
+    }
+
+    /**
+     * Perform a sequential search through the freeBuffers to get the buffer with
+     * the smaller size than can fulfill the allocation.
+     *
+     * @return returns the index position of a free buffer within the free buffer
+     *         list. It returns -1 if a free buffer slot is not found.
+     */
+    private int bufferIndexOfAFreeSpace(long sizeInBytes) {
+        int minBufferIndex = -1;
+        for (int i = 0; i < freeBuffers.size(); i++) {
+            BufferInfo bufferInfo = freeBuffers.get(i);
+            if (bufferInfo.size >= sizeInBytes && (minBufferIndex == -1 || bufferInfo.size < freeBuffers.get(minBufferIndex).size)) {
+                minBufferIndex = i;
+            }
+        }
+        return minBufferIndex;
+    }
+
+    @Override
+    public long allocate(long sizeInBytes) {
+        if (sizeInBytes <= currentMemoryAvailable) {
+            return allocateNative(sizeInBytes);
+        }
+        int minBufferIndex = bufferIndexOfAFreeSpace(sizeInBytes);
+        if (minBufferIndex != -1) {
+            BufferInfo bufferInfo = freeBuffers.remove(minBufferIndex);
+            usedBuffers.add(bufferInfo);
+            return bufferInfo.buffer;
+        }
+        // There is no buffer to fulfill the size. Start freeing unused buffers and try
+        // to allocate.
+        freeBuffers(sizeInBytes);
+        if (sizeInBytes <= currentMemoryAvailable) {
+            return allocateNative(sizeInBytes);
+        }
+        throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory.");
+    }
+
+    @Override
+    public void release(long buffer) {
+        int foundIndex = -1;
+        for (int i = 0; i < usedBuffers.size(); i++) {
+            if (usedBuffers.get(i).buffer == buffer) {
+                foundIndex = i;
+                break;
+            }
+        }
+        TornadoInternalError.guarantee(foundIndex != -1, "Expected the buffer to be allocated and used at this point.");
+        freeBuffers.add(usedBuffers.remove(foundIndex));
+    }
+
+    @Override
+    public int getNumFreeBuffers() {
+        return freeBuffers.size();
+    }
+
+    @Override
+    public long getAvailableMemory() {
+        return currentMemoryAvailable;
+    }
+
+    @Override
+    public void reset() {
+        freeBuffers(Long.MAX_VALUE);
+    }
+}
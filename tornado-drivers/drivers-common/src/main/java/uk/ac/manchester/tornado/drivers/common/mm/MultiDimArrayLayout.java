@@ -0,0 +1,208 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getVMConfig;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
+import uk.ac.manchester.tornado.runtime.graph.BatchConfiguration;
+
+/**
+ * Layout of a multi-dimensional array of primitives (rectangular or jagged, 2D
+ * or 3D) packed in a single device buffer.
+ *
+ * <p>
+ * Every array of the hierarchy is stored as a block with the header of a Java
+ * array followed by its elements. The first block is the table of the outer
+ * array, and it is followed, depth first, by the blocks of its rows. Each entry
+ * of a table holds the offset of the block of the row plus a base value given
+ * by the backend, so kernels can read through the table as if it held
+ * references. Blocks are aligned to 8 bytes.
+ * </p>
+ *
+ * <p>
+ * The layout only depends on the shape of the host array, so the whole
+ * hierarchy is copied in both directions with a single transfer.
+ * </p>
+ */
+public class MultiDimArrayLayout {
+
+    private static final int ALIGNMENT = 8;
+
+    private final int elementSize;
+    private final int rowHeaderSize;
+    private final int tableHeaderSize;
+    private final int referenceSize;
+    private final int arrayLengthOffset;
+
+    public MultiDimArrayLayout(Class<?> type) {
+        TornadoInternalError.guarantee(isSupported(type), "Unsupported multi-dimensional array type: %s", type.getName());
+        final JavaKind elementKind = JavaKind.fromJavaClass(getElementType(type));
+        this.elementSize = elementKind.getByteCount();
+        this.rowHeaderSize = getVMConfig().getArrayBaseOffset(elementKind);
+        this.tableHeaderSize = getVMConfig().getArrayBaseOffset(JavaKind.Object);
+        this.referenceSize = getVMConfig().getArrayIndexScale(JavaKind.Object);
+        this.arrayLengthOffset = getVMConfig().arrayOopDescLengthOffset();
+        TornadoInternalError.guarantee(referenceSize == Long.BYTES, "Multi-dimensional arrays require uncompressed references");
+    }
+
+    /**
+     * @return true if the type is a 2D or 3D array of primitives.
+     */
+    public static boolean isSupported(Class<?> type) {
+        if (!type.isArray() || !type.getComponentType().isArray()) {
+            return false;
+        }
+        int dimensions = 0;
+        Class<?> componentType = type;
+        while (componentType.isArray()) {
+            componentType = componentType.getComponentType();
+            dimensions++;
+        }
+        return dimensions <= 3 && componentType.isPrimitive();
+    }
+
+    private static Class<?> getElementType(Class<?> type) {
+        Class<?> componentType = type;
+        while (componentType.isArray()) {
+            componentType = componentType.getComponentType();
+        }
+        return componentType;
+    }
+
+    /**
+     * Number of bytes of primitive data in each row of the outer array, used to
+     * split the array in batches. It applies the same shape check as the batch
+     * configuration of the task-graph.
+     *
+     * @return bytes per row, or -1 if the rows do not have the same shape.
+     */
+    public static long getRowSize(Object array) {
+        return BatchConfiguration.getRowSize(array);
+    }
+
+    private static void checkRow(Object row) {
+        if (row == null) {
+            throw new TornadoMemoryException("[ERROR] Multi-dimensional arrays with null rows are not supported");
+        }
+    }
+
+    private static int align(long size) {
+        final long aligned = (size + ALIGNMENT - 1) & -ALIGNMENT;
+        if (aligned > Integer.MAX_VALUE) {
+            throw new TornadoMemoryException("[ERROR] Multi-dimensional array too large: " + aligned + " (bytes)");
+        }
+        return (int) aligned;
+    }
+
+    private boolean isRow(Object array) {
+        return array.getClass().getComponentType().isPrimitive();
+    }
+
+    private int rowBlockSize(Object row) {
+        return align(rowHeaderSize + (long) Array.getLength(row) * elementSize);
+    }
+
+    private int tableBlockSize(int numRows) {
+        return align(tableHeaderSize + (long) numRows * referenceSize);
+    }
+
+    /**
+     * @return number of bytes of the rows {@code [firstRow, firstRow + numRows)}
+     *         of the array once packed.
+     */
+    public long sizeOf(Object array, int firstRow, int numRows) {
+        long size = tableBlockSize(numRows);
+        for (int i = firstRow; i < firstRow + numRows; i++) {
+            final Object element = Array.get(array, i);
+            checkRow(element);
+            size += isRow(element) ? rowBlockSize(element) : sizeOf(element, 0, Array.getLength(element));
+        }
+        return align(size);
+    }
+
+    /**
+     * Packs the rows {@code [firstRow, firstRow + numRows)} of the array at the
+     * start of the buffer.
+     *
+     * @param base
+     *            Value added to the offset of each block in the tables.
+     * @return number of bytes written.
+     */
+    public int pack(Object array, int firstRow, int numRows, ByteBuffer buffer, long base) {
+        return packTable(array, firstRow, numRows, buffer, 0, base);
+    }
+
+    /**
+     * Copies the rows {@code [firstRow, firstRow + numRows)} of the array back
+     * from a buffer written by {@link #pack}.
+     */
+    public void unpack(ByteBuffer buffer, Object array, int firstRow, int numRows) {
+        unpackTable(buffer, array, firstRow, numRows, 0);
+    }
+
+    private void writeHeader(ByteBuffer buffer, int position, int headerSize, int length) {
+        for (int i = 0; i < headerSize; i++) {
+            buffer.put(position + i, (byte) 0);
+        }
+        buffer.putInt(position + arrayLengthOffset, length);
+    }
+
+    private int packTable(Object table, int firstRow, int numRows, ByteBuffer buffer, int position, long base) {
+        writeHeader(buffer, position, tableHeaderSize, numRows);
+        int block = position + tableBlockSize(numRows);
+        for (int i = 0; i < numRows; i++) {
+            final Object element = Array.get(table, firstRow + i);
+            checkRow(element);
+            buffer.putLong(position + tableHeaderSize + i * referenceSize, base + block);
+            block = isRow(element) ? packRow(element, buffer, block) : packTable(element, 0, Array.getLength(element), buffer, block, base);
+        }
+        return block;
+    }
+
+    private int unpackTable(ByteBuffer buffer, Object table, int firstRow, int numRows, int position) {
+        int block = position + tableBlockSize(numRows);
+        for (int i = 0; i < numRows; i++) {
+            final Object element = Array.get(table, firstRow + i);
+            checkRow(element);
+            block = isRow(element) ? unpackRow(buffer, element, block) : unpackTable(buffer, element, 0, Array.getLength(element), block);
+        }
+        return block;
+    }
+
+    private int packRow(Object row, ByteBuffer buffer, int position) {
+        writeHeader(buffer, position, rowHeaderSize, Array.getLength(row));
+        PrimitiveSerialiser.putArray(buffer, position + rowHeaderSize, row);
+        return position + rowBlockSize(row);
+    }
+
+    private int unpackRow(ByteBuffer buffer, Object row, int position) {
+        PrimitiveSerialiser.getArray(buffer, position + rowHeaderSize, row);
+        return position + rowBlockSize(row);
+    }
+}
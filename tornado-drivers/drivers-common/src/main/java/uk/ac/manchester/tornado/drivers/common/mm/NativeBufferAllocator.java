@@ -0,0 +1,95 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+/**
+ * Native operations that a {@link BufferAllocationStrategy} uses to obtain and
+ * return device memory. Each backend implements these operations through its
+ * buffer provider (e.g., clCreateBuffer, cuMemAlloc or zeMemAllocDevice).
+ */
+public interface NativeBufferAllocator {
+
+    /**
+     * Handle returned when a native buffer cannot be created.
+     */
+    long INVALID_BUFFER = -1;
+
+    /**
+     * Allocates a native buffer on the device.
+     *
+     * @param size
+     *            Size in bytes.
+     * @return Handle of the native buffer.
+     */
+    long allocateBuffer(long size);
+
+    /**
+     * Releases a native buffer previously obtained with
+     * {@link #allocateBuffer(long)}.
+     *
+     * @param buffer
+     *            Handle of the native buffer.
+     */
+    void releaseBuffer(long buffer);
+
+    /**
+     * It returns true if the backend can expose a region of a native buffer as
+     * a buffer handle that can be used for transfers and kernel arguments.
+     * {@link #allocateSubBuffer(long, long, long)} is only called on backends
+     * that return true.
+     */
+    boolean supportsSubBuffers();
+
+    /**
+     * Alignment in bytes required for the origin of a sub-buffer.
+     */
+    default long getSubBufferAlignment() {
+        return 0;
+    }
+
+    /**
+     * Creates a buffer handle for a region within a native buffer.
+     *
+     * @param buffer
+     *            Handle of the parent native buffer.
+     * @param offset
+     *            Offset in bytes within the parent buffer.
+     * @param size
+     *            Size in bytes of the region.
+     * @return Handle of the sub-buffer, or {@link #INVALID_BUFFER} if it cannot
+     *         be created.
+     */
+    default long allocateSubBuffer(long buffer, long offset, long size) {
+        return INVALID_BUFFER;
+    }
+
+    /**
+     * Releases a handle obtained with {@link #allocateSubBuffer(long, long, long)}.
+     * The parent buffer is not affected.
+     *
+     * @param subBuffer
+     *            Handle of the sub-buffer.
+     */
+    default void releaseSubBuffer(long subBuffer) {
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoRuntime;
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getVMConfig;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.DEBUG;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.trace;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.warn;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaField;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
+
+/**
+ * Serialiser of an object, and the arrays and objects reachable from its
+ * fields, into a single device buffer. The schema of each class (the offsets
+ * and kinds of its instance fields) is computed once and cached.
+ *
+ * <p>
+ * The object is stored first, with its fields at the same offsets as in the
+ * JVM. It is followed by the blocks of the primitive arrays, native arrays and
+ * objects that it references, in the order in which they are reached. Each
+ * reference field holds the offset of its block plus a base value given by the
+ * backend. An object reached more than once is stored once. Blocks are aligned
+ * to 8 bytes. Other references, such as arrays of objects, are stored as null.
+ * </p>
+ */
+public final class ObjectSerialiser {
+
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * Changed ranges separated by fewer bytes than this are copied as a single
+     * range.
+     */
+    private static final int MIN_GAP = 64;
+
+    private static final ConcurrentHashMap<Class<?>, ObjectSerialiser> serialisers = new ConcurrentHashMap<>();
+
+    private final Class<?> type;
+    private final Field[] fields;
+    private final JavaKind[] kinds;
+    private final int[] offsets;
+    private final int instanceSize;
+
+    private ObjectSerialiser(Class<?> type) {
+        this.type = type;
+        final MetaAccessProvider metaAccess = getTornadoRuntime().getMetaAccess();
+        final ResolvedJavaField[] instanceFields = metaAccess.lookupJavaType(type).getInstanceFields(true);
+        Arrays.sort(instanceFields, Comparator.comparingInt(field -> ((HotSpotResolvedJavaField) field).getOffset()));
+
+        final List<Field> reflectedFields = new ArrayList<>();
+        final List<HotSpotResolvedJavaField> resolvedFields = new ArrayList<>();
+        for (ResolvedJavaField instanceField : instanceFields) {
+            final Field reflectedField = getField(type, instanceField, metaAccess);
+            if (reflectedField == null) {
+                warn("cannot serialise field: class=%s, field=%s", type.getName(), instanceField.getName());
+                continue;
+            }
+            reflectedFields.add(reflectedField);
+            resolvedFields.add((HotSpotResolvedJavaField) instanceField);
+        }
+
+        fields = reflectedFields.toArray(new Field[0]);
+        kinds = new JavaKind[fields.length];
+        offsets = new int[fields.length];
+        int size = getVMConfig().arrayOopDescLengthOffset();
+        for (int i = 0; i < fields.length; i++) {
+            kinds[i] = resolvedFields.get(i).getJavaKind();
+            offsets[i] = resolvedFields.get(i).getOffset();
+            size = Math.max(size, offsets[i] + (kinds[i].isObject() ? Long.BYTES : kinds[i].getByteCount()));
+            if (DEBUG) {
+                trace("field: name=%s, kind=%s, offset=%d", fields[i].getName(), kinds[i], offsets[i]);
+            }
+        }
+        instanceSize = align(size);
+    }
+
+    /**
+     * @return the serialiser of the class, which is created the first time.
+     */
+    public static ObjectSerialiser forClass(Class<?> type) {
+        return serialisers.computeIfAbsent(type, ObjectSerialiser::new);
+    }
+
+    private static Field getField(Class<?> type, ResolvedJavaField field, MetaAccessProvider metaAccess) {
+        for (Class<?> klass = type; klass != null; klass = klass.getSuperclass()) {
+            if (metaAccess.lookupJavaType(klass).equals(field.getDeclaringClass())) {
+                try {
+                    Field result = klass.getDeclaredField(field.getName());
+                    result.setAccessible(true);
+                    return result;
+                } catch (NoSuchFieldException | RuntimeException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int align(long size) {
+        final long aligned = (size + ALIGNMENT - 1) & -ALIGNMENT;
+        if (aligned > Integer.MAX_VALUE) {
+            throw new TornadoMemoryException("[ERROR] Object too large: " + aligned + " (bytes)");
+        }
+        return (int) aligned;
+    }
+
+    private static boolean isSerialisable(Object value) {
+        return !value.getClass().isArray() || value.getClass().getComponentType().isPrimitive();
+    }
+
+    /**
+     * @return number of bytes of the object and all the blocks reachable from it.
+     */
+    public long sizeOf(Object object) {
+        Traversal traversal = new Traversal(null, 0, false);
+        traversal.visit(object);
+        return traversal.end;
+    }
+
+    /**
+     * Writes the object, and the blocks reachable from it, at the start of the
+     * buffer.
+     *
+     * @param base
+     *            Value added to the offset of each block in the reference fields.
+     * @return number of bytes written.
+     */
+    public int serialise(Object object, ByteBuffer buffer, long base) {
+        TornadoInternalError.guarantee(object.getClass() == type, "Expecting an object of type %s", type.getName());
+        Traversal traversal = new Traversal(buffer, base, false);
+        traversal.visit(object);
+        return traversal.end;
+    }
+
+    /**
+     * Copies back the primitive fields and the contents of the arrays reachable
+     * from the object. References are not modified.
+     */
+    public void deserialise(ByteBuffer buffer, Object object) {
+        TornadoInternalError.guarantee(object.getClass() == type, "Expecting an object of type %s", type.getName());
+        Traversal traversal = new Traversal(buffer, 0, true);
+        traversal.visit(object);
+    }
+
+    /**
+     * Compares a serialised object with the copy held by the device.
+     *
+     * @return sorted {@code from, to} pairs of the byte ranges that differ, with
+     *         {@code to} exclusive.
+     */
+    public static int[] getChangedRanges(byte[] current, byte[] previous, int length) {
+        int[] ranges = new int[8];
+        int numRanges = 0;
+        int i = 0;
+        while (i < length) {
+            if (current[i] == previous[i]) {
+                i++;
+                continue;
+            }
+            int to = i + 1;
+            int same = 0;
+            for (int j = to; j < length && same < MIN_GAP; j++) {
+                if (current[j] != previous[j]) {
+                    to = j + 1;
+                    same = 0;
+                } else {
+                    same++;
+                }
+            }
+            if (numRanges + 2 > ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            ranges[numRanges++] = i;
+            ranges[numRanges++] = to;
+            i = to;
+        }
+        return Arrays.copyOf(ranges, numRanges);
+    }
+
+    private void visitFields(Traversal traversal, Object object, int position) {
+        final ByteBuffer buffer = traversal.buffer;
+        for (int i = 0; i < fields.length; i++) {
+            final int fieldPosition = position + offsets[i];
+            try {
+                if (kinds[i].isObject()) {
+                    final Object value = fields[i].get(object);
+                    final boolean serialisable = value != null && isSerialisable(value);
+                    final int block = serialisable ? traversal.visit(value) : 0;
+                    if (buffer != null && !traversal.read) {
+                        buffer.putLong(fieldPosition, serialisable ? traversal.base + block : 0);
+                    }
+                } else if (buffer != null) {
+                    if (traversal.read) {
+                        readPrimitive(buffer, fieldPosition, fields[i], kinds[i], object);
+                    } else {
+                        writePrimitive(buffer, fieldPosition, fields[i], kinds[i], object);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw TornadoInternalError.shouldNotReachHere("unable to access field: class=%s, field=%s", type.getName(), fields[i].getName());
+            }
+        }
+    }
+
+    private static void writePrimitive(ByteBuffer buffer, int position, Field field, JavaKind kind, Object object) throws IllegalAccessException {
+        switch (kind) {
+            case Boolean:
+                buffer.put(position, (byte) (field.getBoolean(object) ? 1 : 0));
+                break;
+            case Byte:
+                buffer.put(position, field.getByte(object));
+                break;
+            case Char:
+                buffer.putChar(position, field.getChar(object));
+                break;
+            case Short:
+                buffer.putShort(position, field.getShort(object));
+                break;
+            case Int:
+                buffer.putInt(position, field.getInt(object));
+                break;
+            case Long:
+                buffer.putLong(position, field.getLong(object));
+                break;
+            case Float:
+                buffer.putFloat(position, field.getFloat(object));
+                break;
+            case Double:
+                buffer.putDouble(position, field.getDouble(object));
+                break;
+            default:
+                throw TornadoInternalError.shouldNotReachHere("Unsupported field kind: " + kind);
+        }
+    }
+
+    private static void readPrimitive(ByteBuffer buffer, int position, Field field, JavaKind kind, Object object) throws IllegalAccessException {
+        switch (kind) {
+            case Boolean:
+                field.setBoolean(object, buffer.get(position) != 0);
+                break;
+            case Byte:
+                field.setByte(object, buffer.get(position));
+                break;
+            case Char:
+                field.setChar(object, buffer.getChar(position));
+                break;
+            case Short:
+                field.setShort(object, buffer.getShort(position));
+                break;
+            case Int:
+                field.setInt(object, buffer.getInt(position));
+                break;
+            case Long:
+                field.setLong(object, buffer.getLong(position));
+                break;
+            case Float:
+                field.setFloat(object, buffer.getFloat(position));
+                break;
+            case Double:
+                field.setDouble(object, buffer.getDouble(position));
+                break;
+            default:
+                throw TornadoInternalError.shouldNotReachHere("Unsupported field kind: " + kind);
+        }
+    }
+
+    /**
+     * Depth-first walk over the blocks reachable from an object. The blocks are
+     * placed in the order in which they are first reached, so the layout is the
+     * same for every walk over the same objects. Without a buffer, the walk only
+     * computes the size of the layout.
+     */
+    private static final class Traversal {
+
+        private final ByteBuffer buffer;
+        private final long base;
+        private final boolean read;
+        private final IdentityHashMap<Object, Integer> positions = new IdentityHashMap<>();
+        private final int arrayLengthOffset = getVMConfig().arrayOopDescLengthOffset();
+        private int end;
+
+        Traversal(ByteBuffer buffer, long base, boolean read) {
+            this.buffer = buffer;
+            this.base = base;
+            this.read = read;
+        }
+
+        /**
+         * @return position of the block of the value.
+         */
+        int visit(Object value) {
+            final Integer visited = positions.get(value);
+            if (visited != null) {
+                return visited;
+            }
+            final int position = end;
+            positions.put(value, position);
+
+            if (value.getClass().isArray()) {
+                final JavaKind kind = JavaKind.fromJavaClass(value.getClass().getComponentType());
+                final int headerSize = getVMConfig().getArrayBaseOffset(kind);
+                final int length = Array.getLength(value);
+                end = align((long) position + headerSize + (long) length * kind.getByteCount());
+                checkCapacity();
+                if (buffer != null && read) {
+                    PrimitiveSerialiser.getArray(buffer, position + headerSize, value);
+                } else if (buffer != null) {
+                    writeHeader(position, headerSize, length);
+                    PrimitiveSerialiser.putArray(buffer, position + headerSize, value);
+                }
+            } else if (value instanceof TornadoNativeArray) {
+                final TornadoNativeArray array = (TornadoNativeArray) value;
+                final int headerSize = getVMConfig().getArrayBaseOffset(JavaKind.fromJavaClass(array.getElementType()));
+                end = align(position + headerSize + array.getNumBytesWithoutHeader());
+                checkCapacity();
+                if (buffer != null) {
+                    copyNativeArray(array, position + headerSize);
+                    if (!read) {
+                        writeHeader(position, headerSize, array.getSize());
+                    }
+                }
+            } else {
+                final ObjectSerialiser serialiser = forClass(value.getClass());
+                end = align((long) position + serialiser.instanceSize);
+                checkCapacity();
+                if (buffer != null && !read) {
+                    clear(position, serialiser.instanceSize);
+                }
+                serialiser.visitFields(this, value, position);
+            }
+            return position;
+        }
+
+        private void checkCapacity() {
+            if (buffer != null && end > buffer.capacity()) {
+                throw new TornadoMemoryException("[ERROR] Object does not fit in its device buffer: " + end + " > " + buffer.capacity() + " (bytes)");
+            }
+        }
+
+        private void clear(int position, int size) {
+            for (int i = 0; i < size; i++) {
+                buffer.put(position + i, (byte) 0);
+            }
+        }
+
+        private void writeHeader(int position, int headerSize, int length) {
+            clear(position, headerSize);
+            buffer.putInt(position + arrayLengthOffset, length);
+        }
+
+        private void copyNativeArray(TornadoNativeArray array, int position) {
+            ByteBuffer segment = array.getSegment().duplicate();
+            segment.position(TornadoNativeArray.ARRAY_HEADER);
+            ByteBuffer data = buffer.duplicate();
+            data.position(position);
+            if (read) {
+                data.limit(position + (int) array.getNumBytesWithoutHeader());
+                segment.put(data);
+            } else {
+                data.put(segment);
+            }
+        }
+    }
+}
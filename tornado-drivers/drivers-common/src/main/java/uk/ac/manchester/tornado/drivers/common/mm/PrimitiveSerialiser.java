@@ -27,6 +27,7 @@ package uk.ac.manchester.tornado.drivers.common.mm;
 
 import java.nio.ByteBuffer;
 
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 
 public class PrimitiveSerialiser {
@@ -60,4 +61,68 @@ public class PrimitiveSerialiser {
             align(buffer, alignment);
         }
     }
+    private static ByteBuffer view(ByteBuffer buffer, int position) {
+        ByteBuffer view = buffer.duplicate().order(buffer.order());
+        view.position(position);
+        return view;
+    }
+
+    /**
+     * Copies the elements of a primitive array to the buffer, starting at the
+     * given position. The position of the buffer does not change.
+     */
+    public static void putArray(ByteBuffer buffer, int position, Object array) {
+        final ByteBuffer data = view(buffer, position);
+        if (array instanceof byte[]) {
+            data.put((byte[]) array);
+        } else if (array instanceof char[]) {
+            data.asCharBuffer().put((char[]) array);
+        } else if (array instanceof short[]) {
+            data.asShortBuffer().put((short[]) array);
+        } else if (array instanceof int[]) {
+            data.asIntBuffer().put((int[]) array);
+        } else if (array instanceof long[]) {
+            data.asLongBuffer().put((long[]) array);
+        } else if (array instanceof float[]) {
+            data.asFloatBuffer().put((float[]) array);
+        } else if (array instanceof double[]) {
+            data.asDoubleBuffer().put((double[]) array);
+        } else if (array instanceof boolean[]) {
+            for (boolean value : (boolean[]) array) {
+                data.put((byte) (value ? 1 : 0));
+            }
+        } else {
+            throw TornadoInternalError.shouldNotReachHere("Unsupported array type: %s", array.getClass().getName());
+        }
+    }
+
+    /**
+     * Copies the elements of a primitive array from the buffer, starting at the
+     * given position. The position of the buffer does not change.
+     */
+    public static void getArray(ByteBuffer buffer, int position, Object array) {
+        final ByteBuffer data = view(buffer, position);
+        if (array instanceof byte[]) {
+            data.get((byte[]) array);
+        } else if (array instanceof char[]) {
+            data.asCharBuffer().get((char[]) array);
+        } else if (array instanceof short[]) {
+            data.asShortBuffer().get((short[]) array);
+        } else if (array instanceof int[]) {
+            data.asIntBuffer().get((int[]) array);
+        } else if (array instanceof long[]) {
+            data.asLongBuffer().get((long[]) array);
+        } else if (array instanceof float[]) {
+            data.asFloatBuffer().get((float[]) array);
+        } else if (array instanceof double[]) {
+            data.asDoubleBuffer().get((double[]) array);
+        } else if (array instanceof boolean[]) {
+            final boolean[] values = (boolean[]) array;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = data.get() != 0;
+            }
+        } else {
+            throw TornadoInternalError.shouldNotReachHere("Unsupported array type: %s", array.getClass().getName());
+        }
+    }
 }
@@ -0,0 +1,345 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.common.mm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+
+/**
+ * Allocation strategy based on power-of-two size classes.
+ *
+ * <ul>
+ * <li>Small requests are served from slabs: large native buffers split in
+ * chunks of the same size class. Each chunk is exposed to the runtime as a
+ * sub-buffer of the slab. This is only enabled for backends that support
+ * sub-buffers.</li>
+ * <li>Larger requests get a dedicated native buffer. Released buffers are kept
+ * in a free list per size class and reused for requests of the same class.</li>
+ * <li>Buffers in use are indexed by handle, so releasing a buffer is O(1).</li>
+ * <li>Free buffers and empty slabs are returned to the device in LRU order
+ * when a new native allocation does not fit in the device memory budget.</li>
+ * </ul>
+ */
+public class SizeClassBufferAllocator implements BufferAllocationStrategy {
+
+    private static final int NUM_SIZE_CLASSES = Long.SIZE;
+    private static final long MIN_CHUNK_SIZE = 256;
+    private static final int MIN_CHUNKS_PER_SLAB = 8;
+
+    /**
+     * A native buffer that can be returned to the device.
+     */
+    private abstract static class Region {
+        final long handle;
+        final long size;
+        final int sizeClass;
+
+        Region(long handle, long size, int sizeClass) {
+            this.handle = handle;
+            this.size = size;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    private static final class Buffer extends Region {
+        Buffer(long handle, long size, int sizeClass) {
+            super(handle, size, sizeClass);
+        }
+    }
+
+    private static final class Slab extends Region {
+        final long chunkSize;
+        final Chunk[] chunks;
+        final BitSet usedChunks;
+        int numUsedChunks;
+
+        Slab(long handle, long size, int sizeClass, long chunkSize) {
+            super(handle, size, sizeClass);
+            this.chunkSize = chunkSize;
+            this.chunks = new Chunk[(int) (size / chunkSize)];
+            this.usedChunks = new BitSet(chunks.length);
+        }
+
+        boolean isFull() {
+            return numUsedChunks == chunks.length;
+        }
+
+        boolean isEmpty() {
+            return numUsedChunks == 0;
+        }
+    }
+
+    private static final class Chunk {
+        final Slab slab;
+        final int index;
+        final long handle;
+
+        Chunk(Slab slab, int index, long handle) {
+            this.slab = slab;
+            this.index = index;
+            this.handle = handle;
+        }
+    }
+
+    private final NativeBufferAllocator nativeAllocator;
+    private final long maxAllocationSize;
+    private final long slabSize;
+    private final long minChunkSize;
+    private final long maxChunkSize;
+    private long availableMemory;
+
+    private final HashMap<Long, Buffer> usedBuffers;
+    private final HashMap<Long, Chunk> usedChunks;
+    private final List<LinkedHashMap<Long, Buffer>> freeBuffers;
+    private final List<ArrayDeque<Slab>> partialSlabs;
+    private final LinkedHashMap<Long, Region> evictionOrder;
+    private int numFreeBuffers;
+    private int numFreeChunks;
+
+    /**
+     * @param nativeAllocator
+     *            Backend operations to allocate and release device memory.
+     * @param deviceMemoryBudget
+     *            Maximum number of bytes to allocate on the device.
+     * @param maxAllocationSize
+     *            Maximum size of a single native allocation.
+     * @param slabSize
+     *            Size of each slab used for small buffers. Use 0 to disable
+     *            sub-allocation.
+     */
+    public SizeClassBufferAllocator(NativeBufferAllocator nativeAllocator, long deviceMemoryBudget, long maxAllocationSize, long slabSize) {
+        this.nativeAllocator = nativeAllocator;
+        this.availableMemory = deviceMemoryBudget;
+        this.maxAllocationSize = maxAllocationSize;
+        this.minChunkSize = Math.max(MIN_CHUNK_SIZE, roundUpToPowerOfTwo(nativeAllocator.getSubBufferAlignment()));
+        if (nativeAllocator.supportsSubBuffers() && slabSize > 0) {
+            this.slabSize = Math.min(roundUpToPowerOfTwo(slabSize), Long.highestOneBit(maxAllocationSize));
+            this.maxChunkSize = this.slabSize / MIN_CHUNKS_PER_SLAB;
+        } else {
+            this.slabSize = 0;
+            this.maxChunkSize = 0;
+        }
+
+        this.usedBuffers = new HashMap<>();
+        this.usedChunks = new HashMap<>();
+        this.freeBuffers = new ArrayList<>(NUM_SIZE_CLASSES);
+        this.partialSlabs = new ArrayList<>(NUM_SIZE_CLASSES);
+        for (int i = 0; i < NUM_SIZE_CLASSES; i++) {
+            freeBuffers.add(new LinkedHashMap<>());
+            partialSlabs.add(new ArrayDeque<>());
+        }
+        this.evictionOrder = new LinkedHashMap<>();
+    }
+
+    /**
+     * @return The index of the smallest power of two that is greater or equal
+     *         than the given size.
+     */
+    static int sizeClassOf(long size) {
+        return (size <= 1) ? 0 : NUM_SIZE_CLASSES - Long.numberOfLeadingZeros(size - 1);
+    }
+
+    static long roundUpToPowerOfTwo(long size) {
+        int sizeClass = sizeClassOf(size);
+        return (sizeClass >= NUM_SIZE_CLASSES - 1) ? size : 1L << sizeClass;
+    }
+
+    private boolean useSlabFor(long sizeInBytes) {
+        return sizeInBytes <= maxChunkSize && minChunkSize <= maxChunkSize;
+    }
+
+    @Override
+    public long allocate(long sizeInBytes) {
+        if (useSlabFor(sizeInBytes)) {
+            long chunk = allocateChunk(Math.max(minChunkSize, roundUpToPowerOfTwo(sizeInBytes)));
+            if (chunk != 0) {
+                return chunk;
+            }
+        }
+        return allocateDedicatedBuffer(sizeInBytes);
+    }
+
+    private long allocateChunk(long chunkSize) {
+        final int sizeClass = sizeClassOf(chunkSize);
+        final ArrayDeque<Slab> slabs = partialSlabs.get(sizeClass);
+        Slab slab = slabs.peekFirst();
+        if (slab == null) {
+            if (!ensureAvailable(slabSize)) {
+                return 0;
+            }
+            slab = new Slab(nativeAllocator.allocateBuffer(slabSize), slabSize, sizeClass, chunkSize);
+            availableMemory -= slabSize;
+            numFreeChunks += slab.chunks.length;
+            slabs.addFirst(slab);
+            evictionOrder.put(slab.handle, slab);
+        }
+
+        final int index = slab.usedChunks.nextClearBit(0);
+        Chunk chunk = slab.chunks[index];
+        if (chunk == null) {
+            long handle = nativeAllocator.allocateSubBuffer(slab.handle, index * chunkSize, chunkSize);
+            if (handle == NativeBufferAllocator.INVALID_BUFFER) {
+                // The caller falls back to a dedicated buffer
+                return 0;
+            }
+            chunk = new Chunk(slab, index, handle);
+            slab.chunks[index] = chunk;
+        }
+
+        if (slab.isEmpty()) {
+            evictionOrder.remove(slab.handle);
+        }
+        slab.usedChunks.set(index);
+        slab.numUsedChunks++;
+        numFreeChunks--;
+        if (slab.isFull()) {
+            slabs.pollFirst();
+        }
+        usedChunks.put(chunk.handle, chunk);
+        return chunk.handle;
+    }
+
+    private long allocateDedicatedBuffer(long sizeInBytes) {
+        final int sizeClass = sizeClassOf(sizeInBytes);
+        Buffer buffer = takeFreeBuffer(sizeClass, sizeInBytes);
+        if (buffer == null) {
+            // Round up to the size class when it fits, so that the buffer can be
+            // reused by any request of the same class.
+            long nativeSize = roundUpToPowerOfTwo(sizeInBytes);
+            if (nativeSize > maxAllocationSize || nativeSize > availableMemory) {
+                nativeSize = sizeInBytes;
+            }
+            if (!ensureAvailable(nativeSize)) {
+                throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory.");
+            }
+            buffer = new Buffer(nativeAllocator.allocateBuffer(nativeSize), nativeSize, sizeClass);
+            availableMemory -= nativeSize;
+        }
+        usedBuffers.put(buffer.handle, buffer);
+        return buffer.handle;
+    }
+
+    /**
+     * Looks for a free buffer in the size class of the request. Buffers in the
+     * next size class are always large enough, so at most two classes are
+     * inspected.
+     */
+    private Buffer takeFreeBuffer(int sizeClass, long sizeInBytes) {
+        final int lastClass = Math.min(sizeClass + 1, NUM_SIZE_CLASSES - 1);
+        for (int i = sizeClass; i <= lastClass; i++) {
+            Iterator<Buffer> iterator = freeBuffers.get(i).values().iterator();
+            while (iterator.hasNext()) {
+                Buffer buffer = iterator.next();
+                if (buffer.size >= sizeInBytes) {
+                    iterator.remove();
+                    evictionOrder.remove(buffer.handle);
+                    numFreeBuffers--;
+                    return buffer;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void release(long handle) {
+        Chunk chunk = usedChunks.remove(handle);
+        if (chunk != null) {
+            releaseChunk(chunk);
+            return;
+        }
+        Buffer buffer = usedBuffers.remove(handle);
+        TornadoInternalError.guarantee(buffer != null, "Expected the buffer to be allocated and used at this point.");
+        freeBuffers.get(buffer.sizeClass).put(handle, buffer);
+        evictionOrder.put(handle, buffer);
+        numFreeBuffers++;
+    }
+
+    private void releaseChunk(Chunk chunk) {
+        final Slab slab = chunk.slab;
+        if (slab.isFull()) {
+            partialSlabs.get(slab.sizeClass).addFirst(slab);
+        }
+        slab.usedChunks.clear(chunk.index);
+        slab.numUsedChunks--;
+        numFreeChunks++;
+        if (slab.isEmpty()) {
+            evictionOrder.put(slab.handle, slab);
+        }
+    }
+
+    /**
+     * Returns free buffers and empty slabs to the device, least recently
+     * released first, until there is enough memory for a new allocation.
+     */
+    private boolean ensureAvailable(long sizeInBytes) {
+        Iterator<Region> iterator = evictionOrder.values().iterator();
+        while (availableMemory < sizeInBytes && iterator.hasNext()) {
+            Region region = iterator.next();
+            iterator.remove();
+            releaseRegion(region);
+        }
+        return availableMemory >= sizeInBytes;
+    }
+
+    private void releaseRegion(Region region) {
+        if (region instanceof Slab) {
+            Slab slab = (Slab) region;
+            partialSlabs.get(slab.sizeClass).remove(slab);
+            for (Chunk chunk : slab.chunks) {
+                if (chunk != null) {
+                    nativeAllocator.releaseSubBuffer(chunk.handle);
+                }
+            }
+            numFreeChunks -= slab.chunks.length;
+        } else {
+            freeBuffers.get(region.sizeClass).remove(region.handle);
+            numFreeBuffers--;
+        }
+        nativeAllocator.releaseBuffer(region.handle);
+        availableMemory += region.size;
+    }
+
+    @Override
+    public int getNumFreeBuffers() {
+        return numFreeBuffers + numFreeChunks;
+    }
+
+    @Override
+    public long getAvailableMemory() {
+        return availableMemory;
+    }
+
+    @Override
+    public void reset() {
+        ensureAvailable(Long.MAX_VALUE);
+    }
+}
@@ -303,6 +303,33 @@ JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQ
     return transferFromHostToDevice(env, klass, commandQueue, reinterpret_cast<jbyteArray>(hostArray), hostOffset, blocking, offset, numBytes, devicePtr, javaArrayEvents);
 }
 
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+ * Method:    writeArrayToDevice
+ * Signature: (JLjava/nio/ByteBuffer;JZJJJ[J)J
+ */
+JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_writeArrayToDevice__JLjava_nio_ByteBuffer_2JZJJJ_3J
+        (JNIEnv * env, jclass klass, jlong commandQueue, jobject hostBuffer, jlong hostOffset, jboolean blocking, jlong offset, jlong numBytes, jlong devicePtr, jlongArray javaArrayEvents) {
+    jlong *arrayEvents = static_cast<jlong *>((javaArrayEvents != NULL) ? env->GetPrimitiveArrayCritical(javaArrayEvents, NULL) : NULL);
+    jlong *events = (javaArrayEvents != NULL) ? &arrayEvents[1] : NULL;
+    jsize numberOfEvents = (javaArrayEvents != NULL) ? arrayEvents[0] : 0;
+
+    /* off-heap memory is not moved by the GC, so the blocking flag can be honoured */
+    jbyte *buffer = static_cast<jbyte *>(env->GetDirectBufferAddress(hostBuffer));
+    if (PRINT_DATA_SIZES) {
+        std::cout << "[TornadoVM JNI] transferFromNativeToDevice from " << offset << " (" << numBytes << ") from buffer: " << buffer << std::endl;
+    }
+    cl_event event;
+    cl_int status = clEnqueueWriteBuffer((cl_command_queue) commandQueue, (cl_mem) devicePtr, blocking ? CL_TRUE : CL_FALSE,
+                                         (size_t) offset, (size_t) numBytes, &buffer[hostOffset], (cl_uint) numberOfEvents,
+                                         (cl_event *) events, &event);
+    LOG_OCL_AND_VALIDATE("clEnqueueWriteBuffer", status);
+    if (javaArrayEvents != NULL) {
+        env->ReleasePrimitiveArrayCritical(javaArrayEvents, arrayEvents, JNI_ABORT);
+    }
+    return (jlong) event;
+}
+
 jlong transferFromDeviceToHost(JNIEnv *env, jclass javaClass,
                                 jlong commandQueue,             // Pointer to the OpenCL command queue
                                 jbyteArray hostArray,           // Host array
@@ -420,3 +447,30 @@ JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQ
          jlong offset, jlong numBytes, jlong devicePtr, jlongArray javaArrayEvents) {
     return transferFromDeviceToHost(env, clazz, commandQueue, reinterpret_cast<jbyteArray>(hostArray), hostOffset, blocking, offset, numBytes, devicePtr, javaArrayEvents);
 }
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue
+ * Method:    readArrayFromDevice
+ * Signature: (JLjava/nio/ByteBuffer;JZJJJ[J)J
+ */
+JNIEXPORT jlong JNICALL Java_uk_ac_manchester_tornado_drivers_opencl_OCLCommandQueue_readArrayFromDevice__JLjava_nio_ByteBuffer_2JZJJJ_3J
+        (JNIEnv *env, jclass clazz, jlong commandQueue, jobject hostBuffer, jlong hostOffset, jboolean blocking,
+         jlong offset, jlong numBytes, jlong devicePtr, jlongArray javaArrayEvents) {
+    jlong *eventsArray = static_cast<jlong *>((javaArrayEvents != NULL) ? env->GetPrimitiveArrayCritical(javaArrayEvents, NULL) : NULL);
+    jlong *events = (javaArrayEvents != NULL) ? &eventsArray[1] : NULL;
+    jsize num_events = (javaArrayEvents != NULL) ? eventsArray[0] : 0;
+
+    jbyte *buffer = static_cast<jbyte *>(env->GetDirectBufferAddress(hostBuffer));
+    if (PRINT_DATA_SIZES) {
+        std::cout << "[TornadoVM JNI] transferFromDeviceToNative from " << offset << " (" << numBytes << ") from buffer: " << buffer << std::endl;
+    }
+    cl_event readEvent;
+    cl_int status = clEnqueueReadBuffer((cl_command_queue) commandQueue, (cl_mem) devicePtr, blocking ? CL_TRUE : CL_FALSE,
+                                        (size_t) offset, (size_t) numBytes, (void *) &buffer[hostOffset],
+                                        (cl_uint) num_events, (cl_event *) events, &readEvent);
+    LOG_OCL_AND_VALIDATE("clEnqueueReadBuffer", status);
+    if (javaArrayEvents != NULL) {
+        env->ReleasePrimitiveArrayCritical(javaArrayEvents, eventsArray, JNI_ABORT);
+    }
+    return (jlong) readEvent;
+}
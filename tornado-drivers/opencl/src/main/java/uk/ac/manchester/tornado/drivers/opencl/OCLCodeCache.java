@@ -544,7 +544,7 @@ public class OCLCodeCache {
         return value == SPIRV_MAGIC_NUMBER;
     }
 
-    public OCLInstalledCode installSource(TaskMetaData meta, String id, String entryPoint, byte[] source) {
+    public synchronized OCLInstalledCode installSource(TaskMetaData meta, String id, String entryPoint, byte[] source) {
 
         info("Installing code for %s into code cache", entryPoint);
 
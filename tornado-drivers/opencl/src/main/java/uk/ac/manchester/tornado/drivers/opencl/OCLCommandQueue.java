@@ -96,6 +96,11 @@ public class OCLCommandQueue extends TornadoLogger {
 
     native static long writeArrayToDevice(long queueId, double[] buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
 
+    /**
+     * Copies from native memory. The buffer must be a direct buffer.
+     */
+    native static long writeArrayToDevice(long queueId, ByteBuffer buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
+
     native static long readArrayFromDevice(long queueId, byte[] buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
 
     native static long readArrayFromDevice(long queueId, char[] buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
@@ -110,6 +115,11 @@ public class OCLCommandQueue extends TornadoLogger {
 
     native static long readArrayFromDevice(long queueId, double[] buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
 
+    /**
+     * Copies to native memory. The buffer must be a direct buffer.
+     */
+    native static long readArrayFromDevice(long queueId, ByteBuffer buffer, long hostOffset, boolean blocking, long offset, long bytes, long ptr, long[] events) throws OCLException;
+
     native static void clEnqueueWaitForEvents(long queueId, long[] events) throws OCLException;
 
     /*
@@ -269,6 +279,16 @@ public class OCLCommandQueue extends TornadoLogger {
         return -1;
     }
 
+    public long enqueueWrite(long devicePtr, boolean blocking, long offset, long bytes, ByteBuffer nativeBuffer, long hostOffset, long[] waitEvents) {
+        guarantee(nativeBuffer != null && nativeBuffer.isDirect(), "native buffer is not direct");
+        try {
+            return writeArrayToDevice(commandQueue, nativeBuffer, hostOffset, blocking, offset, bytes, devicePtr, waitEvents);
+        } catch (OCLException e) {
+            error(e.getMessage());
+        }
+        return -1;
+    }
+
     public long enqueueRead(long devicePtr, boolean blocking, long offset, long bytes, byte[] array, long hostOffset, long[] waitEvents) {
         guarantee(array != null, "null array");
         try {
@@ -339,6 +359,16 @@ public class OCLCommandQueue extends TornadoLogger {
         return -1;
     }
 
+    public long enqueueRead(long devicePtr, boolean blocking, long offset, long bytes, ByteBuffer nativeBuffer, long hostOffset, long[] waitEvents) {
+        guarantee(nativeBuffer != null && nativeBuffer.isDirect(), "native buffer is not direct");
+        try {
+            return readArrayFromDevice(commandQueue, nativeBuffer, hostOffset, blocking, offset, bytes, devicePtr, waitEvents);
+        } catch (OCLException e) {
+            error(e.getMessage());
+        }
+        return -1;
+    }
+
     public void finish() {
         try {
             clFinish(commandQueue);
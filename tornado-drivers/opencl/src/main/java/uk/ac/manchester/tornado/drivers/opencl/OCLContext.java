@@ -34,11 +34,14 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.ENABLE_PROFILING;
 import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DUMP_EVENTS;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.drivers.opencl.enums.OCLBufferCreateType;
 import uk.ac.manchester.tornado.drivers.opencl.exceptions.OCLException;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
@@ -50,6 +53,7 @@ public class OCLContext implements OCLExecutionEnvironment {
     private final List<OCLTargetDevice> devices;
     private final List<OCLDeviceContext> deviceContexts;
     private final OCLCommandQueue[] queues;
+    private final List<OCLCommandQueue> additionalQueues;
     private final List<OCLProgram> programs;
     private final OCLPlatform platform;
 
@@ -59,7 +63,8 @@ public class OCLContext implements OCLExecutionEnvironment {
         this.devices = devices;
         this.deviceContexts = new ArrayList<>(devices.size());
         this.queues = new OCLCommandQueue[devices.size()];
-        this.programs = new ArrayList<>();
+        this.additionalQueues = new ArrayList<>();
+        this.programs = Collections.synchronizedList(new ArrayList<>());
     }
 
     static native void clReleaseContext(long id) throws OCLException;
@@ -99,7 +104,7 @@ public class OCLContext implements OCLExecutionEnvironment {
         return queues;
     }
 
-    public void createCommandQueue(int index, long properties) {
+    private OCLCommandQueue newCommandQueue(int index, long properties) {
         OCLTargetDevice device = devices.get(index);
         long queueId;
         try {
@@ -110,13 +115,21 @@ public class OCLContext implements OCLExecutionEnvironment {
             TornadoLogger.info("platform: version=%s (%s) on %s", platformVersion, platform.getVersion(), device.getDeviceName());
             TornadoLogger.info("device  : version=%s (%s) on %s", deviceVersion, device.getVersion(), device.getDeviceName());
 
-            queues[index] = new OCLCommandQueue(queueId, properties, deviceVersion);
+            return new OCLCommandQueue(queueId, properties, deviceVersion);
         } catch (OCLException e) {
             TornadoLogger.error(e.getMessage());
         }
+        return null;
     }
 
-    public void createCommandQueue(int index) {
+    public void createCommandQueue(int index, long properties) {
+        OCLCommandQueue queue = newCommandQueue(index, properties);
+        if (queue != null) {
+            queues[index] = queue;
+        }
+    }
+
+    private long defaultQueueProperties() {
         long properties = 0;
         if (ENABLE_PROFILING) {
             properties |= CL_QUEUE_PROFILING_ENABLE;
@@ -125,7 +138,29 @@ public class OCLContext implements OCLExecutionEnvironment {
         if (ENABLE_OOO_EXECUTION) {
             properties |= CL_QUEUE_OUT_OF_ORDER_EXEC_MODE_ENABLE;
         }
-        createCommandQueue(index, properties);
+        return properties;
+    }
+
+    public void createCommandQueue(int index) {
+        createCommandQueue(index, defaultQueueProperties());
+    }
+
+    /**
+     * Creates an additional command queue for a device. These queues are used to
+     * execute task-graphs concurrently from different threads, and they are
+     * released with the context.
+     *
+     * @param index
+     *            Index of the device in the context.
+     * @return {@link OCLCommandQueue}
+     */
+    public synchronized OCLCommandQueue createAdditionalCommandQueue(int index) {
+        OCLCommandQueue queue = newCommandQueue(index, defaultQueueProperties());
+        if (queue == null) {
+            throw new TornadoRuntimeException("Unable to create a command queue for device " + devices.get(index).getDeviceName());
+        }
+        additionalQueues.add(queue);
+        return queue;
     }
 
     public void createAllCommandQueues(long properties) {
@@ -204,6 +239,9 @@ public class OCLContext implements OCLExecutionEnvironment {
                     queue.cleanup();
                 }
             }
+            for (OCLCommandQueue queue : additionalQueues) {
+                queue.cleanup();
+            }
 
             long t2 = System.nanoTime();
             clReleaseContext(contextID);
@@ -274,6 +312,36 @@ public class OCLContext implements OCLExecutionEnvironment {
         return null;
     }
 
+    /**
+     * Creates a sub-buffer that covers a region of an existing buffer.
+     *
+     * @param bufferId
+     *            Parent buffer.
+     * @param flags
+     *            Memory flags for the sub-buffer.
+     * @param offset
+     *            Origin of the region. It must be aligned to the base address
+     *            alignment of the device.
+     * @param bytes
+     *            Size of the region.
+     * @return The sub-buffer, or -1 if it could not be created.
+     */
+    public long createSubBuffer(long bufferId, long flags, long offset, long bytes) {
+        // cl_buffer_region {size_t origin; size_t size;}
+        final ByteBuffer region = ByteBuffer.allocate(2 * Long.BYTES);
+        region.order(ByteOrder.nativeOrder());
+        region.putLong(offset);
+        region.putLong(bytes);
+        try {
+            final long subBuffer = createSubBuffer(bufferId, flags, OCLBufferCreateType.CL_BUFFER_CREATE_TYPE_REGION.getValue(), region.array());
+            TornadoLogger.info("sub-buffer allocated %s @ 0x%x (parent=0x%x, offset=%d)", RuntimeUtilities.humanReadableByteCount(bytes, false), subBuffer, bufferId, offset);
+            return subBuffer;
+        } catch (OCLException e) {
+            TornadoLogger.error(e.getMessage());
+        }
+        return -1;
+    }
+
     public void releaseBuffer(long bufferId) {
         try {
             clReleaseMemObject(bufferId);
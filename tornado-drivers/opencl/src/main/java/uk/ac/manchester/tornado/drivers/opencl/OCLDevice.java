@@ -168,6 +168,7 @@ public class OCLDevice implements OCLTargetDevice {
         return deviceVendorID;
     }
 
+    @Override
     public int getDeviceMemoryBaseAlignment() {
         if (deviceMemoryBaseAligment != INIT_VALUE) {
             return deviceMemoryBaseAligment;
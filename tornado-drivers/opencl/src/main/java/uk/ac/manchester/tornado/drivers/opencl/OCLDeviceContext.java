@@ -30,7 +30,10 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.EVENT_WINDOW;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.USE_SYNC_FLUSH;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -47,6 +50,7 @@ import uk.ac.manchester.tornado.drivers.opencl.mm.OCLMemoryManager;
 import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLBufferProvider;
 import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextInterface {
@@ -56,12 +60,25 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
     private static final String[] BUMP_DEVICES = parseDevices(getProperty("tornado.opencl.bump.devices", "Iris Pro"));
 
     private final OCLTargetDevice device;
-    private final OCLCommandQueue queue;
+    private final OCLCommandQueue defaultQueue;
     private final OCLContext context;
     private final OCLMemoryManager memoryManager;
     private final long bumpBuffer;
     private final OCLCodeCache codeCache;
-    private final OCLEventPool oclEventPool;
+    private final OCLEventPool defaultEventPool;
+
+    private final ExecutionStream defaultStream;
+
+    /**
+     * Command queue and event window used by each host thread when
+     * {@link TornadoOptions#CONCURRENT_EXECUTION} is enabled. The first thread
+     * uses the default queue of the device. The stream of a thread that has ended
+     * is handed to the next thread that needs one, so the number of queues is
+     * bounded by the number of live threads that use the device.
+     */
+    private final ThreadLocal<ExecutionStream> executionStreams;
+    private final List<ExecutionStream> allExecutionStreams;
+
     private boolean needsBump;
     private boolean wasReset;
     private boolean printOnce = true;
@@ -70,12 +87,15 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
 
     protected OCLDeviceContext(OCLTargetDevice device, OCLCommandQueue queue, OCLContext context) {
         this.device = device;
-        this.queue = queue;
+        this.defaultQueue = queue;
         this.context = context;
         this.memoryManager = new OCLMemoryManager(this);
         this.codeCache = new OCLCodeCache(this);
 
-        this.oclEventPool = new OCLEventPool(EVENT_WINDOW);
+        this.defaultEventPool = new OCLEventPool(EVENT_WINDOW);
+        this.defaultStream = new ExecutionStream(defaultQueue, defaultEventPool);
+        this.allExecutionStreams = new ArrayList<>();
+        this.executionStreams = TornadoOptions.CONCURRENT_EXECUTION ? ThreadLocal.withInitial(this::createExecutionStream) : null;
 
         needsBump = false;
         for (String bumpDevice : BUMP_DEVICES) {
@@ -96,6 +116,74 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
         this.device.setDeviceContext(this);
     }
 
+    private static final class ExecutionStream {
+        private final OCLCommandQueue queue;
+        private final OCLEventPool eventPool;
+        private WeakReference<Thread> owner;
+
+        ExecutionStream(OCLCommandQueue queue, OCLEventPool eventPool) {
+            this.queue = queue;
+            this.eventPool = eventPool;
+        }
+
+        boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+
+    private ExecutionStream createExecutionStream() {
+        synchronized (allExecutionStreams) {
+            ExecutionStream stream = null;
+            for (ExecutionStream candidate : allExecutionStreams) {
+                if (!candidate.isOwnerAlive()) {
+                    // The thread that used it has ended, so only its last commands can be pending
+                    candidate.queue.finish();
+                    candidate.eventPool.reset();
+                    stream = candidate;
+                    break;
+                }
+            }
+            if (stream == null) {
+                if (allExecutionStreams.isEmpty()) {
+                    stream = defaultStream;
+                } else {
+                    stream = new ExecutionStream(context.createAdditionalCommandQueue(device.getIndex()), new OCLEventPool(EVENT_WINDOW));
+                    info("created additional command queue for device %s", device.getDeviceName());
+                }
+                allExecutionStreams.add(stream);
+            }
+            stream.owner = new WeakReference<>(Thread.currentThread());
+            return stream;
+        }
+    }
+
+    /**
+     * Waits for the commands enqueued by all host threads. It is used before
+     * releasing buffers that other threads may still use.
+     */
+    @Override
+    public void syncAllStreams() {
+        if (executionStreams == null) {
+            sync();
+            return;
+        }
+        synchronized (allExecutionStreams) {
+            for (ExecutionStream stream : allExecutionStreams) {
+                stream.queue.finish();
+            }
+        }
+    }
+
+    /**
+     * Returns the command queue and event window of the calling thread. Callers
+     * look it up once per operation, since it is a thread-local lookup under
+     * concurrent execution.
+     */
+    private ExecutionStream getExecutionStream() {
+        return (executionStreams == null) ? defaultStream : executionStreams.get();
+    }
+
     private static String[] parseDevices(String str) {
         return str.split(";");
     }
@@ -144,10 +232,11 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
 
     @Override
     public void sync() {
+        final ExecutionStream stream = getExecutionStream();
         if (USE_SYNC_FLUSH) {
-            queue.flush();
+            stream.queue.flush();
         }
-        queue.finish();
+        stream.queue.finish();
     }
 
     @Override
@@ -157,14 +246,16 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
 
     @Override
     public int enqueueBarrier() {
-        long oclEvent = queue.enqueueBarrier();
-        return (queue.getOpenclVersion() < 120) ? -1 : oclEventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_BARRIER, queue);
+        final ExecutionStream stream = getExecutionStream();
+        long oclEvent = stream.queue.enqueueBarrier();
+        return (stream.queue.getOpenclVersion() < 120) ? -1 : stream.eventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_BARRIER, stream.queue);
     }
 
     @Override
     public int enqueueMarker() {
-        long oclEvent = queue.enqueueMarker();
-        return queue.getOpenclVersion() < 120 ? -1 : oclEventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_MARKER, queue);
+        final ExecutionStream stream = getExecutionStream();
+        long oclEvent = stream.queue.enqueueMarker();
+        return stream.queue.getOpenclVersion() < 120 ? -1 : stream.eventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_MARKER, stream.queue);
     }
 
     @Override
@@ -183,9 +274,10 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
     }
 
     public int enqueueNDRangeKernel(OCLKernel kernel, int dim, long[] globalWorkOffset, long[] globalWorkSize, long[] localWorkSize, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueNDRangeKernel(kernel, dim, globalWorkOffset, globalWorkSize, localWorkSize, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_PARALLEL_KERNEL, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueNDRangeKernel(kernel, dim, globalWorkOffset, globalWorkSize, localWorkSize, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_PARALLEL_KERNEL, stream.queue);
     }
 
     public ByteOrder getByteOrder() {
@@ -196,45 +288,59 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
      * Asynchronous writes to device
      */
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, stream.queue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, stream.queue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_INT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_INT, stream.queue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_LONG, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_LONG, stream.queue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_SHORT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_SHORT, stream.queue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_FLOAT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_FLOAT, stream.queue);
     }
 
     public int enqueueWriteBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_DOUBLE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_DOUBLE, stream.queue);
+    }
+
+    public int enqueueWriteBuffer(long bufferId, long offset, long bytes, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.FALSE, offset, bytes, nativeBuffer, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, stream.queue);
     }
 
     /*
@@ -242,150 +348,202 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
      *
      */
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, stream.queue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, stream.queue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_INT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_INT, stream.queue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_LONG, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_LONG, stream.queue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_FLOAT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_FLOAT, stream.queue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_DOUBLE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_DOUBLE, stream.queue);
     }
 
     public int enqueueReadBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_SHORT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_SHORT, stream.queue);
+    }
+
+    public int enqueueReadBuffer(long bufferId, long offset, long bytes, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.FALSE, offset, bytes, nativeBuffer, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, stream.queue);
     }
 
     /*
      * Synchronous writes to device
      */
     public void writeBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, stream.queue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, stream.queue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_INT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_INT, stream.queue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_LONG, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_LONG, stream.queue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_SHORT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_SHORT, stream.queue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_FLOAT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_FLOAT, stream.queue);
     }
 
     public void writeBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
-        oclEventPool.registerEvent(
-                queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_WRITE_DOUBLE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_DOUBLE, stream.queue);
+    }
+
+    public void writeBuffer(long bufferId, long offset, long bytes, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.registerEvent(
+                stream.queue.enqueueWrite(bufferId, OpenCLBlocking.TRUE, offset, bytes, nativeBuffer, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_WRITE_BYTE, stream.queue);
     }
 
     /*
      * Synchronous reads from device
      */
     public int readBuffer(long bufferId, long offset, long bytes, byte[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, stream.queue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, char[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_BYTE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, stream.queue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, int[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_INT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_INT, stream.queue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, long[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_LONG, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_LONG, stream.queue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, float[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_FLOAT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_FLOAT, stream.queue);
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, double[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_DOUBLE, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_DOUBLE, stream.queue);
 
     }
 
     public int readBuffer(long bufferId, long offset, long bytes, short[] array, long hostOffset, int[] waitEvents) {
-        return oclEventPool.registerEvent(
-                queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, oclEventPool.serialiseEvents(waitEvents, queue) ? oclEventPool.waitEventsBuffer : null),
-                EventDescriptor.DESC_READ_SHORT, queue);
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, array, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_SHORT, stream.queue);
+    }
+
+    public int readBuffer(long bufferId, long offset, long bytes, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        final ExecutionStream stream = getExecutionStream();
+        return stream.eventPool.registerEvent(
+                stream.queue.enqueueRead(bufferId, OpenCLBlocking.TRUE, offset, bytes, nativeBuffer, hostOffset, stream.eventPool.serialiseEvents(waitEvents, stream.queue) ? stream.eventPool.waitEventsBuffer : null),
+                EventDescriptor.DESC_READ_BYTE, stream.queue);
     }
 
     public int enqueueBarrier(int[] events) {
-        long oclEvent = queue.enqueueBarrier(oclEventPool.serialiseEvents(events, queue) ? oclEventPool.waitEventsBuffer : null);
-        return queue.getOpenclVersion() < 120 ? -1 : oclEventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_BARRIER, queue);
+        final ExecutionStream stream = getExecutionStream();
+        long oclEvent = stream.queue.enqueueBarrier(stream.eventPool.serialiseEvents(events, stream.queue) ? stream.eventPool.waitEventsBuffer : null);
+        return stream.queue.getOpenclVersion() < 120 ? -1 : stream.eventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_BARRIER, stream.queue);
     }
 
     public int enqueueMarker(int[] events) {
-        long oclEvent = queue.enqueueMarker(oclEventPool.serialiseEvents(events, queue) ? oclEventPool.waitEventsBuffer : null);
-        return queue.getOpenclVersion() < 120 ? -1 : oclEventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_MARKER, queue);
+        final ExecutionStream stream = getExecutionStream();
+        long oclEvent = stream.queue.enqueueMarker(stream.eventPool.serialiseEvents(events, stream.queue) ? stream.eventPool.waitEventsBuffer : null);
+        return stream.queue.getOpenclVersion() < 120 ? -1 : stream.eventPool.registerEvent(oclEvent, EventDescriptor.DESC_SYNC_MARKER, stream.queue);
     }
 
     public void reset() {
-        oclEventPool.reset();
+        if (executionStreams == null) {
+            defaultEventPool.reset();
+        } else {
+            synchronized (allExecutionStreams) {
+                for (ExecutionStream stream : allExecutionStreams) {
+                    stream.eventPool.reset();
+                }
+            }
+        }
         codeCache.reset();
         wasReset = true;
     }
@@ -399,7 +557,8 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
     }
 
     public void dumpEvents() {
-        List<OCLEvent> events = oclEventPool.getEvents();
+        final ExecutionStream stream = getExecutionStream();
+        List<OCLEvent> events = stream.eventPool.getEvents();
 
         final String deviceName = "Opencl-" + context.getPlatformIndex() + "-" + device.getIndex();
         System.out.printf("Found %d events on device %s:\n", events.size(), deviceName);
@@ -455,26 +614,31 @@ public class OCLDeviceContext extends TornadoLogger implements OCLDeviceContextI
     }
 
     public void retainEvent(int localEventId) {
-        oclEventPool.retainEvent(localEventId);
+        final ExecutionStream stream = getExecutionStream();
+        stream.eventPool.retainEvent(localEventId);
     }
 
     public Event resolveEvent(int event) {
+        final ExecutionStream stream = getExecutionStream();
         if (event == -1) {
             return EMPTY_EVENT;
         }
-        return new OCLEvent(oclEventPool.getDescriptor(event).getNameDescription(), queue, event, oclEventPool.getOCLEvent(event));
+        return new OCLEvent(stream.eventPool.getDescriptor(event).getNameDescription(), stream.queue, event, stream.eventPool.getOCLEvent(event));
     }
 
     public void flush() {
-        queue.flush();
+        final ExecutionStream stream = getExecutionStream();
+        stream.queue.flush();
     }
 
     public void finish() {
-        queue.finish();
+        final ExecutionStream stream = getExecutionStream();
+        stream.queue.finish();
     }
 
     public void flushEvents() {
-        queue.flushEvents();
+        final ExecutionStream stream = getExecutionStream();
+        stream.queue.flushEvents();
     }
 
     public boolean isKernelAvailable() {
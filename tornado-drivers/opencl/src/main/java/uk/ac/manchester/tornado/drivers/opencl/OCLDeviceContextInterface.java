@@ -64,6 +64,8 @@ public interface OCLDeviceContextInterface extends TornadoDeviceContext {
 
     void sync();
 
+    void syncAllStreams();
+
     int enqueueBarrier();
 
     int enqueueBarrier(int[] events);
@@ -25,6 +25,7 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl;
 
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class OCLGPUScheduler extends OCLKernelScheduler {
@@ -32,9 +33,6 @@ public class OCLGPUScheduler extends OCLKernelScheduler {
     private long maxComputeUnits;
     private long[] maxWorkGroupSize;
 
-    private static final int WARP_SIZE = 32;
-    private boolean ADJUST_IRREGULAR = false;
-
     private final long[] maxWorkItemSizes;
 
     public OCLGPUScheduler(final OCLDeviceContext context) {
@@ -49,16 +47,24 @@ public class OCLGPUScheduler extends OCLKernelScheduler {
     @Override
     public void calculateGlobalWork(final TaskMetaData meta, long batchThreads) {
         final long[] globalWork = meta.getGlobalWork();
+        final boolean padding = GlobalWorkPadding.isEnabled(meta);
+        final long[] effectiveMaxWorkItemSizes = calculateEffectiveMaxWorkItemSizes(meta);
 
         for (int i = 0; i < meta.getDims(); i++) {
             long value = (batchThreads <= 0) ? (long) (meta.getDomain().get(i).cardinality()) : batchThreads;
-            if (ADJUST_IRREGULAR && (value % WARP_SIZE != 0)) {
-                value = ((value / WARP_SIZE) + 1) * WARP_SIZE;
+            // The local work of the third dimension is always 1
+            if (padding && i < 2) {
+                value = GlobalWorkPadding.padGlobalWork(value, Math.min(effectiveMaxWorkItemSizes[i], maxWorkGroupSize[0]), meta.getDims());
             }
             globalWork[i] = value;
         }
     }
 
+    @Override
+    protected boolean isTunable() {
+        return true;
+    }
+
     @Override
     public void calculateLocalWork(final TaskMetaData meta) {
         final long[] localWork = meta.initLocalWork();
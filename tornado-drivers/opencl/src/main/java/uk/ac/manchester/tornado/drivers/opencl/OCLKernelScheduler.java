@@ -29,7 +29,9 @@ import java.util.Arrays;
 import uk.ac.manchester.tornado.api.WorkerGrid;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.WorkGroupTuner;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public abstract class OCLKernelScheduler {
@@ -52,6 +54,23 @@ public abstract class OCLKernelScheduler {
 
     public abstract void calculateLocalWork(final TaskMetaData meta);
 
+    /**
+     * The work-groups of kernels tiled through local memory are square tiles,
+     * since every thread of a work-group stages a part of the tiles. The global
+     * work is rounded up to a multiple of the tile: the extra threads take part
+     * in the staging, but skip the bounds-guarded loops.
+     */
+    private void calculateTiledWork(final TaskMetaData meta) {
+        final long[] globalWork = meta.getGlobalWork();
+        final long[] localWork = meta.initLocalWork();
+        final int tileSize = meta.getTileSize();
+        for (int i = 0; i < meta.getDims(); i++) {
+            final long value = meta.getDomain().get(i).cardinality();
+            globalWork[i] = ((value + tileSize - 1) / tileSize) * tileSize;
+            localWork[i] = tileSize;
+        }
+    }
+
     public int submit(final OCLKernel kernel, final TaskMetaData meta, long batchThreads) {
         return submit(kernel, meta, null, batchThreads);
     }
@@ -78,10 +97,14 @@ public abstract class OCLKernelScheduler {
             long[] global = grid.getGlobalWork();
             long[] offset = grid.getGlobalOffset();
             long[] local = grid.getLocalWork();
+            if (local != null && !deviceContext.isPlatformFPGA() && GlobalWorkPadding.isEnabled(meta)) {
+                global = GlobalWorkPadding.padToLocalWork(global, local, grid.dimension());
+            }
             return deviceContext.enqueueNDRangeKernel(kernel, grid.dimension(), offset, global, local, waitEvents);
         } else {
-            return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), (meta.shouldUseOpenCLDriverScheduling() ? null : meta.getLocalWork()),
-                    waitEvents);
+            // Tiled kernels depend on the size of their work-groups
+            final long[] local = (meta.shouldUseOpenCLDriverScheduling() && meta.getTileSize() == 0) ? null : meta.getLocalWork();
+            return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), local, waitEvents);
         }
     }
 
@@ -114,13 +137,68 @@ public abstract class OCLKernelScheduler {
         }
     }
 
+    /**
+     * @return true if the work sizes of the scheduler can be replaced by the
+     *         ones of the {@link WorkGroupTuner}.
+     */
+    protected boolean isTunable() {
+        return false;
+    }
+
+    private boolean shouldTune(final TaskMetaData meta) {
+        return TornadoOptions.TUNING_ENABLE && isTunable() && !meta.shouldUseOpenCLDriverScheduling() && meta.getLocalWork() != null;
+    }
+
+    /**
+     * @return the iteration space of the task, before the global work is padded.
+     */
+    private long[] getIterationSpace(final TaskMetaData meta, long batchThreads) {
+        if (meta.isGlobalWorkDefined()) {
+            return meta.getGlobalWork().clone();
+        }
+        final long[] iterationSpace = { 1, 1, 1 };
+        for (int i = 0; i < meta.getDims(); i++) {
+            iterationSpace[i] = (batchThreads <= 0) ? meta.getDomain().get(i).cardinality() : batchThreads;
+        }
+        return iterationSpace;
+    }
+
+    /**
+     * Replaces the global and local work sizes of the task with the tuned ones,
+     * or with the next candidate of the search when the task is still being
+     * tuned. Kernels whose global work can be padded also try work-group sizes
+     * that do not divide their iteration space.
+     *
+     * @return the configuration to report the time of the execution with.
+     */
+    private WorkGroupTuner.Configuration selectTunedWork(final String key, final TaskMetaData meta, final long[] iterationSpace) {
+        final OCLTargetDevice device = deviceContext.getDevice();
+        final boolean padding = GlobalWorkPadding.isEnabled(meta) && !meta.isGlobalWorkDefined();
+        final WorkGroupTuner.Configuration defaultConfiguration = new WorkGroupTuner.Configuration(meta.getGlobalWork(), meta.getLocalWork());
+        final WorkGroupTuner.Configuration configuration = WorkGroupTuner.getInstance().getConfiguration(key, () -> WorkGroupTuner.generateCandidates(iterationSpace, defaultConfiguration,
+                meta.getDims(), device.getDeviceMaxWorkItemSizes(), device.getDeviceMaxWorkGroupSize()[0], TornadoOptions.TUNING_MAX_CANDIDATES, padding));
+        final WorkGroupTuner.Configuration fitted = WorkGroupTuner.fitToIterationSpace(configuration, iterationSpace, meta.getDims(), padding);
+        System.arraycopy(fitted.getGlobalWork(), 0, meta.getGlobalWork(), 0, meta.getDims());
+        System.arraycopy(fitted.getLocalWork(), 0, meta.getLocalWork(), 0, meta.getDims());
+        return configuration;
+    }
+
     public int submit(final OCLKernel kernel, final TaskMetaData meta, final int[] waitEvents, long batchThreads) {
+        String tuningKey = null;
+        WorkGroupTuner.Configuration tuningConfiguration = null;
         if (!meta.isWorkerGridAvailable()) {
-            if (!meta.isGlobalWorkDefined()) {
+            if (meta.getTileSize() > 0) {
+                calculateTiledWork(meta);
+            } else if (!meta.isGlobalWorkDefined()) {
                 calculateGlobalWork(meta, batchThreads);
             }
-            if (!meta.isLocalWorkDefined()) {
+            if (!meta.isLocalWorkDefined() && meta.getTileSize() == 0) {
                 calculateLocalWork(meta);
+                if (shouldTune(meta)) {
+                    final long[] iterationSpace = getIterationSpace(meta, batchThreads);
+                    tuningKey = WorkGroupTuner.getKey(deviceContext.getDevice().getDeviceName(), meta.getId() + "." + kernel.getName(), iterationSpace, meta.getDims());
+                    tuningConfiguration = selectTunedWork(tuningKey, meta, iterationSpace);
+                }
             }
         } else {
             checkLocalWorkGroupFitsOnDevice(meta);
@@ -131,6 +209,11 @@ public abstract class OCLKernelScheduler {
         }
         final int taskEvent = launch(kernel, meta, waitEvents, batchThreads);
         updateProfiler(taskEvent, meta);
+        if (tuningKey != null && WorkGroupTuner.getInstance().isTuning(tuningKey)) {
+            Event kernelEvent = deviceContext.resolveEvent(taskEvent);
+            kernelEvent.waitForEvents();
+            WorkGroupTuner.getInstance().report(tuningKey, tuningConfiguration, kernelEvent.getElapsedTime());
+        }
         return taskEvent;
     }
 
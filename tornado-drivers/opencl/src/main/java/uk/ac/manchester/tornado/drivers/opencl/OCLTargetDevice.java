@@ -54,6 +54,12 @@ public interface OCLTargetDevice extends TornadoTargetDevice {
 
     boolean isLittleEndian();
 
+    /**
+     * @return Alignment, in bits, of the base address of sub-buffers
+     *         (CL_DEVICE_MEM_BASE_ADDR_ALIGN).
+     */
+    int getDeviceMemoryBaseAlignment();
+
     OCLDeviceContextInterface getDeviceContext();
 
     void setDeviceContext(OCLDeviceContextInterface deviceContext);
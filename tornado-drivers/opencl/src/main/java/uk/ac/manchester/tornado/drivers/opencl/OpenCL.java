@@ -204,7 +204,7 @@ public class OpenCL {
 
         // Pass arguments to the call callWrapper
         for (int i = 0; i < numArgs; i++) {
-            callWrapper.addCallArgument(states.get(i).getObjectBuffer().toBuffer(), true);
+            callWrapper.getCallArguments().putPointer(states.get(i).getObjectBuffer().toBuffer());
         }
 
         // Run the code
@@ -24,13 +24,12 @@
 package uk.ac.manchester.tornado.drivers.opencl.graal;
 
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guarantee;
-import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
-import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.isBoxedPrimitive;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.DEBUG;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.debug;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import jdk.vm.ci.code.InstalledCode;
 import jdk.vm.ci.code.InvalidInstalledCodeException;
@@ -39,7 +38,6 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
-import uk.ac.manchester.tornado.drivers.common.mm.PrimitiveSerialiser;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLGPUScheduler;
 import uk.ac.manchester.tornado.drivers.opencl.OCLKernel;
@@ -49,6 +47,7 @@ import uk.ac.manchester.tornado.drivers.opencl.OCLScheduler;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLByteBuffer;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLKernelArgs;
 import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -71,6 +70,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
     private final boolean isSPIRVBinary;
     private boolean valid;
 
+    private CallArguments.Kind[] argKinds = new CallArguments.Kind[0];
+    private long[] argValues = new long[0];
+
     public OCLInstalledCode(final String entryPoint, final byte[] code, final OCLDeviceContext deviceContext, final OCLProgram program, final OCLKernel kernel, boolean isSPIRVBinary) {
         super(entryPoint);
         this.code = code;
@@ -152,36 +154,23 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         int index = 0;
 
         if (deviceContext.needsBump()) {
-            buffer.clear();
-            buffer.putLong(deviceContext.getBumpBuffer());
-            kernel.setArg(index, buffer);
+            setPointerArg(index, deviceContext.getBumpBuffer());
             index++;
         }
 
         // kernel context
-        buffer.clear();
-        buffer.putLong(kernelArgs.toBuffer());
-        kernel.setArg(index, buffer);
+        setPointerArg(index, kernelArgs.toBuffer());
         index++;
 
+        final CallArguments callArguments = kernelArgs.getCallArguments();
         if (isSPIRVBinary) {
             // Set the rest of the SPIR-V kernel arguments.
-            for (int i = 0, argIndex = 0; i < kernelArgs.getCallArguments().size(); i++) {
-                KernelArgs.CallArgument arg = kernelArgs.getCallArguments().get(i);
+            for (int i = 0, argIndex = 0; i < callArguments.size(); i++) {
                 // Include the extra kernel context argument for SPIR-V binaries.
-                if (arg.getValue() instanceof KernelArgs.KernelContextArgument) {
-                    buffer.clear();
-                    buffer.putLong(kernelArgs.toBuffer());
-                    kernel.setArg(index + argIndex, buffer);
-                    argIndex++;
-                    continue;
-                }
-                if (isBoxedPrimitive(arg.getValue()) || arg.getValue().getClass().isPrimitive()) {
-                    buffer.clear();
-                    PrimitiveSerialiser.put(buffer, arg.getValue());
-                    kernel.setArg(index + argIndex, buffer);
+                if (callArguments.isKernelContext(i)) {
+                    setPointerArg(index + argIndex, kernelArgs.toBuffer());
                 } else {
-                    shouldNotReachHere();
+                    setCallArg(index + argIndex, callArguments, i);
                 }
                 argIndex++;
             }
@@ -191,10 +180,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         // constant memory
         if (meta != null && meta.getConstantSize() > 0) {
             kernel.setArg(index, ByteBuffer.wrap(meta.getConstantData()));
+            invalidateArg(index);
         } else {
-            buffer.clear();
-            buffer.putLong(kernelArgs.toConstantAddress());
-            kernel.setArg(index, buffer);
+            setPointerArg(index, kernelArgs.toConstantAddress());
         }
         index++;
 
@@ -205,31 +193,65 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         } else {
             kernel.setArgUnused(index);
         }
+        invalidateArg(index);
         index++;
 
         // Atomics in Global Memory
-        buffer.clear();
-        buffer.putLong(kernelArgs.toAtomicAddress());
-        kernel.setArg(index, buffer);
+        setPointerArg(index, kernelArgs.toAtomicAddress());
         index++;
 
         // Parameters
-        for (int i = 0, argIndex = 0; i < kernelArgs.getCallArguments().size(); i++) {
-            KernelArgs.CallArgument arg = kernelArgs.getCallArguments().get(i);
-            if (arg.getValue() instanceof KernelArgs.KernelContextArgument) {
+        for (int i = 0, argIndex = 0; i < callArguments.size(); i++) {
+            if (callArguments.isKernelContext(i)) {
                 continue;
             }
-            if (isBoxedPrimitive(arg.getValue()) || arg.getValue().getClass().isPrimitive()) {
-                buffer.clear();
-                PrimitiveSerialiser.put(buffer, arg.getValue());
-                kernel.setArg(index + argIndex, buffer);
-            } else {
-                shouldNotReachHere();
-            }
+            setCallArg(index + argIndex, callArguments, i);
             argIndex++;
         }
     }
 
+    /**
+     * OpenCL keeps the arguments of a kernel between launches, so an argument is
+     * only set if it changed since the last launch of this kernel.
+     *
+     * @return true if the argument already holds the value.
+     */
+    private boolean isArgSet(int index, CallArguments.Kind kind, long value) {
+        if (index >= argKinds.length) {
+            int length = Math.max(index + 1, argKinds.length * 2);
+            argKinds = Arrays.copyOf(argKinds, length);
+            argValues = Arrays.copyOf(argValues, length);
+        }
+        if (argKinds[index] == kind && argValues[index] == value) {
+            return true;
+        }
+        argKinds[index] = kind;
+        argValues[index] = value;
+        return false;
+    }
+
+    private void invalidateArg(int index) {
+        if (index < argKinds.length) {
+            argKinds[index] = null;
+        }
+    }
+
+    private void setPointerArg(int index, long address) {
+        if (!isArgSet(index, CallArguments.Kind.POINTER, address)) {
+            buffer.clear();
+            buffer.putLong(address);
+            kernel.setArg(index, buffer);
+        }
+    }
+
+    private void setCallArg(int index, CallArguments callArguments, int argument) {
+        if (!isArgSet(index, callArguments.getKind(argument), callArguments.getRawValue(argument))) {
+            buffer.clear();
+            callArguments.write(buffer, argument);
+            kernel.setArg(index, buffer);
+        }
+    }
+
     public int submitWithEvents(final OCLKernelArgs kernelArgs, final ObjectBuffer atomicSpace, final TaskMetaData meta, final int[] events, long batchThreads) {
         guarantee(kernel != null, "kernel is null");
 
@@ -398,12 +420,12 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
     }
 
     @Override
-    public int launchWithDependencies(KernelArgs callWrapper, ObjectBuffer atomicSpace, TaskMetaData meta, long batchThreads, int[] waitEvents) {
+    public synchronized int launchWithDependencies(KernelArgs callWrapper, ObjectBuffer atomicSpace, TaskMetaData meta, long batchThreads, int[] waitEvents) {
         return submitWithEvents((OCLKernelArgs) callWrapper, atomicSpace, meta, waitEvents, batchThreads);
     }
 
     @Override
-    public int launchWithoutDependencies(KernelArgs callWrapper, ObjectBuffer atomicSpace, TaskMetaData meta, long batchThreads) {
+    public synchronized int launchWithoutDependencies(KernelArgs callWrapper, ObjectBuffer atomicSpace, TaskMetaData meta, long batchThreads) {
         submitWithoutEvents((OCLKernelArgs) callWrapper, atomicSpace, meta, batchThreads);
         return -1;
     }
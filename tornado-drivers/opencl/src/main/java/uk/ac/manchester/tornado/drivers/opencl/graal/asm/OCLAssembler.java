@@ -78,6 +78,10 @@ public final class OCLAssembler extends Assembler {
             emitLine("#pragma OPENCL EXTENSION cl_khr_int64_base_atomics : enable  ");
         }
 
+        if (((OCLTargetDescription) target).supportsFP16()) {
+            emitLine("#pragma OPENCL EXTENSION cl_khr_fp16 : enable  ");
+        }
+
         if (EMIT_INTRINSICS) {
             emitAtomicIntrinsics();
         }
@@ -719,6 +723,9 @@ public final class OCLAssembler extends Assembler {
         public static final OCLUnaryTemplate NEW_CHAR_ARRAY = new OCLUnaryTemplate("char[]", "char[%s]");
         public static final OCLUnaryTemplate NEW_SHORT_ARRAY = new OCLUnaryTemplate("short[]", "short[%s]");
 
+        public static final OCLUnaryTemplate HALF_TO_FLOAT = new OCLUnaryTemplate("half to float", "(float) as_half((short) (%s))");
+        public static final OCLUnaryTemplate FLOAT_TO_HALF = new OCLUnaryTemplate("float to half", "as_short((half) (%s))");
+
         // @formatter:on
         private final String template;
 
@@ -95,6 +95,7 @@ import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.graal.TornadoLIRSuites;
 import uk.ac.manchester.tornado.runtime.graal.TornadoSuites;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoCompilerIdentifier;
+import uk.ac.manchester.tornado.runtime.graal.phases.TornadoAutoParalleliser;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoLowTierContext;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoMidTierContext;
@@ -371,6 +372,7 @@ public class OCLCompiler {
 
         final TaskMetaData taskMeta = task.meta();
         final Object[] args = task.getArguments();
+        TornadoAutoParalleliser.serialiseAliasedLoops(kernelGraph, sketch.getDistinctParameters(), args);
         final long batchThreads = (taskMeta.getNumThreads() > 0) ? taskMeta.getNumThreads() : task.getBatchThreads();
         taskMeta.setCompiledGraph(resolvedMethod);
 
@@ -26,13 +26,19 @@ package uk.ac.manchester.tornado.drivers.opencl.graal.lir;
 import org.graalvm.compiler.graph.NodeClass;
 import org.graalvm.compiler.lir.Variable;
 import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.FieldLocationIdentity;
 import org.graalvm.compiler.nodes.NodeView;
 import org.graalvm.compiler.nodes.ParameterNode;
 import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.memory.AddressableMemoryAccess;
 import org.graalvm.compiler.nodes.memory.address.AddressNode;
 import org.graalvm.compiler.nodes.spi.LIRLowerable;
 import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.word.LocationIdentity;
 
+import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.Value;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLArchitecture.OCLMemoryBase;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLStamp;
@@ -79,6 +85,11 @@ public class OCLAddressNode extends AddressNode implements LIRLowerable {
             }
         }
 
+        ValueNode rootParameter = getRootParameter();
+        if (rootParameter != null) {
+            baseValue = tool.getArithmetic().emitAdd(gen.operand(rootParameter), baseValue, false);
+        }
+
         Value indexValue = index == null ? Value.ILLEGAL : gen.operand(index);
         if (index == null) {
             gen.setResult(this, new MemoryAccess(memoryRegister, baseValue));
@@ -87,6 +98,48 @@ public class OCLAddressNode extends AddressNode implements LIRLowerable {
         }
     }
 
+    /**
+     * The rows of multi-dimensional arrays and the arrays held in object fields
+     * are referenced by offsets relative to the buffer of the kernel parameter
+     * (see {@code OCLMultiDimArrayWrapper} and {@code OCLObjectWrapper}).
+     * When the base is a reference loaded from global memory, the parameter it
+     * was loaded from is returned, so its address can be added to the offset.
+     *
+     * @return the parameter, or null if the base is not a loaded reference.
+     */
+    private ValueNode getRootParameter() {
+        if (base == null || !isGlobalMemoryAccess()) {
+            return null;
+        }
+        ValueNode current = GraphUtil.unproxify(base);
+        if (!isReferenceLoad(current)) {
+            return null;
+        }
+        while (isReferenceLoad(current)) {
+            AddressNode address = ((AddressableMemoryAccess) current).getAddress();
+            if (!(address instanceof OCLAddressNode) || !((OCLAddressNode) address).isGlobalMemoryAccess()) {
+                return null;
+            }
+            current = address.getBase() == null ? null : GraphUtil.unproxify(address.getBase());
+        }
+        return (current instanceof ParameterNode) ? current : null;
+    }
+
+    private static boolean isReferenceLoad(ValueNode node) {
+        if (!(node instanceof AddressableMemoryAccess)) {
+            return false;
+        }
+        LocationIdentity location = ((AddressableMemoryAccess) node).getLocationIdentity();
+        if (location instanceof FieldLocationIdentity) {
+            return ((FieldLocationIdentity) location).getField().getJavaKind() == JavaKind.Object;
+        }
+        return location.equals(NamedLocationIdentity.getArrayLocation(JavaKind.Object));
+    }
+
+    private boolean isGlobalMemoryAccess() {
+        return memoryRegister != null && !isLocalMemoryAccess() && !isPrivateMemoryAccess();
+    }
+
     private boolean isLocalMemoryAccess() {
         return this.memoryRegister.getName().equals(OCLAssemblerConstants.LOCAL_REGION_NAME);
     }
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.nodes;
+
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.Variable;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.FloatingNode;
+import org.graalvm.compiler.nodes.spi.Canonicalizable;
+import org.graalvm.compiler.nodes.spi.CanonicalizerTool;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloat;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.drivers.opencl.OCLTargetDescription;
+import uk.ac.manchester.tornado.drivers.opencl.graal.asm.OCLAssembler.OCLUnaryTemplate;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLLIRStmt.AssignStmt;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLUnary;
+
+/**
+ * Conversion between a half-precision value, held in a short, and a float. The
+ * generated code uses the {@code half} type, so the device must expose the
+ * {@code cl_khr_fp16} extension.
+ */
+@NodeInfo(shortName = "HalfFloatConvert")
+public class OCLHalfFloatConvertNode extends FloatingNode implements LIRLowerable, Canonicalizable {
+
+    public static final NodeClass<OCLHalfFloatConvertNode> TYPE = NodeClass.create(OCLHalfFloatConvertNode.class);
+
+    @Input
+    protected ValueNode value;
+    protected final boolean toHalf;
+
+    protected OCLHalfFloatConvertNode(ValueNode value, boolean toHalf) {
+        super(TYPE, StampFactory.forKind(toHalf ? JavaKind.Short : JavaKind.Float));
+        this.value = value;
+        this.toHalf = toHalf;
+    }
+
+    public static ValueNode halfToFloat(ValueNode half) {
+        return new OCLHalfFloatConvertNode(half, false);
+    }
+
+    public static ValueNode floatToHalf(ValueNode value) {
+        return new OCLHalfFloatConvertNode(value, true);
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (value.isJavaConstant()) {
+            if (toHalf) {
+                return ConstantNode.forInt(HalfFloat.floatToHalf(value.asJavaConstant().asFloat()));
+            }
+            return ConstantNode.forFloat(HalfFloat.halfToFloat((short) value.asJavaConstant().asInt()));
+        }
+        return this;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        if (!((OCLTargetDescription) gen.getLIRGeneratorTool().target()).supportsFP16()) {
+            throw new TornadoBailoutRuntimeException("The device does not support cl_khr_fp16");
+        }
+        LIRKind lirKind = gen.getLIRGeneratorTool().getLIRKind(stamp);
+        final Variable result = gen.getLIRGeneratorTool().newVariable(lirKind);
+        OCLUnaryTemplate op = toHalf ? OCLUnaryTemplate.FLOAT_TO_HALF : OCLUnaryTemplate.HALF_TO_FLOAT;
+        gen.getLIRGeneratorTool().append(new AssignStmt(result, new OCLUnary.Expr(op, lirKind, gen.operand(value))));
+        gen.setResult(this, result);
+    }
+}
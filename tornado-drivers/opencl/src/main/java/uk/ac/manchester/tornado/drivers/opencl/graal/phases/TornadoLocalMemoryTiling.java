@@ -0,0 +1,979 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.phases;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.BeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.EndNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.MergeNode;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.ProfileData.BranchProbabilityData;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.AndNode;
+import org.graalvm.compiler.nodes.calc.BinaryNode;
+import org.graalvm.compiler.nodes.calc.IntegerEqualsNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.LeftShiftNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NegateNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.loop.CountedLoopInfo;
+import org.graalvm.compiler.nodes.loop.InductionVariable;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.phases.BasePhase;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.JavaType;
+import jdk.vm.ci.meta.Local;
+import jdk.vm.ci.meta.LocalVariableTable;
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.drivers.opencl.graal.OCLArchitecture;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GroupIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalArrayNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLIntBinaryIntrinsicNode;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoLoopsData;
+import uk.ac.manchester.tornado.runtime.graal.phases.MarkLocalArray;
+import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Stages the arrays that neighbouring threads of a 2D kernel read in common
+ * through local memory.
+ *
+ * <p>
+ * The kernel runs with square work-groups of {@code T x T} threads, and two
+ * shapes of {@code @Parallel} loop-nests are tiled:
+ * <ul>
+ * <li>Stencils, which read an array at the element of the thread and at its
+ * neighbours, e.g. {@code a[(i + di) * n + (j + dj)]}, also through inner loops
+ * with constant bounds or through indices clamped to the borders of the array.
+ * The work-group copies its {@code T x T} elements and their halo to local
+ * memory at the beginning of the kernel.</li>
+ * <li>Matrix multiplications, whose sequential loop {@code k} reads
+ * {@code a[i * n + k]} and {@code b[k * n + j]}. The work-group copies the next
+ * {@code T x T} block of each array every {@code T} iterations of {@code k}, so
+ * the sizes of the three loops must be multiples of {@code T}.</li>
+ * </ul>
+ * Only arrays that the kernel does not write are tiled, and the tiles are
+ * separated from the code that reads them by local barriers.
+ * </p>
+ *
+ * <p>
+ * Tiling is enabled per task with {@code -D<task>.tiling=True}, or for every
+ * task with {@code -Dtornado.tiling=True}, and {@code tiling.size} sets the
+ * largest tile size (16 by default). The tile size is halved while the tiles do
+ * not fit in the local memory of the device or in a work-group, and the kernel
+ * is not tiled when no size fits. The decisions are printed with
+ * {@code -Dtornado.tiling.report=True}.
+ * </p>
+ */
+public class TornadoLocalMemoryTiling extends BasePhase<TornadoHighTierContext> {
+
+    private static final int MIN_TILE_SIZE = 4;
+
+    private static final int MAX_HALO = 8;
+
+    private static final EnumSet<JavaKind> TILED_KINDS = EnumSet.of(JavaKind.Int, JavaKind.Long, JavaKind.Float, JavaKind.Double);
+
+    @Override
+    protected void run(StructuredGraph graph, TornadoHighTierContext context) {
+        if (!context.hasMeta()) {
+            return;
+        }
+        context.getMeta().setTileSize(0);
+        if (!context.getMeta().enableLocalMemoryTiling()) {
+            return;
+        }
+
+        final Map<String, String> decisions = new LinkedHashMap<>();
+        String result = checkKernel(graph, context);
+        if (result == null) {
+            result = new LoopNest(graph, context).tile(decisions);
+        }
+        printReport(graph, result, decisions);
+        getDebugContext().dump(DebugContext.BASIC_LEVEL, graph, "after local memory tiling");
+    }
+
+    /**
+     * @return the reason why the kernel cannot be tiled, or null if its loops
+     *         can be analysed.
+     */
+    private static String checkKernel(StructuredGraph graph, TornadoHighTierContext context) {
+        final TaskMetaData meta = context.getMeta();
+        if (!context.hasArgs()) {
+            return "not tiled: the arguments of the task are unknown";
+        } else if (!meta.enableParallelization() || meta.getLogicDevice().getPreferredSchedule() != TornadoSchedulingStrategy.PER_ITERATION) {
+            return "not tiled: the parallel loops are not scheduled one iteration per thread";
+        } else if (meta.enableThreadCoarsener()) {
+            return "not tiled: the thread coarsener is enabled";
+        } else if (context.isGridSchedulerEnabled() || meta.isGlobalWorkDefined() || meta.isLocalWorkDefined() || meta.shouldUseOpenCLDriverScheduling()) {
+            return "not tiled: the work-groups of the task are set by the user or by the driver";
+        } else if (context.getBatchThreads() > 0 || meta.getNumThreads() > 0) {
+            return "not tiled: the task is executed in batches";
+        } else if (graph.getNodes().filter(StoreAtomicIndexedNode.class).isNotEmpty()) {
+            return "not tiled: the kernel performs a reduction";
+        }
+        for (Node node : graph.getNodes()) {
+            if (node instanceof MarkLocalArray || node instanceof OCLBarrierNode) {
+                return "not tiled: the kernel already uses local memory";
+            }
+        }
+        return null;
+    }
+
+    private static void printReport(StructuredGraph graph, String result, Map<String, String> decisions) {
+        final StringBuilder sb = new StringBuilder("Local-memory tiling of ").append(graph.method().format("%H.%n")).append(": ").append(result);
+        decisions.forEach((name, decision) -> sb.append("\n\t'").append(name).append("': ").append(decision));
+        if (TornadoOptions.PRINT_TILING_REPORT) {
+            System.out.println(sb);
+        } else {
+            info(sb.toString());
+        }
+    }
+
+    private static String nameOf(StructuredGraph graph, ParameterNode parameter) {
+        final LocalVariableTable table = graph.method().getLocalVariableTable();
+        if (table != null) {
+            final JavaType[] types = graph.method().toParameterTypes();
+            int slot = 0;
+            for (int i = 0; i < parameter.index() && i < types.length; i++) {
+                slot += types[i].getJavaKind().getSlotCount();
+            }
+            final Local local = table.getLocal(slot, 0);
+            if (local != null) {
+                return local.getName();
+            }
+        }
+        return "argument " + parameter.index();
+    }
+
+    private static boolean isClamp(ValueNode value) {
+        if (value instanceof OCLIntBinaryIntrinsicNode && value.getStackKind() == JavaKind.Int) {
+            final OCLIntBinaryIntrinsicNode intrinsic = (OCLIntBinaryIntrinsicNode) value;
+            final OCLIntBinaryIntrinsicNode.Operation operation = intrinsic.operation();
+            return (operation == OCLIntBinaryIntrinsicNode.Operation.MIN || operation == OCLIntBinaryIntrinsicNode.Operation.MAX)
+                    && (intrinsic.getX().isConstant() || intrinsic.getY().isConstant());
+        }
+        return false;
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return ((value + multiple - 1) / multiple) * multiple;
+    }
+
+    /**
+     * An index of the form {@code c0 * x0 + c1 * x1 + ... + c}, where the
+     * variables are the indices of the loops or clamped indices.
+     */
+    private static final class Affine {
+        private final Map<ValueNode, Long> terms;
+        private long constant;
+
+        private Affine(long constant) {
+            this.terms = new LinkedHashMap<>();
+            this.constant = constant;
+        }
+
+        private static Affine term(ValueNode variable) {
+            final Affine affine = new Affine(0);
+            affine.terms.put(variable, 1L);
+            return affine;
+        }
+
+        private Affine plus(Affine other, long factor) {
+            final Affine result = times(1);
+            other.terms.forEach((variable, coefficient) -> result.terms.merge(variable, coefficient * factor, Long::sum));
+            result.terms.values().removeIf(coefficient -> coefficient == 0);
+            result.constant += other.constant * factor;
+            return result;
+        }
+
+        private Affine times(long factor) {
+            final Affine result = new Affine(constant * factor);
+            if (factor != 0) {
+                terms.forEach((variable, coefficient) -> result.terms.put(variable, coefficient * factor));
+            }
+            return result;
+        }
+
+        private long coefficient(ValueNode variable) {
+            return terms.getOrDefault(variable, 0L);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Affine && ((Affine) object).terms.equals(terms) && ((Affine) object).constant == constant;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(terms, constant);
+        }
+    }
+
+    /**
+     * A sequential loop nested in the parallel loops, whose index takes values
+     * between two constants.
+     */
+    private static final class InnerLoop {
+        private final LoopEx loop;
+        private final ValuePhiNode index;
+        private final long start;
+        private final long min;
+        private final long max;
+
+        InnerLoop(LoopEx loop, ValuePhiNode index, long start, long min, long max) {
+            this.loop = loop;
+            this.index = index;
+            this.start = start;
+            this.min = min;
+            this.max = max;
+        }
+
+        private long tripCount() {
+            return max - start + 1;
+        }
+    }
+
+    /**
+     * A read of a stencil, {@code a[n * row + column]}. The row is the index of
+     * the outer parallel loop, or an index clamped around it, plus an offset, and
+     * the column is the index of the inner parallel loop in the same way.
+     */
+    private static final class StencilAccess {
+        private final ValueNode[] anchors;
+        private final Affine[] offsets;
+        private final long[] min;
+        private final long[] max;
+
+        StencilAccess() {
+            anchors = new ValueNode[2];
+            offsets = new Affine[] { new Affine(0), new Affine(0) };
+            min = new long[2];
+            max = new long[2];
+        }
+    }
+
+    /**
+     * An array read by the 2D loop-nest, and the way it is tiled.
+     */
+    private static final class TiledArray {
+        private final ParameterNode array;
+        private final String name;
+        private final JavaKind kind;
+        private final int length;
+        private final List<LoadIndexedNode> loads;
+        private final List<Affine> indices;
+
+        private long rowStride;
+        private List<StencilAccess> stencil;
+        private long[] halo;
+
+        private Affine matrixIndex;
+        private InnerLoop reductionLoop;
+        private boolean byRows;
+
+        TiledArray(ParameterNode array, String name, JavaKind kind, int length) {
+            this.array = array;
+            this.name = name;
+            this.kind = kind;
+            this.length = length;
+            this.loads = new ArrayList<>();
+            this.indices = new ArrayList<>();
+        }
+
+        private int rows(int tileSize) {
+            return roundUp(tileSize + (int) (halo[1] - halo[0]), tileSize);
+        }
+
+        private int pitch(int tileSize) {
+            return roundUp(tileSize + (int) (halo[3] - halo[2]), tileSize);
+        }
+
+        private long localMemorySize(int tileSize) {
+            final long elements = (stencil != null) ? (long) rows(tileSize) * pitch(tileSize) : (long) tileSize * tileSize;
+            return elements * kind.getByteCount();
+        }
+    }
+
+    /**
+     * The 2D parallel loop-nest of a kernel.
+     */
+    private static final class LoopNest {
+        private final StructuredGraph graph;
+        private final TornadoHighTierContext context;
+        private final ValuePhiNode[] indices;
+        private final IntegerLessThanNode[] limitTests;
+        private final LoopEx[] loops;
+        private final long[] starts;
+        private final long[] tripCounts;
+        private final Map<ValueNode, InnerLoop> innerLoops;
+        private String tileSizeRejection;
+
+        LoopNest(StructuredGraph graph, TornadoHighTierContext context) {
+            this.graph = graph;
+            this.context = context;
+            this.indices = new ValuePhiNode[2];
+            this.limitTests = new IntegerLessThanNode[2];
+            this.loops = new LoopEx[2];
+            this.starts = new long[2];
+            this.tripCounts = new long[2];
+            this.innerLoops = new HashMap<>();
+        }
+
+        /**
+         * Tiles the arrays of the loop-nest that can be tiled.
+         *
+         * @return the decision for the kernel.
+         */
+        private String tile(Map<String, String> decisions) {
+            String rejection = analyseParallelLoops();
+            if (rejection != null) {
+                return "not tiled: " + rejection;
+            }
+            final List<TiledArray> arrays = new ArrayList<>();
+            rejection = analyseArrays(arrays, decisions);
+            if (rejection != null) {
+                return "not tiled: " + rejection;
+            }
+
+            final List<TiledArray> matrices = new ArrayList<>();
+            final List<TiledArray> stencils = new ArrayList<>();
+            for (TiledArray array : arrays) {
+                final String reason = analyseMatrixAccesses(array);
+                if (reason == null && (matrices.isEmpty() || matrices.get(0).reductionLoop == array.reductionLoop)) {
+                    matrices.add(array);
+                } else if (reason == null) {
+                    decisions.put(array.name, "not tiled: it is read in a different loop than the other tiled arrays");
+                } else {
+                    final String stencilReason = analyseStencilAccesses(array);
+                    if (stencilReason == null) {
+                        stencils.add(array);
+                    } else {
+                        decisions.put(array.name, "not tiled: " + stencilReason);
+                    }
+                }
+            }
+
+            // The blocks of a matrix multiplication are reused more than a halo
+            final List<TiledArray> tiled = matrices.isEmpty() ? stencils : matrices;
+            if (tiled.isEmpty()) {
+                return "not tiled: no array is read by neighbouring threads";
+            }
+            if (!matrices.isEmpty()) {
+                stencils.forEach(array -> decisions.put(array.name, "not tiled: the kernel is tiled as a matrix multiplication"));
+            }
+
+            final int tileSize = selectTileSize(tiled);
+            if (tileSize == 0) {
+                tiled.forEach(array -> decisions.put(array.name, "not tiled: " + tileSizeRejection));
+                return "not tiled: " + tileSizeRejection;
+            }
+
+            if (matrices.isEmpty()) {
+                tileStencils(stencils, tileSize);
+                for (TiledArray array : stencils) {
+                    decisions.put(array.name, String.format("tiled as a stencil with a halo of [%d, %d] rows and [%d, %d] columns", array.halo[0], array.halo[1], array.halo[2], array.halo[3]));
+                }
+            } else {
+                tileMatrixMultiplication(matrices, tileSize);
+                for (TiledArray array : matrices) {
+                    decisions.put(array.name, String.format("tiled by blocks of %s every %d iterations of the sequential loop", array.byRows ? "rows" : "columns", tileSize));
+                }
+            }
+            context.getMeta().setTileSize(tileSize);
+            graph.clearLastSchedule();
+            return String.format("tiled with %dx%d work-groups", tileSize, tileSize);
+        }
+
+        private String analyseParallelLoops() {
+            final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+            if (ranges.size() != 2 || ranges.get(0).index() == ranges.get(1).index()) {
+                return "it does not have a single 2D parallel loop-nest";
+            }
+            for (ParallelRangeNode range : ranges) {
+                final int dimension = range.index();
+                if (!range.value().isConstant() || !range.offset().value().isConstant() || !range.stride().value().isConstant() || range.stride().value().asJavaConstant().asInt() != 1) {
+                    return "its parallel loops do not have constant bounds and a unit stride";
+                }
+                for (Node usage : range.usages()) {
+                    if (usage instanceof IntegerLessThanNode && ((IntegerLessThanNode) usage).getX() instanceof ValuePhiNode) {
+                        limitTests[dimension] = (IntegerLessThanNode) usage;
+                        indices[dimension] = (ValuePhiNode) limitTests[dimension].getX();
+                    }
+                }
+                if (indices[dimension] == null || !(indices[dimension].merge() instanceof LoopBeginNode)) {
+                    return "the exit condition of a parallel loop does not test its index";
+                }
+                starts[dimension] = range.offset().value().asJavaConstant().asInt();
+                tripCounts[dimension] = range.value().asJavaConstant().asInt() - starts[dimension];
+                if (tripCounts[dimension] <= 0) {
+                    return "a parallel loop has no iterations";
+                }
+            }
+
+            final LoopsData data = new TornadoLoopsData(graph);
+            data.detectCountedLoops();
+            loops[0] = data.loop((LoopBeginNode) indices[0].merge());
+            loops[1] = data.loop((LoopBeginNode) indices[1].merge());
+            if (loops[0] == null || loops[1] == null || loops[1].parent() != loops[0]) {
+                return "the inner parallel loop is not nested in the outer one";
+            }
+
+            for (LoopEx loop : data.loops()) {
+                if (loop != loops[1] && !loops[1].isOutsideLoop(loop.loopBegin())) {
+                    final InnerLoop innerLoop = analyseInnerLoop(loop);
+                    if (innerLoop != null) {
+                        innerLoops.put(innerLoop.index, innerLoop);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the inner loop if it counts up to a constant, or null otherwise.
+         */
+        private static InnerLoop analyseInnerLoop(LoopEx loop) {
+            if (!loop.isCounted() || loop.counted().isInverted() || loop.counted().getDirection() != InductionVariable.Direction.Up) {
+                return null;
+            }
+            final CountedLoopInfo counted = loop.counted();
+            final InductionVariable inductionVariable = counted.getLimitCheckedIV();
+            if (!(inductionVariable.valueNode() instanceof ValuePhiNode) || ((ValuePhiNode) inductionVariable.valueNode()).merge() != loop.loopBegin()
+                    || inductionVariable.valueNode().getStackKind() != JavaKind.Int || !inductionVariable.isConstantInit() || !inductionVariable.isConstantStride()
+                    || inductionVariable.constantStride() <= 0 || !counted.getLimit().isConstant()) {
+                return null;
+            }
+            final long start = inductionVariable.constantInit();
+            final long limit = counted.getLimit().asJavaConstant().asInt();
+            final long max = counted.isLimitIncluded() ? limit : limit - 1;
+            return new InnerLoop(loop, (ValuePhiNode) inductionVariable.valueNode(), start, Math.min(start, max), max);
+        }
+
+        private String analyseArrays(List<TiledArray> arrays, Map<String, String> decisions) {
+            final List<Object> writtenArguments = new ArrayList<>();
+            for (StoreIndexedNode store : graph.getNodes().filter(StoreIndexedNode.class)) {
+                final ValueNode base = GraphUtil.unproxify(store.array());
+                if (!(base instanceof ParameterNode)) {
+                    return "it writes an array that is not a parameter, and may alias the arrays it reads";
+                }
+                writtenArguments.add(context.getArg(((ParameterNode) base).index()));
+            }
+
+            final Map<ParameterNode, TiledArray> candidates = new LinkedHashMap<>();
+            for (LoadIndexedNode load : graph.getNodes().filter(LoadIndexedNode.class)) {
+                final ValueNode base = GraphUtil.unproxify(load.array());
+                if (!(base instanceof ParameterNode) || loops[1].isOutsideLoop(load)) {
+                    continue;
+                }
+                final ParameterNode parameter = (ParameterNode) base;
+                final TiledArray array = candidates.computeIfAbsent(parameter, key -> {
+                    final Object argument = context.getArg(key.index());
+                    final int length = (argument != null && argument.getClass().isArray()) ? Array.getLength(argument) : 0;
+                    return new TiledArray(key, nameOf(graph, key), load.elementKind(), length);
+                });
+                array.loads.add(load);
+            }
+
+            for (TiledArray array : candidates.values()) {
+                final Object argument = context.getArg(array.array.index());
+                final String reason;
+                if (argument == null || !argument.getClass().isArray() || !argument.getClass().getComponentType().isPrimitive() || !TILED_KINDS.contains(array.kind)) {
+                    reason = "it is not an array of int, long, float or double";
+                } else if (writtenArguments.stream().anyMatch(written -> written == argument)) {
+                    reason = "it is written by the kernel";
+                } else {
+                    reason = analyseIndices(array);
+                }
+                if (reason == null) {
+                    arrays.add(array);
+                } else {
+                    decisions.put(array.name, "not tiled: " + reason);
+                }
+            }
+            return null;
+        }
+
+        private String analyseIndices(TiledArray array) {
+            for (LoadIndexedNode load : array.loads) {
+                final Affine index = linear(load.index());
+                if (index == null || load.elementKind() != array.kind) {
+                    return "its index is not an affine function of the loop indices";
+                }
+                array.indices.add(index);
+            }
+            return null;
+        }
+
+        private Affine linear(ValueNode node) {
+            final ValueNode value = GraphUtil.unproxify(node);
+            if (value.isConstant() && value.getStackKind() == JavaKind.Int) {
+                return new Affine(value.asJavaConstant().asInt());
+            } else if (value == indices[0] || value == indices[1] || innerLoops.containsKey(value) || isClamp(value)) {
+                return Affine.term(value);
+            } else if (value instanceof AddNode || value instanceof SubNode) {
+                final BinaryNode binary = (BinaryNode) value;
+                final Affine x = linear(binary.getX());
+                final Affine y = linear(binary.getY());
+                return (x == null || y == null) ? null : x.plus(y, (value instanceof AddNode) ? 1 : -1);
+            } else if (value instanceof MulNode && (((MulNode) value).getX().isConstant() || ((MulNode) value).getY().isConstant())) {
+                final MulNode mul = (MulNode) value;
+                final boolean constantX = mul.getX().isConstant();
+                final Affine factor = linear(constantX ? mul.getY() : mul.getX());
+                return (factor == null) ? null : factor.times((constantX ? mul.getX() : mul.getY()).asJavaConstant().asInt());
+            } else if (value instanceof LeftShiftNode && ((LeftShiftNode) value).getY().isConstant()) {
+                final Affine shifted = linear(((LeftShiftNode) value).getX());
+                return (shifted == null) ? null : shifted.times(1L << (((LeftShiftNode) value).getY().asJavaConstant().asInt() & 31));
+            } else if (value instanceof NegateNode) {
+                final Affine negated = linear(((NegateNode) value).getValue());
+                return (negated == null) ? null : negated.times(-1);
+            }
+            return null;
+        }
+
+        /**
+         * Matches {@code a[ci * i + ck * k + c]} or {@code b[ck * k + cj * j + c]},
+         * where {@code k} is the index of a sequential loop that every thread runs
+         * with the same bounds.
+         */
+        private String analyseMatrixAccesses(TiledArray array) {
+            final Affine index = array.indices.get(0);
+            for (Affine other : array.indices) {
+                if (!other.equals(index)) {
+                    return "it is read at different indices";
+                }
+            }
+            InnerLoop reductionLoop = null;
+            for (ValueNode variable : index.terms.keySet()) {
+                if (innerLoops.containsKey(variable) && reductionLoop == null) {
+                    reductionLoop = innerLoops.get(variable);
+                } else if (variable != indices[0] && variable != indices[1]) {
+                    return "its index is not of the form a[i * n + k] or b[k * n + j]";
+                }
+            }
+            if (reductionLoop == null || index.terms.size() != 2) {
+                return "its index is not of the form a[i * n + k] or b[k * n + j]";
+            }
+            for (LoadIndexedNode load : array.loads) {
+                if (reductionLoop.loop.isOutsideLoop(load)) {
+                    return "it is read outside of its sequential loop";
+                }
+            }
+            if (reductionLoop.loop.parent() != loops[1] || reductionLoop.loop.loopBegin().loopExits().count() != 1 || !isExecutedByAllThreads(reductionLoop)) {
+                return "its sequential loop is not executed by all the threads";
+            } else if (reductionLoop.loop.counted().getLimitCheckedIV().constantStride() != 1 || reductionLoop.tripCount() <= 0) {
+                return "its sequential loop does not have a unit stride";
+            }
+            array.matrixIndex = index;
+            array.reductionLoop = reductionLoop;
+            array.byRows = index.terms.containsKey(indices[0]);
+            return null;
+        }
+
+        /**
+         * Checks that the loop is reached from the body of the inner parallel loop
+         * without any branch, so all the threads reach the barriers of its tiles.
+         */
+        private boolean isExecutedByAllThreads(InnerLoop innerLoop) {
+            Node node = innerLoop.loop.loopBegin().forwardEnd();
+            while (node != null && !(node instanceof AbstractBeginNode)) {
+                node = node.predecessor();
+            }
+            if (node == null) {
+                return false;
+            }
+            final Node predecessor = node.predecessor();
+            return predecessor instanceof IfNode && ((IfNode) predecessor).condition() == limitTests[1] && !loops[1].isOutsideLoop(node);
+        }
+
+        private String analyseStencilAccesses(TiledArray array) {
+            array.stencil = new ArrayList<>();
+            array.halo = new long[] { 0, 0, 0, 0 };
+            for (Affine index : array.indices) {
+                final StencilAccess access = new StencilAccess();
+                final String reason = analyseStencilAccess(array, index, access);
+                if (reason != null) {
+                    array.stencil = null;
+                    return reason;
+                }
+                array.stencil.add(access);
+                for (int dimension = 0; dimension < 2; dimension++) {
+                    array.halo[2 * dimension] = Math.min(array.halo[2 * dimension], access.min[dimension]);
+                    array.halo[2 * dimension + 1] = Math.max(array.halo[2 * dimension + 1], access.max[dimension]);
+                }
+            }
+            for (long halo : array.halo) {
+                if (Math.abs(halo) > MAX_HALO) {
+                    array.stencil = null;
+                    return String.format("its neighbours are more than %d elements away", MAX_HALO);
+                }
+            }
+            if (array.halo[0] == array.halo[1] && array.halo[2] == array.halo[3]) {
+                array.stencil = null;
+                return "each thread reads only its own element";
+            }
+            return null;
+        }
+
+        private String analyseStencilAccess(TiledArray array, Affine index, StencilAccess access) {
+            // The stride between rows is the coefficient of the outer index
+            long rowStride = index.coefficient(indices[0]);
+            for (ValueNode variable : index.terms.keySet()) {
+                if (rowStride == 0 && isClamp(variable) && clampedIndex(variable) == indices[0]) {
+                    rowStride = index.coefficient(variable);
+                }
+            }
+            if (rowStride < 2 || (array.rowStride != 0 && array.rowStride != rowStride)) {
+                return "its index is not of the form a[n * (i + di) + (j + dj)]";
+            }
+            array.rowStride = rowStride;
+
+            for (Map.Entry<ValueNode, Long> term : index.terms.entrySet()) {
+                final ValueNode variable = term.getKey();
+                final long coefficient = term.getValue();
+                if (innerLoops.containsKey(variable)) {
+                    // The index of an inner loop moves along the rows or the columns
+                    final int dimension = (coefficient % rowStride == 0) ? 0 : 1;
+                    access.offsets[dimension] = access.offsets[dimension].plus(Affine.term(variable), (dimension == 0) ? coefficient / rowStride : coefficient);
+                    continue;
+                }
+                final int dimension = (coefficient == rowStride) ? 0 : 1;
+                final ValueNode parallelIndex = isClamp(variable) ? clampedIndex(variable) : variable;
+                if ((dimension == 1 && coefficient != 1) || parallelIndex != indices[dimension] || access.anchors[dimension] != null) {
+                    return "its index is not of the form a[n * (i + di) + (j + dj)]";
+                }
+                access.anchors[dimension] = variable;
+                if (variable != parallelIndex) {
+                    final String reason = analyseClamp(variable, dimension, access);
+                    if (reason != null) {
+                        return reason;
+                    }
+                }
+            }
+            if (access.anchors[0] == null || access.anchors[1] == null) {
+                return "its index is not of the form a[n * (i + di) + (j + dj)]";
+            }
+
+            // Split the constant between the rows and the columns
+            final long rows = Math.round((double) index.constant / rowStride);
+            access.offsets[0].constant += rows;
+            access.offsets[1].constant += index.constant - rows * rowStride;
+            for (int dimension = 0; dimension < 2; dimension++) {
+                access.min[dimension] += minimum(access.offsets[dimension]);
+                access.max[dimension] += maximum(access.offsets[dimension]);
+            }
+            return null;
+        }
+
+        /**
+         * @return the index of the parallel loop around which the value is
+         *         clamped, or null.
+         */
+        private ValueNode clampedIndex(ValueNode clamp) {
+            ValueNode value = clamp;
+            while (isClamp(value)) {
+                final OCLIntBinaryIntrinsicNode intrinsic = (OCLIntBinaryIntrinsicNode) value;
+                value = GraphUtil.unproxify(intrinsic.getX().isConstant() ? intrinsic.getY() : intrinsic.getX());
+            }
+            final Affine argument = linear(value);
+            if (argument != null) {
+                for (ValuePhiNode index : indices) {
+                    if (argument.coefficient(index) == 1) {
+                        return index;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * A clamped index, {@code min(max(i + d, lower), upper)}, lies between
+         * {@code i} and {@code i + d} when {@code i} is always between the bounds.
+         */
+        private String analyseClamp(ValueNode clamp, int dimension, StencilAccess access) {
+            long lower = Long.MIN_VALUE;
+            long upper = Long.MAX_VALUE;
+            ValueNode value = clamp;
+            while (isClamp(value)) {
+                final OCLIntBinaryIntrinsicNode intrinsic = (OCLIntBinaryIntrinsicNode) value;
+                final boolean constantX = intrinsic.getX().isConstant();
+                final long bound = (constantX ? intrinsic.getX() : intrinsic.getY()).asJavaConstant().asInt();
+                if (intrinsic.operation() == OCLIntBinaryIntrinsicNode.Operation.MIN) {
+                    upper = Math.min(upper, bound);
+                } else {
+                    lower = Math.max(lower, bound);
+                }
+                value = GraphUtil.unproxify(constantX ? intrinsic.getY() : intrinsic.getX());
+            }
+            final Affine argument = linear(value);
+            if (argument == null || argument.coefficient(indices[dimension]) != 1) {
+                return "its index is clamped around a value that is not a loop index";
+            }
+            final Affine offset = argument.plus(Affine.term(indices[dimension]), -1);
+            for (ValueNode variable : offset.terms.keySet()) {
+                if (!innerLoops.containsKey(variable)) {
+                    return "its index is clamped around a value that is not a loop index";
+                }
+            }
+            if (lower > starts[dimension] || upper < starts[dimension] + tripCounts[dimension] - 1) {
+                return "its index is clamped to bounds that are inside the iteration space";
+            }
+            access.min[dimension] = Math.min(0, minimum(offset));
+            access.max[dimension] = Math.max(0, maximum(offset));
+            return null;
+        }
+
+        private long minimum(Affine affine) {
+            long value = affine.constant;
+            for (Map.Entry<ValueNode, Long> term : affine.terms.entrySet()) {
+                final InnerLoop innerLoop = innerLoops.get(term.getKey());
+                value += Math.min(term.getValue() * innerLoop.min, term.getValue() * innerLoop.max);
+            }
+            return value;
+        }
+
+        private long maximum(Affine affine) {
+            long value = affine.constant;
+            for (Map.Entry<ValueNode, Long> term : affine.terms.entrySet()) {
+                final InnerLoop innerLoop = innerLoops.get(term.getKey());
+                value += Math.max(term.getValue() * innerLoop.min, term.getValue() * innerLoop.max);
+            }
+            return value;
+        }
+
+        /**
+         * Selects the largest tile size, from the one of the task down to
+         * {@value #MIN_TILE_SIZE}, whose tiles fit in the local memory and the
+         * work-groups of the device.
+         *
+         * @return the tile size, or 0 if none fits.
+         */
+        private int selectTileSize(List<TiledArray> arrays) {
+            final TornadoTargetDevice device = context.getDeviceMapping().getPhysicalDevice();
+            final long[] maxWorkItemSizes = device.getDeviceMaxWorkItemSizes();
+            final long maxWorkGroupSize = device.getDeviceMaxWorkGroupSize()[0];
+            final long localMemorySize = device.getDeviceLocalMemorySize();
+            final InnerLoop reductionLoop = arrays.get(0).reductionLoop;
+
+            for (int tileSize = Integer.highestOneBit(Math.max(context.getMeta().getMaxTileSize(), MIN_TILE_SIZE)); tileSize >= MIN_TILE_SIZE; tileSize /= 2) {
+                long size = 0;
+                for (TiledArray array : arrays) {
+                    size += array.localMemorySize(tileSize);
+                }
+                if (maxWorkItemSizes.length < 2 || tileSize > maxWorkItemSizes[0] || tileSize > maxWorkItemSizes[1] || (long) tileSize * tileSize > maxWorkGroupSize) {
+                    tileSizeRejection = String.format("%dx%d work-groups do not fit on the device", tileSize, tileSize);
+                } else if (size > localMemorySize) {
+                    tileSizeRejection = String.format("the %dx%d tiles need %d bytes of local memory, but the device has %d bytes", tileSize, tileSize, size, localMemorySize);
+                } else if (reductionLoop != null && (tripCounts[0] % tileSize != 0 || tripCounts[1] % tileSize != 0 || reductionLoop.tripCount() % tileSize != 0)) {
+                    tileSizeRejection = String.format("the sizes of the loops are not multiples of %d", tileSize);
+                } else {
+                    return tileSize;
+                }
+            }
+            return 0;
+        }
+
+        private ValueNode constant(long value) {
+            return ConstantNode.forInt((int) value, graph);
+        }
+
+        private ValueNode add(ValueNode x, ValueNode y) {
+            return graph.addOrUnique(new AddNode(x, y));
+        }
+
+        private ValueNode add(ValueNode x, long y) {
+            return (y == 0) ? x : add(x, constant(y));
+        }
+
+        private ValueNode sub(ValueNode x, ValueNode y) {
+            return graph.addOrUnique(new SubNode(x, y));
+        }
+
+        private ValueNode mul(ValueNode x, long y) {
+            return (y == 1) ? x : graph.addOrUnique(new MulNode(x, constant(y)));
+        }
+
+        private ValueNode materialise(Affine affine) {
+            ValueNode value = constant(affine.constant);
+            for (Map.Entry<ValueNode, Long> term : affine.terms.entrySet()) {
+                value = add(value, mul(term.getKey(), term.getValue()));
+            }
+            return value;
+        }
+
+        private ValueNode threadId(boolean local, int dimension) {
+            final ConstantNode index = ConstantNode.forInt(dimension, graph);
+            return local ? graph.addOrUnique(new LocalThreadIdNode(index)) : graph.addOrUnique(new GroupIdNode(index));
+        }
+
+        /**
+         * Copies one element per thread from the array to the tile, before the
+         * anchor. The index in the array is clamped, because the tiles may
+         * overlap the borders of the array.
+         */
+        private void stage(FixedNode anchor, TiledArray array, LocalArrayNode tile, ValueNode address, ValueNode tileIndex) {
+            final ValueNode lowerBound = graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(address, constant(0), OCLIntBinaryIntrinsicNode.Operation.MAX, JavaKind.Int));
+            final ValueNode clamped = graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(lowerBound, constant(array.length - 1), OCLIntBinaryIntrinsicNode.Operation.MIN, JavaKind.Int));
+            final LoadIndexedNode load = graph.add(new LoadIndexedNode(null, array.array, clamped, null, array.kind));
+            graph.addBeforeFixed(anchor, load);
+            final StoreIndexedNode store = graph.add(new StoreIndexedNode(tile, tileIndex, null, null, array.kind, load));
+            graph.addBeforeFixed(anchor, store);
+        }
+
+        private void replaceLoad(LoadIndexedNode load, LocalArrayNode tile, ValueNode tileIndex) {
+            final LoadIndexedNode tiledLoad = graph.add(new LoadIndexedNode(null, tile, tileIndex, null, load.elementKind()));
+            graph.replaceFixedWithFixed(load, tiledLoad);
+        }
+
+        private LocalArrayNode createTile(TiledArray array, long length) {
+            return graph.addWithoutUnique(new LocalArrayNode(OCLArchitecture.localSpace, array.kind, ConstantNode.forInt((int) length, graph)));
+        }
+
+        /**
+         * Every work-group copies the elements of its threads and their halo at the
+         * beginning of the kernel, including the threads beyond the iteration
+         * space, which skip the parallel loops afterwards. Consecutive threads of
+         * the first dimension copy consecutive elements of a row.
+         */
+        private void tileStencils(List<TiledArray> arrays, int tileSize) {
+            final ValueNode[] localIds = { threadId(true, 0), threadId(true, 1) };
+            final ValueNode[] origins = new ValueNode[2];
+            for (int dimension = 0; dimension < 2; dimension++) {
+                origins[dimension] = add(mul(threadId(false, dimension), tileSize), starts[dimension]);
+            }
+
+            final FixedNode anchor = graph.start().next();
+            for (TiledArray array : arrays) {
+                final int rows = array.rows(tileSize);
+                final int pitch = array.pitch(tileSize);
+                final LocalArrayNode tile = createTile(array, (long) rows * pitch);
+                for (int row = 0; row < rows; row += tileSize) {
+                    for (int column = 0; column < pitch; column += tileSize) {
+                        final ValueNode tileRow = add(localIds[1], row);
+                        final ValueNode tileColumn = add(localIds[0], column);
+                        final ValueNode arrayRow = add(origins[0], add(tileRow, array.halo[0]));
+                        final ValueNode arrayColumn = add(origins[1], add(tileColumn, array.halo[2]));
+                        stage(anchor, array, tile, add(mul(arrayRow, array.rowStride), arrayColumn), add(mul(tileRow, pitch), tileColumn));
+                    }
+                }
+
+                for (int i = 0; i < array.loads.size(); i++) {
+                    final StencilAccess access = array.stencil.get(i);
+                    final ValueNode[] positions = new ValueNode[2];
+                    for (int dimension = 0; dimension < 2; dimension++) {
+                        final ValueNode anchor2D = (access.anchors[dimension] == indices[dimension]) ? localIds[dimension] : sub(access.anchors[dimension], origins[dimension]);
+                        positions[dimension] = add(add(anchor2D, materialise(access.offsets[dimension])), -array.halo[2 * dimension]);
+                    }
+                    replaceLoad(array.loads.get(i), tile, add(mul(positions[0], pitch), positions[1]));
+                }
+            }
+            graph.addBeforeFixed(anchor, graph.add(new OCLBarrierNode(OCLBarrierNode.OCLMemFenceFlags.LOCAL)));
+        }
+
+        /**
+         * The work-group copies the next block of each array at the first of every
+         * {@code T} iterations of the sequential loop, between two barriers: the
+         * first one waits for the reads of the previous block. Consecutive threads
+         * of the first dimension copy consecutive elements of the {@code k}
+         * dimension of {@code a} and of the {@code j} dimension of {@code b}.
+         */
+        private void tileMatrixMultiplication(List<TiledArray> arrays, int tileSize) {
+            final InnerLoop reductionLoop = arrays.get(0).reductionLoop;
+            final ValuePhiNode k = reductionLoop.index;
+            final ValueNode[] localIds = { threadId(true, 0), threadId(true, 1) };
+            final ValueNode[] origins = new ValueNode[2];
+            for (int dimension = 0; dimension < 2; dimension++) {
+                origins[dimension] = add(mul(threadId(false, dimension), tileSize), starts[dimension]);
+            }
+            final ValueNode positionInBlock = graph.addOrUnique(new AndNode(add(k, -reductionLoop.start), constant(tileSize - 1)));
+
+            final AbstractBeginNode body = reductionLoop.loop.counted().getBody();
+            final FixedNode next = body.next();
+            body.setNext(null);
+            final EndNode stageEnd = graph.add(new EndNode());
+            final EndNode skipEnd = graph.add(new EndNode());
+            final BeginNode stageBegin = graph.add(new BeginNode());
+            final BeginNode skipBegin = graph.add(new BeginNode());
+            stageBegin.setNext(stageEnd);
+            skipBegin.setNext(skipEnd);
+            final MergeNode merge = graph.add(new MergeNode());
+            merge.addForwardEnd(stageEnd);
+            merge.addForwardEnd(skipEnd);
+            merge.setNext(next);
+            final IntegerEqualsNode condition = graph.addOrUnique(new IntegerEqualsNode(positionInBlock, constant(0)));
+            body.setNext(graph.add(new IfNode(condition, stageBegin, skipBegin, BranchProbabilityData.injected(1.0 / tileSize))));
+
+            graph.addBeforeFixed(stageEnd, graph.add(new OCLBarrierNode(OCLBarrierNode.OCLMemFenceFlags.LOCAL)));
+            for (TiledArray array : arrays) {
+                final LocalArrayNode tile = createTile(array, (long) tileSize * tileSize);
+                final Affine index = array.matrixIndex;
+                final int dimension = array.byRows ? 0 : 1;
+                final long stride = index.coefficient(indices[dimension]);
+                final long reductionStride = index.coefficient(k);
+                // a[i][k] is copied with k along the first dimension, b[k][j] with j
+                final ValueNode parallelIndex = add(origins[dimension], localIds[array.byRows ? 1 : 0]);
+                final ValueNode reductionIndex = add(k, localIds[array.byRows ? 0 : 1]);
+                final ValueNode address = add(add(mul(parallelIndex, stride), mul(reductionIndex, reductionStride)), index.constant);
+                stage(stageEnd, array, tile, address, add(mul(localIds[1], tileSize), localIds[0]));
+
+                final ValueNode tileIndex = array.byRows ? add(mul(localIds[0], tileSize), positionInBlock) : add(mul(positionInBlock, tileSize), localIds[1]);
+                for (LoadIndexedNode load : array.loads) {
+                    replaceLoad(load, tile, tileIndex);
+                }
+            }
+            graph.addBeforeFixed(stageEnd, graph.add(new OCLBarrierNode(OCLBarrierNode.OCLMemFenceFlags.LOCAL)));
+        }
+    }
+}
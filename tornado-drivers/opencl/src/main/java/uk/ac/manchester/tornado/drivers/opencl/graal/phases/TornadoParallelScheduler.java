@@ -43,6 +43,7 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadIdNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadSizeNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLIntBinaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.calc.DivNode;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.graal.nodes.AbstractParallelNode;
@@ -178,13 +179,18 @@ public class TornadoParallelScheduler extends BasePhase<TornadoHighTierContext>
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
 
-        if (context.getMeta() == null || context.getMeta().enableThreadCoarsener()) {
+        if (context.getMeta() == null) {
+            return;
+        }
+        if (context.getMeta().enableThreadCoarsener()) {
+            context.getMeta().setBoundsGuarded(false);
             return;
         }
 
         TornadoAcceleratorDevice device = context.getDeviceMapping();
         final TornadoSchedulingStrategy strategy = device.getPreferredSchedule();
         long[] maxWorkItemSizes = device.getPhysicalDevice().getDeviceMaxWorkItemSizes();
+        context.getMeta().setBoundsGuarded(GlobalWorkPadding.isBoundsGuarded(graph, context.getMeta(), maxWorkItemSizes));
 
         graph.getNodes().filter(ParallelRangeNode.class).forEach(node -> {
             if (context.getMeta().enableParallelization() && maxWorkItemSizes[node.index()] > 1) {
@@ -57,6 +57,7 @@ import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaField;
 import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLKernelContextAccessNode;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
@@ -65,6 +66,7 @@ import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoLoopUnroller;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoValueTypeReplacement;
+import uk.ac.manchester.tornado.runtime.graph.BatchConfiguration;
 
 public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext> {
 
@@ -75,6 +77,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private final DeadCodeEliminationPhase deadCodeElimination;
     private final TornadoLoopUnroller loopUnroll;
     private long batchThreads;
+    private long batchIterations;
     private boolean gridScheduling;
     private int index;
     private boolean printOnce = true;
@@ -187,7 +190,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private void evaluate(final StructuredGraph graph, final Node node, final Object value) {
         if (node instanceof ArrayLengthNode) {
             ArrayLengthNode arrayLength = (ArrayLengthNode) node;
-            int length = Array.getLength(value);
+            int length = (value instanceof TornadoNativeArray) ? ((TornadoNativeArray) value).getSize() : Array.getLength(value);
 
             /**
              * This condition covers the case that loop bounds should be taken based on the
@@ -208,7 +211,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
                 if (batchThreads <= 0) {
                     constant = ConstantNode.forInt(length);
                 } else {
-                    constant = ConstantNode.forInt((int) batchThreads);
+                    constant = ConstantNode.forInt((int) BatchConfiguration.getBatchedArrayLength(length, batchIterations, batchThreads));
                 }
                 node.replaceAtUsages(graph.addOrUnique(constant));
             }
@@ -303,6 +306,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
         int lastNodeCount = graph.getNodeCount();
         boolean hasWork = true;
         this.batchThreads = context.getBatchThreads();
+        this.batchIterations = context.hasMeta() ? context.getMeta().getBatchIterations() : 0;
         this.gridScheduling = context.isGridSchedulerEnabled();
 
         while (hasWork) {
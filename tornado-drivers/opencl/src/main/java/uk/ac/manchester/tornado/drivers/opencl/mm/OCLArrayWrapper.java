@@ -213,6 +213,24 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         return useDeps ? listEvents : null;
     }
 
+    @Override
+    public List<Integer> enqueueWriteRanges(final Object value, long[] ranges, final int[] events, boolean useDeps) {
+        final T array = cast(value);
+        ArrayList<Integer> listEvents = new ArrayList<>();
+
+        if (array == null) {
+            throw new TornadoRuntimeException("ERROR] Data to be copied is NULL");
+        }
+        // The array header does not change, so only the ranges are copied
+        final long elementSize = kind.getByteCount();
+        for (int i = 0; i < ranges.length; i += 2) {
+            final long hostOffset = ranges[i] * elementSize;
+            final long bytes = (ranges[i + 1] - ranges[i]) * elementSize;
+            listEvents.add(enqueueWriteArrayData(toBuffer(), arrayHeaderSize + bufferOffset + hostOffset, bytes, array, hostOffset, (useDeps) ? events : null));
+        }
+        return useDeps ? listEvents : null;
+    }
+
     /**
      * Copy data that resides in the host to the target device.
      * 
@@ -23,11 +23,10 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.mm;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 
 public class OCLKernelArgs extends OCLByteBuffer implements KernelArgs {
@@ -35,27 +34,22 @@ public class OCLKernelArgs extends OCLByteBuffer implements KernelArgs {
     public final static int RETURN_VALUE_INDEX = 0;
     public static final int RESERVED_SLOTS = 3;
 
-    private final ArrayList<CallArgument> callArguments;
+    private final CallArguments callArguments;
 
     OCLKernelArgs(long bufferId, int numArgs, OCLDeviceContext device) {
         super(device, bufferId, 0, RESERVED_SLOTS << 3);
-        this.callArguments = new ArrayList<>(numArgs);
+        this.callArguments = new CallArguments(numArgs);
 
         buffer.clear();
     }
 
-    @Override
-    public void addCallArgument(Object value, boolean isReferenceType) {
-        callArguments.add(new CallArgument(value, isReferenceType));
-    }
-
     @Override
     public void reset() {
-        callArguments.clear();
+        callArguments.reset();
     }
 
     @Override
-    public List<CallArgument> getCallArguments() {
+    public CallArguments getCallArguments() {
         return callArguments;
     }
 
@@ -23,6 +23,13 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.mm;
 
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
 import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
 import uk.ac.manchester.tornado.api.mm.TornadoMemoryProvider;
 import uk.ac.manchester.tornado.drivers.opencl.OCLContext;
@@ -45,6 +52,24 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
 
     public OCLKernelArgs oclKernelCallWrapper = null;
 
+    /**
+     * Call wrappers created under concurrent execution. Once a wrapper is
+     * garbage collected, which happens together with its TornadoVM instance, its
+     * buffer is reused by the next wrapper instead of allocating a new one.
+     */
+    private final ReferenceQueue<OCLKernelArgs> collectedCallWrappers = new ReferenceQueue<>();
+    private final Set<CallWrapperReference> callWrappers = new HashSet<>();
+    private final ArrayDeque<Long> freeCallWrapperBuffers = new ArrayDeque<>();
+
+    private static final class CallWrapperReference extends PhantomReference<OCLKernelArgs> {
+        private final long buffer;
+
+        CallWrapperReference(OCLKernelArgs callWrapper, long buffer, ReferenceQueue<OCLKernelArgs> queue) {
+            super(callWrapper, queue);
+            this.buffer = buffer;
+        }
+    }
+
     public OCLMemoryManager(final OCLDeviceContext deviceContext) {
         this.deviceContext = deviceContext;
     }
@@ -58,14 +83,39 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
         return (address % alignment == 0) ? address : address + (alignment - address % alignment);
     }
 
-    public OCLKernelArgs createCallWrapper(final int maxArgs) {
+    /**
+     * Returns the buffer used to pass the kernel call arguments. The buffer is
+     * shared by all the tasks of the device unless concurrent execution is
+     * enabled, in which case every caller gets its own buffer, since task-graphs
+     * running in different threads would otherwise overwrite each other's
+     * arguments. The buffers of collected wrappers are reused.
+     */
+    public synchronized OCLKernelArgs createCallWrapper(final int maxArgs) {
+        if (TornadoOptions.CONCURRENT_EXECUTION) {
+            return newPooledCallWrapper(maxArgs);
+        }
         if (this.oclKernelCallWrapper == null) {
-            long kernelCallBuffer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_ONLY, RESERVED_SLOTS * Long.BYTES).getBuffer();
-            this.oclKernelCallWrapper = new OCLKernelArgs(kernelCallBuffer, maxArgs, deviceContext);
+            this.oclKernelCallWrapper = new OCLKernelArgs(newCallWrapperBuffer(), maxArgs, deviceContext);
         }
         return this.oclKernelCallWrapper;
     }
 
+    private long newCallWrapperBuffer() {
+        return deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_ONLY, RESERVED_SLOTS * Long.BYTES).getBuffer();
+    }
+
+    private OCLKernelArgs newPooledCallWrapper(final int maxArgs) {
+        Reference<?> reference;
+        while ((reference = collectedCallWrappers.poll()) != null) {
+            callWrappers.remove(reference);
+            freeCallWrapperBuffers.push(((CallWrapperReference) reference).buffer);
+        }
+        long kernelCallBuffer = freeCallWrapperBuffers.isEmpty() ? newCallWrapperBuffer() : freeCallWrapperBuffers.pop();
+        OCLKernelArgs callWrapper = new OCLKernelArgs(kernelCallBuffer, maxArgs, deviceContext);
+        callWrappers.add(new CallWrapperReference(callWrapper, kernelCallBuffer, collectedCallWrappers));
+        return callWrapper;
+    }
+
     public ObjectBuffer createAtomicsBuffer(final int[] arr) {
         return new AtomicsBuffer(arr, deviceContext);
     }
@@ -25,119 +25,210 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl.mm;
 
-import static uk.ac.manchester.tornado.runtime.common.Tornado.fatal;
+import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.humanReadableByteCount;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
 
 import java.lang.reflect.Array;
-import java.util.function.Function;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
-import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
-import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
+import uk.ac.manchester.tornado.drivers.common.mm.MultiDimArrayLayout;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
 
-public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
+/**
+ * Device buffer of a multi-dimensional array of primitives. The whole array is
+ * packed in a single device buffer following {@link MultiDimArrayLayout}, and
+ * it is copied with a single transfer in each direction.
+ *
+ * <p>
+ * The tables hold offsets relative to the start of the device buffer, since
+ * OpenCL buffers are not addressable from the host. Kernels add the address of
+ * the parameter to the values read from the tables.
+ * </p>
+ */
+public class OCLMultiDimArrayWrapper implements ObjectBuffer {
 
-    private final Function<OCLDeviceContext, ? extends OCLArrayWrapper<E>> innerWrapperFactory;
-    private final OCLLongArrayWrapper tableWrapper;
-    private long[] addresses;
-    private OCLArrayWrapper<E>[] wrappers;
-    private final OCLDeviceContext deviceContext;
+    private static final int INIT_VALUE = -1;
 
-    public OCLMultiDimArrayWrapper(OCLDeviceContext device, Function<OCLDeviceContext, ? extends OCLArrayWrapper<E>> factory, long batchSize) {
-        super(device, JavaKind.Object, batchSize);
+    private final OCLDeviceContext deviceContext;
+    private final MultiDimArrayLayout layout;
+    private final Class<?> type;
+
+    private long bufferId;
+    private long bufferOffset;
+    private long bufferSize;
+
+    /**
+     * Host copy of the packed array. It must be direct, so it can be copied
+     * asynchronously.
+     */
+    private ByteBuffer hostBuffer;
+    private int lastWriteEvent;
+
+    /**
+     * Number of bytes of primitive data per row of the outer array, used to
+     * translate the offsets of the batches into rows.
+     */
+    private long rowSize;
+    private int rowsPerBatch;
+
+    public OCLMultiDimArrayWrapper(OCLDeviceContext device, Class<?> type, long batchSize) {
         this.deviceContext = device;
-        innerWrapperFactory = factory;
-        tableWrapper = new OCLLongArrayWrapper(device, batchSize);
+        this.type = type;
+        this.layout = new MultiDimArrayLayout(type);
+        this.bufferId = INIT_VALUE;
+        this.bufferOffset = 0;
+        this.lastWriteEvent = INIT_VALUE;
     }
 
-    @Override
-    public long toBuffer() {
-        return tableWrapper.toBuffer();
+    private Object cast(Object value) {
+        if (value == null) {
+            throw new TornadoRuntimeException("[ERROR] data is NULL");
+        }
+        TornadoInternalError.guarantee(value.getClass() == type, "Expecting an array of type %s", type.getName());
+        return value;
     }
 
-    @Override
-    public long size() {
-        return tableWrapper.size();
+    private int getFirstRow(long hostOffset) {
+        return (hostOffset > 0) ? (int) (hostOffset / rowSize) : 0;
     }
 
-    @Override
-    public void allocate(Object value, long batchSize) throws TornadoOutOfMemoryException, TornadoMemoryException {
+    private int getNumRows(Object array, int firstRow) {
+        return Math.min(rowsPerBatch, Array.getLength(array) - firstRow);
+    }
 
+    @Override
+    public void allocate(Object value, long batchSize) {
+        final Object array = cast(value);
+        rowsPerBatch = Array.getLength(array);
         if (batchSize > 0) {
-            throw new TornadoMemoryException("[ERROR] BatchSize Allocation currently not supported. BatchSize = " + batchSize + " (bytes)");
+            rowSize = MultiDimArrayLayout.getRowSize(array);
+            if (rowSize <= 0) {
+                throw new TornadoMemoryException("[ERROR] Only rectangular multi-dimensional arrays can be split in batches");
+            }
+            rowsPerBatch = (int) Math.min(rowsPerBatch, batchSize / rowSize);
         }
 
-        if (Array.getLength(value) < 0) {
-            throw new TornadoMemoryException("[ERROR] Bytes Allocated < 0: " + Array.getLength(value));
+        bufferSize = layout.sizeOf(array, 0, rowsPerBatch);
+        if (bufferSize <= 0) {
+            throw new TornadoMemoryException("[ERROR] Bytes Allocated <= 0: " + bufferSize);
         }
-        addresses = new long[Array.getLength(value)];
-        wrappers = new OCLArrayWrapper[Array.getLength(value)];
-        tableWrapper.allocate(addresses, batchSize);
-        allocateElements((T) value, batchSize);
-    }
-
-    private void allocateElements(T values, long batchSize) {
-        final E[] elements = innerCast(values);
-        try {
-            for (int i = 0; i < elements.length; i++) {
-                wrappers[i] = innerWrapperFactory.apply(deviceContext);
-                wrappers[i].allocate(elements[i], batchSize);
-                addresses[i] = wrappers[i].toBuffer();
-            }
-        } catch (TornadoOutOfMemoryException | TornadoMemoryException e) {
-            fatal("OOM: multi-dim array: %s", e.getMessage());
-            System.exit(-1);
+
+        bufferId = deviceContext.getBufferProvider().getBufferWithSize(bufferSize);
+        hostBuffer = ByteBuffer.allocateDirect((int) bufferSize).order(deviceContext.getByteOrder());
+
+        if (Tornado.FULL_DEBUG) {
+            info("allocated: multi-dimensional array type=%s, size=%s, rows=%d", type.getName(), humanReadableByteCount(bufferSize, true), rowsPerBatch);
         }
     }
 
-    private int writeElements(T values) {
-        final E[] elements = innerCast(values);
-        for (int i = 0; i < elements.length; i++) {
-            wrappers[i].enqueueWrite(elements[i], 0, 0, null, false);
+    @Override
+    public void deallocate() {
+        TornadoInternalError.guarantee(bufferId != INIT_VALUE, "Fatal error: trying to deallocate an invalid buffer");
+
+        deviceContext.getBufferProvider().markBufferReleased(bufferId, bufferSize);
+        bufferId = INIT_VALUE;
+        bufferSize = INIT_VALUE;
+        hostBuffer = null;
+
+        if (Tornado.FULL_DEBUG) {
+            info("deallocated: %s", toString());
         }
-        return deviceContext.enqueueBarrier();
     }
 
-    private int readElements(T values) {
-        final E[] elements = innerCast(values);
-        // XXX: Offset is 0
-        for (int i = 0; i < elements.length; i++) {
-            wrappers[i].enqueueRead(elements[i], 0, null, false);
+    @Override
+    public long size() {
+        return bufferSize;
+    }
+
+    /**
+     * Packs the rows of the batch in the host buffer. A previous asynchronous
+     * copy may still be reading from it, so it has to finish first.
+     *
+     * @return number of bytes to copy.
+     */
+    private long pack(Object array, long hostOffset) {
+        if (lastWriteEvent != INIT_VALUE) {
+            deviceContext.resolveEvent(lastWriteEvent).waitOn();
+            lastWriteEvent = INIT_VALUE;
         }
-        return deviceContext.enqueueBarrier();
+        final int firstRow = getFirstRow(hostOffset);
+        return layout.pack(array, firstRow, getNumRows(array, firstRow), hostBuffer, bufferOffset);
+    }
+
+    private void unpack(Object array, long hostOffset) {
+        final int firstRow = getFirstRow(hostOffset);
+        layout.unpack(hostBuffer, array, firstRow, getNumRows(array, firstRow));
     }
 
-    @SuppressWarnings("unchecked")
-    private E[] innerCast(T value) {
-        return (E[]) value;
+    private long sizeOf(Object array, long hostOffset) {
+        final int firstRow = getFirstRow(hostOffset);
+        return layout.sizeOf(array, firstRow, getNumRows(array, firstRow));
     }
 
     @Override
-    protected int enqueueReadArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
-        return readElements(value);
+    public int enqueueRead(final Object value, long hostOffset, final int[] events, boolean useDeps) {
+        // The rows can only be copied back once the data is in the host buffer
+        final int returnEvent = read(value, hostOffset, events, useDeps);
+        return useDeps ? returnEvent : -1;
     }
 
     @Override
-    protected int enqueueWriteArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
-        if (hostOffset > 0) {
-            System.out.println("[WARNING] writing in offset 0");
-        }
-        tableWrapper.enqueueWrite(addresses, 0, 0, null, false);
-        return writeElements(value);
+    public List<Integer> enqueueWrite(final Object value, long batchSize, long hostOffset, final int[] events, boolean useDeps) {
+        final Object array = cast(value);
+        ArrayList<Integer> listEvents = new ArrayList<>();
+        final long bytes = pack(array, hostOffset);
+        lastWriteEvent = deviceContext.enqueueWriteBuffer(toBuffer(), bufferOffset, bytes, hostBuffer, 0, (useDeps) ? events : null);
+        listEvents.add(lastWriteEvent);
+        return useDeps ? listEvents : null;
     }
 
     @Override
-    protected int readArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
-        return readElements(value);
+    public void read(final Object value) {
+        read(value, 0, null, false);
     }
 
     @Override
-    protected void writeArrayData(long bufferId, long offset, long bytes, T value, long hostOffset, int[] waitEvents) {
-        if (hostOffset > 0) {
-            System.out.println("[WARNING] writing in offset 0");
-        }
-        tableWrapper.enqueueWrite(addresses, 0, 0, null, false);
-        writeElements(value);
+    public int read(final Object value, long hostOffset, int[] events, boolean useDeps) {
+        final Object array = cast(value);
+        final int event = deviceContext.readBuffer(toBuffer(), bufferOffset, sizeOf(array, hostOffset), hostBuffer, 0, (useDeps) ? events : null);
+        unpack(array, hostOffset);
+        return event;
     }
 
+    @Override
+    public void write(final Object value) {
+        final Object array = cast(value);
+        final long bytes = pack(array, 0);
+        deviceContext.writeBuffer(toBuffer(), bufferOffset, bytes, hostBuffer, 0, null);
+    }
+
+    @Override
+    public long toBuffer() {
+        return bufferId;
+    }
+
+    @Override
+    public void setBuffer(ObjectBufferWrapper bufferWrapper) {
+        this.bufferId = bufferWrapper.buffer;
+        this.bufferOffset = bufferWrapper.bufferOffset;
+
+        bufferWrapper.bufferOffset += size();
+    }
+
+    @Override
+    public long getBufferOffset() {
+        return bufferOffset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("multi-dimensional buffer<%s> %s", type.getSimpleName(), humanReadableByteCount(bufferSize, true));
+    }
 }
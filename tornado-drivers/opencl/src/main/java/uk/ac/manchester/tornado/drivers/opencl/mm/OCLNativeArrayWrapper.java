@@ -0,0 +1,235 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.opencl.mm;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getVMConfig;
+import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.humanReadableByteCount;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
+import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+
+/**
+ * Device buffer of a {@link TornadoNativeArray}. The header of a Java array is
+ * written in the bytes reserved in front of the elements of the native segment,
+ * so the header and the elements are copied to the device in a single transfer
+ * and without going through the Java heap.
+ */
+public class OCLNativeArrayWrapper implements ObjectBuffer {
+
+    private static final int INIT_VALUE = -1;
+
+    private final int arrayHeaderSize;
+    private final int arrayLengthOffset;
+
+    private long bufferId;
+    private long bufferOffset;
+    private long bufferSize;
+
+    protected final OCLDeviceContext deviceContext;
+
+    private final JavaKind kind;
+
+    public OCLNativeArrayWrapper(final OCLDeviceContext device, final TornadoNativeArray array) {
+        this.deviceContext = device;
+        this.kind = JavaKind.fromJavaClass(array.getElementType());
+        this.bufferId = INIT_VALUE;
+        this.bufferOffset = 0;
+        this.arrayLengthOffset = getVMConfig().arrayOopDescLengthOffset();
+        this.arrayHeaderSize = getVMConfig().getArrayBaseOffset(kind);
+        TornadoInternalError.guarantee(arrayHeaderSize <= TornadoNativeArray.ARRAY_HEADER, "array header does not fit in the native segment");
+        this.bufferSize = sizeOf(array);
+    }
+
+    private TornadoNativeArray cast(Object value) {
+        if (value == null) {
+            throw new TornadoRuntimeException("[ERROR] data is NULL");
+        }
+        TornadoInternalError.guarantee(value instanceof TornadoNativeArray, "Expecting a TornadoNativeArray type");
+        return (TornadoNativeArray) value;
+    }
+
+    private long sizeOf(final TornadoNativeArray array) {
+        return arrayHeaderSize + array.getNumBytesWithoutHeader();
+    }
+
+    /**
+     * Writes the header of a Java array just before the elements of the segment.
+     * It only touches host memory; the header travels with the elements.
+     */
+    private void buildArrayHeader(final TornadoNativeArray array) {
+        final ByteBuffer segment = array.getSegment();
+        final int headerStart = TornadoNativeArray.ARRAY_HEADER - arrayHeaderSize;
+        for (int i = headerStart; i < TornadoNativeArray.ARRAY_HEADER; i++) {
+            segment.put(i, (byte) 0);
+        }
+        segment.putInt(headerStart + arrayLengthOffset, array.getSize());
+    }
+
+    private long hostHeaderOffset() {
+        return TornadoNativeArray.ARRAY_HEADER - arrayHeaderSize;
+    }
+
+    /**
+     * Header of a batch, which holds the number of elements of the batch instead
+     * of the length of the whole array.
+     */
+    private ByteBuffer buildBatchHeader(final TornadoNativeArray array, final long batchSize) {
+        final ByteBuffer header = ByteBuffer.allocateDirect(arrayHeaderSize).order(deviceContext.getByteOrder());
+        header.putInt(arrayLengthOffset, (int) (batchSize / array.getElementSize()));
+        return header;
+    }
+
+    @Override
+    public void allocate(Object value, long batchSize) {
+        final TornadoNativeArray array = cast(value);
+        bufferSize = (batchSize <= 0) ? sizeOf(array) : arrayHeaderSize + batchSize;
+
+        if (bufferSize <= 0) {
+            throw new TornadoMemoryException("[ERROR] Bytes Allocated <= 0: " + bufferSize);
+        }
+
+        this.bufferId = deviceContext.getBufferProvider().getBufferWithSize(bufferSize);
+
+        if (Tornado.FULL_DEBUG) {
+            info("allocated: native array kind=%s, size=%s, length offset=%d, header size=%d", kind.getJavaName(), humanReadableByteCount(bufferSize, true), arrayLengthOffset,
+                    arrayHeaderSize);
+        }
+    }
+
+    @Override
+    public void deallocate() {
+        TornadoInternalError.guarantee(bufferId != INIT_VALUE, "Fatal error: trying to deallocate an invalid buffer");
+
+        deviceContext.getBufferProvider().markBufferReleased(bufferId, bufferSize);
+        bufferId = INIT_VALUE;
+        bufferSize = INIT_VALUE;
+
+        if (Tornado.FULL_DEBUG) {
+            info("deallocated: %s", toString());
+        }
+    }
+
+    @Override
+    public long size() {
+        return bufferSize;
+    }
+
+    @Override
+    public int enqueueRead(final Object value, long hostOffset, final int[] events, boolean useDeps) {
+        final TornadoNativeArray array = cast(value);
+        final int returnEvent = deviceContext.enqueueReadBuffer(toBuffer(), arrayHeaderSize + bufferOffset, bufferSize - arrayHeaderSize, array.getSegment(),
+                TornadoNativeArray.ARRAY_HEADER + hostOffset, (useDeps) ? events : null);
+        return useDeps ? returnEvent : -1;
+    }
+
+    @Override
+    public List<Integer> enqueueWrite(final Object value, long batchSize, long hostOffset, final int[] events, boolean useDeps) {
+        final TornadoNativeArray array = cast(value);
+        ArrayList<Integer> listEvents = new ArrayList<>();
+        if (batchSize <= 0 && hostOffset == 0) {
+            buildArrayHeader(array);
+            listEvents.add(deviceContext.enqueueWriteBuffer(toBuffer(), bufferOffset, bufferSize, array.getSegment(), hostHeaderOffset(), (useDeps) ? events : null));
+        } else {
+            // The elements of the batch do not follow the header in the segment, so
+            // the header is written on its own. It is written synchronously, since the
+            // host buffer of the header is not kept alive
+            if (batchSize <= 0) {
+                buildArrayHeader(array);
+                deviceContext.writeBuffer(toBuffer(), bufferOffset, arrayHeaderSize, array.getSegment(), hostHeaderOffset(), (useDeps) ? events : null);
+            } else {
+                deviceContext.writeBuffer(toBuffer(), bufferOffset, arrayHeaderSize, buildBatchHeader(array, batchSize), 0, (useDeps) ? events : null);
+            }
+            listEvents.add(deviceContext.enqueueWriteBuffer(toBuffer(), arrayHeaderSize + bufferOffset, bufferSize - arrayHeaderSize, array.getSegment(),
+                    TornadoNativeArray.ARRAY_HEADER + hostOffset, (useDeps) ? events : null));
+        }
+        return useDeps ? listEvents : null;
+    }
+
+    @Override
+    public List<Integer> enqueueWriteRanges(final Object value, long[] ranges, final int[] events, boolean useDeps) {
+        final TornadoNativeArray array = cast(value);
+        ArrayList<Integer> listEvents = new ArrayList<>();
+        // The array header does not change, so only the ranges are copied
+        final long elementSize = array.getElementSize();
+        for (int i = 0; i < ranges.length; i += 2) {
+            final long offset = ranges[i] * elementSize;
+            final long bytes = (ranges[i + 1] - ranges[i]) * elementSize;
+            listEvents.add(deviceContext.enqueueWriteBuffer(toBuffer(), arrayHeaderSize + bufferOffset + offset, bytes, array.getSegment(), TornadoNativeArray.ARRAY_HEADER + offset,
+                    (useDeps) ? events : null));
+        }
+        return useDeps ? listEvents : null;
+    }
+
+    @Override
+    public void read(final Object value) {
+        read(value, 0, null, false);
+    }
+
+    @Override
+    public int read(final Object value, long hostOffset, int[] events, boolean useDeps) {
+        final TornadoNativeArray array = cast(value);
+        return deviceContext.readBuffer(toBuffer(), arrayHeaderSize + bufferOffset, bufferSize - arrayHeaderSize, array.getSegment(), TornadoNativeArray.ARRAY_HEADER + hostOffset,
+                (useDeps) ? events : null);
+    }
+
+    @Override
+    public void write(final Object value) {
+        final TornadoNativeArray array = cast(value);
+        buildArrayHeader(array);
+        deviceContext.writeBuffer(toBuffer(), bufferOffset, bufferSize, array.getSegment(), hostHeaderOffset(), null);
+    }
+
+    @Override
+    public long toBuffer() {
+        return bufferId;
+    }
+
+    @Override
+    public void setBuffer(ObjectBufferWrapper bufferWrapper) {
+        this.bufferId = bufferWrapper.buffer;
+        this.bufferOffset = bufferWrapper.bufferOffset;
+
+        bufferWrapper.bufferOffset += size();
+    }
+
+    @Override
+    public long getBufferOffset() {
+        return bufferOffset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("native buffer<%s> %s", kind.getJavaName(), humanReadableByteCount(bufferSize, true));
+    }
+}
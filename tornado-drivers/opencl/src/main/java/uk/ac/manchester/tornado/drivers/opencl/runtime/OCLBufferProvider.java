@@ -39,8 +39,28 @@ public class OCLBufferProvider extends TornadoBufferProvider {
     }
 
     @Override
-    protected void releaseBuffer(long buffer) {
+    public void releaseBuffer(long buffer) {
         ((OCLDeviceContext) deviceContext).getMemoryManager().releaseBuffer(buffer);
     }
 
+    @Override
+    public boolean supportsSubBuffers() {
+        return true;
+    }
+
+    @Override
+    public long getSubBufferAlignment() {
+        return ((OCLDeviceContext) deviceContext).getDevice().getDeviceMemoryBaseAlignment() / Byte.SIZE;
+    }
+
+    @Override
+    public long allocateSubBuffer(long buffer, long offset, long size) {
+        return ((OCLDeviceContext) deviceContext).getPlatformContext().createSubBuffer(buffer, OCLMemFlags.CL_MEM_READ_WRITE, offset, size);
+    }
+
+    @Override
+    public void releaseSubBuffer(long subBuffer) {
+        ((OCLDeviceContext) deviceContext).getMemoryManager().releaseBuffer(subBuffer);
+    }
+
 }
@@ -38,6 +38,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -54,6 +55,7 @@ import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.type.annotations.Vector;
 import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.drivers.common.mm.MultiDimArrayLayout;
 import uk.ac.manchester.tornado.drivers.opencl.OCLCodeCache;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContextInterface;
@@ -74,16 +76,19 @@ import uk.ac.manchester.tornado.drivers.opencl.mm.OCLFloatArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLIntArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLLongArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLMultiDimArrayWrapper;
+import uk.ac.manchester.tornado.drivers.opencl.mm.OCLNativeArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLObjectWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
-import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
+import uk.ac.manchester.tornado.runtime.common.KernelCacheKey;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
@@ -246,6 +251,15 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
             profiler.registerBackend(taskMeta.getId(), taskMeta.getLogicDevice().getTornadoVMBackend().name());
             profiler.registerDeviceID(taskMeta.getId(), taskMeta.getLogicDevice().getDriverIndex() + ":" + taskMeta.getDeviceIndex());
             profiler.registerDeviceName(taskMeta.getId(), taskMeta.getLogicDevice().getPhysicalDevice().getDeviceName());
+
+            final KernelCacheKey cacheKey = isKernelCacheEnabled(deviceContext) ? buildKernelCacheKey(executable, resolvedMethod) : null;
+            if (cacheKey != null) {
+                OCLInstalledCode cachedCode = installCodeFromKernelCache(cacheKey, executable, resolvedMethod);
+                if (cachedCode != null) {
+                    return cachedCode;
+                }
+            }
+
             profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
             final OCLCompilationResult result = OCLCompiler.compileSketchForDevice(sketch, executable, providers, getBackend(), executable.getProfiler());
 
@@ -280,6 +294,12 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
             profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
 
+            // Kernels with atomics depend on state registered during compilation
+            if (cacheKey != null && installedCode.isValid() && !usesAtomics(methods)) {
+                PersistentKernelCache.getInstance().store(cacheKey.getKey(), result.getTargetCode(), result.getName(), taskMeta.getDomain(), taskMeta.isBoundsGuarded(),
+                        taskMeta.getTileSize());
+            }
+
             return installedCode;
         } catch (Exception e) {
             System.out.println(e.getMessage());
@@ -289,6 +309,61 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         }
     }
 
+    private boolean isKernelCacheEnabled(OCLDeviceContextInterface deviceContext) {
+        return TornadoOptions.KERNEL_CACHE_ENABLE && !OCLBackend.isDeviceAnFPGAAccelerator(deviceContext);
+    }
+
+    private KernelCacheKey buildKernelCacheKey(CompilableTask task, ResolvedJavaMethod resolvedMethod) {
+        final TaskMetaData meta = task.meta();
+        final OCLTargetDevice targetDevice = getDeviceContext().getDevice();
+        final KernelCacheKey cacheKey = new KernelCacheKey(TornadoVMBackendType.OPENCL.name());
+        cacheKey.add("platform", getDeviceContext().getPlatformContext().getPlatform().getVendor() + " " + getDeviceContext().getPlatformContext().getPlatform().getVersion());
+        cacheKey.add("device", targetDevice.getDeviceVendor() + " " + targetDevice.getDeviceName() + " " + targetDevice.getVersion() + " " + targetDevice.getDeviceType());
+        cacheKey.add("compilerFlags", meta.getCompilerFlags());
+        cacheKey.add("batchThreads", (meta.getNumThreads() > 0) ? meta.getNumThreads() : task.getBatchThreads());
+        cacheKey.add("batchIterations", meta.getBatchIterations());
+        cacheKey.add("gridScheduler", meta.isGridSchedulerEnabled());
+        cacheKey.addCodeSource(OCLCompiler.class);
+        cacheKey.addOptions("tornado.", task.getId() + ".");
+        cacheKey.addArguments(task.getArguments());
+        cacheKey.addSketch(resolvedMethod, meta.getDriverIndex(), meta.getDeviceIndex());
+        return cacheKey.isCacheable() ? cacheKey : null;
+    }
+
+    private OCLInstalledCode installCodeFromKernelCache(KernelCacheKey cacheKey, CompilableTask task, ResolvedJavaMethod resolvedMethod) {
+        final TaskMetaData taskMeta = task.meta();
+        final TornadoProfiler profiler = task.getProfiler();
+        final PersistentKernelCache.Entry entry = PersistentKernelCache.getInstance().lookup(cacheKey.getKey());
+        if (entry == null) {
+            profiler.addValueToMetric(ProfilerType.TASK_KERNEL_CACHE_MISS, taskMeta.getId(), 1);
+            return null;
+        }
+        profiler.addValueToMetric(ProfilerType.TASK_KERNEL_CACHE_HIT, taskMeta.getId(), 1);
+
+        // Restore the state that the compiler would have set in the task meta-data
+        taskMeta.setCompiledGraph(resolvedMethod);
+        if (taskMeta.getDomain() == null) {
+            taskMeta.setDomain(entry.getDomain());
+        }
+        taskMeta.setBoundsGuarded(entry.isBoundsGuarded());
+        taskMeta.setTileSize(entry.getTileSize());
+
+        profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+        final OCLInstalledCode installedCode = getDeviceContext().installCode(taskMeta, task.getId(), entry.getEntryPoint(), entry.getCode());
+        profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+        profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
+        return installedCode;
+    }
+
+    private boolean usesAtomics(ResolvedJavaMethod[] methods) {
+        for (ResolvedJavaMethod method : methods) {
+            if (TornadoAtomicIntegerNode.globalAtomics.containsKey(method) || TornadoAtomicIntegerNode.globalAtomicsParameters.containsKey(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private TornadoInstalledCode compilePreBuiltTask(SchedulableTask task) {
         final OCLDeviceContextInterface deviceContext = getDeviceContext();
         final PrebuiltTask executable = (PrebuiltTask) task;
@@ -472,45 +547,21 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         return result;
     }
 
-    private ObjectBuffer createMultiArrayWrapper(Class<?> componentType, Class<?> type, OCLDeviceContext device, long batchSize) {
-        ObjectBuffer result = null;
-
-        if (componentType == int[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLIntArrayWrapper(context, batchSize), batchSize);
-        } else if (componentType == short[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLShortArrayWrapper(context, batchSize), batchSize);
-        } else if (componentType == char[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLCharArrayWrapper(context, batchSize), batchSize);
-        } else if (componentType == byte[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLByteArrayWrapper(context, batchSize), batchSize);
-        } else if (componentType == float[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLFloatArrayWrapper(context, batchSize), batchSize);
-        } else if (componentType == double[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLDoubleArrayWrapper(context, batchSize), batchSize);
-        } else if (componentType == long[].class) {
-            result = new OCLMultiDimArrayWrapper<>(device, (OCLDeviceContext context) -> new OCLLongArrayWrapper(context, batchSize), batchSize);
-        } else {
-            TornadoInternalError.unimplemented("array of type %s", type.getName());
-        }
-        return result;
-    }
-
     private ObjectBuffer createDeviceBuffer(Class<?> type, Object object, OCLDeviceContext deviceContext, long batchSize) {
         ObjectBuffer result = null;
         if (type.isArray()) {
             if (!type.getComponentType().isArray()) {
                 result = createArrayWrapper(type, deviceContext, batchSize);
+            } else if (MultiDimArrayLayout.isSupported(type)) {
+                result = new OCLMultiDimArrayWrapper(deviceContext, type, batchSize);
             } else {
-                final Class<?> componentType = type.getComponentType();
-                if (RuntimeUtilities.isPrimitiveArray(componentType)) {
-                    result = createMultiArrayWrapper(componentType, type, deviceContext, batchSize);
-                } else {
-                    TornadoInternalError.unimplemented("multi-dimensional array of type %s", type.getName());
-                }
+                TornadoInternalError.unimplemented("multi-dimensional array of type %s", type.getName());
             }
         } else if (!type.isPrimitive()) {
             if (object instanceof AtomicInteger) {
                 result = new AtomicsBuffer(new int[] {}, deviceContext);
+            } else if (object instanceof TornadoNativeArray) {
+                result = new OCLNativeArrayWrapper(deviceContext, (TornadoNativeArray) object);
             } else if (object.getClass().getAnnotation(Vector.class) != null) {
                 result = new OCLVectorWrapper(deviceContext, object, batchSize);
             } else {
@@ -643,6 +694,11 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         getDeviceContext().sync();
     }
 
+    @Override
+    public void syncAllStreams() {
+        getDeviceContext().syncAllStreams();
+    }
+
     @Override
     public int enqueueBarrier() {
         return getDeviceContext().enqueueBarrier();
@@ -136,9 +136,9 @@ public class TestOpenCLJITCompiler {
         // Fill header of call callWrapper with empty values
         callWrapper.setKernelContext(new HashMap<>());
 
-        callWrapper.addCallArgument(objectStateA.getObjectBuffer().toBuffer(), true);
-        callWrapper.addCallArgument(objectStateB.getObjectBuffer().toBuffer(), true);
-        callWrapper.addCallArgument(objectStateC.getObjectBuffer().toBuffer(), true);
+        callWrapper.getCallArguments().putPointer(objectStateA.getObjectBuffer().toBuffer());
+        callWrapper.getCallArguments().putPointer(objectStateB.getObjectBuffer().toBuffer());
+        callWrapper.getCallArguments().putPointer(objectStateC.getObjectBuffer().toBuffer());
 
         // Run the code
         openCLCode.launchWithoutDependencies(callWrapper, null, taskMeta, 0);
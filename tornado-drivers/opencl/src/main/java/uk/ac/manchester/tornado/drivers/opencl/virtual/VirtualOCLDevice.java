@@ -188,6 +188,12 @@ public class VirtualOCLDevice extends TornadoLogger implements OCLTargetDevice {
         return deviceEndianLittle;
     }
 
+    @Override
+    public int getDeviceMemoryBaseAlignment() {
+        // Minimum value for devices that are not of type CL_DEVICE_TYPE_CUSTOM
+        return 1024;
+    }
+
     @Override
     public OCLDeviceContextInterface getDeviceContext() {
         return this.deviceContex;
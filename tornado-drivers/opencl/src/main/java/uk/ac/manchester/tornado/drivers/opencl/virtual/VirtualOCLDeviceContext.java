@@ -124,6 +124,10 @@ public class VirtualOCLDeviceContext extends TornadoLogger implements OCLDeviceC
     public void sync() {
     }
 
+    @Override
+    public void syncAllStreams() {
+    }
+
     @Override
     public int enqueueBarrier() {
         return 0;
@@ -551,6 +551,65 @@ JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStre
     TRANSFER_FROM_HOST_TO_DEVICE_ASYNC(Double, jdouble);
 }
 
+/*
+ * Off-heap buffers are not moved by the GC, so the copies below go straight from/to the
+ * direct buffer address without a staging area.
+ */
+#define TRANSFER_NATIVE_BUFFER(COPY, BLOCKING)                                              \
+    jbyte *native_buffer = static_cast<jbyte *>(env->GetDirectBufferAddress(buffer));       \
+    CUevent beforeEvent, afterEvent;                                                        \
+    CUstream stream;                                                                        \
+    stream_from_array(env, &stream, stream_wrapper);                                        \
+    record_events_create(&beforeEvent, &afterEvent);                                        \
+    record_event(&beforeEvent, &stream);                                                    \
+    CUresult result = COPY;                                                                 \
+    LOG_PTX_AND_VALIDATE(#COPY, result);                                                    \
+    record_event(&afterEvent, &stream);                                                     \
+    if (BLOCKING && cuEventQuery(afterEvent) != CUDA_SUCCESS) {                             \
+        cuEventSynchronize(afterEvent);                                                     \
+    }                                                                                       \
+    return wrapper_from_events(env, &beforeEvent, &afterEvent);
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayDtoH
+ * Signature: (JJLjava/nio/ByteBuffer;J[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayDtoH__JJLjava_nio_ByteBuffer_2J_3B
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jobject buffer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_NATIVE_BUFFER(cuMemcpyDtoHAsync(native_buffer + host_offset, device_ptr, (size_t) length, stream), true);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayDtoHAsync
+ * Signature: (JJLjava/nio/ByteBuffer;J[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayDtoHAsync__JJLjava_nio_ByteBuffer_2J_3B
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jobject buffer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_NATIVE_BUFFER(cuMemcpyDtoHAsync(native_buffer + host_offset, device_ptr, (size_t) length, stream), false);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayHtoD
+ * Signature: (JJLjava/nio/ByteBuffer;J[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayHtoD__JJLjava_nio_ByteBuffer_2J_3B
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jobject buffer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_NATIVE_BUFFER(cuMemcpyHtoDAsync(device_ptr, native_buffer + host_offset, (size_t) length, stream), true);
+}
+
+/*
+ * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
+ * Method:    writeArrayHtoDAsync
+ * Signature: (JJLjava/nio/ByteBuffer;J[B)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_uk_ac_manchester_tornado_drivers_ptx_PTXStream_writeArrayHtoDAsync__JJLjava_nio_ByteBuffer_2J_3B
+        (JNIEnv *env, jclass klass, jlong device_ptr, jlong length, jobject buffer, jlong host_offset, jbyteArray stream_wrapper) {
+    TRANSFER_NATIVE_BUFFER(cuMemcpyHtoDAsync(device_ptr, native_buffer + host_offset, (size_t) length, stream), false);
+}
+
 /*
  * Class:     uk_ac_manchester_tornado_drivers_ptx_PTXStream
  * Method:    cuLaunchKernel
@@ -23,8 +23,6 @@
  */
 package uk.ac.manchester.tornado.drivers.ptx;
 
-import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
-import static uk.ac.manchester.tornado.api.utils.TornadoUtilities.isBoxedPrimitive;
 import static uk.ac.manchester.tornado.drivers.ptx.graal.PTXCodeUtil.buildKernelName;
 
 import java.nio.ByteBuffer;
@@ -45,10 +43,12 @@ import uk.ac.manchester.tornado.drivers.ptx.mm.PTXKernelArgs;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXMemoryManager;
 import uk.ac.manchester.tornado.drivers.ptx.runtime.PTXBufferProvider;
 import uk.ac.manchester.tornado.drivers.ptx.runtime.PTXTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.WorkGroupTuner;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceContext {
@@ -201,9 +201,10 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
     public int enqueueKernelLaunch(PTXModule module, KernelArgs kernelArgs, TaskMetaData taskMeta, long batchThreads) {
         int[] blockDimension = { 1, 1, 1 };
         int[] gridDimension = { 1, 1, 1 };
+        String tuningKey = null;
+        WorkGroupTuner.Configuration tuningConfiguration = null;
         if (taskMeta.isWorkerGridAvailable()) {
             WorkerGrid grid = taskMeta.getWorkerGrid(taskMeta.getId());
-            int[] global = Arrays.stream(grid.getGlobalWork()).mapToInt(l -> (int) l).toArray();
             if (grid.getLocalWork() != null) {
                 blockDimension = Arrays.stream(grid.getLocalWork()).mapToInt(l -> (int) l).toArray();
             } else {
@@ -217,20 +218,32 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
                 blockDimension = scheduler.calculateBlockDimension(grid.getGlobalWork(), module.getPotentialBlockSizeMaxOccupancy(), grid.dimension(), module.javaName);
                 System.out.println("Warning: TornadoVM changed the user-defined local size to the following: [" + blockDimension[0] + ", " + blockDimension[1] + ", " + blockDimension[2] + "].");
             }
+            int[] global = scheduler.calculateGlobalWork(taskMeta, grid.getGlobalWork(), blockDimension, grid.dimension());
             gridDimension = scheduler.calculateGridDimension(module.javaName, grid.dimension(), global, blockDimension);
         } else if (taskMeta.isParallel()) {
             scheduler.calculateGlobalWork(taskMeta, batchThreads);
             blockDimension = scheduler.calculateBlockDimension(module, taskMeta);
+            if (scheduler.shouldTune(taskMeta)) {
+                tuningKey = WorkGroupTuner.getKey(device.getDeviceName(), taskMeta.getId() + "." + module.kernelFunctionName, taskMeta.getGlobalWork(), taskMeta.getDims());
+                tuningConfiguration = scheduler.selectTunedBlockDimension(tuningKey, module, taskMeta, blockDimension);
+                blockDimension = Arrays.stream(tuningConfiguration.getLocalWork()).mapToInt(l -> (int) l).toArray();
+            }
             gridDimension = scheduler.calculateGridDimension(module, taskMeta, blockDimension);
         }
 
         int kernelLaunchEvent = stream.enqueueKernelLaunch(module, taskMeta, writePTXKernelContextOnDevice((PTXKernelArgs) kernelArgs, taskMeta), gridDimension, blockDimension);
         updateProfiler(kernelLaunchEvent, taskMeta);
+        if (tuningKey != null && WorkGroupTuner.getInstance().isTuning(tuningKey)) {
+            Event kernelEvent = resolveEvent(kernelLaunchEvent);
+            kernelEvent.waitForEvents();
+            WorkGroupTuner.getInstance().report(tuningKey, tuningConfiguration, kernelEvent.getElapsedTime());
+        }
         return kernelLaunchEvent;
     }
 
     private byte[] writePTXKernelContextOnDevice(PTXKernelArgs ptxKernelArgs, TaskMetaData meta) {
-        int capacity = Long.BYTES + ptxKernelArgs.getCallArguments().size() * Long.BYTES;
+        final CallArguments callArguments = ptxKernelArgs.getCallArguments();
+        int capacity = Long.BYTES + callArguments.size() * Long.BYTES;
         ByteBuffer args = ByteBuffer.allocate(capacity);
         args.order(getByteOrder());
 
@@ -241,15 +254,11 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         args.putLong(address);
 
         // Parameters
-        for (int argIndex = 0; argIndex < ptxKernelArgs.getCallArguments().size(); argIndex++) {
-            KernelArgs.CallArgument arg = ptxKernelArgs.getCallArguments().get(argIndex);
-            if (arg.getValue() instanceof KernelArgs.KernelContextArgument) {
+        for (int argIndex = 0; argIndex < callArguments.size(); argIndex++) {
+            if (callArguments.isKernelContext(argIndex)) {
                 args.putLong(address);
-                continue;
-            } else if (isBoxedPrimitive(arg.getValue()) || arg.getValue().getClass().isPrimitive()) {
-                args.putLong(((Number) arg.getValue()).longValue());
             } else {
-                shouldNotReachHere();
+                args.putLong(callArguments.getLongValue(argIndex));
             }
         }
 
@@ -328,6 +337,10 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         return stream.enqueueRead(address, length, array, hostOffset, waitEvents);
     }
 
+    public int readBuffer(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        return stream.enqueueRead(address, length, nativeBuffer, hostOffset, waitEvents);
+    }
+
     /*
      * ASYNC READS
      */
@@ -359,6 +372,10 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         return stream.enqueueAsyncRead(address, length, array, hostOffset, waitEvents);
     }
 
+    public int enqueueReadBuffer(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        return stream.enqueueAsyncRead(address, length, nativeBuffer, hostOffset, waitEvents);
+    }
+
     /*
      * SYNC WRITES
      */
@@ -390,6 +407,10 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         stream.enqueueWrite(address, length, array, hostOffset, waitEvents);
     }
 
+    public void writeBuffer(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        stream.enqueueWrite(address, length, nativeBuffer, hostOffset, waitEvents);
+    }
+
     /*
      * ASYNC WRITES
      */
@@ -421,6 +442,10 @@ public class PTXDeviceContext extends TornadoLogger implements TornadoDeviceCont
         return stream.enqueueAsyncWrite(address, length, array, hostOffset, waitEvents);
     }
 
+    public int enqueueWriteBuffer(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        return stream.enqueueAsyncWrite(address, length, nativeBuffer, hostOffset, waitEvents);
+    }
+
     public void dumpEvents() {
         List<PTXEvent> events = stream.getEventPool().getEvents();
 
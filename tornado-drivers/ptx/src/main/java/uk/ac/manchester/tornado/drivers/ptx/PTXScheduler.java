@@ -31,6 +31,9 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.warn;
 import java.util.Arrays;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.WorkGroupTuner;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class PTXScheduler {
@@ -47,8 +50,13 @@ public class PTXScheduler {
         }
 
         final long[] globalWork = meta.getGlobalWork();
+        final boolean padding = GlobalWorkPadding.isEnabled(meta);
+        final long maxBlockSize = calculateEffectiveMaxWorkItemSize(meta.getDims(), device.getMaxThreadsPerBlock());
         for (int i = 0; i < meta.getDims(); i++) {
             long value = (batchThreads <= 0) ? (long) (meta.getDomain().get(i).cardinality()) : batchThreads;
+            if (padding) {
+                value = GlobalWorkPadding.padGlobalWork(value, maxBlockSize, meta.getDims());
+            }
             globalWork[i] = value;
         }
     }
@@ -65,6 +73,26 @@ public class PTXScheduler {
         return calculateBlockDimension(taskMeta.getGlobalWork(), maxThreadsPerBlock, taskMeta.getDims(), module.javaName);
     }
 
+    /**
+     * @return true if the block dimensions of the task can be replaced by the ones
+     *         of the {@link WorkGroupTuner}.
+     */
+    public boolean shouldTune(TaskMetaData taskMeta) {
+        return TornadoOptions.TUNING_ENABLE && !taskMeta.isLocalWorkDefined();
+    }
+
+    /**
+     * Returns the tuned block dimensions of the task, or the next candidate of the
+     * search when the task is still being tuned. Candidates are limited to the
+     * block size of maximum occupancy of the kernel, which is always valid for
+     * launching it.
+     */
+    public WorkGroupTuner.Configuration selectTunedBlockDimension(String key, PTXModule module, TaskMetaData taskMeta, int[] defaultBlocks) {
+        final long[] defaultLocalWork = Arrays.stream(defaultBlocks).mapToLong(block -> block).toArray();
+        return WorkGroupTuner.getInstance().getConfiguration(key, () -> WorkGroupTuner.generateCandidates(taskMeta.getGlobalWork(), defaultLocalWork, taskMeta.getDims(),
+                device.getDeviceMaxWorkItemSizes(), module.getPotentialBlockSizeMaxOccupancy(), TornadoOptions.TUNING_MAX_CANDIDATES));
+    }
+
     public int[] calculateBlockDimension(long[] globalWork, long maxThreadBlocks, int dimension, String javaName) {
         int[] defaultBlocks = { 1, 1, 1 };
         try {
@@ -105,6 +133,19 @@ public class PTXScheduler {
         return value;
     }
 
+    /**
+     * Rounds up the user-defined threads of a grid to a multiple of the block
+     * dimensions, so the grid covers all of them when the kernel is bounds-guarded.
+     * Otherwise, the grid dimensions are truncated.
+     */
+    public int[] calculateGlobalWork(TaskMetaData taskMeta, long[] gridGlobalWork, int[] blockDimension, int dimension) {
+        long[] globalWork = gridGlobalWork;
+        if (GlobalWorkPadding.isEnabled(taskMeta)) {
+            globalWork = GlobalWorkPadding.padToLocalWork(gridGlobalWork, Arrays.stream(blockDimension).mapToLong(block -> block).toArray(), dimension);
+        }
+        return Arrays.stream(globalWork).mapToInt(l -> (int) l).toArray();
+    }
+
     public int[] calculateGridDimension(PTXModule module, TaskMetaData taskMeta, int[] blockDimension) {
         int[] globalWork = Arrays.stream(taskMeta.getGlobalWork()).mapToInt(l -> (int) l).toArray();
         return calculateGridDimension(module.javaName, taskMeta.getDims(), globalWork, blockDimension);
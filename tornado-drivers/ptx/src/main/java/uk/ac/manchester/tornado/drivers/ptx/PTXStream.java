@@ -25,6 +25,7 @@ package uk.ac.manchester.tornado.drivers.ptx;
 
 import static uk.ac.manchester.tornado.runtime.common.Tornado.EVENT_WINDOW;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -64,6 +65,8 @@ public class PTXStream extends TornadoLogger {
 
     private static native byte[][] writeArrayDtoH(long address, long length, double[] array, long hostOffset, byte[] streamWrapper);
 
+    private static native byte[][] writeArrayDtoH(long address, long length, ByteBuffer nativeBuffer, long hostOffset, byte[] streamWrapper);
+
     private static native byte[][] writeArrayDtoHAsync(long address, long length, byte[] array, long hostOffset, byte[] streamWrapper);
 
     private static native byte[][] writeArrayDtoHAsync(long address, long length, short[] array, long hostOffset, byte[] streamWrapper);
@@ -78,6 +81,8 @@ public class PTXStream extends TornadoLogger {
 
     private static native byte[][] writeArrayDtoHAsync(long address, long length, double[] array, long hostOffset, byte[] streamWrapper);
 
+    private static native byte[][] writeArrayDtoHAsync(long address, long length, ByteBuffer nativeBuffer, long hostOffset, byte[] streamWrapper);
+
     private static native byte[][] writeArrayHtoD(long address, long length, byte[] array, long hostOffset, byte[] streamWrapper);
 
     private static native byte[][] writeArrayHtoD(long address, long length, short[] array, long hostOffset, byte[] streamWrapper);
@@ -92,6 +97,8 @@ public class PTXStream extends TornadoLogger {
 
     private static native byte[][] writeArrayHtoD(long address, long length, double[] array, long hostOffset, byte[] streamWrapper);
 
+    private static native byte[][] writeArrayHtoD(long address, long length, ByteBuffer nativeBuffer, long hostOffset, byte[] streamWrapper);
+
     private static native byte[][] writeArrayHtoDAsync(long address, long length, byte[] array, long hostOffset, byte[] streamWrapper);
 
     private static native byte[][] writeArrayHtoDAsync(long address, long length, short[] array, long hostOffset, byte[] streamWrapper);
@@ -105,6 +112,8 @@ public class PTXStream extends TornadoLogger {
     private static native byte[][] writeArrayHtoDAsync(long address, long length, float[] array, long hostOffset, byte[] streamWrapper);
 
     private static native byte[][] writeArrayHtoDAsync(long address, long length, double[] array, long hostOffset, byte[] streamWrapper);
+
+    private static native byte[][] writeArrayHtoDAsync(long address, long length, ByteBuffer nativeBuffer, long hostOffset, byte[] streamWrapper);
     //@formatter:on
 
     private static native byte[][] cuLaunchKernel(byte[] module, String name, int gridDimX, int gridDimY, int gridDimZ, int blockDimX, int blockDimY, int blockDimZ, long sharedMemBytes, byte[] stream,
@@ -227,6 +236,11 @@ public class PTXStream extends TornadoLogger {
         return registerEvent(writeArrayDtoH(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_READ_DOUBLE);
     }
 
+    public int enqueueRead(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        return registerEvent(writeArrayDtoH(address, length, nativeBuffer, hostOffset, streamPool), EventDescriptor.DESC_READ_BYTE);
+    }
+
     public int enqueueAsyncRead(long address, long length, byte[] array, long hostOffset, int[] waitEvents) {
         waitForEvents(waitEvents);
         return registerEvent(writeArrayDtoHAsync(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_READ_BYTE);
@@ -262,6 +276,11 @@ public class PTXStream extends TornadoLogger {
         return registerEvent(writeArrayDtoHAsync(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_READ_DOUBLE);
     }
 
+    public int enqueueAsyncRead(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        return registerEvent(writeArrayDtoHAsync(address, length, nativeBuffer, hostOffset, streamPool), EventDescriptor.DESC_READ_BYTE);
+    }
+
     public void enqueueWrite(long address, long length, byte[] array, long hostOffset, int[] waitEvents) {
         waitForEvents(waitEvents);
         registerEvent(writeArrayHtoD(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_WRITE_BYTE);
@@ -297,6 +316,11 @@ public class PTXStream extends TornadoLogger {
         registerEvent(writeArrayHtoD(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_WRITE_DOUBLE);
     }
 
+    public void enqueueWrite(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        registerEvent(writeArrayHtoD(address, length, nativeBuffer, hostOffset, streamPool), EventDescriptor.DESC_WRITE_BYTE);
+    }
+
     public int enqueueAsyncWrite(long address, long length, byte[] array, long hostOffset, int[] waitEvents) {
         waitForEvents(waitEvents);
         return registerEvent(writeArrayHtoDAsync(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_WRITE_BYTE);
@@ -333,6 +357,11 @@ public class PTXStream extends TornadoLogger {
         return registerEvent(writeArrayHtoDAsync(address, length, array, hostOffset, streamPool), EventDescriptor.DESC_WRITE_DOUBLE);
     }
 
+    public int enqueueAsyncWrite(long address, long length, ByteBuffer nativeBuffer, long hostOffset, int[] waitEvents) {
+        waitForEvents(waitEvents);
+        return registerEvent(writeArrayHtoDAsync(address, length, nativeBuffer, hostOffset, streamPool), EventDescriptor.DESC_WRITE_BYTE);
+    }
+
     public PTXEventPool getEventPool() {
         return this.ptxEventPool;
     }
@@ -157,7 +157,8 @@ public class PTXCodeUtil {
         if (!lhs.isFloating() && rhs.isFloating()) {
             roundingMode = ROUND_TOWARD_ZERO_INTEGER;
         }
-        if ((lhs.isF64() && rhs.isF32())) {
+        if ((lhs.isF64() && rhs.isF32()) || ((lhs.isF64() || lhs.isF32()) && rhs.isF16())) {
+            // Widening FP conversions are exact and do not take a rounding modifier
             return null;
         }
         return roundingMode;
@@ -66,10 +66,12 @@ import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.LocalArrayNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXBarrierNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXFPBinaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXFPUnaryIntrinsicNode;
+import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXHalfFloatConvertNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXIntBinaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXIntUnaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PrintfNode;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoNativeArrayPlugins;
 
 public class PTXGraphBuilderPlugins {
 
@@ -82,6 +84,8 @@ public class PTXGraphBuilderPlugins {
         registerPTXBuiltinPlugins(plugins);
         PTXMathPlugins.registerTornadoMathPlugins(plugins);
         PTXVectorPlugins.registerPlugins(ps, plugins);
+        TornadoNativeArrayPlugins.registerPlugins(plugins);
+        TornadoNativeArrayPlugins.registerHalfFloatPlugins(plugins, PTXHalfFloatConvertNode::halfToFloat, PTXHalfFloatConvertNode::floatToHalf);
 
         registerKernelContextPlugins(plugins);
     }
@@ -0,0 +1,107 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.ptx.graal.nodes;
+
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.Variable;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.FloatingNode;
+import org.graalvm.compiler.nodes.spi.Canonicalizable;
+import org.graalvm.compiler.nodes.spi.CanonicalizerTool;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloat;
+import uk.ac.manchester.tornado.drivers.common.logging.Logger;
+import uk.ac.manchester.tornado.drivers.ptx.graal.compiler.PTXLIRGenerator;
+import uk.ac.manchester.tornado.drivers.ptx.graal.lir.PTXKind;
+import uk.ac.manchester.tornado.drivers.ptx.graal.lir.PTXLIRStmt;
+
+/**
+ * Conversion between a half-precision value, held in a short, and a float. The
+ * 16-bit pattern is moved into a {@code .b16} register and converted with
+ * {@code cvt.f32.f16} or {@code cvt.rn.f16.f32}.
+ */
+@NodeInfo(shortName = "HalfFloatConvert")
+public class PTXHalfFloatConvertNode extends FloatingNode implements LIRLowerable, Canonicalizable {
+
+    public static final NodeClass<PTXHalfFloatConvertNode> TYPE = NodeClass.create(PTXHalfFloatConvertNode.class);
+
+    @Input
+    protected ValueNode value;
+    protected final boolean toHalf;
+
+    protected PTXHalfFloatConvertNode(ValueNode value, boolean toHalf) {
+        super(TYPE, StampFactory.forKind(toHalf ? JavaKind.Short : JavaKind.Float));
+        this.value = value;
+        this.toHalf = toHalf;
+    }
+
+    public static ValueNode halfToFloat(ValueNode half) {
+        return new PTXHalfFloatConvertNode(half, false);
+    }
+
+    public static ValueNode floatToHalf(ValueNode value) {
+        return new PTXHalfFloatConvertNode(value, true);
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (value.isJavaConstant()) {
+            if (toHalf) {
+                return ConstantNode.forInt(HalfFloat.floatToHalf(value.asJavaConstant().asFloat()));
+            }
+            return ConstantNode.forFloat(HalfFloat.halfToFloat((short) value.asJavaConstant().asInt()));
+        }
+        return this;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool nodeLIRBuilderTool) {
+        Logger.traceBuildLIR(Logger.BACKEND.PTX, "emitHalfFloatConvert: toHalf=%s, value=%s", toHalf, value);
+        PTXLIRGenerator gen = (PTXLIRGenerator) nodeLIRBuilderTool.getLIRGeneratorTool();
+        LIRKind lirKind = gen.getLIRKind(stamp);
+        final Variable result = gen.newVariable(lirKind);
+        final Variable half = gen.newVariable(LIRKind.value(PTXKind.B16));
+
+        Value value = nodeLIRBuilderTool.operand(this.value);
+        PTXKind valueKind = (PTXKind) value.getPlatformKind();
+        PTXKind resultKind = (PTXKind) result.getPlatformKind();
+
+        if (toHalf) {
+            gen.append(new PTXLIRStmt.AssignStmt(half, PTXKind.F16, value, valueKind));
+            gen.append(new PTXLIRStmt.AssignStmt(result, resultKind, half, PTXKind.S16));
+        } else {
+            gen.append(new PTXLIRStmt.AssignStmt(half, PTXKind.U16, value, valueKind));
+            gen.append(new PTXLIRStmt.AssignStmt(result, resultKind, half, PTXKind.F16));
+        }
+        nodeLIRBuilderTool.setResult(this, result);
+    }
+}
@@ -30,6 +30,7 @@ import org.graalvm.compiler.phases.BasePhase;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.GlobalThreadIdNode;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.GlobalThreadSizeNode;
 import uk.ac.manchester.tornado.drivers.ptx.runtime.PTXTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
 import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.graal.nodes.AbstractParallelNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
@@ -66,13 +67,18 @@ public class TornadoParallelScheduler extends BasePhase<TornadoHighTierContext>
 
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
-        if (context.getMeta() == null || context.getMeta().enableThreadCoarsener()) {
+        if (context.getMeta() == null) {
+            return;
+        }
+        if (context.getMeta().enableThreadCoarsener()) {
+            context.getMeta().setBoundsGuarded(false);
             return;
         }
 
         PTXTornadoDevice device = (PTXTornadoDevice) context.getDeviceMapping();
         final TornadoSchedulingStrategy strategy = device.getPreferredSchedule();
         long[] maxWorkItemSizes = device.getPhysicalDevice().getDeviceMaxWorkItemSizes();
+        context.getMeta().setBoundsGuarded(GlobalWorkPadding.isBoundsGuarded(graph, context.getMeta(), maxWorkItemSizes));
 
         graph.getNodes().filter(ParallelRangeNode.class).forEach(node -> {
             if (context.getMeta().enableParallelization() && maxWorkItemSizes[node.index()] > 1) {
@@ -54,6 +54,7 @@ import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaField;
 import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXKernelContextAccessNode;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
@@ -62,6 +63,7 @@ import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoLoopUnroller;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoValueTypeReplacement;
+import uk.ac.manchester.tornado.runtime.graph.BatchConfiguration;
 
 public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext> {
 
@@ -72,6 +74,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private final DeadCodeEliminationPhase deadCodeElimination;
     private final TornadoLoopUnroller loopUnroll;
     private long batchThreads;
+    private long batchIterations;
     private int index;
     private boolean gridScheduling;
     private boolean printOnce = true;
@@ -184,7 +187,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private void evaluate(final StructuredGraph graph, final Node node, final Object value) {
         if (node instanceof ArrayLengthNode) {
             ArrayLengthNode arrayLength = (ArrayLengthNode) node;
-            int length = Array.getLength(value);
+            int length = (value instanceof TornadoNativeArray) ? ((TornadoNativeArray) value).getSize() : Array.getLength(value);
 
             /**
              * This condition covers the case that loop bounds should be taken based on the
@@ -202,7 +205,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
                 if (batchThreads <= 0) {
                     constant = ConstantNode.forInt(length);
                 } else {
-                    constant = ConstantNode.forInt((int) batchThreads);
+                    constant = ConstantNode.forInt((int) BatchConfiguration.getBatchedArrayLength(length, batchIterations, batchThreads));
                 }
                 node.replaceAtUsages(graph.addOrUnique(constant));
             }
@@ -294,6 +297,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
         int lastNodeCount = graph.getNodeCount();
         boolean hasWork = true;
         this.batchThreads = context.getBatchThreads();
+        this.batchIterations = context.hasMeta() ? context.getMeta().getBatchIterations() : 0;
         this.gridScheduling = context.isGridSchedulerEnabled();
 
         while (hasWork) {
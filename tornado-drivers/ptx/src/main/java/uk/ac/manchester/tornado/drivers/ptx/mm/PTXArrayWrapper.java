@@ -194,6 +194,24 @@ public abstract class PTXArrayWrapper<T> implements ObjectBuffer {
         return listEvents;
     }
 
+    @Override
+    public List<Integer> enqueueWriteRanges(final Object reference, long[] ranges, final int[] events, boolean useDeps) {
+        final T array = cast(reference);
+        ArrayList<Integer> listEvents = new ArrayList<>();
+
+        if (array == null) {
+            throw new TornadoRuntimeException("ERROR] Data to be copied is NULL");
+        }
+        // The array header does not change, so only the ranges are copied
+        final long elementSize = kind.getByteCount();
+        for (int i = 0; i < ranges.length; i += 2) {
+            final long hostOffset = ranges[i] * elementSize;
+            final long bytes = (ranges[i + 1] - ranges[i]) * elementSize;
+            listEvents.add(enqueueWriteArrayData(toBuffer() + arrayHeaderSize + hostOffset, bytes, array, hostOffset, (useDeps) ? events : null));
+        }
+        return listEvents;
+    }
+
     private PTXByteBuffer buildArrayHeaderBatch(long arraySize) {
         final PTXByteBuffer header = getArrayHeader();
         header.buffer.clear();
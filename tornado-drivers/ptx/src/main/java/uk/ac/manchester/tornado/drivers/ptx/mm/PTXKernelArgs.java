@@ -23,37 +23,31 @@
  */
 package uk.ac.manchester.tornado.drivers.ptx.mm;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 
 import uk.ac.manchester.tornado.drivers.ptx.PTXDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 
 public class PTXKernelArgs extends PTXByteBuffer implements KernelArgs {
 
     public static final int RESERVED_SLOTS = 3;
-    private final ArrayList<CallArgument> callArguments;
+    private final CallArguments callArguments;
 
     public PTXKernelArgs(long address, int numArgs, PTXDeviceContext deviceContext) {
         super(address, RESERVED_SLOTS << 3, 0, deviceContext);
-        this.callArguments = new ArrayList<>(numArgs);
+        this.callArguments = new CallArguments(numArgs);
 
         buffer.clear();
     }
 
-    @Override
-    public void addCallArgument(Object value, boolean isReferenceType) {
-        callArguments.add(new CallArgument(value, isReferenceType));
-    }
-
     @Override
     public void reset() {
-        callArguments.clear();
+        callArguments.reset();
     }
 
     @Override
-    public List<CallArgument> getCallArguments() {
+    public CallArguments getCallArguments() {
         return callArguments;
     }
 
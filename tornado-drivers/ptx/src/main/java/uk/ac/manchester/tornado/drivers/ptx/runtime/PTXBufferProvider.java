@@ -25,6 +25,7 @@ package uk.ac.manchester.tornado.drivers.ptx.runtime;
 
 import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 
 public class PTXBufferProvider extends TornadoBufferProvider {
 
@@ -38,7 +39,26 @@ public class PTXBufferProvider extends TornadoBufferProvider {
     }
 
     @Override
-    protected void releaseBuffer(long buffer) {
+    public void releaseBuffer(long buffer) {
         ((PTXDeviceContext) deviceContext).getDevice().getPTXContext().freeMemory(buffer);
     }
+
+    @Override
+    public boolean supportsSubBuffers() {
+        return true;
+    }
+
+    @Override
+    public long getSubBufferAlignment() {
+        return TornadoOptions.PTX_ARRAY_ALIGNMENT;
+    }
+
+    /**
+     * CUDA buffers are plain device pointers, so a region is addressed with
+     * pointer arithmetic and there is nothing to release.
+     */
+    @Override
+    public long allocateSubBuffer(long buffer, long offset, long size) {
+        return buffer + offset;
+    }
 }
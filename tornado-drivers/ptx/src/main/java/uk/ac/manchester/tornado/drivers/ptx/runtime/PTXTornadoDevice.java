@@ -34,6 +34,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -49,6 +50,7 @@ import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.type.annotations.Vector;
 import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.drivers.common.mm.MultiDimArrayLayout;
 import uk.ac.manchester.tornado.drivers.ptx.PTX;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDevice;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDeviceContext;
@@ -65,13 +67,13 @@ import uk.ac.manchester.tornado.drivers.ptx.mm.PTXFloatArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXIntArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXLongArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXMultiDimArrayWrapper;
+import uk.ac.manchester.tornado.drivers.ptx.mm.PTXNativeArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXObjectWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
-import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -245,16 +247,15 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
 
             if (!type.getComponentType().isArray()) {
                 result = createArrayWrapper(type, getDeviceContext(), batchSize);
+            } else if (MultiDimArrayLayout.isSupported(type)) {
+                result = new PTXMultiDimArrayWrapper(getDeviceContext(), type, batchSize);
             } else {
-                final Class<?> componentType = type.getComponentType();
-                if (RuntimeUtilities.isPrimitiveArray(componentType)) {
-                    result = createMultiArrayWrapper(componentType, type, batchSize);
-                } else {
-                    TornadoInternalError.unimplemented("multi-dimensional array of type %s", type.getName());
-                }
+                TornadoInternalError.unimplemented("multi-dimensional array of type %s", type.getName());
             }
         } else if (!type.isPrimitive()) {
-            if (arg.getClass().getAnnotation(Vector.class) != null) {
+            if (arg instanceof TornadoNativeArray) {
+                result = new PTXNativeArrayWrapper(getDeviceContext(), (TornadoNativeArray) arg);
+            } else if (arg.getClass().getAnnotation(Vector.class) != null) {
                 result = new PTXVectorWrapper(getDeviceContext(), arg, batchSize);
             } else {
                 result = new PTXObjectWrapper(getDeviceContext(), arg);
@@ -328,30 +329,6 @@ public class PTXTornadoDevice implements TornadoAcceleratorDevice {
         return result;
     }
 
-    private ObjectBuffer createMultiArrayWrapper(Class<?> componentType, Class<?> type, long batchSize) {
-        ObjectBuffer result = null;
-        PTXDeviceContext deviceContext = getDeviceContext();
-
-        if (componentType == int[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXIntArrayWrapper::new, batchSize);
-        } else if (componentType == short[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXShortArrayWrapper::new, batchSize);
-        } else if (componentType == char[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXCharArrayWrapper::new, batchSize);
-        } else if (componentType == byte[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXByteArrayWrapper::new, batchSize);
-        } else if (componentType == float[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXFloatArrayWrapper::new, batchSize);
-        } else if (componentType == double[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXDoubleArrayWrapper::new, batchSize);
-        } else if (componentType == long[].class) {
-            result = new PTXMultiDimArrayWrapper<>(deviceContext, PTXLongArrayWrapper::new, batchSize);
-        } else {
-            TornadoInternalError.unimplemented("array of type %s", type.getName());
-        }
-        return result;
-    }
-
     /**
      * It allocates and copy in the content of the object to the target device.
      *
@@ -23,9 +23,6 @@
  */
 package uk.ac.manchester.tornado.drivers.spirv.graal;
 
-import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
-import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.isBoxedPrimitive;
-
 import java.util.Arrays;
 
 import uk.ac.manchester.tornado.api.WorkerGrid;
@@ -44,6 +41,8 @@ import uk.ac.manchester.tornado.drivers.spirv.levelzero.ZeResult;
 import uk.ac.manchester.tornado.drivers.spirv.levelzero.utils.LevelZeroUtils;
 import uk.ac.manchester.tornado.drivers.spirv.mm.SPIRVKernelArgs;
 import uk.ac.manchester.tornado.drivers.spirv.timestamps.LevelZeroKernelTimeStamp;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
@@ -52,9 +51,7 @@ public class SPIRVLevelZeroInstalledCode extends SPIRVInstalledCode {
 
     public static final String WARNING_THREAD_LOCAL = "[TornadoVM SPIR-V] Warning: TornadoVM changed the user-defined local thread sizes to the suggested values by the driver.";
 
-    private static final int WARP_SIZE = 32;
     private boolean valid;
-    private boolean ADJUST_IRREGULAR = false;
     private LevelZeroKernelTimeStamp kernelTimeStamp;
     private ThreadBlockDispatcher dispatcher;
     private DeviceThreadScheduling threadScheduling;
@@ -81,24 +78,20 @@ public class SPIRVLevelZeroInstalledCode extends SPIRVInstalledCode {
         int result = levelZeroKernel.zeKernelSetArgumentValue(kernel.getPtrZeKernelHandle(), 0, Sizeof.LONG.getNumBytes(), callWrapper.toBuffer());
         LevelZeroUtils.errorLog("zeKernelSetArgumentValue", result);
 
-        for (int argIndex = 0; argIndex < callWrapper.getCallArguments().size(); argIndex++) {
+        final CallArguments callArguments = callWrapper.getCallArguments();
+        for (int argIndex = 0; argIndex < callArguments.size(); argIndex++) {
             int kernelParamIndex = argIndex + 1;
-            KernelArgs.CallArgument arg = callWrapper.getCallArguments().get(argIndex);
-            if (arg.getValue() instanceof KernelArgs.KernelContextArgument) {
+            if (callArguments.isKernelContext(argIndex)) {
                 result = levelZeroKernel.zeKernelSetArgumentValue(kernel.getPtrZeKernelHandle(), kernelParamIndex, Sizeof.LONG.getNumBytes(), callWrapper.toBuffer());
                 LevelZeroUtils.errorLog("zeKernelSetArgumentValue", result);
                 continue;
             }
 
-            if (isBoxedPrimitive(arg.getValue()) || arg.getValue().getClass().isPrimitive()) {
-                if (!arg.isReferenceType()) {
-                    continue;
-                }
-                result = levelZeroKernel.zeKernelSetArgumentValue(kernel.getPtrZeKernelHandle(), kernelParamIndex, Sizeof.LONG.getNumBytes(), ((Number) arg.getValue()).longValue());
-                LevelZeroUtils.errorLog("zeKernelSetArgumentValue", result);
-            } else {
-                shouldNotReachHere();
+            if (!callArguments.isReference(argIndex)) {
+                continue;
             }
+            result = levelZeroKernel.zeKernelSetArgumentValue(kernel.getPtrZeKernelHandle(), kernelParamIndex, Sizeof.LONG.getNumBytes(), callArguments.getRawValue(argIndex));
+            LevelZeroUtils.errorLog("zeKernelSetArgumentValue", result);
         }
     }
 
@@ -128,6 +121,9 @@ public class SPIRVLevelZeroInstalledCode extends SPIRVInstalledCode {
 
             if (worker.getLocalWork() != null) {
                 System.arraycopy(worker.getLocalWork(), 0, localWork, 0, dims);
+                if (GlobalWorkPadding.isEnabled(meta)) {
+                    globalWork = GlobalWorkPadding.padToLocalWork(globalWork, localWork, dims);
+                }
             }
 
         }
@@ -303,11 +299,14 @@ public class SPIRVLevelZeroInstalledCode extends SPIRVInstalledCode {
 
     private void calculateGlobalWork(TaskMetaData meta, long batchThreads) {
         final long[] globalWork = meta.getGlobalWork();
+        final boolean padding = GlobalWorkPadding.isEnabled(meta);
+        final long[] effectiveMaxWorkItemSizes = calculateEffectiveMaxWorkItemSizes(meta);
 
         for (int i = 0; i < meta.getDims(); i++) {
             long value = (batchThreads <= 0) ? (long) (meta.getDomain().get(i).cardinality()) : batchThreads;
-            if (ADJUST_IRREGULAR && (value % WARP_SIZE != 0)) {
-                value = ((value / WARP_SIZE) + 1) * WARP_SIZE;
+            // The local work of the third dimension is always 1
+            if (padding && i < 2) {
+                value = GlobalWorkPadding.padGlobalWork(value, effectiveMaxWorkItemSizes[i], meta.getDims());
             }
             globalWork[i] = value;
         }
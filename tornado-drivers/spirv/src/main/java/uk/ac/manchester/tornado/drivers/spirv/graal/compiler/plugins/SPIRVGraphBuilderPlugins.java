@@ -63,12 +63,14 @@ import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.LocalArrayNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVBarrierNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVFPBinaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVFPUnaryIntrinsicNode;
+import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVHalfFloatConvertNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVIntBinaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SPIRVIntUnaryIntrinsicNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.SlotsBaseAddressNode;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.directives.CompilerInternals;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoNativeArrayPlugins;
 
 public class SPIRVGraphBuilderPlugins {
 
@@ -96,6 +98,8 @@ public class SPIRVGraphBuilderPlugins {
 
         SPIRVMathPlugins.registerTornadoMathPlugins(invocationPlugins);
         SPIRVVectorPlugins.registerPlugins(plugins, invocationPlugins);
+        TornadoNativeArrayPlugins.registerPlugins(invocationPlugins);
+        TornadoNativeArrayPlugins.registerHalfFloatPlugins(invocationPlugins, SPIRVHalfFloatConvertNode::halfToFloat, SPIRVHalfFloatConvertNode::floatToHalf);
     }
 
     private static void registerOpenCLBuiltinPlugins(InvocationPlugins plugins) {
@@ -35,6 +35,7 @@ import jdk.vm.ci.meta.AllocatableValue;
 import jdk.vm.ci.meta.Local;
 import jdk.vm.ci.meta.Value;
 import uk.ac.manchester.spirvbeehivetoolkit.lib.SPIRVInstScope;
+import uk.ac.manchester.spirvbeehivetoolkit.lib.instructions.SPIRVOpBitcast;
 import uk.ac.manchester.spirvbeehivetoolkit.lib.instructions.SPIRVOpCompositeExtract;
 import uk.ac.manchester.spirvbeehivetoolkit.lib.instructions.SPIRVOpControlBarrier;
 import uk.ac.manchester.spirvbeehivetoolkit.lib.instructions.SPIRVOpConvertFToS;
@@ -932,6 +933,56 @@ public class SPIRVUnary {
         }
     }
 
+    /**
+     * Conversion between the 16-bit encoding of a half-precision value, held in
+     * an integer, and a float. The bits are reinterpreted with OpBitcast as a
+     * Float16 value, which is then converted with OpFConvert.
+     */
+    public static class CastHalfFloat extends CastOperations {
+
+        private final boolean toHalf;
+
+        public CastHalfFloat(LIRKind lirKind, Variable result, Value inputVal, boolean toHalf) {
+            super(null, result, lirKind, inputVal);
+            this.toHalf = toHalf;
+        }
+
+        @Override
+        public void emit(SPIRVCompilationResultBuilder crb, SPIRVAssembler asm) {
+
+            Logger.traceCodeGen(Logger.BACKEND.SPIRV, "emit CastHalfFloat: toHalf=" + toHalf);
+
+            SPIRVKind valueKind = (SPIRVKind) value.getPlatformKind();
+            SPIRVId fromTypeID = asm.primitives.getTypePrimitive(valueKind);
+            SPIRVId toTypeId = asm.primitives.getTypePrimitive((SPIRVKind) result.getPlatformKind());
+            SPIRVId typeHalf = asm.primitives.getTypePrimitive(SPIRVKind.OP_TYPE_FLOAT_16);
+            SPIRVId typeShort = asm.primitives.getTypePrimitive(SPIRVKind.OP_TYPE_INT_16);
+
+            SPIRVId loadConvert = loadConvertIfNeeded(crb, asm, fromTypeID, valueKind);
+
+            if (toHalf) {
+                SPIRVId half = asm.module.getNextId();
+                asm.currentBlockScope().add(new SPIRVOpFConvert(typeHalf, half, loadConvert));
+                SPIRVId bits = asm.module.getNextId();
+                asm.currentBlockScope().add(new SPIRVOpBitcast(typeShort, bits, half));
+                SPIRVId resultConversion = obtainPhiValueIdIfNeeded(asm);
+                asm.currentBlockScope().add(new SPIRVOpSConvert(toTypeId, resultConversion, bits));
+                asm.registerLIRInstructionValue(this, resultConversion);
+            } else {
+                SPIRVId bits = loadConvert;
+                if (valueKind != SPIRVKind.OP_TYPE_INT_16) {
+                    bits = asm.module.getNextId();
+                    asm.currentBlockScope().add(new SPIRVOpUConvert(typeShort, bits, loadConvert));
+                }
+                SPIRVId half = asm.module.getNextId();
+                asm.currentBlockScope().add(new SPIRVOpBitcast(typeHalf, half, bits));
+                SPIRVId resultConversion = obtainPhiValueIdIfNeeded(asm);
+                asm.currentBlockScope().add(new SPIRVOpFConvert(toTypeId, resultConversion, half));
+                asm.registerLIRInstructionValue(this, resultConversion);
+            }
+        }
+    }
+
     /**
      * OpenCL Extended Instruction Set Intrinsics. As specified in the SPIR-V 1.0
      * standard, the following intrinsics in SPIR-V represents builtin functions
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.drivers.spirv.graal.nodes;
+
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.Variable;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.FloatingNode;
+import org.graalvm.compiler.nodes.spi.Canonicalizable;
+import org.graalvm.compiler.nodes.spi.CanonicalizerTool;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloat;
+import uk.ac.manchester.tornado.drivers.spirv.graal.compiler.SPIRVLIRGenerator;
+import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVLIRStmt;
+import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVUnary;
+
+/**
+ * Conversion between a half-precision value, held in a short, and a float,
+ * using the Float16 capability.
+ */
+@NodeInfo(shortName = "SPIRVHalfFloatConvert")
+public class SPIRVHalfFloatConvertNode extends FloatingNode implements LIRLowerable, Canonicalizable {
+
+    public static final NodeClass<SPIRVHalfFloatConvertNode> TYPE = NodeClass.create(SPIRVHalfFloatConvertNode.class);
+
+    @Input
+    protected ValueNode value;
+    protected final boolean toHalf;
+
+    protected SPIRVHalfFloatConvertNode(ValueNode value, boolean toHalf) {
+        super(TYPE, StampFactory.forKind(toHalf ? JavaKind.Short : JavaKind.Float));
+        this.value = value;
+        this.toHalf = toHalf;
+    }
+
+    public static ValueNode halfToFloat(ValueNode half) {
+        return new SPIRVHalfFloatConvertNode(half, false);
+    }
+
+    public static ValueNode floatToHalf(ValueNode value) {
+        return new SPIRVHalfFloatConvertNode(value, true);
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (value.isJavaConstant()) {
+            if (toHalf) {
+                return ConstantNode.forInt(HalfFloat.floatToHalf(value.asJavaConstant().asFloat()));
+            }
+            return ConstantNode.forFloat(HalfFloat.halfToFloat((short) value.asJavaConstant().asInt()));
+        }
+        return this;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool generator) {
+        SPIRVLIRGenerator gen = (SPIRVLIRGenerator) generator.getLIRGeneratorTool();
+        LIRKind lirKind = gen.getLIRKind(stamp);
+        final Variable result = gen.newVariable(lirKind);
+        Value value = generator.operand(this.value);
+        gen.append(new SPIRVLIRStmt.AssignStmt(result, new SPIRVUnary.CastHalfFloat(lirKind, result, value, toHalf)));
+        generator.setResult(this, result);
+    }
+}
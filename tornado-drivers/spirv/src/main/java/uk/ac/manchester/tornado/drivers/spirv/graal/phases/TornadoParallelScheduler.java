@@ -36,6 +36,7 @@ import org.graalvm.compiler.phases.BasePhase;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.GlobalThreadIdNode;
 import uk.ac.manchester.tornado.drivers.spirv.graal.nodes.GlobalThreadSizeNode;
 import uk.ac.manchester.tornado.drivers.spirv.runtime.SPIRVTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
 import uk.ac.manchester.tornado.runtime.graal.nodes.AbstractParallelNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
@@ -70,12 +71,17 @@ public class TornadoParallelScheduler extends BasePhase<TornadoHighTierContext>
 
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
-        if (context.getMeta() == null || context.getMeta().enableThreadCoarsener()) {
+        if (context.getMeta() == null) {
+            return;
+        }
+        if (context.getMeta().enableThreadCoarsener()) {
+            context.getMeta().setBoundsGuarded(false);
             return;
         }
 
         SPIRVTornadoDevice device = (SPIRVTornadoDevice) context.getDeviceMapping();
         long[] maxWorkItemSizes = device.getPhysicalDevice().getDeviceMaxWorkItemSizes();
+        context.getMeta().setBoundsGuarded(GlobalWorkPadding.isBoundsGuarded(graph, context.getMeta(), maxWorkItemSizes));
 
         graph.getNodes().filter(ParallelRangeNode.class).forEach(parallelRange -> {
             if (context.getMeta().enableParallelization() && maxWorkItemSizes[parallelRange.index()] > 1) {
@@ -243,6 +243,24 @@ public abstract class SPIRVArrayWrapper<T> implements ObjectBuffer {
         return useDeps ? listEvents : null;
     }
 
+    @Override
+    public List<Integer> enqueueWriteRanges(Object reference, long[] ranges, int[] events, boolean useDeps) {
+        final T array = cast(reference);
+        ArrayList<Integer> listEvents = new ArrayList<>();
+
+        if (array == null) {
+            throw new TornadoRuntimeException("ERROR] Data to be copied is NULL");
+        }
+        // The array header does not change, so only the ranges are copied
+        final long elementSize = kind.getByteCount();
+        for (int i = 0; i < ranges.length; i += 2) {
+            final long hostOffset = ranges[i] * elementSize;
+            final long bytes = (ranges[i + 1] - ranges[i]) * elementSize;
+            listEvents.add(enqueueWriteArrayData(toBuffer(), bufferOffset + arrayHeaderSize + hostOffset, bytes, array, hostOffset, (useDeps) ? events : null));
+        }
+        return useDeps ? listEvents : null;
+    }
+
     // FIXME <REFACTOR> <S>
     private long sizeOf(final T array) {
         return (long) arrayHeaderSize + ((long) Array.getLength(array) * (long) kind.getByteCount());
@@ -24,11 +24,10 @@
 package uk.ac.manchester.tornado.drivers.spirv.mm;
 
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 
 import uk.ac.manchester.tornado.drivers.spirv.SPIRVDeviceContext;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 
 // FIXME <REFACTOR> THis class has similarities with the rest of the backends
@@ -36,26 +35,21 @@ public class SPIRVKernelArgs extends SPIRVByteBuffer implements KernelArgs {
 
     public static final int RESERVED_SLOTS = 3;
 
-    private final ArrayList<CallArgument> callArguments;
+    private final CallArguments callArguments;
 
     public SPIRVKernelArgs(long bufferId, int numArgs, SPIRVDeviceContext device) {
         super(device, bufferId, 0,RESERVED_SLOTS << 3);
-        this.callArguments = new ArrayList<>(numArgs);
+        this.callArguments = new CallArguments(numArgs);
         buffer.clear();
     }
 
-    @Override
-    public void addCallArgument(Object value, boolean isReferenceType) {
-        callArguments.add(new CallArgument(value, isReferenceType));
-    }
-
     @Override
     public void reset() {
-        callArguments.clear();
+        callArguments.reset();
     }
 
     @Override
-    public List<CallArgument> getCallArguments() {
+    public CallArguments getCallArguments() {
         return callArguments;
     }
 
@@ -38,7 +38,16 @@ public class SPIRVBufferProvider extends TornadoBufferProvider {
     }
 
     @Override
-    protected void releaseBuffer(long buffer) {
+    public void releaseBuffer(long buffer) {
         ((SPIRVDeviceContext) deviceContext).getSpirvContext().freeMemory(buffer, deviceContext.getDeviceIndex());
     }
+
+    /**
+     * Level Zero keeps track of device buffers by their base pointer, so
+     * sub-allocation within slabs is not used for this backend.
+     */
+    @Override
+    public boolean supportsSubBuffers() {
+        return false;
+    }
 }
@@ -135,9 +135,9 @@ public class TestSPIRVJITCompiler {
         callWrapper.setKernelContext(new HashMap<>());
 
         // Add kernel arguments to the SPIR-V Call Stack
-        callWrapper.addCallArgument(objectStateA.getObjectBuffer().toBuffer(), true);
-        callWrapper.addCallArgument(objectStateB.getObjectBuffer().toBuffer(), true);
-        callWrapper.addCallArgument(objectStateC.getObjectBuffer().toBuffer(), true);
+        callWrapper.getCallArguments().putPointer(objectStateA.getObjectBuffer().toBuffer());
+        callWrapper.getCallArguments().putPointer(objectStateB.getObjectBuffer().toBuffer());
+        callWrapper.getCallArguments().putPointer(objectStateC.getObjectBuffer().toBuffer());
 
         // Launch the generated kernel
         installedCode.launchWithoutDependencies(callWrapper, null, taskMeta, 0);
@@ -31,9 +31,7 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.SHOULD_LOAD_RMI;
 
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -65,6 +63,7 @@ import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.common.enums.TornadoDrivers;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSnippetReflectionProvider;
 import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
+import uk.ac.manchester.tornado.runtime.tasks.ObjectStateRegistry;
 
 public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeInterface {
 
@@ -85,7 +84,7 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     private static final int DEFAULT_DRIVER = 0;
     private static DebugContext debugContext = null;
     private static OptionValues options;
-    private final Map<Object, GlobalObjectState> objectMappings;
+    private final ObjectStateRegistry objectMappings;
     private final JVMCIBackend vmBackend;
     private final HotSpotJVMCIRuntime vmRuntime;
     private final TornadoVMConfig vmConfig;
@@ -93,7 +92,7 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     private int driverCount;
 
     private TornadoCoreRuntime() {
-        objectMappings = new WeakHashMap<>();
+        objectMappings = new ObjectStateRegistry();
 
         initOptions();
         guarantee(!GraalOptions.OmitHotExceptionStacktrace.getValue(options), "error");
@@ -153,9 +152,6 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     }
 
     public void clearObjectState() {
-        for (GlobalObjectState gs : objectMappings.values()) {
-            gs.clear();
-        }
         objectMappings.clear();
     }
 
@@ -182,11 +178,11 @@ public class TornadoCoreRuntime extends TornadoLogger implements TornadoRuntimeI
     }
 
     public GlobalObjectState resolveObject(Object object) {
-        if (!objectMappings.containsKey(object)) {
-            final GlobalObjectState state = new GlobalObjectState();
-            objectMappings.put(object, state);
-        }
-        return objectMappings.get(object);
+        return objectMappings.resolve(object);
+    }
+
+    public ObjectStateRegistry getObjectStateRegistry() {
+        return objectMappings;
     }
 
     @Override
@@ -29,6 +29,7 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.USE_VM_FLUSH;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.VM_USE_DEPS;
 import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.VIRTUAL_DEVICE_ENABLED;
 
+import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
@@ -36,12 +37,13 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import jdk.vm.ci.meta.JavaKind;
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -55,8 +57,10 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+import uk.ac.manchester.tornado.runtime.common.CallArguments;
 import uk.ac.manchester.tornado.runtime.common.ColoursTerminal;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.common.DirtyRangeSet;
 import uk.ac.manchester.tornado.runtime.common.KernelArgs;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
@@ -86,6 +90,7 @@ public class TornadoVM extends TornadoLogger {
 
     private static final Event EMPTY_EVENT = new EmptyEvent();
 
+
     private static final int MAX_EVENTS = 32;
     private final boolean useDependencies;
 
@@ -104,6 +109,12 @@ public class TornadoVM extends TornadoLogger {
 
     private final ByteBuffer buffer;
 
+    /**
+     * Bytecodes of the task-graph decoded once at load time. The {@link #buffer}
+     * is only interpreted again when the bytecodes are printed.
+     */
+    private final TornadoVMInstruction[] executionPlan;
+
     private double totalTime;
     private long invocations;
     private final TornadoProfiler timeProfiler;
@@ -112,6 +123,13 @@ public class TornadoVM extends TornadoLogger {
 
     private GridScheduler gridScheduler;
 
+    /**
+     * Device buffer slot selected by the BUFFER_SLOT bytecode. Slot 0 uses the
+     * device states of the global object states.
+     */
+    private int bufferSlot;
+    private DeviceObjectState[][] batchObjectStates;
+
     public TornadoVM(TornadoExecutionContext graphContext, byte[] code, int limit, TornadoProfiler timeProfiler) {
 
         this.graphContext = graphContext;
@@ -169,11 +187,27 @@ public class TornadoVM extends TornadoLogger {
         constants = graphContext.getConstants();
         tasks = graphContext.getTasks();
 
-        debug("%s - vm ready to go", graphContext.getId());
         buffer.mark();
+        executionPlan = buildExecutionPlan();
+        buffer.reset();
+
+        debug("%s - vm ready to go", graphContext.getId());
 
     }
 
+    private TornadoVMInstruction[] buildExecutionPlan() {
+        List<TornadoVMInstruction> plan = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            TornadoVMInstruction instruction = TornadoVMInstruction.decode(buffer);
+            if (instruction.op == TornadoVMBytecode.END.value()) {
+                break;
+            }
+            plan.add(instruction.resolveWaitList(events, useDependencies));
+        }
+        debug("execution plan with %d instructions", plan.size());
+        return plan.toArray(new TornadoVMInstruction[0]);
+    }
+
     public void setCompileUpdate() {
         this.doUpdate = true;
     }
@@ -188,12 +222,34 @@ public class TornadoVM extends TornadoLogger {
         }
     }
 
-    private GlobalObjectState resolveGlobalObjectState(int index) {
-        return globalStates[index];
+    private DeviceObjectState resolveObjectState(int index, int device) {
+        if (bufferSlot == 0) {
+            return globalStates[index].getDeviceState(contexts.get(device));
+        }
+        return resolveBatchObjectState(index, device);
     }
 
-    private DeviceObjectState resolveObjectState(int index, int device) {
-        return globalStates[index].getDeviceState(contexts.get(device));
+    /**
+     * Returns the device state of an object for the current buffer slot. These
+     * states are private to this TornadoVM instance and are used to keep several
+     * batches of the same object on the device at the same time.
+     */
+    private DeviceObjectState resolveBatchObjectState(int index, int device) {
+        if (batchObjectStates == null) {
+            batchObjectStates = new DeviceObjectState[bufferSlot][];
+        } else if (batchObjectStates.length < bufferSlot) {
+            batchObjectStates = Arrays.copyOf(batchObjectStates, bufferSlot);
+        }
+        DeviceObjectState[] states = batchObjectStates[bufferSlot - 1];
+        if (states == null) {
+            states = new DeviceObjectState[contexts.size() * objects.size()];
+            batchObjectStates[bufferSlot - 1] = states;
+        }
+        final int stateIndex = device * objects.size() + index;
+        if (states[stateIndex] == null) {
+            states[stateIndex] = new DeviceObjectState();
+        }
+        return states[stateIndex];
     }
 
     private KernelArgs resolveCallWrapper(int index, int numArgs, KernelArgs[] callWrappers, TornadoAcceleratorDevice device, boolean setNewDevice) {
@@ -245,11 +301,14 @@ public class TornadoVM extends TornadoLogger {
         return ColoursTerminal.YELLOW + " " + device + " " + ColoursTerminal.RESET;
     }
 
-    private int executeAlloc(StringBuilder tornadoVMBytecodeList, int[] args, int contextIndex, long sizeBatch) {
+    private int executeAlloc(StringBuilder tornadoVMBytecodeList, TornadoVMInstruction instruction) {
+        final int contextIndex = instruction.contextIndex;
+        final long sizeBatch = instruction.sizeBatch;
         final TornadoAcceleratorDevice device = contexts.get(contextIndex);
 
-        Object[] objects = new Object[args.length];
-        DeviceObjectState[] objectStates = new DeviceObjectState[args.length];
+        final int[] args = instruction.objectIndexes;
+        final Object[] objects = instruction.allocObjects;
+        final DeviceObjectState[] objectStates = instruction.allocObjectStates;
         for (int i = 0; i < objects.length; i++) {
             objects[i] = this.objects.get(args[i]);
             objectStates[i] = resolveObjectState(args[i], contextIndex);
@@ -324,16 +383,27 @@ public class TornadoVM extends TornadoLogger {
                 copyInTimer += event.getElapsedTime();
                 timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
 
-                timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getObjectBuffer().size());
-
                 long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
                 dispatchValue += event.getDriverDispatchTime();
                 timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
             }
+            addCopyInSize(objectState.getObjectBuffer());
         }
         return 0;
     }
 
+    /**
+     * Adds the bytes of the last write of the buffer to the profiler. Buffers of
+     * objects only copy the bytes that changed since the previous write.
+     */
+    private void addCopyInSize(ObjectBuffer objectBuffer) {
+        final long copiedBytes = objectBuffer.getLastWriteSize();
+        timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, copiedBytes);
+        if (copiedBytes < objectBuffer.size()) {
+            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES_SAVED, TimeProfiler.NO_TASK_NAME, objectBuffer.size() - copiedBytes);
+        }
+    }
+
     private int transferHostToDeviceAlways(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex, final long offset, final int eventList, final long sizeBatch,
             final int[] waitList) {
         final TornadoAcceleratorDevice device = contexts.get(contextIndex);
@@ -350,28 +420,71 @@ public class TornadoVM extends TornadoLogger {
         }
 
         final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
-        List<Integer> allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
+        final boolean copyDirtyRanges = canCopyDirtyRanges(object, objectState, sizeBatch);
+        List<Integer> allEvents;
+        if (copyDirtyRanges) {
+            allEvents = streamInDirtyRanges(object, objectState, waitList);
+        } else {
+            allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
+        }
+        objectState.clearDirtyRanges();
 
         resetEventIndexes(eventList);
 
-        if (TornadoOptions.isProfilerEnabled() && allEvents != null) {
-            for (Integer e : allEvents) {
-                Event event = device.resolveEvent(e);
-                event.waitForEvents();
-                long copyInTimer = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
-                copyInTimer += event.getElapsedTime();
-                timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
-
-                timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getObjectBuffer().size());
+        if (TornadoOptions.isProfilerEnabled()) {
+            if (allEvents != null) {
+                for (Integer e : allEvents) {
+                    Event event = device.resolveEvent(e);
+                    event.waitForEvents();
+                    long copyInTimer = timeProfiler.getTimer(ProfilerType.COPY_IN_TIME);
+                    copyInTimer += event.getElapsedTime();
+                    timeProfiler.setTimer(ProfilerType.COPY_IN_TIME, copyInTimer);
 
-                long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
-                dispatchValue += event.getDriverDispatchTime();
-                timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
+                    long dispatchValue = timeProfiler.getTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME);
+                    dispatchValue += event.getDriverDispatchTime();
+                    timeProfiler.setTimer(ProfilerType.TOTAL_DISPATCH_DATA_TRANSFERS_TIME, dispatchValue);
+                }
+            }
+            if (!copyDirtyRanges) {
+                addCopyInSize(objectState.getObjectBuffer());
             }
         }
         return 0;
     }
 
+    /**
+     * Only the dirty ranges of an object are copied when the device already holds
+     * a previous copy of the whole object and the object is not processed in
+     * batches.
+     */
+    private static boolean canCopyDirtyRanges(Object object, DeviceObjectState objectState, long sizeBatch) {
+        return objectState.hasDirtyRanges() && objectState.hasContents() && sizeBatch <= 0 && (object.getClass().isArray() || object instanceof TornadoNativeArray)
+                && objectState.getDirtyRanges().getNumRanges() <= TornadoOptions.DIRTY_RANGES_MAX;
+    }
+
+    private List<Integer> streamInDirtyRanges(Object object, DeviceObjectState objectState, int[] waitList) {
+        final DirtyRangeSet dirtyRanges = objectState.getDirtyRanges();
+        if (TornadoOptions.isProfilerEnabled()) {
+            final long elementSize;
+            final long length;
+            if (object instanceof TornadoNativeArray) {
+                elementSize = ((TornadoNativeArray) object).getElementSize();
+                length = ((TornadoNativeArray) object).getSize();
+            } else {
+                elementSize = JavaKind.fromJavaClass(object.getClass().getComponentType()).getByteCount();
+                length = Array.getLength(object);
+            }
+            final long copiedBytes = dirtyRanges.getNumElements() * elementSize;
+            final long savedBytes = length * elementSize - copiedBytes;
+            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, copiedBytes);
+            timeProfiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES_SAVED, TimeProfiler.NO_TASK_NAME, savedBytes);
+        }
+        if (dirtyRanges.isEmpty()) {
+            return null;
+        }
+        return objectState.getObjectBuffer().enqueueWriteRanges(object, dirtyRanges.toArray(), waitList, waitList == null);
+    }
+
     private int transferDeviceToHost(StringBuilder tornadoVMBytecodeList, final int objectIndex, final int contextIndex, final long offset, final int eventList, final long sizeBatch,
             final int[] waitList) {
         final TornadoAcceleratorDevice device = contexts.get(contextIndex);
@@ -453,7 +566,7 @@ public class TornadoVM extends TornadoLogger {
         }
     }
 
-    private ExecutionInfo compileTaskFromBytecodeToBinary(final int contextIndex, final int callWrapperIndex, final int numArgs, final int eventList, final int taskIndex, final long batchThreads) {
+    private KernelArgs compileTaskFromBytecodeToBinary(final int contextIndex, final int callWrapperIndex, final int numArgs, final int taskIndex, final long batchThreads) {
         final TornadoAcceleratorDevice device = contexts.get(contextIndex);
 
         if (device.getDeviceContext().wasReset() && finishedWarmup) {
@@ -464,7 +577,6 @@ public class TornadoVM extends TornadoLogger {
 
         final KernelArgs callWrapper = resolveCallWrapper(callWrapperIndex, numArgs, callWrappers, device, redeployOnDevice);
 
-        final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
         final SchedulableTask task = tasks.get(taskIndex);
 
         // Check if a different batch size was used for the same kernel. If true, then
@@ -505,7 +617,7 @@ public class TornadoVM extends TornadoLogger {
                 throw new TornadoBailoutRuntimeException("[Internal Error] Unable to compile task " + task.getFullName() + "\n" + Arrays.toString(e.getStackTrace()));
             }
         }
-        return new ExecutionInfo(callWrapper, waitList);
+        return callWrapper;
     }
 
     private boolean shouldCompile(TornadoInstalledCode installedCode) {
@@ -516,13 +628,17 @@ public class TornadoVM extends TornadoLogger {
         return objectState.isAtomicRegionPresent() && device.checkAtomicsParametersForTask(task);
     }
 
-    private int executeLaunch(StringBuilder tornadoVMBytecodeList, final int contextIndex, final int numArgs, final int eventList, final int taskIndex, final long batchThreads, final long offset,
-            ExecutionInfo info) {
+    private int executeLaunch(StringBuilder tornadoVMBytecodeList, TornadoVMInstruction instruction, KernelArgs callWrapper) {
+        final int contextIndex = instruction.contextIndex;
+        final int numArgs = instruction.numArgs;
+        final int eventList = instruction.eventList;
+        final int taskIndex = instruction.taskIndex;
+        final long batchThreads = instruction.batchThreads;
+        final long offset = instruction.offset;
+        final int[] waitList = instruction.waitList;
 
         final SchedulableTask task = tasks.get(taskIndex);
         final TornadoAcceleratorDevice device = contexts.get(contextIndex);
-        KernelArgs callWrapper = info.callWrapper;
-        int[] waitList = info.waitList;
 
         if (installedCodes[taskIndex] == null) {
             // After warming-up, it is possible to get a null pointer in the task-cache due
@@ -545,7 +661,8 @@ public class TornadoVM extends TornadoLogger {
 
         final Access[] accesses = task.getArgumentsAccess();
 
-        HashMap<Integer, Integer> map = new HashMap<>();
+        HashMap<Integer, Integer> map = instruction.gridMap;
+        map.clear();
         if (gridScheduler != null && gridScheduler.get(task.getId()) != null) {
             WorkerGrid workerGrid = gridScheduler.get(task.getId());
             long[] global = workerGrid.getGlobalWork();
@@ -556,26 +673,29 @@ public class TornadoVM extends TornadoLogger {
         }
         callWrapper.reset();
         callWrapper.setKernelContext(map);
+        final CallArguments callArguments = callWrapper.getCallArguments();
 
         ObjectBuffer bufferAtomics = null;
 
         for (int i = 0; i < numArgs; i++) {
-            final byte argType = buffer.get();
-            final int argIndex = buffer.getInt();
+            final byte argType = instruction.argTypes[i];
+            final int argIndex = instruction.argIndexes[i];
 
             if (argType == TornadoVMBytecode.PUSH_CONSTANT_ARGUMENT.value()) {
-                callWrapper.addCallArgument(constants.get(argIndex), false);
+                callArguments.putConstant(constants.get(argIndex));
             } else if (argType == TornadoVMBytecode.PUSH_REFERENCE_ARGUMENT.value()) {
                 if (isObjectKernelContext(objects.get(argIndex))) {
-                    callWrapper.addCallArgument(new KernelArgs.KernelContextArgument(), false);
+                    callArguments.putKernelContext();
                     continue;
                 }
 
-                final GlobalObjectState globalState = resolveGlobalObjectState(argIndex);
-                final DeviceObjectState objectState = globalState.getDeviceState(contexts.get(contextIndex));
+                final DeviceObjectState objectState = resolveObjectState(argIndex, contextIndex);
 
                 if (!isObjectInAtomicRegion(objectState, device, task)) {
-                    callWrapper.addCallArgument(objectState.getObjectBuffer().toBuffer(), true);
+                    callArguments.putPointer(objectState.getObjectBuffer().toBuffer());
+                    if (accesses == null || i >= accesses.length || accesses[i] != Access.READ) {
+                        objectState.getObjectBuffer().markModifiedOnDevice();
+                    }
                 } else {
                     atomicsArray = device.updateAtomicRegionAndObjectState(task, atomicsArray, i, objects.get(argIndex), objectState);
                 }
@@ -630,6 +750,10 @@ public class TornadoVM extends TornadoLogger {
 
             resetEventIndexes(eventList);
 
+            if (TornadoOptions.isProfilerEnabled()) {
+                timeProfiler.addValueToMetric(ProfilerType.TOTAL_KERNEL_LAUNCHES, TimeProfiler.NO_TASK_NAME, 1);
+            }
+
         } catch (Exception e) {
             String re = e.toString();
             if (Tornado.DEBUG) {
@@ -674,117 +798,34 @@ public class TornadoVM extends TornadoLogger {
 
     private Event execute(boolean isWarmup) {
         isWarmup = isWarmup || VIRTUAL_DEVICE_ENABLED;
-        contexts.stream().filter(Objects::nonNull).forEach(TornadoAcceleratorDevice::enableThreadSharing);
+        for (TornadoAcceleratorDevice device : contexts) {
+            if (device != null) {
+                device.enableThreadSharing();
+            }
+        }
 
         final long t0 = System.nanoTime();
         int lastEvent = -1;
+        bufferSlot = 0;
         initWaitEventList();
 
-        StringBuilder tornadoVMBytecodeList = null;
         if (TornadoOptions.PRINT_BYTECODES) {
-            tornadoVMBytecodeList = new StringBuilder();
-        }
-
-        while (buffer.hasRemaining()) {
-            final byte op = buffer.get();
-            if (op == TornadoVMBytecode.ALLOC.value()) {
-                final int contextIndex = buffer.getInt();
-                final long sizeBatch = buffer.getLong();
-                final int argSize = buffer.getInt();
-                final int[] args = new int[argSize];
-                for (int i = 0; i < argSize; i++) {
-                    args[i] = buffer.getInt();
-                }
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeAlloc(tornadoVMBytecodeList, args, contextIndex, sizeBatch);
-            } else if (op == TornadoVMBytecode.DEALLOC.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeDeAlloc(tornadoVMBytecodeList, objectIndex, contextIndex);
-            } else if (op == TornadoVMBytecode.TRANSFER_HOST_TO_DEVICE_ONCE.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                transferHostToDeviceOnce(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecode.TRANSFER_HOST_TO_DEVICE_ALWAYS.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                transferHostToDeviceAlways(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
-                final int[] waitList = (useDependencies) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = transferDeviceToHost(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
-                final int objectIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long sizeBatch = buffer.getLong();
-
-                final int[] waitList = (useDependencies) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                transferDeviceToHostBlocking(tornadoVMBytecodeList, objectIndex, contextIndex, offset, eventList, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecode.LAUNCH.value()) {
-                final int callWrapperIndex = buffer.getInt();
-                final int contextIndex = buffer.getInt();
-                final int taskIndex = buffer.getInt();
-                final int numArgs = buffer.getInt();
-                final int eventList = buffer.getInt();
-                final long offset = buffer.getLong();
-                final long batchThreads = buffer.getLong();
-                ExecutionInfo info = compileTaskFromBytecodeToBinary(contextIndex, callWrapperIndex, numArgs, eventList, taskIndex, batchThreads);
-                if (isWarmup) {
-                    popArgumentsFromCall(numArgs);
-                    continue;
-                }
-                lastEvent = executeLaunch(tornadoVMBytecodeList, contextIndex, numArgs, eventList, taskIndex, batchThreads, offset, info);
-            } else if (op == TornadoVMBytecode.ADD_DEPENDENCY.value()) {
-                final int eventList = buffer.getInt();
-                if (isWarmup) {
-                    continue;
-                }
-                executeDependency(tornadoVMBytecodeList, lastEvent, eventList);
-            } else if (op == TornadoVMBytecode.BARRIER.value()) {
-                final int eventList = buffer.getInt();
-                final int[] waitList = (useDependencies && eventList != -1) ? events[eventList] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeBarrier(tornadoVMBytecodeList, eventList, waitList);
-            } else if (op == TornadoVMBytecode.END.value()) {
-                if (TornadoOptions.PRINT_BYTECODES) {
+            // Interpret the bytecodes from the buffer, so the printed list
+            // reflects the code generated for the task-graph
+            StringBuilder tornadoVMBytecodeList = new StringBuilder();
+            while (buffer.hasRemaining()) {
+                final TornadoVMInstruction instruction = TornadoVMInstruction.decode(buffer).resolveWaitList(events, useDependencies);
+                if (instruction.op == TornadoVMBytecode.END.value()) {
                     tornadoVMBytecodeList.append("bc: " + debugHighLightBC("END\n") + "\n");
+                    break;
                 }
-                break;
-            } else {
-                throwError(op);
+                lastEvent = executeInstruction(tornadoVMBytecodeList, instruction, lastEvent, isWarmup);
+            }
+            buffer.reset();
+            System.out.println(tornadoVMBytecodeList);
+        } else {
+            for (TornadoVMInstruction instruction : executionPlan) {
+                lastEvent = executeInstruction(null, instruction, lastEvent, isWarmup);
             }
         }
 
@@ -815,13 +856,55 @@ public class TornadoVM extends TornadoLogger {
             debug("bc: complete elapsed=%.9f s (%d iterations, %.9f s mean)", elapsed, invocations, (totalTime / invocations));
         }
 
-        buffer.reset();
+        return barrier;
+    }
 
-        if (TornadoOptions.PRINT_BYTECODES) {
-            System.out.println(tornadoVMBytecodeList);
+    /**
+     * Executes one instruction of the plan.
+     *
+     * @return the last event, which is used by the next ADD_DEPENDENCY.
+     */
+    private int executeInstruction(StringBuilder tornadoVMBytecodeList, TornadoVMInstruction instruction, int lastEvent, boolean isWarmup) {
+        final byte op = instruction.op;
+        if (op == TornadoVMBytecode.LAUNCH.value()) {
+            KernelArgs callWrapper = compileTaskFromBytecodeToBinary(instruction.contextIndex, instruction.callWrapperIndex, instruction.numArgs, instruction.taskIndex, instruction.batchThreads);
+            if (isWarmup) {
+                return lastEvent;
+            }
+            return executeLaunch(tornadoVMBytecodeList, instruction, callWrapper);
+        } else if (op == TornadoVMBytecode.BUFFER_SLOT.value()) {
+            bufferSlot = instruction.bufferSlot;
+            if (TornadoOptions.PRINT_BYTECODES && !isWarmup) {
+                tornadoVMBytecodeList.append(String.format("bc: " + debugHighLightBC("BUFFER_SLOT") + " %d%n", bufferSlot));
+            }
+            return lastEvent;
+        }
+
+        if (isWarmup) {
+            return lastEvent;
+        }
+
+        if (op == TornadoVMBytecode.ALLOC.value()) {
+            return executeAlloc(tornadoVMBytecodeList, instruction);
+        } else if (op == TornadoVMBytecode.DEALLOC.value()) {
+            return executeDeAlloc(tornadoVMBytecodeList, instruction.objectIndex, instruction.contextIndex);
+        } else if (op == TornadoVMBytecode.TRANSFER_HOST_TO_DEVICE_ONCE.value()) {
+            transferHostToDeviceOnce(tornadoVMBytecodeList, instruction.objectIndex, instruction.contextIndex, instruction.offset, instruction.eventList, instruction.sizeBatch, instruction.waitList);
+        } else if (op == TornadoVMBytecode.TRANSFER_HOST_TO_DEVICE_ALWAYS.value()) {
+            transferHostToDeviceAlways(tornadoVMBytecodeList, instruction.objectIndex, instruction.contextIndex, instruction.offset, instruction.eventList, instruction.sizeBatch, instruction.waitList);
+        } else if (op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
+            return transferDeviceToHost(tornadoVMBytecodeList, instruction.objectIndex, instruction.contextIndex, instruction.offset, instruction.eventList, instruction.sizeBatch, instruction.waitList);
+        } else if (op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
+            transferDeviceToHostBlocking(tornadoVMBytecodeList, instruction.objectIndex, instruction.contextIndex, instruction.offset, instruction.eventList, instruction.sizeBatch,
+                    instruction.waitList);
+        } else if (op == TornadoVMBytecode.ADD_DEPENDENCY.value()) {
+            executeDependency(tornadoVMBytecodeList, lastEvent, instruction.eventList);
+        } else if (op == TornadoVMBytecode.BARRIER.value()) {
+            return executeBarrier(tornadoVMBytecodeList, instruction.eventList, instruction.waitList);
+        } else {
+            throwError(op);
         }
-
-        return barrier;
+        return lastEvent;
     }
 
     private void resetEventIndexes(int eventList) {
@@ -830,13 +913,6 @@ public class TornadoVM extends TornadoLogger {
         }
     }
 
-    private void popArgumentsFromCall(int numArgs) {
-        for (int i = 0; i < numArgs; i++) {
-            buffer.get();
-            buffer.getInt();
-        }
-    }
-
     public void setGridScheduler(GridScheduler gridScheduler) {
         this.gridScheduler = gridScheduler;
     }
@@ -889,14 +965,4 @@ public class TornadoVM extends TornadoLogger {
         }
     }
 
-    private static class ExecutionInfo {
-        KernelArgs callWrapper;
-        int[] waitList;
-
-        public ExecutionInfo(KernelArgs callWrapper, int[] waitList) {
-            this.callWrapper = callWrapper;
-            this.waitList = waitList;
-        }
-    }
-
 }
@@ -0,0 +1,148 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.graph.TornadoGraphAssembler.TornadoVMBytecode;
+
+/**
+ * A TornadoVM bytecode with all its operands decoded. The {@link TornadoVM}
+ * decodes the bytecodes of a task-graph once into an array of instructions
+ * (the execution plan), so the operands are not parsed again on every
+ * execution. Instructions also hold the scratch arrays that are reused across
+ * executions.
+ */
+final class TornadoVMInstruction {
+
+    final byte op;
+
+    int contextIndex;
+    int objectIndex;
+    int eventList = -1;
+    long offset;
+    long sizeBatch;
+
+    /**
+     * Objects allocated by an ALLOC bytecode.
+     */
+    int[] objectIndexes;
+    Object[] allocObjects;
+    DeviceObjectState[] allocObjectStates;
+
+    /**
+     * Operands of a LAUNCH bytecode.
+     */
+    int callWrapperIndex;
+    int taskIndex;
+    int numArgs;
+    long batchThreads;
+    byte[] argTypes;
+    int[] argIndexes;
+    HashMap<Integer, Integer> gridMap;
+
+    int bufferSlot;
+
+    /**
+     * Event list to wait on, resolved at decoding time.
+     */
+    int[] waitList;
+
+    private TornadoVMInstruction(byte op) {
+        this.op = op;
+    }
+
+    /**
+     * Decodes the bytecode at the current position of the buffer and advances
+     * the position to the next bytecode.
+     */
+    static TornadoVMInstruction decode(ByteBuffer buffer) {
+        final byte op = buffer.get();
+        final TornadoVMInstruction instruction = new TornadoVMInstruction(op);
+        if (op == TornadoVMBytecode.ALLOC.value()) {
+            instruction.contextIndex = buffer.getInt();
+            instruction.sizeBatch = buffer.getLong();
+            final int argSize = buffer.getInt();
+            instruction.objectIndexes = new int[argSize];
+            for (int i = 0; i < argSize; i++) {
+                instruction.objectIndexes[i] = buffer.getInt();
+            }
+            instruction.allocObjects = new Object[argSize];
+            instruction.allocObjectStates = new DeviceObjectState[argSize];
+        } else if (op == TornadoVMBytecode.DEALLOC.value()) {
+            instruction.objectIndex = buffer.getInt();
+            instruction.contextIndex = buffer.getInt();
+        } else if (op == TornadoVMBytecode.TRANSFER_HOST_TO_DEVICE_ONCE.value() || op == TornadoVMBytecode.TRANSFER_HOST_TO_DEVICE_ALWAYS.value()
+                || op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS.value() || op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
+            instruction.objectIndex = buffer.getInt();
+            instruction.contextIndex = buffer.getInt();
+            instruction.eventList = buffer.getInt();
+            instruction.offset = buffer.getLong();
+            instruction.sizeBatch = buffer.getLong();
+        } else if (op == TornadoVMBytecode.LAUNCH.value()) {
+            instruction.callWrapperIndex = buffer.getInt();
+            instruction.contextIndex = buffer.getInt();
+            instruction.taskIndex = buffer.getInt();
+            instruction.numArgs = buffer.getInt();
+            instruction.eventList = buffer.getInt();
+            instruction.offset = buffer.getLong();
+            instruction.batchThreads = buffer.getLong();
+            instruction.argTypes = new byte[instruction.numArgs];
+            instruction.argIndexes = new int[instruction.numArgs];
+            for (int i = 0; i < instruction.numArgs; i++) {
+                instruction.argTypes[i] = buffer.get();
+                instruction.argIndexes[i] = buffer.getInt();
+            }
+            instruction.gridMap = new HashMap<>();
+        } else if (op == TornadoVMBytecode.ADD_DEPENDENCY.value() || op == TornadoVMBytecode.BARRIER.value()) {
+            instruction.eventList = buffer.getInt();
+        } else if (op == TornadoVMBytecode.BUFFER_SLOT.value()) {
+            instruction.bufferSlot = buffer.getInt();
+        } else if (op != TornadoVMBytecode.END.value()) {
+            throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not recognized");
+        }
+        return instruction;
+    }
+
+    /**
+     * Resolves the wait list of the instruction.
+     *
+     * @param events
+     *            Event lists of the {@link TornadoVM}.
+     * @param useDependencies
+     *            Whether the {@link TornadoVM} uses event dependencies.
+     */
+    TornadoVMInstruction resolveWaitList(int[][] events, boolean useDependencies) {
+        if (!useDependencies) {
+            waitList = null;
+        } else if (op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS.value() || op == TornadoVMBytecode.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
+            waitList = events[eventList];
+        } else if (eventList != -1 && op != TornadoVMBytecode.ADD_DEPENDENCY.value()) {
+            waitList = events[eventList];
+        }
+        return this;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Typed list of the arguments of a kernel call. Values are stored as raw bits
+ * in a primitive array that is reused across launches, so encoding the
+ * arguments does not box scalars or allocate per call.
+ */
+public final class CallArguments {
+
+    public enum Kind {
+        BYTE(Byte.BYTES), //
+        CHAR(Character.BYTES), //
+        SHORT(Short.BYTES), //
+        INT(Integer.BYTES), //
+        LONG(Long.BYTES), //
+        FLOAT(Float.BYTES), //
+        DOUBLE(Double.BYTES), //
+        POINTER(Long.BYTES), //
+        KERNEL_CONTEXT(Long.BYTES);
+
+        private final int size;
+
+        Kind(int size) {
+            this.size = size;
+        }
+
+        /**
+         * @return size in bytes of the argument.
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+
+    private Kind[] kinds;
+    private long[] values;
+    private int size;
+
+    public CallArguments(int capacity) {
+        capacity = Math.max(capacity, 1);
+        kinds = new Kind[capacity];
+        values = new long[capacity];
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void put(Kind kind, long value) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        kinds[size] = kind;
+        values[size] = value;
+        size++;
+    }
+
+    public void putByte(byte value) {
+        put(Kind.BYTE, value);
+    }
+
+    public void putChar(char value) {
+        put(Kind.CHAR, value);
+    }
+
+    public void putShort(short value) {
+        put(Kind.SHORT, value);
+    }
+
+    public void putInt(int value) {
+        put(Kind.INT, value);
+    }
+
+    public void putLong(long value) {
+        put(Kind.LONG, value);
+    }
+
+    public void putFloat(float value) {
+        put(Kind.FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    public void putDouble(double value) {
+        put(Kind.DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Adds the device address of a buffer.
+     */
+    public void putPointer(long address) {
+        put(Kind.POINTER, address);
+    }
+
+    /**
+     * Adds a {@link uk.ac.manchester.tornado.api.KernelContext} parameter. Backends
+     * replace it with the address of the kernel context buffer.
+     */
+    public void putKernelContext() {
+        put(Kind.KERNEL_CONTEXT, 0);
+    }
+
+    /**
+     * Adds a scalar constant of the task-graph. Constants are already boxed by the
+     * graph, so they are only unboxed here.
+     */
+    public void putConstant(Object value) {
+        if (value instanceof Integer) {
+            putInt((Integer) value);
+        } else if (value instanceof Long) {
+            putLong((Long) value);
+        } else if (value instanceof Float) {
+            putFloat((Float) value);
+        } else if (value instanceof Double) {
+            putDouble((Double) value);
+        } else if (value instanceof Short) {
+            putShort((Short) value);
+        } else if (value instanceof Byte) {
+            putByte((Byte) value);
+        } else if (value instanceof Character) {
+            putChar((Character) value);
+        } else if (value instanceof Boolean) {
+            putByte((byte) ((Boolean) value ? 1 : 0));
+        } else {
+            throw new TornadoRuntimeException("[ERROR] Unable to encode kernel argument: " + value);
+        }
+    }
+
+    public Kind getKind(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * @return raw bits of the argument. Floating-point values are encoded with
+     *         {@link Float#floatToRawIntBits} and
+     *         {@link Double#doubleToRawLongBits}.
+     */
+    public long getRawValue(int index) {
+        return values[index];
+    }
+
+    public boolean isReference(int index) {
+        return kinds[index] == Kind.POINTER;
+    }
+
+    public boolean isKernelContext(int index) {
+        return kinds[index] == Kind.KERNEL_CONTEXT;
+    }
+
+    /**
+     * @return the argument converted to a long, as {@link Number#longValue()}
+     *         would.
+     */
+    public long getLongValue(int index) {
+        switch (kinds[index]) {
+            case FLOAT:
+                return (long) Float.intBitsToFloat((int) values[index]);
+            case DOUBLE:
+                return (long) Double.longBitsToDouble(values[index]);
+            default:
+                return values[index];
+        }
+    }
+
+    /**
+     * Writes the argument into a buffer with the width of its type.
+     */
+    public void write(ByteBuffer buffer, int index) {
+        final long value = values[index];
+        switch (kinds[index]) {
+            case BYTE:
+                buffer.put((byte) value);
+                break;
+            case CHAR:
+            case SHORT:
+                buffer.putShort((short) value);
+                break;
+            case INT:
+            case FLOAT:
+                buffer.putInt((int) value);
+                break;
+            default:
+                buffer.putLong(value);
+                break;
+        }
+    }
+}
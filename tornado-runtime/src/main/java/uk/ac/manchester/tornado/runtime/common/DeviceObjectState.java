@@ -37,6 +37,7 @@ public class DeviceObjectState implements TornadoDeviceObjectState {
 
     private boolean contents;
     private boolean lockBuffer;
+    private DirtyRangeSet dirtyRanges;
 
     public DeviceObjectState() {
         objectBuffer = null;
@@ -78,6 +79,31 @@ public class DeviceObjectState implements TornadoDeviceObjectState {
         contents = value;
     }
 
+    /**
+     * Records a range of elements modified on the host. Once an object has dirty
+     * ranges, the next copy-in only transfers those ranges if the device buffer
+     * holds a previous copy of the object. An empty range means the object did
+     * not change.
+     */
+    public void markDirtyRange(long from, long to) {
+        if (dirtyRanges == null) {
+            dirtyRanges = new DirtyRangeSet();
+        }
+        dirtyRanges.add(from, to);
+    }
+
+    public boolean hasDirtyRanges() {
+        return dirtyRanges != null;
+    }
+
+    public DirtyRangeSet getDirtyRanges() {
+        return dirtyRanges;
+    }
+
+    public void clearDirtyRanges() {
+        dirtyRanges = null;
+    }
+
     @Override
     public boolean isAtomicRegionPresent() {
         return atomicRegionPresent;
@@ -0,0 +1,132 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.util.Arrays;
+
+/**
+ * Set of element ranges of a host array that have been modified since the last
+ * copy to the device. Ranges are half-open ({@code [from, to)}), kept sorted,
+ * and overlapping or adjacent ranges are coalesced when they are added, so each
+ * stored range maps to a single host-to-device copy.
+ */
+public class DirtyRangeSet {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Pairs of {@code from, to} indexes.
+     */
+    private long[] ranges;
+    private int numRanges;
+
+    public DirtyRangeSet() {
+        ranges = new long[INITIAL_CAPACITY * 2];
+    }
+
+    public void add(long from, long to) {
+        if (from >= to) {
+            return;
+        }
+
+        // First range that ends at or after the new one starts
+        int first = 0;
+        while (first < numRanges && ranges[2 * first + 1] < from) {
+            first++;
+        }
+
+        // Merge all the ranges that overlap or touch the new one
+        int last = first;
+        long mergedFrom = from;
+        long mergedTo = to;
+        while (last < numRanges && ranges[2 * last] <= to) {
+            mergedFrom = Math.min(mergedFrom, ranges[2 * last]);
+            mergedTo = Math.max(mergedTo, ranges[2 * last + 1]);
+            last++;
+        }
+
+        int merged = last - first;
+        if (merged == 0) {
+            if (2 * (numRanges + 1) > ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            System.arraycopy(ranges, 2 * first, ranges, 2 * (first + 1), 2 * (numRanges - first));
+            numRanges++;
+        } else if (merged > 1) {
+            System.arraycopy(ranges, 2 * last, ranges, 2 * (first + 1), 2 * (numRanges - last));
+            numRanges -= merged - 1;
+        }
+        ranges[2 * first] = mergedFrom;
+        ranges[2 * first + 1] = mergedTo;
+    }
+
+    public boolean isEmpty() {
+        return numRanges == 0;
+    }
+
+    public int getNumRanges() {
+        return numRanges;
+    }
+
+    public long getFrom(int index) {
+        return ranges[2 * index];
+    }
+
+    public long getTo(int index) {
+        return ranges[2 * index + 1];
+    }
+
+    /**
+     * @return total number of elements covered by the ranges.
+     */
+    public long getNumElements() {
+        long elements = 0;
+        for (int i = 0; i < numRanges; i++) {
+            elements += ranges[2 * i + 1] - ranges[2 * i];
+        }
+        return elements;
+    }
+
+    /**
+     * @return the ranges as {@code from, to} pairs.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(ranges, 2 * numRanges);
+    }
+
+    public void clear() {
+        numRanges = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < numRanges; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ranges[2 * i]).append("-").append(ranges[2 * i + 1]);
+        }
+        return sb.append("]").toString();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import org.graalvm.compiler.graph.iterators.NodeIterable;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Padding of the global work of kernels whose parallel loops are guarded by
+ * their upper bound.
+ *
+ * <p>
+ * The schedulers select a local work size that divides the global work. When
+ * the iteration space is not a multiple of a large work-group size (e.g., it is
+ * a prime number), the only divisors are tiny work-groups. If the compiler
+ * guarded every parallel loop of the kernel (see
+ * {@link TaskMetaData#isBoundsGuarded()}), the extra threads do not execute
+ * any iteration, so the global work can be rounded up to a multiple of a large
+ * work-group size instead. Disable it with `-Dtornado.padding.enable=False`.
+ * </p>
+ */
+public final class GlobalWorkPadding {
+
+    /**
+     * Work-group size used for padding one-dimensional kernels.
+     */
+    public static final long PADDING_BLOCK_1D = 256;
+
+    /**
+     * Work-group size used for padding each dimension of multi-dimensional
+     * kernels.
+     */
+    public static final long PADDING_BLOCK_ND = 16;
+
+    private GlobalWorkPadding() {
+    }
+
+    /**
+     * Parallel loops that are scheduled across threads are guarded by their upper
+     * bound: each thread starts at its thread index and the loop condition
+     * compares it against the range, so the threads beyond the iteration space
+     * skip the loop. Kernels with serialised loops or reductions are not guarded,
+     * since every thread of them takes part in the computation.
+     * The schedulers of all backends record the result with
+     * {@link TaskMetaData#setBoundsGuarded(boolean)}.
+     *
+     * @param maxWorkItemSizes
+     *            Maximum number of work-items of the device in each dimension.
+     */
+    public static boolean isBoundsGuarded(StructuredGraph graph, TaskMetaData meta, long[] maxWorkItemSizes) {
+        NodeIterable<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class);
+        if (ranges.isEmpty() || !meta.enableParallelization() || graph.getNodes().filter(StoreAtomicIndexedNode.class).isNotEmpty()) {
+            return false;
+        }
+        for (ParallelRangeNode range : ranges) {
+            if (maxWorkItemSizes[range.index()] <= 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the global work of the task can be padded.
+     */
+    public static boolean isEnabled(TaskMetaData meta) {
+        return TornadoOptions.PAD_GLOBAL_WORK && meta.isBoundsGuarded();
+    }
+
+    public static long roundUp(long value, long multiple) {
+        if (multiple <= 1 || value % multiple == 0) {
+            return value;
+        }
+        return ((value / multiple) + 1) * multiple;
+    }
+
+    /**
+     * Returns the multiple to which a dimension of the global work is rounded up.
+     *
+     * @param maxBlockSize
+     *            Largest work-group size that the scheduler can select for the
+     *            dimension.
+     * @param dims
+     *            Number of dimensions of the kernel.
+     */
+    public static long getPaddingBlock(long maxBlockSize, int dims) {
+        final long preferred = (dims == 1) ? PADDING_BLOCK_1D : PADDING_BLOCK_ND;
+        return Math.max(1, Math.min(preferred, maxBlockSize));
+    }
+
+    /**
+     * Rounds up a dimension of the global work computed from the iteration space.
+     * Iteration spaces that fit in a single work-group are not padded.
+     */
+    public static long padGlobalWork(long globalWork, long maxBlockSize, int dims) {
+        final long block = getPaddingBlock(maxBlockSize, dims);
+        return (globalWork <= block) ? globalWork : roundUp(globalWork, block);
+    }
+
+    /**
+     * Rounds up the global work of a launch to a multiple of the given local work,
+     * so the number of work-groups covers the whole iteration space. It returns
+     * a new array, the user-defined sizes are not modified.
+     */
+    public static long[] padToLocalWork(long[] globalWork, long[] localWork, int dims) {
+        final long[] padded = globalWork.clone();
+        for (int i = 0; i < dims; i++) {
+            padded[i] = roundUp(globalWork[i], localWork[i]);
+        }
+        return padded;
+    }
+}
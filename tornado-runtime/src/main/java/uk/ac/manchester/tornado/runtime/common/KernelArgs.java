@@ -26,36 +26,16 @@
 package uk.ac.manchester.tornado.runtime.common;
 
 import java.util.HashMap;
-import java.util.List;
 
 public interface KernelArgs {
 
-    // Marks an argument of type KernelContext being passed explicitly as a parameter.
-    class KernelContextArgument {}
-
-    class CallArgument {
-        private final Object value;
-        private final boolean isReferenceType;
-
-        public CallArgument(Object value, boolean isReferenceType) {
-            this.value = value;
-            this.isReferenceType = isReferenceType;
-        }
-
-        public Object getValue() {
-            return value;
-        }
-
-        public boolean isReferenceType() {
-            return isReferenceType;
-        }
-    }
-
     void reset();
 
-    List<CallArgument> getCallArguments();
-
-    void addCallArgument(Object value, boolean isReferenceType);
+    /**
+     * @return the typed arguments of the call. The same instance is reused by
+     *         every launch that uses this call wrapper.
+     */
+    CallArguments getCallArguments();
 
     void setKernelContext(HashMap<Integer, Integer> map);
 }
@@ -0,0 +1,245 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+
+/**
+ * Builds the key of an entry in the {@link PersistentKernelCache}. The key is a
+ * SHA-256 hash of everything that can change the generated code: the class
+ * files of the task method and all its callees (inlined or not), the values
+ * that are specialised into the kernel (scalars and array lengths), the
+ * TornadoVM options, the device and the backend.
+ *
+ * A key is not cacheable if any of its inputs cannot be hashed reliably (e.g.,
+ * objects whose fields are folded into the kernel, or classes without a class
+ * file).
+ */
+public class KernelCacheKey {
+
+    private static final String KERNEL_CACHE_OPTIONS_PREFIX = "tornado.kernel.cache";
+
+    private final MessageDigest digest;
+    private final Set<String> hashedClasses;
+    private boolean cacheable;
+    private String key;
+
+    public KernelCacheKey(String backend) {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new TornadoRuntimeException(e);
+        }
+        hashedClasses = new HashSet<>();
+        cacheable = true;
+        add("backend", backend);
+    }
+
+    public KernelCacheKey add(String name, Object value) {
+        digest.update((name + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    private void add(String name, byte[] value) {
+        add(name, value.length);
+        digest.update(value);
+    }
+
+    /**
+     * Adds the task method and all methods reachable from its sketch: the inlined
+     * methods of each graph and the non-inlined call targets, which have their own
+     * sketches.
+     */
+    public KernelCacheKey addSketch(ResolvedJavaMethod method, int driverIndex, int deviceIndex) {
+        final Set<ResolvedJavaMethod> visited = new HashSet<>();
+        final Deque<ResolvedJavaMethod> workList = new ArrayDeque<>();
+        workList.add(method);
+        while (!workList.isEmpty() && cacheable) {
+            final ResolvedJavaMethod currentMethod = workList.pop();
+            if (!visited.add(currentMethod)) {
+                continue;
+            }
+            final Sketch sketch = TornadoSketcher.lookup(currentMethod, driverIndex, deviceIndex);
+            final StructuredGraph graph = (StructuredGraph) sketch.getGraph().getReadonlyCopy();
+            addMethod(currentMethod);
+            for (ResolvedJavaMethod inlined : graph.getMethods()) {
+                addMethod(inlined);
+            }
+            graph.getInvokes().forEach(invoke -> workList.add(invoke.callTarget().targetMethod()));
+        }
+        return this;
+    }
+
+    private void addMethod(ResolvedJavaMethod method) {
+        add("method", method.format("%H.%n(%P)%R"));
+        final byte[] code = method.getCode();
+        if (code != null) {
+            add("code", code);
+        }
+        // The bytecode refers to the constant pool, so the whole class file is hashed
+        addClassFile(method.getDeclaringClass());
+    }
+
+    private void addClassFile(ResolvedJavaType type) {
+        final String name = type.getName();
+        if (!hashedClasses.add(name)) {
+            return;
+        }
+        // Internal names have the form Lpackage/Class;
+        final String resource = name.substring(1, name.length() - 1) + ".class";
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = ClassLoader.getSystemClassLoader();
+        }
+        try (InputStream stream = loader.getResourceAsStream(resource)) {
+            if (stream == null) {
+                cacheable = false;
+                return;
+            }
+            final ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                classFile.write(buffer, 0, read);
+            }
+            add("class " + name, classFile.toByteArray());
+        } catch (IOException e) {
+            cacheable = false;
+        }
+    }
+
+    /**
+     * Adds the values that the task specialisation folds into the kernel, and the
+     * arguments that share an array. Only scalars, arrays, native arrays and
+     * {@link KernelContext} arguments are supported.
+     */
+    public KernelCacheKey addArguments(Object[] args) {
+        for (Object arg : args) {
+            if (arg == null) {
+                add("arg", "null");
+            } else if (RuntimeUtilities.isBoxedPrimitiveClass(arg.getClass())) {
+                add("arg " + arg.getClass().getName(), arg);
+            } else if (arg.getClass().isArray()) {
+                add("arg " + arg.getClass().getName(), Array.getLength(arg));
+            } else if (arg instanceof TornadoNativeArray) {
+                add("arg " + arg.getClass().getName(), ((TornadoNativeArray) arg).getSize());
+            } else if (arg instanceof KernelContext) {
+                add("arg", arg.getClass().getName());
+            } else {
+                cacheable = false;
+            }
+        }
+        // Loops are only auto-parallelised when their arrays do not alias
+        for (int i = 0; i < args.length; i++) {
+            for (int j = i + 1; j < args.length; j++) {
+                if (RuntimeUtilities.mayAlias(args[i], args[j])) {
+                    add("alias", i + "," + j);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds all system properties that start with any of the given prefixes,
+     * except the options of the kernel cache itself.
+     */
+    public KernelCacheKey addOptions(String... prefixes) {
+        final Set<String> names = new TreeSet<>(System.getProperties().stringPropertyNames());
+        for (String name : names) {
+            if (name.startsWith(KERNEL_CACHE_OPTIONS_PREFIX)) {
+                continue;
+            }
+            for (String prefix : prefixes) {
+                if (name.startsWith(prefix)) {
+                    add(name, System.getProperty(name));
+                    break;
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the location and timestamp of the jar (or directory) that contains the
+     * given class, so that entries generated by a different build of the compiler
+     * are not reused.
+     */
+    public KernelCacheKey addCodeSource(Class<?> klass) {
+        final CodeSource codeSource = klass.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            cacheable = false;
+            return this;
+        }
+        try {
+            final File file = new File(codeSource.getLocation().toURI());
+            add("compiler", file.getAbsolutePath() + "@" + file.lastModified());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            cacheable = false;
+        }
+        return this;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Returns the hash of all inputs as an hexadecimal string. No more inputs can
+     * be added after this call.
+     */
+    public String getKey() {
+        if (key == null) {
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            key = sb.toString();
+        }
+        return key;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
+
+/**
+ * Content-addressed cache of generated kernels that persists across JVM
+ * executions. Each entry is identified by a {@link KernelCacheKey} and stored
+ * in two files: the generated code and its metadata (entry point and parallel
+ * domain).
+ *
+ * Files are written to a temporary file and then atomically renamed, so that
+ * concurrent processes never read partial entries. When the total size of the
+ * cache exceeds the configured limit, the least recently used entries are
+ * removed. Enable it with `-Dtornado.kernel.cache.enable=True`.
+ */
+public class PersistentKernelCache {
+
+    private static final String CODE_SUFFIX = ".kernel";
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final String ENTRY_POINT = "entryPoint";
+    private static final String DOMAIN_DEPTH = "domain.depth";
+    private static final String DOMAIN = "domain.";
+    private static final String BOUNDS_GUARDED = "boundsGuarded";
+    private static final String TILE_SIZE = "tileSize";
+
+    private static PersistentKernelCache instance;
+
+    private final Path directory;
+    private final long maxSize;
+
+    public PersistentKernelCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static synchronized PersistentKernelCache getInstance() {
+        if (instance == null) {
+            instance = new PersistentKernelCache(Paths.get(TornadoOptions.KERNEL_CACHE_DIR), TornadoOptions.KERNEL_CACHE_SIZE);
+        }
+        return instance;
+    }
+
+    public static class Entry {
+        private final byte[] code;
+        private final Properties metadata;
+
+        Entry(byte[] code, Properties metadata) {
+            this.code = code;
+            this.metadata = metadata;
+        }
+
+        public byte[] getCode() {
+            return code;
+        }
+
+        public String getEntryPoint() {
+            return metadata.getProperty(ENTRY_POINT);
+        }
+
+        public DomainTree getDomain() {
+            final String depth = metadata.getProperty(DOMAIN_DEPTH);
+            if (depth == null) {
+                return null;
+            }
+            final DomainTree domain = new DomainTree(Integer.parseInt(depth));
+            for (int i = 0; i < domain.getDepth(); i++) {
+                final String[] values = metadata.getProperty(DOMAIN + i).split(",");
+                domain.set(i, new IntDomain(Integer.parseInt(values[0]), Integer.parseInt(values[1]), Integer.parseInt(values[2])));
+            }
+            return domain;
+        }
+
+        public boolean isBoundsGuarded() {
+            return Boolean.parseBoolean(metadata.getProperty(BOUNDS_GUARDED));
+        }
+
+        public int getTileSize() {
+            return Integer.parseInt(metadata.getProperty(TILE_SIZE, "0"));
+        }
+    }
+
+    /**
+     * Returns the entry for the given key, or null if it is not in the cache. The
+     * hits and misses are reported per task by the profiler of the caller.
+     */
+    public Entry lookup(String key) {
+        final Path codeFile = directory.resolve(key + CODE_SUFFIX);
+        final Path metadataFile = directory.resolve(key + METADATA_SUFFIX);
+        if (!Files.exists(codeFile)) {
+            return null;
+        }
+        try {
+            final byte[] code = Files.readAllBytes(codeFile);
+            final Properties metadata = new Properties();
+            try (InputStream stream = Files.newInputStream(metadataFile)) {
+                metadata.load(stream);
+            }
+            // The modification time of the code file tracks the last use of the entry
+            Files.setLastModifiedTime(codeFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(code, metadata);
+        } catch (IOException | RuntimeException e) {
+            // The entry was evicted by another process or it is corrupted
+            Tornado.debug("Unable to read kernel %s from the kernel cache: %s", key, e.getMessage());
+            return null;
+        }
+    }
+
+    public void store(String key, byte[] code, String entryPoint, DomainTree domain, boolean boundsGuarded, int tileSize) {
+        final Properties metadata = new Properties();
+        metadata.setProperty(ENTRY_POINT, entryPoint);
+        metadata.setProperty(BOUNDS_GUARDED, Boolean.toString(boundsGuarded));
+        metadata.setProperty(TILE_SIZE, Integer.toString(tileSize));
+        if (domain != null) {
+            metadata.setProperty(DOMAIN_DEPTH, Integer.toString(domain.getDepth()));
+            for (int i = 0; i < domain.getDepth(); i++) {
+                final IntDomain intDomain = (IntDomain) domain.get(i);
+                metadata.setProperty(DOMAIN + i, intDomain.getOffset() + "," + intDomain.getStep() + "," + intDomain.cardinality());
+            }
+        }
+
+        try {
+            Files.createDirectories(directory);
+            final ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+            metadata.store(metadataBytes, null);
+            // The code file is written last: an entry is visible only when complete
+            writeAtomically(directory.resolve(key + METADATA_SUFFIX), metadataBytes.toByteArray());
+            writeAtomically(directory.resolve(key + CODE_SUFFIX), code);
+            evict();
+        } catch (IOException e) {
+            Tornado.warn("Unable to store kernel %s in the kernel cache: %s", key, e.getMessage());
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, content);
+            try {
+                Files.move(temporary, target, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static class CachedFile {
+        private final Path codeFile;
+        private final Path metadataFile;
+        private final long size;
+        private final long lastUse;
+
+        CachedFile(Path codeFile) throws IOException {
+            this.codeFile = codeFile;
+            final String name = codeFile.getFileName().toString();
+            this.metadataFile = codeFile.resolveSibling(name.substring(0, name.length() - CODE_SUFFIX.length()) + METADATA_SUFFIX);
+            this.size = Files.size(codeFile) + (Files.exists(metadataFile) ? Files.size(metadataFile) : 0);
+            this.lastUse = Files.getLastModifiedTime(codeFile).toMillis();
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits in the maximum
+     * size.
+     */
+    private synchronized void evict() throws IOException {
+        final List<CachedFile> entries = new ArrayList<>();
+        final List<Path> codeFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            codeFiles = files.filter(path -> path.getFileName().toString().endsWith(CODE_SUFFIX)).collect(Collectors.toList());
+        }
+        long totalSize = 0;
+        for (Path codeFile : codeFiles) {
+            try {
+                CachedFile entry = new CachedFile(codeFile);
+                entries.add(entry);
+                totalSize += entry.size;
+            } catch (IOException e) {
+                // Removed concurrently by another process
+            }
+        }
+        if (totalSize <= maxSize) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUse));
+        for (CachedFile entry : entries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            Files.deleteIfExists(entry.codeFile);
+            Files.deleteIfExists(entry.metadataFile);
+            totalSize -= entry.size;
+            Tornado.debug("Kernel cache: evicted %s", entry.codeFile.getFileName());
+        }
+    }
+}
@@ -46,7 +46,12 @@ import java.math.RoundingMode;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
@@ -253,6 +258,42 @@ public class RuntimeUtilities {
         return componentType.isPrimitive() || isBoxedPrimitive(componentType);
     }
 
+    /**
+     * Determines whether two arguments share an array. Arrays of arrays share an
+     * array when any of their rows, at any depth, is the same object.
+     *
+     * @return true if a write through one argument can be read through the other
+     */
+    public static boolean mayAlias(final Object a, final Object b) {
+        if (a == null || b == null || !a.getClass().isArray() || !b.getClass().isArray()) {
+            return false;
+        }
+        final Set<Object> arrays = reachableArrays(a);
+        for (Object array : reachableArrays(b)) {
+            if (arrays.contains(array)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<Object> reachableArrays(final Object array) {
+        final Set<Object> arrays = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Object> workList = new ArrayDeque<>();
+        workList.push(array);
+        while (!workList.isEmpty()) {
+            final Object current = workList.pop();
+            if (arrays.add(current) && current instanceof Object[]) {
+                for (Object row : (Object[]) current) {
+                    if (row != null && row.getClass().isArray()) {
+                        workList.push(row);
+                    }
+                }
+            }
+        }
+        return arrays;
+    }
+
     public static void printBuffer(final ByteBuffer buffer) {
 
         System.out.printf("buffer : position=%d, remaining=%d, capacity=%d, limit=%d\n", buffer.position(), buffer.remaining(), buffer.capacity(), buffer.limit());
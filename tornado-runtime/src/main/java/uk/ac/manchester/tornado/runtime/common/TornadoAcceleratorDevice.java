@@ -61,5 +61,13 @@ public interface TornadoAcceleratorDevice extends TornadoDevice {
      */
     void enableThreadSharing();
 
+    /**
+     * Waits for the commands enqueued on the device by all host threads. Backends
+     * with a single command queue per device only wait for that queue.
+     */
+    default void syncAllStreams() {
+        sync();
+    }
+
     void setAtomicRegion(ObjectBuffer bufferAtomics);
 }
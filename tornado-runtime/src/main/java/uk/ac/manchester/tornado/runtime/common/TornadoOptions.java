@@ -35,6 +35,19 @@ public class TornadoOptions {
      */
     public static final long DEVICE_AVAILABLE_MEMORY = RuntimeUtilities.parseSize(System.getProperty("tornado.device.memory", "1GB"));
 
+    /**
+     * Option to select the strategy used to reuse device buffers. Values are
+     * `sizeclass` (default) and `firstfit`.
+     */
+    public static final String DEVICE_MEMORY_ALLOCATOR = getProperty("tornado.device.memory.allocator", "sizeclass");
+
+    /**
+     * Size of the device buffers (slabs) used to sub-allocate small buffers with
+     * the `sizeclass` allocator. Use 0 to disable sub-allocation. It is set to
+     * 16MB by default.
+     */
+    public static final long DEVICE_MEMORY_SLAB_SIZE = RuntimeUtilities.parseSize(getProperty("tornado.device.memory.slab.size", "16MB"));
+
     /**
      * Option to enable exceptions for the OpenCL generated code. This is
      * experimental.
@@ -53,6 +66,33 @@ public class TornadoOptions {
      */
     public static final boolean DEBUG_POLICY = getBooleanValue("tornado.dynamic.verbose", FALSE);
 
+    /**
+     * Weight of the most recent execution time in the moving estimates of the
+     * adaptive dynamic reconfiguration policy. It is set to 0.3 by default.
+     */
+    public static final double ADAPTIVE_POLICY_DECAY = Double.parseDouble(getProperty("tornado.dynamic.adaptive.decay", "0.3"));
+
+    /**
+     * Number of executions after which the adaptive dynamic reconfiguration policy
+     * runs on a device other than the current best one, to refresh its estimate.
+     * It is set to 16 by default.
+     */
+    public static final int ADAPTIVE_POLICY_PROBE_PERIOD = Integer.parseInt(getProperty("tornado.dynamic.adaptive.probe", "16"));
+
+    /**
+     * Maximum number of dirty ranges copied individually for an object marked
+     * with {@code markDirtyRange}. Above this number, the whole object is copied,
+     * since each range is a separate transfer. It is set to 64 by default.
+     */
+    public static final int DIRTY_RANGES_MAX = Integer.parseInt(getProperty("tornado.dirty.ranges.max", "64"));
+
+    /**
+     * Option to execute task-graphs concurrently on the same device from
+     * different host threads. Each thread gets its own command queue and event
+     * window, and each task-graph its own kernel-argument buffers.
+     */
+    public static final boolean CONCURRENT_EXECUTION = getBooleanValue("tornado.concurrent.execution", FALSE);
+
     /**
      * Option to enable experimental and new option for performing automatic full
      * reductions.
@@ -90,6 +130,74 @@ public class TornadoOptions {
      * Prints the generated code by the TornadoVM compiler. Default is False.
      */
     public static final String PRINT_SOURCE_DIRECTORY = getProperty("tornado.print.kernel.dir", "");
+    /**
+     * Option to enable the persistent kernel cache. Generated kernels are stored
+     * on disk and reused across executions of the JVM. Default is False.
+     */
+    public static final boolean KERNEL_CACHE_ENABLE = getBooleanValue("tornado.kernel.cache.enable", FALSE);
+    /**
+     * Directory of the persistent kernel cache. It is set to
+     * `<java.io.tmpdir>/tornado-kernel-cache` by default.
+     */
+    public static final String KERNEL_CACHE_DIR = getProperty("tornado.kernel.cache.dir", System.getProperty("java.io.tmpdir") + "/tornado-kernel-cache");
+    /**
+     * Maximum size on disk of the persistent kernel cache. Least recently used
+     * kernels are evicted once it is exceeded. It is set to 256MB by default.
+     */
+    public static final long KERNEL_CACHE_SIZE = RuntimeUtilities.parseSize(getProperty("tornado.kernel.cache.size", "256MB"));
+    /**
+     * Option to enable the auto-tuning of work-group sizes. The first executions
+     * of each task try several local work sizes, and the fastest one is stored in
+     * a tuning table on disk that later executions reuse. Default is False.
+     */
+    public static final boolean TUNING_ENABLE = getBooleanValue("tornado.tuning.enable", FALSE);
+    /**
+     * File of the persistent tuning table. It is set to
+     * `<java.io.tmpdir>/tornado-tuning.properties` by default.
+     */
+    public static final String TUNING_FILE = getProperty("tornado.tuning.file", System.getProperty("java.io.tmpdir") + "/tornado-tuning.properties");
+    /**
+     * Number of executions measured for each candidate work-group size. The
+     * fastest of them is the time of the candidate. It is set to 3 by default.
+     */
+    public static final int TUNING_REPETITIONS = Integer.parseInt(getProperty("tornado.tuning.repetitions", "3"));
+    /**
+     * Maximum number of candidate work-group sizes explored for each task. It is
+     * set to 24 by default.
+     */
+    public static final int TUNING_MAX_CANDIDATES = Integer.parseInt(getProperty("tornado.tuning.candidates", "24"));
+    /**
+     * Option to round up the global work of kernels with bounds-guarded parallel
+     * loops to a multiple of a large work-group size, instead of looking for a
+     * work-group size that divides the iteration space. Default is True.
+     */
+    public static final boolean PAD_GLOBAL_WORK = getBooleanValue("tornado.padding.enable", TRUE);
+    /**
+     * Option to fuse consecutive element-wise tasks of a task-graph that have the
+     * same parallel domain into a single kernel. Default is False.
+     */
+    public static final boolean FUSE_TASKS = getBooleanValue("tornado.fusion.enable", FALSE);
+    /**
+     * Option to print which tasks were fused, and why the others were not.
+     * Default is False.
+     */
+    public static final boolean PRINT_FUSION_REPORT = getBooleanValue("tornado.fusion.report", FALSE);
+    /**
+     * Option to print which arrays the local-memory tiling staged through local
+     * memory, and why the others were not. Default is False.
+     */
+    public static final boolean PRINT_TILING_REPORT = getBooleanValue("tornado.tiling.report", FALSE);
+    /**
+     * Maximum number of sketches kept by the TornadoSketcher. Least recently used
+     * sketches are evicted and built again when needed. It is set to 1024 by
+     * default.
+     */
+    public static final int SKETCHER_CACHE_SIZE = Integer.parseInt(getProperty("tornado.sketcher.cache.size", "1024"));
+    /**
+     * Maximum number of Graal nodes held by all the sketches of the
+     * TornadoSketcher. It is set to 1000000 by default.
+     */
+    public static final long SKETCHER_CACHE_NODES = Long.parseLong(getProperty("tornado.sketcher.cache.nodes", "1000000"));
     /**
      * Once the internal buffers storing events are full, it will start to circulate
      * old events and overwrite them with new ones. Default is True.
@@ -120,6 +228,20 @@ public class TornadoOptions {
      * Option to redirect profiler output.
      */
     public static final String PROFILER_DIRECTORY = getProperty("tornado.profiler.dump.dir", "");
+    /**
+     * Option to aggregate the profiler values of every execution into
+     * histograms. Requires the profiler to be enabled.
+     */
+    public static final boolean PROFILER_METRICS = getBooleanValue("tornado.profiler.metrics", FALSE);
+    /**
+     * File in which the profiler histograms are written in the Prometheus text
+     * format, periodically and when the JVM exits. Setting it enables the metrics.
+     */
+    public static final String PROFILER_METRICS_FILE = getProperty("tornado.profiler.metrics.file", "");
+    /**
+     * Period, in milliseconds, to write the profiler metrics file.
+     */
+    public static final long PROFILER_METRICS_FILE_PERIOD = Long.parseLong(getProperty("tornado.profiler.metrics.file.period", "1000"));
     /**
      * Dump the Control-Flow-Graph with IGV for the compiled-graph after the last
      * phase in the Low-Tier.
@@ -152,6 +274,11 @@ public class TornadoOptions {
      * this option is experimental and may cause issues if enabled.
      */
     public static final boolean AUTO_PARALLELISATION = getBooleanValue("tornado.parallelise.auto", FALSE);
+    /**
+     * Option to print, for every loop, whether the auto-paralleliser made it a
+     * parallel dimension and, if not, why. Default is False.
+     */
+    public static final boolean PRINT_AUTO_PARALLELISATION_REPORT = getBooleanValue("tornado.parallelise.auto.report", FALSE);
     /**
      * Full Inlining Policy with the TornadoVM JIT compiler. Default is False.
      */
@@ -233,6 +360,17 @@ public class TornadoOptions {
      */
     public static final boolean ENABLE_STREAM_OUT_BLOCKING = getBooleanValue("tornado.enable.streamOut.blocking", FALSE);;
 
+    /**
+     * Number of device buffers used per object when running a task-graph in
+     * batches. With a value greater than 1, the TornadoVM rotates the batches
+     * across the buffers so the copy-in and the kernel of the next batches are
+     * enqueued before the copy-out of the current one. Overlapping requires
+     * out-of-order execution (`-Dtornado.ooo-execution.enable=True`).
+     *
+     * It is set to 1 (no pipelining) by default.
+     */
+    public static final int BATCH_PIPELINE_DEPTH = Integer.parseInt(getProperty("tornado.batch.pipeline.depth", "1"));
+
     /**
      * Option to load FPGA pre-compiled binaries.
      */
@@ -0,0 +1,122 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.manchester.tornado.runtime.common.WorkGroupTuner.Configuration;
+
+/**
+ * Table of tuned work-group sizes that persists across JVM executions. It maps
+ * the keys of the {@link WorkGroupTuner} to the configurations that won their
+ * search.
+ *
+ * The table is stored as a properties file. It is loaded on the first lookup.
+ * Each update reloads the file, so entries stored by other processes are kept,
+ * and writes it to a temporary file that is atomically renamed.
+ */
+public class TuningDatabase {
+
+    private final Path file;
+    private final ConcurrentHashMap<String, Configuration> entries;
+    private volatile boolean loaded;
+
+    public TuningDatabase(Path file) {
+        this.file = file;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the configuration stored for the key, or null if there is none.
+     */
+    public Configuration lookup(String key) {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load(entries);
+                    loaded = true;
+                }
+            }
+        }
+        return entries.get(key);
+    }
+
+    public synchronized void store(String key, Configuration configuration) {
+        entries.put(key, configuration);
+        final ConcurrentHashMap<String, Configuration> current = new ConcurrentHashMap<>();
+        load(current);
+        current.put(key, configuration);
+
+        final Properties properties = new Properties();
+        current.forEach((entryKey, value) -> properties.setProperty(entryKey, value.encode()));
+        try {
+            final Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream stream = Files.newOutputStream(temporary)) {
+                    properties.store(stream, "TornadoVM work-group tuning table");
+                }
+                try {
+                    Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, file, REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            Tornado.warn("Unable to store %s in the tuning table %s: %s", key, file, e.getMessage());
+        }
+    }
+
+    private void load(ConcurrentHashMap<String, Configuration> target) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream stream = Files.newInputStream(file)) {
+            properties.load(stream);
+        } catch (IOException e) {
+            Tornado.warn("Unable to read the tuning table %s: %s", file, e.getMessage());
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                target.put(key, Configuration.decode(properties.getProperty(key)));
+            } catch (IllegalArgumentException e) {
+                Tornado.debug("Ignoring invalid entry %s of the tuning table", key);
+            }
+        }
+    }
+}
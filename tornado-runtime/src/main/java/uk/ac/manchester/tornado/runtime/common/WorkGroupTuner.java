@@ -0,0 +1,403 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Auto-tuner of work-group sizes. Enable it with
+ * `-Dtornado.tuning.enable=True`.
+ *
+ * <p>
+ * Each task, device and problem-size class is tuned separately. The first
+ * executions of a task go through a list of candidate configurations. Each
+ * candidate is measured {@link TornadoOptions#TUNING_REPETITIONS} times, and
+ * its fastest time is kept. When all candidates have been measured, the
+ * fastest one is stored in the {@link TuningDatabase}. Later executions, and
+ * later runs of the JVM, use it instead of the heuristic of the scheduler.
+ * </p>
+ *
+ * <p>
+ * The search itself is independent from devices: a {@link Search} receives
+ * the measured times, so it can also be driven by a synthetic cost model
+ * through {@link #search}.
+ * </p>
+ */
+public class WorkGroupTuner {
+
+    private static WorkGroupTuner instance;
+
+    private final TuningDatabase database;
+    private final ConcurrentHashMap<String, Search> searches;
+
+    public WorkGroupTuner(TuningDatabase database) {
+        this.database = database;
+        this.searches = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized WorkGroupTuner getInstance() {
+        if (instance == null) {
+            instance = new WorkGroupTuner(new TuningDatabase(Paths.get(TornadoOptions.TUNING_FILE)));
+        }
+        return instance;
+    }
+
+    /**
+     * Global and local work sizes of a kernel launch, for three dimensions.
+     */
+    public static class Configuration {
+        private final long[] globalWork;
+        private final long[] localWork;
+
+        public Configuration(long[] globalWork, long[] localWork) {
+            this.globalWork = Arrays.copyOf(globalWork, 3);
+            this.localWork = Arrays.copyOf(localWork, 3);
+            for (int i = 0; i < 3; i++) {
+                this.globalWork[i] = Math.max(this.globalWork[i], 1);
+                this.localWork[i] = Math.max(this.localWork[i], 1);
+            }
+        }
+
+        public long[] getGlobalWork() {
+            return globalWork;
+        }
+
+        public long[] getLocalWork() {
+            return localWork;
+        }
+
+        public long getWorkGroupSize() {
+            return localWork[0] * localWork[1] * localWork[2];
+        }
+
+        String encode() {
+            return join(globalWork) + ":" + join(localWork);
+        }
+
+        static Configuration decode(String value) {
+            final String[] parts = value.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid work-group configuration: " + value);
+            }
+            return new Configuration(split(parts[0]), split(parts[1]));
+        }
+
+        private static String join(long[] values) {
+            return values[0] + "," + values[1] + "," + values[2];
+        }
+
+        private static long[] split(String value) {
+            return Arrays.stream(value.split(",")).mapToLong(Long::parseLong).toArray();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Configuration)) {
+                return false;
+            }
+            Configuration other = (Configuration) object;
+            return Arrays.equals(globalWork, other.globalWork) && Arrays.equals(localWork, other.localWork);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(globalWork) + Arrays.hashCode(localWork);
+        }
+
+        @Override
+        public String toString() {
+            return "global=" + Arrays.toString(globalWork) + ", local=" + Arrays.toString(localWork);
+        }
+    }
+
+    /**
+     * Exhaustive search over a list of candidates. The candidates are measured
+     * in order, each one {@code repetitions} times.
+     */
+    public static class Search {
+        private final List<Configuration> candidates;
+        private final int repetitions;
+        private final long[] times;
+        private int current;
+        private int samples;
+
+        public Search(List<Configuration> candidates, int repetitions) {
+            if (candidates.isEmpty()) {
+                throw new IllegalArgumentException("No candidate configurations to search");
+            }
+            this.candidates = new ArrayList<>(candidates);
+            this.repetitions = Math.max(repetitions, 1);
+            this.times = new long[candidates.size()];
+            Arrays.fill(times, Long.MAX_VALUE);
+        }
+
+        public synchronized boolean isFinished() {
+            return current == candidates.size();
+        }
+
+        /**
+         * @return the candidate to measure next, or the best one when the search has
+         *         finished.
+         */
+        public synchronized Configuration next() {
+            return isFinished() ? getBest() : candidates.get(current);
+        }
+
+        /**
+         * Records the time of an execution. Times of candidates other than the
+         * current one are ignored, since they come from executions that started
+         * before the previous report.
+         */
+        public synchronized void report(Configuration configuration, long time) {
+            if (isFinished() || !candidates.get(current).equals(configuration)) {
+                return;
+            }
+            times[current] = Math.min(times[current], time);
+            samples++;
+            if (samples == repetitions) {
+                current++;
+                samples = 0;
+            }
+        }
+
+        /**
+         * @return the fastest candidate measured so far. Ties go to the earlier
+         *         candidate.
+         */
+        public synchronized Configuration getBest() {
+            int best = 0;
+            for (int i = 1; i < candidates.size(); i++) {
+                if (times[i] < times[best]) {
+                    best = i;
+                }
+            }
+            return candidates.get(best);
+        }
+
+        public int getNumCandidates() {
+            return candidates.size();
+        }
+    }
+
+    /**
+     * Runs a search to completion with a cost model instead of measured
+     * executions.
+     */
+    public static Configuration search(List<Configuration> candidates, ToLongFunction<Configuration> costModel, int repetitions) {
+        final Search search = new Search(candidates, repetitions);
+        while (!search.isFinished()) {
+            final Configuration configuration = search.next();
+            search.report(configuration, costModel.applyAsLong(configuration));
+        }
+        return search.getBest();
+    }
+
+    /**
+     * Builds the candidate configurations of a launch. The first candidate is
+     * the default configuration of the scheduler. The others combine, for each
+     * dimension, the largest divisors of the global size that are not larger
+     * than each power of two, within the limits of the device.
+     *
+     * @param maxCandidates
+     *            When there are more candidates, an evenly spaced subset of them
+     *            is kept.
+     */
+    public static List<Configuration> generateCandidates(long[] globalWork, long[] defaultLocalWork, int dims, long[] maxWorkItemSizes, long maxWorkGroupSize, int maxCandidates) {
+        return generateCandidates(globalWork, new Configuration(globalWork, defaultLocalWork), dims, maxWorkItemSizes, maxWorkGroupSize, maxCandidates, false);
+    }
+
+    /**
+     * Builds the candidate configurations of a launch from its iteration space.
+     * When the global work can be padded (see
+     * {@link GlobalWorkPadding#isEnabled}), each power of two is also a
+     * candidate local size of every dimension, with the global size rounded up
+     * to a multiple of it. Otherwise, only the divisors of the iteration space
+     * are candidates.
+     *
+     * @param defaultConfiguration
+     *            Configuration of the scheduler, which is the first candidate.
+     * @param padding
+     *            True if the global work can be larger than the iteration space.
+     */
+    public static List<Configuration> generateCandidates(long[] iterationSpace, Configuration defaultConfiguration, int dims, long[] maxWorkItemSizes, long maxWorkGroupSize, int maxCandidates,
+            boolean padding) {
+        final List<long[][]> sizes = new ArrayList<>();
+        for (int i = 0; i < dims; i++) {
+            sizes.add(getDimensionSizes(iterationSpace[i], Math.min(maxWorkItemSizes[i], maxWorkGroupSize), padding));
+        }
+
+        final Set<Configuration> combinations = new LinkedHashSet<>();
+        combine(sizes, 0, new long[] { 1, 1, 1 }, Arrays.copyOf(iterationSpace, 3), maxWorkGroupSize, combinations);
+
+        combinations.remove(defaultConfiguration);
+        final List<Configuration> others = new ArrayList<>(combinations);
+
+        final List<Configuration> candidates = new ArrayList<>();
+        candidates.add(defaultConfiguration);
+        final int remaining = Math.max(maxCandidates - 1, 0);
+        if (others.size() <= remaining) {
+            candidates.addAll(others);
+        } else {
+            for (int i = 0; i < remaining; i++) {
+                candidates.add(others.get((int) ((long) i * others.size() / remaining)));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return the pairs of local and global sizes of a dimension.
+     */
+    private static long[][] getDimensionSizes(long size, long limit, boolean padding) {
+        final Set<List<Long>> sizes = new LinkedHashSet<>();
+        for (long power = 1; power <= limit; power <<= 1) {
+            sizes.add(List.of(largestDivisor(size, power), size));
+            if (padding && power < size) {
+                sizes.add(List.of(power, GlobalWorkPadding.roundUp(size, power)));
+            }
+        }
+        if (size <= limit) {
+            sizes.add(List.of(size, size));
+        }
+        return sizes.stream().map(pair -> new long[] { pair.get(0), pair.get(1) }).toArray(long[][]::new);
+    }
+
+    private static long largestDivisor(long value, long bound) {
+        long divisor = Math.max(Math.min(bound, value), 1);
+        while (value % divisor != 0) {
+            divisor--;
+        }
+        return divisor;
+    }
+
+    private static void combine(List<long[][]> sizes, int dimension, long[] localWork, long[] globalWork, long maxWorkGroupSize, Set<Configuration> combinations) {
+        if (dimension == sizes.size()) {
+            combinations.add(new Configuration(globalWork, localWork));
+            return;
+        }
+        final long groupSize = localWork[0] * localWork[1] * localWork[2];
+        final long size = globalWork[dimension];
+        for (long[] pair : sizes.get(dimension)) {
+            if (groupSize * pair[0] <= maxWorkGroupSize) {
+                localWork[dimension] = pair[0];
+                globalWork[dimension] = pair[1];
+                combine(sizes, dimension + 1, localWork, globalWork, maxWorkGroupSize, combinations);
+            }
+        }
+        localWork[dimension] = 1;
+        globalWork[dimension] = size;
+    }
+
+    /**
+     * Adapts a configuration to the iteration space of a launch, since the
+     * configurations of a key are shared by all the problem sizes of its size
+     * class. With padding, the global work is rounded up to a multiple of the
+     * local work. Otherwise, the local work is reduced to a divisor of the
+     * iteration space.
+     */
+    public static Configuration fitToIterationSpace(Configuration configuration, long[] iterationSpace, int dims, boolean padding) {
+        final long[] globalWork = configuration.getGlobalWork().clone();
+        final long[] localWork = configuration.getLocalWork().clone();
+        for (int i = 0; i < dims; i++) {
+            if (padding) {
+                globalWork[i] = GlobalWorkPadding.roundUp(iterationSpace[i], localWork[i]);
+            } else {
+                globalWork[i] = iterationSpace[i];
+                localWork[i] = largestDivisor(iterationSpace[i], localWork[i]);
+            }
+        }
+        return new Configuration(globalWork, localWork);
+    }
+
+    /**
+     * Problem sizes are grouped by the next power of two of each dimension, so a
+     * task whose size changes slightly between executions is not tuned again.
+     */
+    static long getSizeClass(long size) {
+        return (size <= 1) ? 1 : Long.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * @return the key of a task on a device for the size class of an iteration
+     *         space.
+     */
+    public static String getKey(String deviceName, String taskName, long[] iterationSpace, int dims) {
+        final StringBuilder key = new StringBuilder();
+        key.append(deviceName).append('/').append(taskName).append('/');
+        for (int i = 0; i < dims; i++) {
+            key.append(i == 0 ? "" : "x").append(getSizeClass(iterationSpace[i]));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the tuned configuration when there is one. Otherwise, the candidate
+     *         to measure in the next execution.
+     */
+    public Configuration getConfiguration(String key, Supplier<List<Configuration>> candidates) {
+        final Configuration tuned = database.lookup(key);
+        if (tuned != null) {
+            return tuned;
+        }
+        return searches.computeIfAbsent(key, k -> new Search(candidates.get(), TornadoOptions.TUNING_REPETITIONS)).next();
+    }
+
+    /**
+     * @return true if the executions of the key are still being measured.
+     */
+    public boolean isTuning(String key) {
+        final Search search = searches.get(key);
+        return search != null && !search.isFinished();
+    }
+
+    /**
+     * Records the kernel time of an execution with the given configuration. When
+     * the search of the key finishes, its result is stored in the database.
+     */
+    public void report(String key, Configuration configuration, long time) {
+        final Search search = searches.get(key);
+        if (search == null) {
+            return;
+        }
+        synchronized (search) {
+            if (search.isFinished()) {
+                return;
+            }
+            search.report(configuration, time);
+            if (search.isFinished()) {
+                final Configuration best = search.getBest();
+                Tornado.info("Work-group tuning of %s finished after %d candidates: %s", key, search.getNumCandidates(), best);
+                database.store(key, best);
+                searches.remove(key);
+            }
+        }
+    }
+}
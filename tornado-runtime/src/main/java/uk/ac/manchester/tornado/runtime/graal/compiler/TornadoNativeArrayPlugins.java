@@ -0,0 +1,150 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.graal.compiler;
+
+import java.util.function.Function;
+
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.collections.types.ByteArray;
+import uk.ac.manchester.tornado.api.collections.types.DoubleArray;
+import uk.ac.manchester.tornado.api.collections.types.FloatArray;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloat;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloatArray;
+import uk.ac.manchester.tornado.api.collections.types.IntArray;
+import uk.ac.manchester.tornado.api.collections.types.LongArray;
+import uk.ac.manchester.tornado.api.collections.types.ShortArray;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
+
+/**
+ * Plugins for the off-heap arrays. The drivers copy a native array to the
+ * device with the layout of a Java array of the same kind, so the accessors are
+ * replaced by the array nodes that each backend already lowers.
+ */
+public class TornadoNativeArrayPlugins {
+
+    public static void registerPlugins(final InvocationPlugins plugins) {
+        registerSizePlugin(plugins);
+        registerAccessPlugins(plugins, ByteArray.class, JavaKind.Byte);
+        registerAccessPlugins(plugins, ShortArray.class, JavaKind.Short);
+        registerAccessPlugins(plugins, IntArray.class, JavaKind.Int);
+        registerAccessPlugins(plugins, LongArray.class, JavaKind.Long);
+        registerAccessPlugins(plugins, FloatArray.class, JavaKind.Float);
+        registerAccessPlugins(plugins, DoubleArray.class, JavaKind.Double);
+        registerAccessPlugins(plugins, HalfFloatArray.class, JavaKind.Short, "getHalfFloatValue", "setHalfFloatValue");
+    }
+
+    /**
+     * Registers the FP16 conversions of {@link HalfFloat} and the float accessors
+     * of {@link HalfFloatArray}. Each backend provides the nodes that convert
+     * between the 16-bit encoding (a short) and a float.
+     *
+     * @param plugins
+     *            Invocation plugins of the backend
+     * @param halfToFloat
+     *            Creates the node that widens a short holding a half to float
+     * @param floatToHalf
+     *            Creates the node that narrows a float to the 16-bit encoding
+     */
+    public static void registerHalfFloatPlugins(final InvocationPlugins plugins, final Function<ValueNode, ValueNode> halfToFloat, final Function<ValueNode, ValueNode> floatToHalf) {
+        final Registration r = new Registration(plugins, HalfFloat.class);
+        r.register(new InvocationPlugin("halfToFloat", short.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode half) {
+                b.addPush(JavaKind.Float, halfToFloat.apply(half));
+                return true;
+            }
+        });
+
+        r.register(new InvocationPlugin("floatToHalf", float.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode value) {
+                b.addPush(JavaKind.Short, floatToHalf.apply(value));
+                return true;
+            }
+        });
+
+        final Registration arrayRegistration = new Registration(plugins, HalfFloatArray.class);
+        arrayRegistration.register(new InvocationPlugin("getFloat", Receiver.class, int.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index) {
+                ValueNode half = b.add(new LoadIndexedNode(null, receiver.get(), index, null, JavaKind.Short));
+                b.addPush(JavaKind.Float, halfToFloat.apply(half));
+                return true;
+            }
+        });
+
+        arrayRegistration.register(new InvocationPlugin("setFloat", Receiver.class, int.class, float.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode value) {
+                ValueNode half = b.add(floatToHalf.apply(value));
+                b.add(new StoreIndexedNode(receiver.get(), index, null, null, JavaKind.Short, half));
+                return true;
+            }
+        });
+    }
+
+    private static void registerSizePlugin(final InvocationPlugins plugins) {
+        final Registration r = new Registration(plugins, TornadoNativeArray.class);
+        r.register(new InvocationPlugin("getSize", Receiver.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                b.addPush(JavaKind.Int, new ArrayLengthNode(receiver.get()));
+                return true;
+            }
+        });
+    }
+
+    private static void registerAccessPlugins(final InvocationPlugins plugins, final Class<?> declaringClass, final JavaKind elementKind) {
+        registerAccessPlugins(plugins, declaringClass, elementKind, "get", "set");
+    }
+
+    private static void registerAccessPlugins(final InvocationPlugins plugins, final Class<?> declaringClass, final JavaKind elementKind, final String getter, final String setter) {
+        final Registration r = new Registration(plugins, declaringClass);
+        r.register(new InvocationPlugin(getter, Receiver.class, int.class) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index) {
+                b.addPush(elementKind.getStackKind(), new LoadIndexedNode(null, receiver.get(), index, null, elementKind));
+                return true;
+            }
+        });
+
+        r.register(new InvocationPlugin(setter, Receiver.class, int.class, elementKind.toJavaClass()) {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode value) {
+                b.add(new StoreIndexedNode(receiver.get(), index, null, null, elementKind, value));
+                return true;
+            }
+        });
+    }
+}
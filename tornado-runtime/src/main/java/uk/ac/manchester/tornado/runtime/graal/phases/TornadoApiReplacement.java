@@ -35,6 +35,7 @@ import java.util.Map;
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.LoopBeginNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.ValuePhiNode;
@@ -53,6 +54,7 @@ import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelStrideNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoLoopsData;
+import uk.ac.manchester.tornado.runtime.graph.TornadoTaskFusion;
 
 public class TornadoApiReplacement extends BasePhase<TornadoSketchTierContext> {
 
@@ -114,12 +116,19 @@ public class TornadoApiReplacement extends BasePhase<TornadoSketchTierContext> {
         if (graph.hasLoops()) {
             final LoopsData data = new TornadoLoopsData(graph);
             data.detectCountedLoops();
-            int loopIndex = 0;
             final List<LoopEx> loops = data.outerFirst();
             if (TORNADO_LOOPS_REVERSE) {
                 Collections.reverse(loops);
             }
 
+            /*
+             * The loops of a fused kernel come from different tasks, so each top-level
+             * loop-nest is numbered from 0 and all of them are mapped onto the same
+             * threads.
+             */
+            final boolean numberPerLoopNest = TornadoTaskFusion.isFusedKernel(context.getMethod());
+            final Map<LoopBeginNode, Integer> loopIndices = new HashMap<>();
+
             for (LoopEx loop : loops) {
                 for (InductionVariable iv : loop.getInductionVariables().getValues()) {
                     if (!parallelNodes.containsKey(iv.valueNode())) {
@@ -132,14 +141,24 @@ public class TornadoApiReplacement extends BasePhase<TornadoSketchTierContext> {
 
                     maxIterations = lessThan.getY();
 
+                    final LoopBeginNode loopNest = numberPerLoopNest ? getOutermostLoop(loop).loopBegin() : null;
+                    final int loopIndex = loopIndices.getOrDefault(loopNest, 0);
                     parallelizationReplacement(graph, iv, loopIndex, maxIterations, conditions);
 
-                    loopIndex++;
+                    loopIndices.put(loopNest, loopIndex + 1);
                 }
             }
         }
     }
 
+    private static LoopEx getOutermostLoop(LoopEx loop) {
+        LoopEx outermost = loop;
+        while (outermost.parent() != null) {
+            outermost = outermost.parent();
+        }
+        return outermost;
+    }
+
     private void parallelizationReplacement(StructuredGraph graph, InductionVariable inductionVar, int loopIndex, ValueNode maxIterations, List<IntegerLessThanNode> conditions)
             throws TornadoCompilationException {
         if (inductionVar.isConstantInit() && inductionVar.isConstantStride()) {
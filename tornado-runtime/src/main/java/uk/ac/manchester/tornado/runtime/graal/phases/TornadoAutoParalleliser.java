@@ -25,149 +25,798 @@
  */
 package uk.ac.manchester.tornado.runtime.graal.phases;
 
-import static uk.ac.manchester.tornado.runtime.common.Tornado.debug;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.iterators.NodeIterable;
+import org.graalvm.compiler.nodeinfo.Verbosity;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
 import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.LogicNode;
 import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.ParameterNode;
 import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.ProxyNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.VirtualState;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.AndNode;
+import org.graalvm.compiler.nodes.calc.BinaryNode;
 import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.LeftShiftNode;
+import org.graalvm.compiler.nodes.calc.MinMaxNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NegateNode;
+import org.graalvm.compiler.nodes.calc.OrNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.calc.XorNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.NewArrayNode;
+import org.graalvm.compiler.nodes.java.StoreFieldNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.loop.CountedLoopInfo;
 import org.graalvm.compiler.nodes.loop.InductionVariable;
 import org.graalvm.compiler.nodes.loop.LoopEx;
 import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.util.GraphUtil;
 import org.graalvm.compiler.phases.BasePhase;
 
-import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
-import uk.ac.manchester.tornado.api.exceptions.TornadoCompilationException;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.JavaType;
+import jdk.vm.ci.meta.Local;
+import jdk.vm.ci.meta.LocalVariableTable;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelStrideNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoLoopsData;
 
+/**
+ * Parallelises the loops of methods that do not use the {@code @Parallel}
+ * annotation.
+ *
+ * <p>
+ * The loop-nest of the method is analysed from the outermost loop inwards, and
+ * every loop that is free of loop-carried dependences becomes a parallel
+ * dimension, up to three. A loop is parallel when:
+ * <ul>
+ * <li>it is a counted loop of the form {@code for (int i = c0; i < n; i += c1)}
+ * whose trip count does not depend on the enclosing parallel loops,</li>
+ * <li>its scalars are either the induction variable or private to each
+ * iteration,</li>
+ * <li>every array it writes is written and read at one index that is an
+ * injective function of the induction variable, such as {@code c * i + b} or
+ * {@code i * n + j}, so two iterations never touch the same element,</li>
+ * <li>the arrays it writes do not alias the arrays it reads at other indices.
+ * Array parameters may be the same array, so the sketch records which ones must
+ * be different, and the loops are serialised when the arguments of a task share
+ * an array, and</li>
+ * <li>it has no calls, field stores or other side effects.</li>
+ * </ul>
+ * Reductions over a scalar are recognised, but the loop that performs them is
+ * kept sequential inside each thread, while the enclosing independent loops are
+ * still parallelised (e.g. the {@code k} loop of a matrix multiplication).
+ * Inner loops only become parallel when they are perfectly nested in the
+ * enclosing parallel loop.
+ * </p>
+ *
+ * <p>
+ * The decision taken for every loop is printed with
+ * {@code -Dtornado.parallelise.auto.report=True}.
+ * </p>
+ */
 public class TornadoAutoParalleliser extends BasePhase<TornadoSketchTierContext> {
 
+    private static final int MAX_DIMENSIONS = 3;
+
+    private static final String KERNEL_CONTEXT = "Luk/ac/manchester/tornado/api/KernelContext;";
+
     @Override
     protected void run(StructuredGraph graph, TornadoSketchTierContext context) {
         if (!TornadoOptions.AUTO_PARALLELISATION || graph.getNodes().filter(ParallelRangeNode.class).isNotEmpty()) {
             info("auto parallelisation disabled");
             return;
         }
-        autoParallelise(graph);
+        autoParallelise(graph, context);
     }
 
-    private void autoParallelise(StructuredGraph graph) {
-        if (graph.hasLoops()) {
-            final LoopsData data = new TornadoLoopsData(graph);
-            data.detectCountedLoops();
+    private void autoParallelise(StructuredGraph graph, TornadoSketchTierContext context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        final LoopsData data = new TornadoLoopsData(graph);
+        data.detectCountedLoops();
+        final List<LoopEx> loops = data.outerFirst();
 
-            final List<LoopEx> loops = data.outerFirst();
+        final Map<LoopEx, String> decisions = new HashMap<>();
+        final List<ParallelLoop> parallelLoops = new ArrayList<>();
+        final List<LoopEx> loopNests = getInnerLoops(loops, null);
 
-            // is single loop nest?
-            for (int i = loops.size() - 1; i > 1; i--) {
-                if (loops.get(i).parent() != loops.get(i - 1)) {
-                    info("method %s does not have a single loop-nest", graph.method().getName());
-                    return;
-                }
+        String rejection = null;
+        if (usesKernelContext(graph)) {
+            rejection = "the method uses the KernelContext API";
+        } else if (loopNests.size() > 1) {
+            rejection = "the method has more than one loop-nest";
+        } else {
+            final String sideEffect = findSideEffect(graph.getNodes(), node -> loopNests.get(0).isOutsideLoop(node));
+            if (sideEffect != null) {
+                rejection = String.format("the method %s outside the loop-nest", sideEffect);
             }
+        }
 
-            int parallelDepth = 0;
-            for (int i = 0; i < loops.size() && parallelDepth < 3; i++) {
-                final LoopEx current = loops.get(0);
-                final LoopBeginNode loopBegin = current.loopBegin();
-                final EconomicMap<Node, InductionVariable> ivMap = current.getInductionVariables();
+        if (rejection != null) {
+            for (LoopEx loop : loops) {
+                decisions.put(loop, "not parallelised: " + rejection);
+            }
+        } else {
+            LoopEx current = loopNests.get(0);
+            while (current != null) {
+                final ParallelLoop parallelLoop = new ParallelLoop(current, parallelLoops.isEmpty() ? current : parallelLoops.get(0).loop, loops);
+                final String reason = parallelLoop.analyse();
+                if (reason != null) {
+                    decisions.put(current, "not parallelised: " + reason);
+                    break;
+                }
+                parallelLoops.add(parallelLoop);
+                current = selectInnerLoop(loops, current, parallelLoops.size(), decisions);
+            }
+        }
 
-                info("%s loop info:\n", loopBegin);
-                final Set<Node> phis = new HashSet<>();
-                for (PhiNode phi : loopBegin.phis()) {
-                    info("\tphi: %s\n", phi);
-                    phis.add(phi);
+        final Set<List<Integer>> distinctParameters = new HashSet<>();
+        for (int i = 0; i < parallelLoops.size(); i++) {
+            final ParallelLoop parallelLoop = parallelLoops.get(i);
+            parallelizationReplacement(graph, parallelLoop.inductionVariable, i, parallelLoop.limitTest);
+            final String scalars = parallelLoop.privateScalars.isEmpty() ? "" : ", private scalars: " + parallelLoop.privateScalars;
+            final List<String> assumptions = new ArrayList<>();
+            for (ParameterNode[] pair : parallelLoop.distinctParameters) {
+                assumptions.add(String.format("'%s' and '%s'", nameOf(pair[0], parallelLoop.loop.loopBegin()), nameOf(pair[1], parallelLoop.loop.loopBegin())));
+                if (distinctParameters.add(Arrays.asList(pair[0].index(), pair[1].index()))) {
+                    context.addDistinctParameters(pair[0].index(), pair[1].index());
                 }
+            }
+            final String arrays = assumptions.isEmpty() ? "" : ", if " + String.join(", ", assumptions) + " are different arrays";
+            decisions.put(parallelLoop.loop, "parallelised as dimension " + i + scalars + arrays);
+        }
+
+        printReport(graph, loops, decisions, parallelLoops.size());
+    }
+
+    /**
+     * Selects the loop that can become the next parallel dimension inside a
+     * parallel loop. It has to be the only loop of the enclosing one, and the
+     * enclosing loop must not have side effects outside of it, because that code
+     * would be executed by every thread of the new dimension.
+     */
+    private static LoopEx selectInnerLoop(List<LoopEx> loops, LoopEx parallelLoop, int dimensions, Map<LoopEx, String> decisions) {
+        final List<LoopEx> innerLoops = getInnerLoops(loops, parallelLoop);
+        if (innerLoops.size() > 1) {
+            for (LoopEx loop : innerLoops) {
+                decisions.put(loop, String.format("not parallelised: it is not the only loop nested in the %s", describe(parallelLoop)));
+            }
+            return null;
+        } else if (innerLoops.isEmpty()) {
+            return null;
+        }
+
+        final LoopEx inner = innerLoops.get(0);
+        if (dimensions == MAX_DIMENSIONS) {
+            decisions.put(inner, String.format("not parallelised: kernels have at most %d parallel dimensions", MAX_DIMENSIONS));
+            return null;
+        }
+        final String sideEffect = findSideEffect(parallelLoop.whole().nodes(), inner::isOutsideLoop);
+        if (sideEffect != null) {
+            decisions.put(inner, String.format("not parallelised: the enclosing loop %s outside it", sideEffect));
+            return null;
+        }
+        return inner;
+    }
+
+    private static List<LoopEx> getInnerLoops(List<LoopEx> loops, LoopEx parent) {
+        final List<LoopEx> innerLoops = new ArrayList<>();
+        for (LoopEx loop : loops) {
+            if (loop.parent() == parent) {
+                innerLoops.add(loop);
+            }
+        }
+        return innerLoops;
+    }
+
+    private static boolean usesKernelContext(StructuredGraph graph) {
+        for (JavaType type : graph.method().toParameterTypes()) {
+            if (type.getName().equals(KERNEL_CONTEXT)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                List<InductionVariable> ivs = new ArrayList<>();
-                for (Node n : ivMap.getKeys()) {
-                    info("\tiv: node=%s iv=%s\n", n, ivMap.get(n));
-                    phis.remove(n);
-                    ivs.add(ivMap.get(n));
+    private static String findSideEffect(NodeIterable<Node> nodes, Predicate<Node> filter) {
+        for (Node node : nodes) {
+            if (filter.test(node)) {
+                final String sideEffect = describeSideEffect(node);
+                if (sideEffect != null) {
+                    return sideEffect;
                 }
+            }
+        }
+        return null;
+    }
 
-                if (!phis.isEmpty()) {
-                    info("unable to parallelise because of loop-dependencies:\n");
-                    for (Node n : phis) {
-                        PhiNode phi = (PhiNode) n;
-                        StringBuilder sb = new StringBuilder();
-                        for (ValueNode value : phi.values()) {
-                            if (value.getNodeSourcePosition() != null) {
-                                sb.append(value.getNodeSourcePosition().toString());
-                            }
-                            sb.append("\n");
-                        }
-                        info("\tnode %s updated:\n", n);
-                        info(sb.toString().trim());
+    private static String describeSideEffect(Node node) {
+        if (node instanceof Invoke) {
+            return "calls " + ((Invoke) node).callTarget().targetMethod().format("%H.%n");
+        } else if (node instanceof StoreFieldNode) {
+            return "writes the field " + ((StoreFieldNode) node).field().getName();
+        } else if (node instanceof StoreIndexedNode) {
+            return "writes an array";
+        } else if (node instanceof MemoryKill && !(node instanceof AbstractBeginNode)) {
+            return String.format("has a side effect (%s)", node.toString(Verbosity.Name));
+        }
+        return null;
+    }
+
+    private static String describe(LoopEx loop) {
+        final FrameState state = loop.loopBegin().stateAfter();
+        if (state != null && state.getMethod() != null) {
+            return "loop at " + state.getMethod().asStackTraceElement(state.bci);
+        }
+        return "loop " + loop.loopBegin();
+    }
+
+    /**
+     * Finds the name of a local variable or a field from the frame state of the
+     * loop header, including the frames of inlined methods.
+     */
+    private static String nameOf(ValueNode value, LoopBeginNode loopBegin) {
+        for (FrameState state = loopBegin.stateAfter(); state != null; state = state.outerFrameState()) {
+            final LocalVariableTable table = state.getMethod() == null ? null : state.getMethod().getLocalVariableTable();
+            for (int i = 0; i < state.localsSize() && table != null; i++) {
+                if (state.localAt(i) == value) {
+                    final Local local = table.getLocal(i, state.bci);
+                    if (local != null) {
+                        return local.getName();
                     }
-                    throw new TornadoBailoutRuntimeException("unable to parallelise because of loop-dependencies.");
                 }
+            }
+        }
+        if (value instanceof LoadFieldNode) {
+            return ((LoadFieldNode) value).field().getName();
+        }
+        return value.toString(Verbosity.Short);
+    }
 
-                if (ivs.size() > 1) {
-                    debug("Too many ivs");
-                    return;
+    private static void printReport(StructuredGraph graph, List<LoopEx> loops, Map<LoopEx, String> decisions, int dimensions) {
+        final StringBuilder sb = new StringBuilder("Auto-parallelisation of ").append(graph.method().format("%H.%n"));
+        sb.append(dimensions == 0 ? ": sequential kernel" : String.format(": %dD kernel", dimensions));
+        for (LoopEx loop : loops) {
+            sb.append("\n\t").append(describe(loop)).append(": ").append(decisions.getOrDefault(loop, "not parallelised: it is nested in a sequential loop"));
+        }
+        report(sb.toString());
+    }
+
+    private static void report(String message) {
+        if (TornadoOptions.PRINT_AUTO_PARALLELISATION_REPORT) {
+            System.out.println(message);
+        } else {
+            info(message);
+        }
+    }
+
+    /**
+     * Turns the loops parallelised by this phase back into sequential loops when
+     * two arguments that the analysis assumed to be different arrays share an
+     * array. The backends apply it to the graph of each task before compiling it,
+     * since the sketch is built without the arguments.
+     */
+    public static void serialiseAliasedLoops(StructuredGraph graph, List<int[]> distinctParameters, Object[] args) {
+        if (args == null) {
+            return;
+        }
+        for (int[] pair : distinctParameters) {
+            if (pair[1] < args.length && RuntimeUtilities.mayAlias(args[pair[0]], args[pair[1]])) {
+                report(String.format("Auto-parallelisation of %s: sequential kernel, the arguments %d and %d share an array", graph.method().format("%H.%n"), pair[0], pair[1]));
+                for (ParallelRangeNode range : graph.getNodes().filter(ParallelRangeNode.class).snapshot()) {
+                    final ParallelOffsetNode offset = range.offset();
+                    final ParallelStrideNode stride = range.stride();
+                    range.replaceAtUsages(range.value());
+                    range.safeDelete();
+                    offset.replaceAtUsages(offset.value());
+                    offset.safeDelete();
+                    stride.replaceAtUsages(stride.value());
+                    stride.safeDelete();
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean hasUsages(ValueNode value) {
+        for (Node usage : value.usages()) {
+            if (usage instanceof ProxyNode ? hasUsages((ProxyNode) usage) : !(usage instanceof VirtualState)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEquivalent(ValueNode a, ValueNode b, int depth) {
+        final ValueNode x = GraphUtil.unproxify(a);
+        final ValueNode y = GraphUtil.unproxify(b);
+        if (x == y) {
+            return true;
+        } else if (depth == 0 || x.getClass() != y.getClass() || x instanceof PhiNode || x instanceof FixedNode || !x.valueEquals(y)) {
+            return false;
+        }
+        final List<Node> inputsX = x.inputs().snapshot();
+        final List<Node> inputsY = y.inputs().snapshot();
+        if (inputsX.size() != inputsY.size()) {
+            return false;
+        }
+        for (int i = 0; i < inputsX.size(); i++) {
+            if (!(inputsX.get(i) instanceof ValueNode) || !(inputsY.get(i) instanceof ValueNode) || !isEquivalent((ValueNode) inputsX.get(i), (ValueNode) inputsY.get(i), depth - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void parallelizationReplacement(StructuredGraph graph, InductionVariable iv, int parallelDepth, IntegerLessThanNode condition) {
+        final ConstantNode newInit = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantInit()));
+
+        final ConstantNode newStride = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantStride()));
+
+        final ParallelOffsetNode offset = graph.addWithoutUnique(new ParallelOffsetNode(parallelDepth, newInit));
+
+        final ParallelStrideNode stride = graph.addWithoutUnique(new ParallelStrideNode(parallelDepth, newStride));
+
+        final ValueNode maxIterations = condition.getY();
+
+        final ParallelRangeNode range = graph.addWithoutUnique(new ParallelRangeNode(parallelDepth, maxIterations, offset, stride));
+
+        final ValuePhiNode phi = (ValuePhiNode) iv.valueNode();
+
+        final ValueNode oldStride = phi.singleBackValueOrThis();
+
+        if (oldStride.usages().count() > 1) {
+            final ValueNode duplicateStride = (ValueNode) oldStride.copyWithInputs(true);
+            oldStride.replaceAtMatchingUsages(duplicateStride, usage -> !usage.equals(phi));
+        }
+
+        iv.initNode().replaceAtMatchingUsages(offset, node -> node.equals(phi));
+        iv.strideNode().replaceAtMatchingUsages(stride, node -> node.equals(oldStride));
+
+        // only replace this node in the loop condition
+        maxIterations.replaceAtMatchingUsages(range, node -> node.equals(condition));
+    }
+
+    /**
+     * A term {@code scale * factor * i} of an index, where {@code i} is an
+     * induction variable of the loop-nest and the factor, if any, is invariant
+     * over the loop-nest.
+     */
+    private static final class IndexTerm {
+        private final ValuePhiNode inductionVariable;
+        private final ValueNode factor;
+        private long scale;
+
+        IndexTerm(ValuePhiNode inductionVariable, long scale, ValueNode factor) {
+            this.inductionVariable = inductionVariable;
+            this.scale = scale;
+            this.factor = factor;
+        }
+    }
+
+    /**
+     * An element of an array accessed inside a loop. Multi-dimensional accesses,
+     * such as {@code a[i][j]}, keep one index per dimension.
+     */
+    private static final class ArrayAccess {
+        private final AccessIndexedNode node;
+        private final ValueNode array;
+        private final List<ValueNode> indices;
+        private final boolean write;
+        private final Object root;
+
+        ArrayAccess(AccessIndexedNode access) {
+            node = access;
+            indices = new ArrayList<>();
+            indices.add(GraphUtil.unproxify(access.index()));
+            ValueNode base = GraphUtil.unproxify(access.array());
+            while (base instanceof LoadIndexedNode) {
+                final LoadIndexedNode row = (LoadIndexedNode) base;
+                indices.add(0, GraphUtil.unproxify(row.index()));
+                base = GraphUtil.unproxify(row.array());
+            }
+            array = base;
+            write = access instanceof StoreIndexedNode;
+            root = rootOf(base);
+        }
+
+        private static Object rootOf(ValueNode value) {
+            final ValueNode base = GraphUtil.unproxify(value);
+            if (base instanceof ParameterNode || base instanceof NewArrayNode) {
+                return base;
+            } else if (base instanceof LoadFieldNode) {
+                final LoadFieldNode load = (LoadFieldNode) base;
+                if (load.isStatic()) {
+                    return load.field();
                 }
+                final Object object = rootOf(load.object());
+                return object == null ? null : Arrays.asList(load.field(), object);
+            }
+            return null;
+        }
 
-                final InductionVariable iv = ivs.get(0);
-                ValueNode maxIterations;
+        private List<Object> key() {
+            return Arrays.asList(root, indices.size());
+        }
 
-                List<IntegerLessThanNode> conditions = iv.valueNode().usages().filter(IntegerLessThanNode.class).snapshot();
-                final IntegerLessThanNode lessThan = conditions.get(0);
-                maxIterations = lessThan.getY();
+        /**
+         * Accesses to different roots may still reach the same array, e.g. when the
+         * same array is passed as two arguments. Only arrays of different element
+         * kinds, or arrays allocated by the method, are known to be different.
+         */
+        private boolean mayAlias(ArrayAccess other) {
+            if (node.elementKind() != other.node.elementKind()) {
+                return false;
+            }
+            return root.equals(other.root) || !(isNewArray() || other.isNewArray());
+        }
 
-                parallelizationReplacement(graph, iv, parallelDepth, maxIterations, conditions);
+        private boolean isNewArray() {
+            return root instanceof NewArrayNode && indices.size() == 1;
+        }
 
-                parallelDepth++;
+        private boolean hasSameIndices(ArrayAccess other) {
+            if (indices.size() != other.indices.size()) {
+                return false;
             }
-            info("automatically parallelised %s (%dD kernel)\n", graph.method().getName(), parallelDepth);
+            for (int i = 0; i < indices.size(); i++) {
+                if (!isEquivalent(indices.get(i), other.indices.get(i), 8)) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
-    private void parallelizationReplacement(StructuredGraph graph, InductionVariable iv, int parallelDepth, ValueNode maxIterations, List<IntegerLessThanNode> conditions)
-            throws TornadoCompilationException {
-        if (iv.isConstantInit() && iv.isConstantStride()) {
-            final ConstantNode newInit = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantInit()));
+    /**
+     * Dependence analysis of a loop that may become a parallel dimension.
+     */
+    private static final class ParallelLoop {
+        private final LoopEx loop;
+        private final LoopEx outermostParallelLoop;
+        private final List<LoopEx> loops;
+        private final List<String> privateScalars;
+        private final List<ParameterNode[]> distinctParameters;
+        private InductionVariable inductionVariable;
+        private ValuePhiNode phi;
+        private IntegerLessThanNode limitTest;
 
-            final ConstantNode newStride = graph.addWithoutUnique(ConstantNode.forInt((int) iv.constantStride()));
+        ParallelLoop(LoopEx loop, LoopEx outermostParallelLoop, List<LoopEx> loops) {
+            this.loop = loop;
+            this.outermostParallelLoop = outermostParallelLoop;
+            this.loops = loops;
+            this.privateScalars = new ArrayList<>();
+            this.distinctParameters = new ArrayList<>();
+        }
 
-            final ParallelOffsetNode offset = graph.addWithoutUnique(new ParallelOffsetNode(parallelDepth, newInit));
+        /**
+         * @return the reason why the loop cannot be parallelised, or null if it can.
+         */
+        private String analyse() {
+            String reason = analyseInductionVariable();
+            if (reason == null) {
+                reason = analyseScalars();
+            }
+            if (reason == null) {
+                reason = analyseMemory();
+            }
+            return reason;
+        }
+
+        private String analyseInductionVariable() {
+            final LoopBeginNode loopBegin = loop.loopBegin();
+            if (!loop.isCounted()) {
+                return "it is not a counted loop";
+            } else if (loopBegin.loopExits().count() > 1) {
+                return "it has more than one exit";
+            }
 
-            final ParallelStrideNode stride = graph.addWithoutUnique(new ParallelStrideNode(parallelDepth, newStride));
+            final CountedLoopInfo counted = loop.counted();
+            inductionVariable = counted.getLimitCheckedIV();
+            if (!(inductionVariable.valueNode() instanceof ValuePhiNode) || ((ValuePhiNode) inductionVariable.valueNode()).merge() != loopBegin) {
+                return "its exit condition does not test the induction variable";
+            }
+            phi = (ValuePhiNode) inductionVariable.valueNode();
+            if (phi.getStackKind() != JavaKind.Int) {
+                return "its induction variable is not an int";
+            } else if (counted.getDirection() != InductionVariable.Direction.Up || counted.isLimitIncluded()) {
+                return "its induction variable does not count up to an exclusive limit";
+            } else if (!inductionVariable.isConstantInit() || !inductionVariable.isConstantStride()) {
+                return "its induction variable does not have a constant start and stride";
+            }
 
-            final ParallelRangeNode range = graph.addWithoutUnique(new ParallelRangeNode(parallelDepth, maxIterations, offset, stride));
+            final LogicNode condition = counted.getLimitTest().condition();
+            if (!(condition instanceof IntegerLessThanNode) || ((IntegerLessThanNode) condition).getX() != phi) {
+                return "its exit condition is not of the form i < n";
+            }
+            limitTest = (IntegerLessThanNode) condition;
+            if (!outermostParallelLoop.isOutsideLoop(limitTest.getY())) {
+                return "its trip count depends on an enclosing loop";
+            }
+            return null;
+        }
 
-            final ValuePhiNode phi = (ValuePhiNode) iv.valueNode();
+        private String analyseScalars() {
+            final LoopBeginNode loopBegin = loop.loopBegin();
+            final EconomicMap<Node, InductionVariable> inductionVariables = loop.getInductionVariables();
+            for (PhiNode header : loopBegin.phis()) {
+                if (header == phi) {
+                    continue;
+                }
+                final String name = nameOf(header, loopBegin);
+                if (!(header instanceof ValuePhiNode)) {
+                    return String.format("it carries %s between iterations", name);
+                } else if (inductionVariables.containsKey(header)) {
+                    return String.format("it has a second induction variable '%s'", name);
+                }
 
-            final ValueNode oldStride = phi.singleBackValueOrThis(); // was singleBackValue()
+                final List<Node> usages = getUsagesInLoop(header);
+                final ValueNode backValue = header.singleBackValueOrThis();
+                if (usages.isEmpty() && !hasUsagesAfterLoop(header)) {
+                    // the scalar is written before it is read in every iteration
+                    privateScalars.add(name);
+                } else if (usages.size() == 1 && usages.get(0) == backValue && isReduction(backValue, header)) {
+                    return String.format("it performs a reduction of '%s' (%s), which is kept sequential inside each thread", name, backValue.toString(Verbosity.Name));
+                } else if (usages.isEmpty()) {
+                    return String.format("the last value of '%s' is used after the loop", name);
+                } else {
+                    return String.format("'%s' carries a value between iterations", name);
+                }
+            }
+            return null;
+        }
 
-            if (oldStride.usages().count() > 1) {
-                final ValueNode duplicateStride = (ValueNode) oldStride.copyWithInputs(true);
-                oldStride.replaceAtMatchingUsages(duplicateStride, usage -> !usage.equals(phi));
+        private boolean isReduction(ValueNode backValue, PhiNode header) {
+            if (!(backValue instanceof AddNode || backValue instanceof MulNode || backValue instanceof AndNode || backValue instanceof OrNode || backValue instanceof XorNode
+                    || backValue instanceof MinMaxNode)) {
+                return false;
             }
+            final BinaryNode operation = (BinaryNode) backValue;
+            final List<Node> usages = getUsagesInLoop(operation);
+            return (operation.getX() == header || operation.getY() == header) && usages.size() == 1 && usages.get(0) == header;
+        }
 
-            iv.initNode().replaceAtMatchingUsages(offset, node -> node.equals(phi));
-            iv.strideNode().replaceAtMatchingUsages(stride, node -> node.equals(oldStride));
+        private List<Node> getUsagesInLoop(ValueNode value) {
+            final List<Node> usages = new ArrayList<>();
+            for (Node usage : value.usages()) {
+                if (!(usage instanceof VirtualState) && !(usage instanceof ProxyNode) && !loop.isOutsideLoop(usage)) {
+                    usages.add(usage);
+                }
+            }
+            return usages;
+        }
 
-            // only replace this node in the loop condition
-            maxIterations.replaceAtMatchingUsages(range, node -> node.equals(conditions.get(0)));
+        private boolean hasUsagesAfterLoop(ValueNode value) {
+            for (Node usage : value.usages()) {
+                if (usage instanceof ProxyNode ? hasUsages((ProxyNode) usage) : !(usage instanceof VirtualState) && loop.isOutsideLoop(usage)) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
-        } else {
-            throw new TornadoBailoutRuntimeException("Failed to parallelize because of non-constant loop strides. \nSequential code will run on the device.");
+        private String analyseMemory() {
+            final Map<List<Object>, List<ArrayAccess>> accesses = new LinkedHashMap<>();
+            boolean unresolvedReads = false;
+            for (Node node : loop.whole().nodes()) {
+                final String sideEffect = describeSideEffect(node);
+                if (sideEffect != null && !(node instanceof StoreIndexedNode)) {
+                    return "it " + sideEffect;
+                } else if (node instanceof AccessIndexedNode) {
+                    final ArrayAccess access = new ArrayAccess((AccessIndexedNode) node);
+                    if (access.root == null) {
+                        if (access.write) {
+                            return String.format("it writes '%s', which cannot be resolved to a parameter or a field", nameOf(access.array, loop.loopBegin()));
+                        }
+                        unresolvedReads = true;
+                    } else if (!(access.root instanceof NewArrayNode && !loop.isOutsideLoop((NewArrayNode) access.root))) {
+                        // arrays allocated inside the loop are private to each iteration
+                        accesses.computeIfAbsent(access.key(), key -> new ArrayList<>()).add(access);
+                    }
+                }
+            }
+
+            boolean writes = false;
+            for (List<ArrayAccess> group : accesses.values()) {
+                final ArrayAccess write = group.stream().filter(access -> access.write).findFirst().orElse(null);
+                if (write == null) {
+                    continue;
+                }
+                writes = true;
+                final String name = nameOf(write.array, loop.loopBegin());
+                for (ArrayAccess access : group) {
+                    if (!access.hasSameIndices(write)) {
+                        return String.format("'%s' is written and accessed at different indices, which may carry a dependence between iterations", name);
+                    }
+                }
+                if (write.indices.stream().noneMatch(index -> isInjective(index, write))) {
+                    return String.format("the index written in '%s' is not an injective function of '%s', so iterations may write the same element", name, nameOf(phi, loop.loopBegin()));
+                }
+                for (List<ArrayAccess> other : accesses.values()) {
+                    final ArrayAccess conflict = other == group ? null : other.stream().filter(access -> access.mayAlias(write) && !access.hasSameIndices(write)).findFirst().orElse(null);
+                    if (conflict == null) {
+                        continue;
+                    } else if (!(write.root instanceof ParameterNode && conflict.root instanceof ParameterNode) || write.root == conflict.root) {
+                        return String.format("'%s' may alias '%s', which is accessed at different indices", name, nameOf(conflict.array, loop.loopBegin()));
+                    }
+                    addDistinctParameters((ParameterNode) write.root, (ParameterNode) conflict.root);
+                }
+            }
+            if (writes && unresolvedReads) {
+                return "it reads an array that cannot be resolved and may alias a written array";
+            }
+            return null;
+        }
+
+        private void addDistinctParameters(ParameterNode first, ParameterNode second) {
+            for (ParameterNode[] pair : distinctParameters) {
+                if ((pair[0] == first && pair[1] == second) || (pair[0] == second && pair[1] == first)) {
+                    return;
+                }
+            }
+            distinctParameters.add(first.index() < second.index() ? new ParameterNode[] { first, second } : new ParameterNode[] { second, first });
+        }
+
+        /**
+         * Checks that an index written in the loop never takes the same value in two
+         * of its iterations, whatever the iterations of the other loops of the
+         * loop-nest. The index must be the induction variable times a constant, plus
+         * values invariant over the loop-nest, or the linearisation
+         * {@code i * n + j} of two induction variables, where {@code j} counts from
+         * a non-negative start up to {@code n}. A coefficient that is not a constant
+         * is only accepted in a linearisation, because it may be zero.
+         */
+        private boolean isInjective(ValueNode index, ArrayAccess write) {
+            final List<IndexTerm> terms = new ArrayList<>();
+            if (!decompose(index, 1, null, terms)) {
+                return false;
+            }
+            terms.removeIf(term -> term.scale == 0);
+            final IndexTerm own = terms.stream().filter(term -> term.inductionVariable == phi).findFirst().orElse(null);
+            if (own == null) {
+                return false;
+            } else if (terms.size() == 1) {
+                return own.factor == null;
+            }
+            for (int i = 0; i < terms.size(); i++) {
+                for (int j = i + 1; j < terms.size(); j++) {
+                    if (!fitsUnder(terms.get(i), terms.get(j), write) && !fitsUnder(terms.get(j), terms.get(i), write)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Splits an index into terms of the induction variables of the loop-nest.
+         * The part of the index that is invariant over the loop-nest is dropped.
+         *
+         * @return false if the index is not such a sum, e.g. {@code a[i * j]} or
+         *         {@code a[b[i]]}.
+         */
+        private boolean decompose(ValueNode node, long scale, ValueNode factor, List<IndexTerm> terms) {
+            final ValueNode value = GraphUtil.unproxify(node);
+            if (isInvariant(value)) {
+                return true;
+            } else if (loopOf(value) != null) {
+                return addTerm(terms, (ValuePhiNode) value, scale, factor);
+            } else if (value instanceof AddNode) {
+                final BinaryNode add = (BinaryNode) value;
+                return decompose(add.getX(), scale, factor, terms) && decompose(add.getY(), scale, factor, terms);
+            } else if (value instanceof SubNode) {
+                final BinaryNode sub = (BinaryNode) value;
+                return decompose(sub.getX(), scale, factor, terms) && decompose(sub.getY(), -scale, factor, terms);
+            } else if (value instanceof NegateNode) {
+                return decompose(((NegateNode) value).getValue(), -scale, factor, terms);
+            } else if (value instanceof MulNode) {
+                final BinaryNode mul = (BinaryNode) value;
+                final ValueNode multiplier = isInvariant(mul.getX()) ? mul.getX() : mul.getY();
+                final ValueNode multiplicand = multiplier == mul.getX() ? mul.getY() : mul.getX();
+                if (!isInvariant(multiplier)) {
+                    // a product of induction variables, e.g. a[i * j]
+                    return false;
+                } else if (multiplier.isConstant()) {
+                    return decompose(multiplicand, scale * multiplier.asJavaConstant().asLong(), factor, terms);
+                }
+                return factor == null && decompose(multiplicand, scale, multiplier, terms);
+            } else if (value instanceof LeftShiftNode) {
+                final LeftShiftNode shift = (LeftShiftNode) value;
+                return shift.getY().isConstant() && decompose(shift.getX(), scale << shift.getY().asJavaConstant().asInt(), factor, terms);
+            }
+            return false;
+        }
+
+        private boolean isInvariant(ValueNode value) {
+            return outermostParallelLoop.isOutsideLoop(GraphUtil.unproxify(value));
+        }
+
+        private static boolean addTerm(List<IndexTerm> terms, ValuePhiNode inductionVariable, long scale, ValueNode factor) {
+            for (IndexTerm term : terms) {
+                if (term.inductionVariable == inductionVariable) {
+                    if (term.factor == null ? factor != null : factor == null || !isEquivalent(term.factor, factor, 8)) {
+                        return false;
+                    }
+                    term.scale += scale;
+                    return true;
+                }
+            }
+            terms.add(new IndexTerm(inductionVariable, scale, factor));
+            return true;
+        }
+
+        /**
+         * @return the counted loop of the loop-nest whose induction variable is the
+         *         given value, or null.
+         */
+        private LoopEx loopOf(ValueNode value) {
+            if (value instanceof ValuePhiNode) {
+                for (LoopEx candidate : loops) {
+                    if (candidate.loopBegin() == ((ValuePhiNode) value).merge()) {
+                        return candidate.isCounted() && candidate.counted().getLimitCheckedIV().valueNode() == value ? candidate : null;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Checks that the term {@code small} takes values in {@code [0, c)}, where
+         * {@code c} is the coefficient of the term {@code big}, so that their sum
+         * never takes the same value for two pairs of induction variables.
+         */
+        private boolean fitsUnder(IndexTerm small, IndexTerm big, ArrayAccess write) {
+            final LoopEx smallLoop = loopOf(small.inductionVariable);
+            if (small.scale != 1 || small.factor != null || smallLoop.isOutsideLoop(write.node)) {
+                return false;
+            }
+            final CountedLoopInfo counted = smallLoop.counted();
+            final InductionVariable iv = counted.getLimitCheckedIV();
+            if (counted.getDirection() != InductionVariable.Direction.Up || counted.isLimitIncluded() || !iv.isConstantInit() || iv.constantInit() < 0 || !iv.isConstantStride()
+                    || iv.constantStride() <= 0) {
+                return false;
+            }
+            final LogicNode condition = counted.getLimitTest().condition();
+            if (!(condition instanceof IntegerLessThanNode) || ((IntegerLessThanNode) condition).getX() != small.inductionVariable) {
+                return false;
+            }
+            final ValueNode limit = ((IntegerLessThanNode) condition).getY();
+            if (big.factor != null) {
+                return big.scale == 1 && isEquivalent(limit, big.factor, 8);
+            }
+            return limit.isConstant() && limit.asJavaConstant().asLong() <= big.scale;
         }
     }
 }
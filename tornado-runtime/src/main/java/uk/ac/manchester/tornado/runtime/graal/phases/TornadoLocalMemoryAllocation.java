@@ -29,6 +29,8 @@ import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.phases.BasePhase;
 
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
 /**
  * 
  * It filters the nodes for the length of the FixedArray node for the local
@@ -41,7 +43,8 @@ public class TornadoLocalMemoryAllocation extends BasePhase<TornadoHighTierConte
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
 
-        if (!context.hasMeta()) {
+        // The tiles of the local-memory tiling are sized for its own work-groups
+        if (!context.hasMeta() || context.getMeta().getTileSize() > 0) {
             return;
         }
 
@@ -61,6 +64,11 @@ public class TornadoLocalMemoryAllocation extends BasePhase<TornadoHighTierConte
         }
     }
 
+    /**
+     * Kernels with reductions are not bounds-guarded, so their global work is
+     * never padded (see {@link TaskMetaData#isBoundsGuarded()}). The local size of
+     * the schedulers divides the iteration space, as the size computed here.
+     */
     private int calculateLocalMemAllocSize(TornadoHighTierContext context) {
         int maxBlockSize = (int) context.getDeviceMapping().getPhysicalDevice().getDeviceMaxWorkItemSizes()[0];
 
@@ -35,6 +35,8 @@ import org.graalvm.compiler.phases.common.inlining.InliningUtil;
 import org.graalvm.compiler.phases.common.inlining.info.InlineInfo;
 import org.graalvm.compiler.phases.common.inlining.walker.MethodInvocation;
 
+import uk.ac.manchester.tornado.runtime.graph.TornadoTaskFusion;
+
 public class TornadoPartialInliningPolicy implements TornadoInliningPolicy {
 
     public TornadoPartialInliningPolicy() {
@@ -52,6 +54,10 @@ public class TornadoPartialInliningPolicy implements TornadoInliningPolicy {
     @Override
     public Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, InlineInfo calleeInfo, int inliningDepth, boolean fullyProcessed) {
         final InlineInfo info = invocation.callee();
+        // The tasks called by a fused kernel are always inlined
+        if (TornadoTaskFusion.isFusedKernel(info.invoke().getContextMethod())) {
+            return Decision.YES;
+        }
         int nodes = info.determineNodeCount();
         if (nodes > MaximumInliningSize.getValue(info.graph().getOptions()) && !invocation.isRoot()) {
             return Decision.NO;
@@ -23,6 +23,7 @@
  */
 package uk.ac.manchester.tornado.runtime.graal.phases;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -129,11 +130,20 @@ public class TornadoShapeAnalysis extends BasePhase<TornadoHighTierContext> {
 
         int dimensions = getMaxLevelNestedLoops(graph);
 
-        final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        final List<ParallelRangeNode> parallelRanges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        Collections.sort(parallelRanges);
+
+        // The loop-nests of a fused kernel share the same parallel domain, so
+        // only the first range of each index is kept
+        final List<ParallelRangeNode> ranges = new ArrayList<>();
+        for (ParallelRangeNode range : parallelRanges) {
+            if (ranges.isEmpty() || ranges.get(ranges.size() - 1).index() != range.index()) {
+                ranges.add(range);
+            }
+        }
         if (ranges.size() < dimensions) {
             dimensions = ranges.size();
         }
-        Collections.sort(ranges);
 
         setDomainTree(dimensions, ranges, context);
 
@@ -23,6 +23,9 @@
  */
 package uk.ac.manchester.tornado.runtime.graal.phases;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.graalvm.compiler.phases.OptimisticOptimizations;
 import org.graalvm.compiler.phases.PhaseSuite;
 import org.graalvm.compiler.phases.tiers.HighTierContext;
@@ -40,11 +43,19 @@ public class TornadoSketchTierContext extends HighTierContext {
      */
     private final Access[] argumentAccess;
 
+    /**
+     * Pairs of parameters that the {@link TornadoAutoParalleliser} assumed not to
+     * share an array. They are checked against the arguments of the task when it
+     * is compiled.
+     */
+    private final List<int[]> distinctParameters;
+
     public TornadoSketchTierContext(Providers providers, PhaseSuite<HighTierContext> graphBuilderSuite, OptimisticOptimizations optimisticOpts, ResolvedJavaMethod method) {
         super(providers, graphBuilderSuite, optimisticOpts);
         this.method = method;
         int parameterCount = method.getParameters().length;
         this.argumentAccess = new Access[method.isStatic() ? parameterCount : parameterCount + 1];
+        this.distinctParameters = new ArrayList<>();
     }
 
     public ResolvedJavaMethod getMethod() {
@@ -54,4 +65,12 @@ public class TornadoSketchTierContext extends HighTierContext {
     public Access[] getAccesses() {
         return argumentAccess;
     }
+
+    public void addDistinctParameters(int first, int second) {
+        distinctParameters.add(new int[] { first, second });
+    }
+
+    public List<int[]> getDistinctParameters() {
+        return distinctParameters;
+    }
 }
@@ -0,0 +1,317 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+import uk.ac.manchester.tornado.runtime.tasks.LocalObjectState;
+
+/**
+ * Chunk geometry of a task-graph that runs in batches.
+ *
+ * <p>
+ * The batches split the iteration space of the parallel loop, which is taken
+ * from the length of the output arrays (the smallest one, if there are several
+ * outputs). Each array whose length is a multiple of the number of iterations
+ * is split with its own element size and number of elements per iteration.
+ * For example, a {@code float[]} with 4 features per iteration and an
+ * {@code int[]} with one label per iteration are split at the same iteration
+ * boundaries. The rows of multi-dimensional arrays are split in the same way
+ * when all of them have the same shape. Read-only arrays that cannot be split in
+ * this way and fit in a batch are broadcast: they are copied entirely once, and
+ * kept on the device while the batches are processed.
+ * </p>
+ *
+ * <p>
+ * The number of iterations per batch is chosen so that the largest chunk of
+ * any array does not exceed the batch size.
+ * </p>
+ */
+public class BatchConfiguration {
+
+    private static final HashMap<Class<?>, Byte> dataTypesSize = new HashMap<>();
+
+    static {
+        dataTypesSize.put(byte.class, (byte) 1);
+        dataTypesSize.put(char.class, (byte) 2);
+        dataTypesSize.put(short.class, (byte) 2);
+        dataTypesSize.put(int.class, (byte) 4);
+        dataTypesSize.put(float.class, (byte) 4);
+        dataTypesSize.put(long.class, (byte) 8);
+        dataTypesSize.put(double.class, (byte) 8);
+    }
+
+    private final long totalIterations;
+    private final long iterationsPerChunk;
+    private final int totalChunks;
+    private final long remainingIterations;
+
+    /**
+     * Number of bytes transferred per iteration for each object. A value of 0
+     * means that the object is not split.
+     */
+    private final long[] bytesPerIteration;
+
+    private BatchConfiguration(long totalIterations, long iterationsPerChunk, long[] bytesPerIteration) {
+        this.totalIterations = totalIterations;
+        this.iterationsPerChunk = iterationsPerChunk;
+        this.bytesPerIteration = bytesPerIteration;
+        this.totalChunks = (int) (totalIterations / iterationsPerChunk);
+        this.remainingIterations = totalIterations % iterationsPerChunk;
+    }
+
+    /**
+     * Computes the chunk geometry for all the objects of an execution context.
+     *
+     * @param context
+     *            TornadoVM execution context.
+     * @param batchSize
+     *            Maximum number of bytes of each chunk.
+     * @return {@link BatchConfiguration}
+     */
+    public static BatchConfiguration computeChunkSizes(TornadoExecutionContext context, long batchSize) {
+        final List<Object> objects = context.getObjects();
+        final List<LocalObjectState> states = context.getObjectStates();
+
+        long minOutputLength = Long.MAX_VALUE;
+        long maxLength = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            final Object object = objects.get(i);
+            if (object.getClass().isArray()) {
+                final long length = Array.getLength(object);
+                maxLength = Math.max(maxLength, length);
+                if (states.get(i).isStreamOut()) {
+                    minOutputLength = Math.min(minOutputLength, length);
+                }
+            }
+        }
+        final long totalIterations = (minOutputLength != Long.MAX_VALUE) ? minOutputLength : maxLength;
+
+        final long[] bytesPerIteration = new long[objects.size()];
+        long maxBytesPerIteration = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            final Object object = objects.get(i);
+            if (!object.getClass().isArray() || totalIterations == 0) {
+                continue;
+            }
+            final long length = Array.getLength(object);
+            final long elementSize = getElementSize(object);
+            if (elementSize != -1 && length >= totalIterations && length % totalIterations == 0) {
+                bytesPerIteration[i] = (length / totalIterations) * elementSize;
+                maxBytesPerIteration = Math.max(maxBytesPerIteration, bytesPerIteration[i]);
+            } else if (states.get(i).isStreamOut()) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Output array of length " + length + " cannot be split in batches of " + totalIterations + " iterations");
+            } else if (getDataSize(object) > batchSize) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Input array of length " + length + " cannot be split in batches of " + totalIterations
+                        + " iterations, and it is too large to be copied entirely in every batch");
+            }
+        }
+
+        final long iterationsPerChunk = (maxBytesPerIteration == 0) ? Math.max(totalIterations, 1) : batchSize / maxBytesPerIteration;
+        if (iterationsPerChunk == 0) {
+            throw new TornadoRuntimeException("[ERROR] Batch size of " + batchSize + " bytes is smaller than the data required by a single iteration (" + maxBytesPerIteration + " bytes)");
+        }
+
+        BatchConfiguration batchConfiguration = new BatchConfiguration(totalIterations, iterationsPerChunk, bytesPerIteration);
+        if (Tornado.DEBUG) {
+            System.out.println("Batch Size: " + batchSize);
+            System.out.println("Total iterations: " + totalIterations);
+            System.out.println("Iterations per chunk: " + iterationsPerChunk);
+            System.out.println("Total chunks: " + batchConfiguration.getTotalChunks());
+            System.out.println("Remaining iterations: " + batchConfiguration.getRemainingIterations());
+        }
+        return batchConfiguration;
+    }
+
+    private static long getPrimitiveSize(Class<?> type) {
+        final Byte size = dataTypesSize.get(type);
+        if (size == null) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
+        }
+        return size;
+    }
+
+    /**
+     * @return number of bytes of primitive data held by the array and, for
+     *         multi-dimensional arrays, all its rows.
+     */
+    private static long getDataSize(Object array) {
+        if (array == null) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Arrays with null rows cannot be processed in batches");
+        }
+        final Class<?> componentType = array.getClass().getComponentType();
+        final int length = Array.getLength(array);
+        if (!componentType.isArray()) {
+            return length * getPrimitiveSize(componentType);
+        }
+        long size = 0;
+        for (int i = 0; i < length; i++) {
+            size += getDataSize(Array.get(array, i));
+        }
+        return size;
+    }
+
+    /**
+     * Size of the elements of an array. The elements of a multi-dimensional array
+     * are its rows (see {@link #getRowSize(Object)}).
+     *
+     * @return size in bytes of each element, or -1 if the rows of a
+     *         multi-dimensional array do not have the same shape.
+     */
+    private static long getElementSize(Object array) {
+        final Class<?> componentType = array.getClass().getComponentType();
+        if (!componentType.isArray()) {
+            return getPrimitiveSize(componentType);
+        }
+        return getRowSize(array);
+    }
+
+    /**
+     * Number of bytes of primitive data in each row of a multi-dimensional array.
+     * The rows can only be split in batches if all of them have the same shape,
+     * so every chunk has the same layout on the device. Rows with the same size
+     * but different shapes (e.g., {@code [2][4]} and {@code [4][2]}) are not
+     * split.
+     *
+     * @return bytes per row, or -1 if the rows do not have the same shape.
+     */
+    public static long getRowSize(Object array) {
+        final int length = Array.getLength(array);
+        if (length == 0) {
+            return 0;
+        }
+        final Object firstRow = Array.get(array, 0);
+        for (int i = 1; i < length; i++) {
+            if (!hasSameShape(firstRow, Array.get(array, i))) {
+                return -1;
+            }
+        }
+        return getDataSize(firstRow);
+    }
+
+    private static boolean hasSameShape(Object a, Object b) {
+        if (a == null || b == null) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Arrays with null rows cannot be processed in batches");
+        }
+        final int length = Array.getLength(a);
+        if (length != Array.getLength(b)) {
+            return false;
+        }
+        if (!a.getClass().getComponentType().isPrimitive()) {
+            for (int i = 0; i < length; i++) {
+                if (!hasSameShape(Array.get(a, i), Array.get(b, i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the length that an array parameter has within a batch.
+     *
+     * @param arrayLength
+     *            Length of the whole array.
+     * @param totalIterations
+     *            Number of iterations split in batches. If this value is <= 0, all
+     *            arrays take the length of the batch.
+     * @param batchThreads
+     *            Number of iterations of the batch.
+     * @return length of the array in the batch.
+     */
+    public static long getBatchedArrayLength(long arrayLength, long totalIterations, long batchThreads) {
+        if (totalIterations <= 0) {
+            return batchThreads;
+        } else if (arrayLength >= totalIterations && arrayLength % totalIterations == 0) {
+            return (arrayLength / totalIterations) * batchThreads;
+        }
+        return arrayLength;
+    }
+
+    public long getTotalIterations() {
+        return totalIterations;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public long getRemainingIterations() {
+        return remainingIterations;
+    }
+
+    /**
+     * @return number of chunks, including the last one with the remaining
+     *         iterations.
+     */
+    public int getNumChunks() {
+        return totalChunks + (remainingIterations != 0 ? 1 : 0);
+    }
+
+    /**
+     * @return true if the whole iteration space fits in a single chunk, so the
+     *         objects are transferred entirely.
+     */
+    private boolean isSingleChunk() {
+        return totalChunks == 0;
+    }
+
+    public boolean isBroadcast(int objectIndex) {
+        return bytesPerIteration[objectIndex] == 0;
+    }
+
+    public long getIterations(int chunk) {
+        return (chunk < totalChunks) ? iterationsPerChunk : remainingIterations;
+    }
+
+    /**
+     * @return index of the first iteration of the chunk.
+     */
+    public long getIterationOffset(int chunk) {
+        return chunk * iterationsPerChunk;
+    }
+
+    /**
+     * @return offset in bytes of the chunk within the host object.
+     */
+    public long getOffset(int objectIndex, int chunk) {
+        if (isSingleChunk() || isBroadcast(objectIndex)) {
+            return 0;
+        }
+        return chunk * iterationsPerChunk * bytesPerIteration[objectIndex];
+    }
+
+    /**
+     * @return size in bytes of the chunk, or 0 if the whole object is used.
+     */
+    public long getSize(int objectIndex, int chunk) {
+        if (isSingleChunk() || isBroadcast(objectIndex)) {
+            return 0;
+        }
+        return getIterations(chunk) * bytesPerIteration[objectIndex];
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Generates the entry point of a fused kernel: a public static method that
+ * calls the methods of the fused tasks one after the other. The sketcher
+ * inlines the calls, so the compiled kernel contains the parallel loops of all
+ * the tasks.
+ *
+ * The class file is written by hand, since the method body is a straight
+ * sequence of loads and static calls. It carries a LocalVariableTable because
+ * the backends name the kernel parameters after it.
+ */
+final class FusedKernelGenerator {
+
+    static final String PACKAGE = "uk/ac/manchester/tornado/fused/";
+
+    private static final int CLASS_FILE_VERSION = 52;
+    private static final int ACC_PUBLIC_FINAL_SUPER = 0x0031;
+    private static final int ACC_PUBLIC_STATIC = 0x0009;
+
+    private static final int WIDE = 0xc4;
+    private static final int POP = 0x57;
+    private static final int POP2 = 0x58;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int RETURN = 0xb1;
+
+    private static final AtomicInteger classCounter = new AtomicInteger();
+    private static final Map<String, Method> cache = new ConcurrentHashMap<>();
+
+    private FusedKernelGenerator() {
+    }
+
+    /**
+     * Returns the entry point of a fused kernel.
+     *
+     * @param name
+     *            Name of the generated method.
+     * @param parameterTypes
+     *            Types of the parameters of the fused kernel.
+     * @param parameterNames
+     *            Names of the parameters of the fused kernel.
+     * @param methods
+     *            Methods of the fused tasks, in execution order.
+     * @param mapping
+     *            For each method, the parameter of the fused kernel passed as
+     *            each of its arguments.
+     * @return {@link Method}
+     */
+    static Method generate(String name, Class<?>[] parameterTypes, String[] parameterNames, Method[] methods, int[][] mapping) {
+        final StringBuilder key = new StringBuilder(name);
+        for (int i = 0; i < methods.length; i++) {
+            key.append(';').append(methods[i].toGenericString()).append('@').append(System.identityHashCode(methods[i].getDeclaringClass().getClassLoader()));
+            for (int parameter : mapping[i]) {
+                key.append(',').append(parameter);
+            }
+        }
+        return cache.computeIfAbsent(key.toString(), k -> define(name, parameterTypes, parameterNames, methods, mapping));
+    }
+
+    private static Method define(String name, Class<?>[] parameterTypes, String[] parameterNames, Method[] methods, int[][] mapping) {
+        final String className = PACKAGE + "FusedKernel" + classCounter.getAndIncrement();
+        final byte[] classFile = writeClass(className, name, parameterTypes, parameterNames, methods, mapping);
+        final FusedKernelClassLoader loader = new FusedKernelClassLoader(methods[0].getDeclaringClass().getClassLoader());
+        try {
+            return loader.define(className.replace('/', '.'), classFile).getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new TornadoRuntimeException("[ERROR] Fused kernel " + name + " could not be generated");
+        }
+    }
+
+    private static byte[] writeClass(String className, String name, Class<?>[] parameterTypes, String[] parameterNames, Method[] methods, int[][] mapping) {
+        final ConstantPool pool = new ConstantPool();
+        final int thisClass = pool.classInfo(className);
+        final int superClass = pool.classInfo("java/lang/Object");
+        final int nameIndex = pool.utf8(name);
+        final int descriptorIndex = pool.utf8(methodDescriptor(parameterTypes, void.class));
+        final int codeIndex = pool.utf8("Code");
+        final int localVariableTableIndex = pool.utf8("LocalVariableTable");
+
+        // Slot of each parameter of the fused kernel
+        final int[] slots = new int[parameterTypes.length];
+        int maxLocals = 0;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            slots[i] = maxLocals;
+            maxLocals += slotSize(parameterTypes[i]);
+        }
+
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        int maxStack = 0;
+        for (int i = 0; i < methods.length; i++) {
+            final Method method = methods[i];
+            int stack = 0;
+            for (int parameter : mapping[i]) {
+                emitLoad(code, parameterTypes[parameter], slots[parameter]);
+                stack += slotSize(parameterTypes[parameter]);
+            }
+            final int methodRef = pool.methodRef(internalName(method.getDeclaringClass()), method.getName(), methodDescriptor(method.getParameterTypes(), method.getReturnType()));
+            code.write(INVOKESTATIC);
+            code.write(methodRef >> 8);
+            code.write(methodRef);
+            final int returnSize = slotSize(method.getReturnType());
+            if (returnSize > 0) {
+                code.write(returnSize == 2 ? POP2 : POP);
+            }
+            maxStack = Math.max(maxStack, Math.max(stack, returnSize));
+        }
+        code.write(RETURN);
+
+        final int[] localNames = new int[parameterTypes.length];
+        final int[] localDescriptors = new int[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            localNames[i] = pool.utf8(parameterNames[i]);
+            localDescriptors[i] = pool.utf8(descriptor(parameterTypes[i]));
+        }
+
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            pool.write(out);
+            out.writeShort(ACC_PUBLIC_FINAL_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            // interfaces and fields
+            out.writeShort(0);
+            out.writeShort(0);
+
+            out.writeShort(1);
+            out.writeShort(ACC_PUBLIC_STATIC);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+
+            final int localVariableTableLength = 2 + 10 * parameterTypes.length;
+            out.writeShort(codeIndex);
+            out.writeInt(12 + code.size() + 6 + localVariableTableLength);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.size());
+            code.writeTo(out);
+            // exception table
+            out.writeShort(0);
+            out.writeShort(1);
+            out.writeShort(localVariableTableIndex);
+            out.writeInt(localVariableTableLength);
+            out.writeShort(parameterTypes.length);
+            for (int i = 0; i < parameterTypes.length; i++) {
+                out.writeShort(0);
+                out.writeShort(code.size());
+                out.writeShort(localNames[i]);
+                out.writeShort(localDescriptors[i]);
+                out.writeShort(slots[i]);
+            }
+
+            // class attributes
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new TornadoRuntimeException(e);
+        }
+    }
+
+    private static void emitLoad(ByteArrayOutputStream code, Class<?> type, int slot) {
+        final int opcode;
+        if (!type.isPrimitive()) {
+            opcode = 0x19; // aload
+        } else if (type == long.class) {
+            opcode = 0x16; // lload
+        } else if (type == float.class) {
+            opcode = 0x17; // fload
+        } else if (type == double.class) {
+            opcode = 0x18; // dload
+        } else {
+            opcode = 0x15; // iload
+        }
+        if (slot > 0xff) {
+            code.write(WIDE);
+            code.write(opcode);
+            code.write(slot >> 8);
+            code.write(slot);
+        } else {
+            code.write(opcode);
+            code.write(slot);
+        }
+    }
+
+    private static int slotSize(Class<?> type) {
+        if (type == void.class) {
+            return 0;
+        }
+        return (type == long.class || type == double.class) ? 2 : 1;
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    static String descriptor(Class<?> type) {
+        if (type.isArray()) {
+            return internalName(type);
+        } else if (!type.isPrimitive()) {
+            return "L" + internalName(type) + ";";
+        } else if (type == void.class) {
+            return "V";
+        } else if (type == boolean.class) {
+            return "Z";
+        } else if (type == byte.class) {
+            return "B";
+        } else if (type == char.class) {
+            return "C";
+        } else if (type == short.class) {
+            return "S";
+        } else if (type == int.class) {
+            return "I";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == float.class) {
+            return "F";
+        } else {
+            return "D";
+        }
+    }
+
+    private static String methodDescriptor(Class<?>[] parameterTypes, Class<?> returnType) {
+        final StringBuilder sb = new StringBuilder("(");
+        for (Class<?> type : parameterTypes) {
+            sb.append(descriptor(type));
+        }
+        return sb.append(')').append(descriptor(returnType)).toString();
+    }
+
+    private static final class ConstantPool {
+
+        private static final int UTF8 = 1;
+        private static final int CLASS = 7;
+        private static final int METHOD_REF = 10;
+        private static final int NAME_AND_TYPE = 12;
+
+        private final List<int[]> entries = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        private int add(String key, String value, int... entry) {
+            return indices.computeIfAbsent(key, k -> {
+                entries.add(entry);
+                strings.add(value);
+                return entries.size();
+            });
+        }
+
+        int utf8(String value) {
+            return add("utf8 " + value, value, UTF8);
+        }
+
+        int classInfo(String internalName) {
+            return add("class " + internalName, null, CLASS, utf8(internalName));
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            final int classIndex = classInfo(owner);
+            final int nameAndType = add("nameAndType " + name + descriptor, null, NAME_AND_TYPE, utf8(name), utf8(descriptor));
+            return add("method " + owner + "." + name + descriptor, null, METHOD_REF, classIndex, nameAndType);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeShort(entries.size() + 1);
+            for (int i = 0; i < entries.size(); i++) {
+                final int[] entry = entries.get(i);
+                out.writeByte(entry[0]);
+                if (entry[0] == UTF8) {
+                    out.writeUTF(strings.get(i));
+                } else {
+                    for (int j = 1; j < entry.length; j++) {
+                        out.writeShort(entry[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class FusedKernelClassLoader extends ClassLoader {
+
+        FusedKernelClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+}
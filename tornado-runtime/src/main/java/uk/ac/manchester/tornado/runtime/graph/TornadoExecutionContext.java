@@ -135,6 +135,7 @@ public class TornadoExecutionContext {
             newLocalObjectState.setStreamIn(oldLocalObjectState.isStreamIn());
             newLocalObjectState.setForceStreamIn(oldLocalObjectState.isForcedStreamIn());
             newLocalObjectState.setStreamOut(oldLocalObjectState.isStreamOut());
+            newLocalObjectState.setStreamOutUnderDemand(oldLocalObjectState.isStreamOutUnderDemand());
 
             index = oldIndex;
             objects.add(index, newObj);
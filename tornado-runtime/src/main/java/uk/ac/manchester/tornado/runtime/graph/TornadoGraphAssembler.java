@@ -203,7 +203,20 @@ public class TornadoGraphAssembler {
          *     DEALLOC(obj,dest)
          * </code>
          */
-        DEALLOC((byte) 24);
+        DEALLOC((byte) 24),
+
+        /**
+         * Select the set of device buffers used by the following ALLOC, DEALLOC,
+         * TRANSFER and LAUNCH bytecodes. Slot 0 corresponds to the buffers owned by
+         * the global object states. Other slots are used to pipeline batches.
+         *
+         * Format:
+         *
+         * <code>
+         *     BUFFER_SLOT(slot)
+         * </code>
+         */
+        BUFFER_SLOT((byte) 25);
 
         private final byte value;
 
@@ -315,6 +328,11 @@ public class TornadoGraphAssembler {
         buffer.putInt(dep);
     }
 
+    void bufferSlot(int slot) {
+        buffer.put(TornadoVMBytecode.BUFFER_SLOT.value);
+        buffer.putInt(slot);
+    }
+
     void constantArg(int index) {
         buffer.put(TornadoVMBytecode.PUSH_CONSTANT_ARGUMENT.value);
         buffer.putInt(index);
@@ -0,0 +1,814 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoRuntime;
+import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.VirtualState;
+import org.graalvm.compiler.nodes.calc.BinaryNode;
+import org.graalvm.compiler.nodes.calc.UnaryNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.NewArrayNode;
+import org.graalvm.compiler.nodes.java.StoreFieldNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.spi.ValueProxy;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Local;
+import jdk.vm.ci.meta.LocalVariableTable;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoLoopsData;
+import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.LocalObjectState;
+import uk.ac.manchester.tornado.runtime.tasks.TornadoGraphBitcodes;
+import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
+
+/**
+ * Producer-consumer fusion of the tasks of a task-graph.
+ *
+ * Consecutive tasks that run on the same device are fused into a single kernel
+ * when they have the same parallel domain and every array written by one of
+ * them is accessed by the others with the same index, built from all the
+ * parallel loop indices. In that case, each thread of the fused kernel runs
+ * the iterations of the consumer that read exactly what the same thread wrote
+ * in the producer, so no global synchronisation is needed between the loops.
+ * Intermediate arrays are not transferred to the host unless the task-graph
+ * or another task reads them, and the launches and the round-trips of the
+ * intermediates through the device queues of the separate kernels disappear.
+ *
+ * The fused kernel is a generated method that calls the task methods in order
+ * (see {@link FusedKernelGenerator}). Its sketch inlines them, and the parallel
+ * loops of each task are numbered from 0 again, so all of them are mapped onto
+ * the same threads.
+ *
+ * The pass runs on the {@link TornadoGraph} of the task-graph. When tasks are
+ * fused, the graph is built again from the rewritten task-graph bitcodes, so
+ * the data-flow of the fused tasks is computed by the
+ * {@link TornadoGraphBuilder}.
+ */
+public final class TornadoTaskFusion {
+
+    private final TornadoExecutionContext executionContext;
+    private final GridScheduler gridScheduler;
+    private final Map<Object, Integer> objectIds = new IdentityHashMap<>();
+    private final List<String> report = new ArrayList<>();
+
+    private TornadoTaskFusion(TornadoExecutionContext executionContext, GridScheduler gridScheduler) {
+        this.executionContext = executionContext;
+        this.gridScheduler = gridScheduler;
+    }
+
+    /**
+     * Fuses the compatible tasks of a task-graph.
+     *
+     * @param executionContext
+     *            Execution context of the task-graph.
+     * @param graph
+     *            {@link TornadoGraph} built from the bitcodes.
+     * @param bitcodes
+     *            Task-graph bitcodes the graph was built from.
+     * @param gridScheduler
+     *            Grid scheduler of the task-graph, or null.
+     * @return the graph of the fused task-graph, or the same graph when no tasks
+     *         are fused.
+     */
+    public static TornadoGraph fuse(TornadoExecutionContext executionContext, TornadoGraph graph, ByteBuffer bitcodes, GridScheduler gridScheduler) {
+        return new TornadoTaskFusion(executionContext, gridScheduler).run(graph, bitcodes);
+    }
+
+    /**
+     * Checks whether a method is the entry point of a fused kernel.
+     */
+    public static boolean isFusedKernel(ResolvedJavaMethod method) {
+        return method.getDeclaringClass().getName().startsWith("L" + FusedKernelGenerator.PACKAGE);
+    }
+
+    private TornadoGraph run(TornadoGraph graph, ByteBuffer bitcodes) {
+        final List<Launch> launches = decode(bitcodes);
+        final List<TaskNode> taskNodes = new ArrayList<>();
+        final BitSet tasks = graph.filter(TaskNode.class);
+        for (int i = tasks.nextSetBit(0); i != -1; i = tasks.nextSetBit(i + 1)) {
+            taskNodes.add((TaskNode) graph.getNode(i));
+        }
+        if (launches.size() < 2 || launches.size() != taskNodes.size()) {
+            return graph;
+        }
+
+        final List<TaskSummary> summaries = new ArrayList<>();
+        for (Launch launch : launches) {
+            summaries.add(summarise(executionContext.getTask(launch.taskIndex)));
+        }
+
+        // Greedy grouping of consecutive compatible tasks
+        final List<List<Integer>> groups = new ArrayList<>();
+        List<Integer> group = new ArrayList<>();
+        for (int i = 0; i < summaries.size(); i++) {
+            final TaskSummary summary = summaries.get(i);
+            if (summary.rejection != null) {
+                report.add(String.format("not fused %s: %s", summary.task.getId(), summary.rejection));
+                groups.add(group);
+                group = new ArrayList<>();
+                continue;
+            }
+            if (!group.isEmpty()) {
+                final int last = group.get(group.size() - 1);
+                String reason = null;
+                if (taskNodes.get(last).getContext() != taskNodes.get(i).getContext()) {
+                    reason = "it runs on a different device";
+                } else {
+                    reason = checkCompatible(summaries, group, summary);
+                }
+                if (reason != null) {
+                    report.add(String.format("not fused %s with %s: %s", summary.task.getId(), summaries.get(last).task.getId(), reason));
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+            }
+            group.add(i);
+        }
+        groups.add(group);
+
+        final int[] fusedTaskIndex = new int[launches.size()];
+        final int[] groupLength = new int[launches.size()];
+        boolean fused = false;
+        for (List<Integer> candidates : groups) {
+            if (candidates.size() > 1) {
+                final int index = createFusedTask(summaries, launches, candidates);
+                if (index != -1) {
+                    fusedTaskIndex[candidates.get(0)] = index;
+                    groupLength[candidates.get(0)] = candidates.size();
+                    fused = true;
+                }
+            }
+        }
+
+        printReport();
+        if (!fused) {
+            return graph;
+        }
+
+        // Rewrite the bitcodes, with a single launch for each group
+        final ByteBuffer buffer = ByteBuffer.allocate(bitcodes.limit()).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < launches.size(); i++) {
+            if (groupLength[i] > 0) {
+                writeFusedLaunch(buffer, launches, i, groupLength[i], fusedTaskIndex[i]);
+                i += groupLength[i] - 1;
+            } else {
+                final Launch launch = launches.get(i);
+                writeLaunch(buffer, launch.globalTaskId, launch.taskIndex, launch.operations, launch.variables);
+            }
+        }
+        buffer.flip();
+        return TornadoGraphBuilder.buildGraph(executionContext, buffer);
+    }
+
+    private static List<Launch> decode(ByteBuffer bitcodes) {
+        final ByteBuffer buffer = bitcodes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.rewind();
+        final List<Launch> launches = new ArrayList<>();
+        int globalTaskId = -1;
+        int taskIndex = -1;
+        byte[] operations = null;
+        int[] variables = null;
+        int argIndex = 0;
+        while (buffer.hasRemaining()) {
+            final byte op = buffer.get();
+            if (op == TornadoGraphBitcodes.CONTEXT.index()) {
+                globalTaskId = buffer.getInt();
+                taskIndex = buffer.getInt();
+            } else if (op == TornadoGraphBitcodes.ARG_LIST.index()) {
+                final int size = buffer.getInt();
+                operations = new byte[size];
+                variables = new int[size];
+                argIndex = 0;
+            } else if (op == TornadoGraphBitcodes.LOAD_REF.index() || op == TornadoGraphBitcodes.LOAD_PRIM.index()) {
+                operations[argIndex] = op;
+                variables[argIndex] = buffer.getInt();
+                argIndex++;
+            } else if (op == TornadoGraphBitcodes.LAUNCH.index()) {
+                launches.add(new Launch(globalTaskId, taskIndex, operations, variables));
+            } else {
+                break;
+            }
+        }
+        return launches;
+    }
+
+    private static void writeLaunch(ByteBuffer buffer, int globalTaskId, int taskIndex, byte[] operations, int[] variables) {
+        buffer.put(TornadoGraphBitcodes.CONTEXT.index());
+        buffer.putInt(globalTaskId);
+        buffer.putInt(taskIndex);
+        buffer.put(TornadoGraphBitcodes.ARG_LIST.index());
+        buffer.putInt(operations.length);
+        for (int i = 0; i < operations.length; i++) {
+            buffer.put(operations[i]);
+            buffer.putInt(variables[i]);
+        }
+        buffer.put(TornadoGraphBitcodes.LAUNCH.index());
+    }
+
+    private void writeFusedLaunch(ByteBuffer buffer, List<Launch> launches, int first, int length, int taskIndex) {
+        final FusedTask task = (FusedTask) executionContext.getTask(taskIndex);
+        final byte[] operations = new byte[task.getArguments().length];
+        final int[] variables = new int[operations.length];
+        for (int k = 0; k < length; k++) {
+            final Launch launch = launches.get(first + k);
+            for (int j = 0; j < launch.operations.length; j++) {
+                operations[task.mapping[k][j]] = launch.operations[j];
+                variables[task.mapping[k][j]] = launch.variables[j];
+            }
+        }
+        writeLaunch(buffer, launches.get(first).globalTaskId, taskIndex, operations, variables);
+    }
+
+    private TaskSummary summarise(SchedulableTask task) {
+        final TaskSummary summary = new TaskSummary(task);
+        if (!(task instanceof CompilableTask)) {
+            return summary.reject("it is a prebuilt task");
+        }
+        final CompilableTask compilableTask = (CompilableTask) task;
+        final Method method = compilableTask.getMethod();
+        if (!Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return summary.reject("its method is not a public static method of a public class");
+        }
+        if (gridScheduler != null && gridScheduler.get(task.getId()) != null) {
+            return summary.reject("it has a worker grid");
+        }
+        if (compilableTask.meta().enableThreadCoarsener()) {
+            return summary.reject("thread coarsening is enabled");
+        }
+        if (compilableTask.getDevice().getDeviceContext().isPlatformFPGA()) {
+            return summary.reject("it runs on an FPGA");
+        }
+        for (Object argument : summary.arguments) {
+            if (argument instanceof KernelContext) {
+                return summary.reject("it uses the KernelContext API");
+            }
+        }
+
+        try {
+            final ResolvedJavaMethod resolvedMethod = getTornadoRuntime().resolveMethod(method);
+            final Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getDriverIndex(), task.meta().getDeviceIndex());
+            analyse(summary, (StructuredGraph) sketch.getGraph().getMutableCopy(null));
+        } catch (RuntimeException e) {
+            summary.reject("its sketch is not available (" + e.getMessage() + ")");
+        }
+        return summary;
+    }
+
+    private void analyse(TaskSummary summary, StructuredGraph graph) {
+        for (Node node : graph.getNodes()) {
+            if (node instanceof Invoke) {
+                summary.reject("it calls " + ((Invoke) node).getTargetMethod().format("%H.%n") + ", which is not inlined");
+            } else if (node instanceof StoreAtomicIndexedNode) {
+                summary.reject("it performs a reduction");
+            } else if (node instanceof StoreFieldNode) {
+                summary.reject("it writes an object field");
+            } else if (node instanceof MemoryKill && !(node instanceof StoreIndexedNode) && !(node instanceof AbstractBeginNode)) {
+                summary.reject("it writes memory with a " + node.getClass().getSimpleName());
+            } else if ((node instanceof ParameterNode || node instanceof LoadFieldNode) && ((ValueNode) node).getStackKind() == JavaKind.Object) {
+                checkObjectUsages(summary, (ValueNode) node);
+            }
+            if (summary.rejection != null) {
+                return;
+            }
+        }
+
+        analyseDomain(summary, graph);
+        if (summary.rejection != null) {
+            return;
+        }
+
+        for (LoadIndexedNode load : graph.getNodes().filter(LoadIndexedNode.class)) {
+            recordAccess(summary, load.array(), load.index(), false);
+        }
+        for (StoreIndexedNode store : graph.getNodes().filter(StoreIndexedNode.class)) {
+            recordAccess(summary, store.array(), store.index(), true);
+        }
+    }
+
+    /**
+     * Objects must only be used as arrays or field holders, so every access to
+     * their memory is visible to the analysis.
+     */
+    private static void checkObjectUsages(TaskSummary summary, ValueNode object) {
+        for (Node usage : object.usages()) {
+            if (usage instanceof LoadIndexedNode && ((LoadIndexedNode) usage).array() == object) {
+                continue;
+            } else if (usage instanceof StoreIndexedNode && ((StoreIndexedNode) usage).array() == object && ((StoreIndexedNode) usage).value() != object) {
+                continue;
+            } else if (usage instanceof ArrayLengthNode || usage instanceof LoadFieldNode || usage instanceof VirtualState || usage instanceof LogicNode) {
+                continue;
+            } else if (usage instanceof ValueProxy && usage instanceof ValueNode) {
+                checkObjectUsages(summary, (ValueNode) usage);
+            } else {
+                summary.reject("an object escapes to a " + usage.getClass().getSimpleName());
+                return;
+            }
+        }
+    }
+
+    private void analyseDomain(TaskSummary summary, StructuredGraph graph) {
+        final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        if (ranges.isEmpty()) {
+            summary.reject("it has no @Parallel loops");
+            return;
+        }
+        Collections.sort(ranges);
+
+        // The parallel loops must form a single loop-nest, outermost loop first
+        final TornadoLoopsData data = new TornadoLoopsData(graph);
+        LoopEx outer = null;
+        for (int i = 0; i < ranges.size(); i++) {
+            final ParallelRangeNode range = ranges.get(i);
+            final LoopEx loop = findLoop(data, range);
+            if (range.index() != i || loop == null || (outer != null && !isNestedIn(loop, outer))) {
+                summary.reject("its @Parallel loops do not form a single loop-nest");
+                return;
+            }
+            outer = loop;
+
+            final String offset = canonical(range.offset().value(), summary.arguments);
+            final String stride = canonical(range.stride().value(), summary.arguments);
+            final String bound = canonical(range.value(), summary.arguments);
+            if (offset == null || stride == null || bound == null) {
+                summary.reject("the bounds of its @Parallel loops are not known before the launch");
+                return;
+            }
+            summary.domain.add(String.format("[%s, %s) step %s", offset, bound, stride));
+        }
+    }
+
+    private static LoopEx findLoop(TornadoLoopsData data, ParallelRangeNode range) {
+        for (ValuePhiNode phi : range.offset().usages().filter(ValuePhiNode.class)) {
+            if (phi.merge() instanceof LoopBeginNode) {
+                return data.loop((LoopBeginNode) phi.merge());
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNestedIn(LoopEx loop, LoopEx outer) {
+        for (LoopEx parent = loop.parent(); parent != null; parent = parent.parent()) {
+            if (parent.loopBegin() == outer.loopBegin()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordAccess(TaskSummary summary, ValueNode array, ValueNode index, boolean write) {
+        final ValueNode base = GraphUtil.unproxify(array);
+        if (base instanceof NewArrayNode) {
+            // Private arrays are not shared between tasks
+            return;
+        }
+        final Object object = resolveObject(base, summary.arguments);
+        if (object == null) {
+            summary.reject("it accesses an array that is not an argument");
+            return;
+        }
+        final Map<Object, List<String>> accesses = write ? summary.writes : summary.reads;
+        accesses.computeIfAbsent(object, k -> new ArrayList<>()).add(canonical(index, summary.arguments));
+    }
+
+    /**
+     * Checks whether a task can be appended to a group of fused tasks.
+     *
+     * @return the reason why it cannot be fused, or null.
+     */
+    private String checkCompatible(List<TaskSummary> summaries, List<Integer> group, TaskSummary candidate) {
+        final TaskSummary first = summaries.get(group.get(0));
+        if (!first.domain.equals(candidate.domain)) {
+            return String.format("its parallel domain %s differs from %s", candidate.domain, first.domain);
+        }
+
+        final Set<Object> objects = Collections.newSetFromMap(new IdentityHashMap<>());
+        objects.addAll(candidate.reads.keySet());
+        objects.addAll(candidate.writes.keySet());
+        for (Object object : objects) {
+            boolean written = candidate.writes.containsKey(object);
+            TaskSummary sharedWith = null;
+            final Set<String> indices = new HashSet<>();
+            addIndices(indices, candidate, object);
+            for (int member : group) {
+                final TaskSummary summary = summaries.get(member);
+                if (summary.reads.containsKey(object) || summary.writes.containsKey(object)) {
+                    sharedWith = summary;
+                    written |= summary.writes.containsKey(object);
+                    addIndices(indices, summary, object);
+                }
+            }
+            if (sharedWith == null || !written) {
+                continue;
+            }
+            final String name = describe(candidate, object);
+            if (indices.contains(null)) {
+                return String.format("%s, shared with %s, is accessed with an index that cannot be analysed", name, sharedWith.task.getId());
+            }
+            if (indices.size() != 1) {
+                return String.format("%s, shared with %s, is accessed with different indices %s", name, sharedWith.task.getId(), indices);
+            }
+            final String index = indices.iterator().next();
+            for (int i = 0; i < candidate.domain.size(); i++) {
+                if (!index.contains("iv" + i)) {
+                    return String.format("%s, shared with %s, is not indexed by the parallel loop %d", name, sharedWith.task.getId(), i);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void addIndices(Set<String> indices, TaskSummary summary, Object object) {
+        if (summary.reads.containsKey(object)) {
+            indices.addAll(summary.reads.get(object));
+        }
+        if (summary.writes.containsKey(object)) {
+            indices.addAll(summary.writes.get(object));
+        }
+    }
+
+    private static String describe(TaskSummary summary, Object object) {
+        for (int i = 0; i < summary.arguments.length; i++) {
+            if (summary.arguments[i] == object) {
+                return String.format("argument %d (%s)", i, object.getClass().getSimpleName());
+            }
+        }
+        return "field of type " + object.getClass().getSimpleName();
+    }
+
+    /**
+     * Builds a canonical form of a value, in which the arguments are replaced by
+     * their values (scalars) or identities (objects), and the induction
+     * variables of the parallel loops by their loop index. Two values with the
+     * same canonical form are equal in every thread.
+     *
+     * @return the canonical form, or null if the value cannot be analysed.
+     */
+    private String canonical(ValueNode value, Object[] arguments) {
+        final ValueNode node = GraphUtil.unproxify(value);
+        if (node instanceof ConstantNode) {
+            return ((ConstantNode) node).getValue().toValueString();
+        } else if (node instanceof ParameterNode) {
+            return identify(arguments[((ParameterNode) node).index()]);
+        } else if (node instanceof ValuePhiNode) {
+            for (ValueNode input : ((ValuePhiNode) node).values()) {
+                if (input instanceof ParallelOffsetNode) {
+                    return "iv" + ((ParallelOffsetNode) input).index();
+                }
+            }
+        } else if (node instanceof ArrayLengthNode) {
+            final Object array = resolveObject(((ArrayLengthNode) node).array(), arguments);
+            if (array instanceof TornadoNativeArray) {
+                return Integer.toString(((TornadoNativeArray) array).getSize());
+            } else if (array != null && array.getClass().isArray()) {
+                return Integer.toString(Array.getLength(array));
+            }
+        } else if (node instanceof LoadFieldNode) {
+            final Object fieldValue = readField((LoadFieldNode) node, arguments);
+            if (fieldValue != null) {
+                return identify(fieldValue);
+            }
+        } else if (node instanceof BinaryNode) {
+            final String x = canonical(((BinaryNode) node).getX(), arguments);
+            final String y = canonical(((BinaryNode) node).getY(), arguments);
+            if (x != null && y != null) {
+                return String.format("%s(%s, %s)", node.getClass().getSimpleName(), x, y);
+            }
+        } else if (node instanceof UnaryNode) {
+            final String x = canonical(((UnaryNode) node).getValue(), arguments);
+            if (x != null) {
+                return String.format("%s(%s)", node.getClass().getSimpleName(), x);
+            }
+        }
+        return null;
+    }
+
+    private String identify(Object value) {
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return value.toString();
+        }
+        return "object" + objectIds.computeIfAbsent(value, k -> objectIds.size());
+    }
+
+    private Object resolveObject(ValueNode value, Object[] arguments) {
+        final ValueNode node = GraphUtil.unproxify(value);
+        if (node instanceof ParameterNode) {
+            return arguments[((ParameterNode) node).index()];
+        } else if (node instanceof LoadFieldNode) {
+            return readField((LoadFieldNode) node, arguments);
+        }
+        return null;
+    }
+
+    private Object readField(LoadFieldNode load, Object[] arguments) {
+        if (load.isStatic()) {
+            return null;
+        }
+        final Object owner = resolveObject(load.object(), arguments);
+        if (owner == null) {
+            return null;
+        }
+        for (Class<?> type = owner.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(load.field().getName());
+                field.setAccessible(true);
+                return field.get(owner);
+            } catch (NoSuchFieldException e) {
+                // look it up in the superclass
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the fused task of a group of tasks and registers it in the
+     * execution context. A previous fused task of the same tasks is reused.
+     *
+     * @return index of the fused task, or -1 if it cannot be created.
+     */
+    private int createFusedTask(List<TaskSummary> summaries, List<Launch> launches, List<Integer> group) {
+        final List<SchedulableTask> tasks = new ArrayList<>();
+        final StringBuilder id = new StringBuilder();
+        final StringBuilder name = new StringBuilder("fused");
+        for (int member : group) {
+            final SchedulableTask task = summaries.get(member).task;
+            final String localId = task.getId().substring(executionContext.getId().length() + 1);
+            tasks.add(task);
+            id.append(id.length() == 0 ? "" : "+").append(localId);
+            name.append('_').append(localId.replaceAll("[^A-Za-z0-9_]", "_"));
+        }
+        final String taskIds = tasks.stream().map(SchedulableTask::getId).reduce((a, b) -> a + ", " + b).orElse("");
+
+        final SchedulableTask existing = executionContext.getTask(id.toString());
+        if (existing instanceof FusedTask && ((FusedTask) existing).fuses(tasks)) {
+            existing.mapTo(tasks.get(0).getDevice());
+            reportFused(summaries, group, existing);
+            return executionContext.getTasks().indexOf(existing);
+        } else if (existing != null && !(existing instanceof FusedTask)) {
+            report.add(String.format("not fused %s: the task-graph already has a task named %s", taskIds, id));
+            return -1;
+        }
+
+        final FusedTask fusedTask;
+        try {
+            fusedTask = buildFusedTask(summaries, launches, group, tasks, id.toString(), name.toString());
+        } catch (RuntimeException | LinkageError e) {
+            report.add(String.format("not fused %s: the fused kernel cannot be built (%s)", taskIds, e.getMessage()));
+            return -1;
+        }
+        if (fusedTask == null) {
+            report.add(String.format("not fused %s: the task methods are not inlined into the fused kernel", taskIds));
+            return -1;
+        }
+
+        int index;
+        if (existing != null) {
+            index = executionContext.getTasks().indexOf(existing);
+            executionContext.setTask(index, fusedTask);
+        } else {
+            index = executionContext.addTask(fusedTask);
+        }
+        reportFused(summaries, group, fusedTask);
+        return index;
+    }
+
+    private FusedTask buildFusedTask(List<TaskSummary> summaries, List<Launch> launches, List<Integer> group, List<SchedulableTask> tasks, String id, String name) {
+        final List<Class<?>> types = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<Object> arguments = new ArrayList<>();
+        final List<Boolean> references = new ArrayList<>();
+        final Method[] methods = new Method[group.size()];
+        final int[][] mapping = new int[group.size()][];
+        int expectedRanges = 0;
+
+        for (int k = 0; k < group.size(); k++) {
+            final TaskSummary summary = summaries.get(group.get(k));
+            final Launch launch = launches.get(group.get(k));
+            final Method method = ((CompilableTask) summary.task).getMethod();
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final String[] parameterNames = getParameterNames(method);
+            methods[k] = method;
+            mapping[k] = new int[parameterTypes.length];
+            expectedRanges += summary.domain.size();
+
+            for (int j = 0; j < parameterTypes.length; j++) {
+                final boolean reference = launch.operations[j] == TornadoGraphBitcodes.LOAD_REF.index();
+                int parameter = -1;
+                if (reference) {
+                    // Objects passed to several tasks become a single parameter
+                    for (int p = 0; p < arguments.size() && parameter == -1; p++) {
+                        if (references.get(p) && arguments.get(p) == summary.arguments[j] && types.get(p) == parameterTypes[j]) {
+                            parameter = p;
+                        }
+                    }
+                }
+                if (parameter == -1) {
+                    parameter = types.size();
+                    types.add(parameterTypes[j]);
+                    arguments.add(summary.arguments[j]);
+                    references.add(reference);
+                    String parameterName = parameterNames[j];
+                    while (names.contains(parameterName)) {
+                        parameterName = parameterName + "_" + k;
+                    }
+                    names.add(parameterName);
+                }
+                mapping[k][j] = parameter;
+            }
+        }
+
+        final Method method = FusedKernelGenerator.generate(name, types.toArray(new Class<?>[0]), names.toArray(new String[0]), methods, mapping);
+        final FusedTask fusedTask = new FusedTask(executionContext.meta(), id, method, tasks, mapping, arguments.toArray());
+        fusedTask.mapTo(tasks.get(0).getDevice());
+
+        // The sketch of the fused kernel must contain all the parallel loops
+        final ResolvedJavaMethod resolvedMethod = getTornadoRuntime().resolveMethod(method);
+        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod, fusedTask.meta().getDriverIndex(), fusedTask.meta().getDeviceIndex());
+        final StructuredGraph graph = (StructuredGraph) sketch.getGraph().getReadonlyCopy();
+        if (graph.getNodes().filter(ParallelRangeNode.class).count() != expectedRanges || graph.getInvokes().iterator().hasNext()) {
+            return null;
+        }
+        return fusedTask;
+    }
+
+    private static String[] getParameterNames(Method method) {
+        final String[] names = new String[method.getParameterCount()];
+        final LocalVariableTable localVariableTable = getTornadoRuntime().resolveMethod(method).getLocalVariableTable();
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        int slot = 0;
+        for (int i = 0; i < names.length; i++) {
+            final Local local = (localVariableTable != null) ? localVariableTable.getLocal(slot, 0) : null;
+            names[i] = (local != null) ? local.getName() : "arg" + i;
+            slot += (parameterTypes[i] == long.class || parameterTypes[i] == double.class) ? 2 : 1;
+        }
+        return names;
+    }
+
+    private void reportFused(List<TaskSummary> summaries, List<Integer> group, SchedulableTask fusedTask) {
+        final StringBuilder sb = new StringBuilder("fused");
+        final Set<Object> written = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<Object> usedOutside = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < summaries.size(); i++) {
+            final TaskSummary summary = summaries.get(i);
+            if (group.contains(i)) {
+                sb.append(' ').append(summary.task.getId());
+                written.addAll(summary.writes.keySet());
+            } else {
+                usedOutside.addAll(Arrays.asList(summary.arguments));
+            }
+        }
+        sb.append(" into ").append(fusedTask.getId());
+
+        final List<String> intermediates = new ArrayList<>();
+        for (Object object : written) {
+            final int index = executionContext.getObjects().indexOf(object);
+            if (index == -1) {
+                continue;
+            }
+            final LocalObjectState state = executionContext.getObjectStates().get(index);
+            if (!usedOutside.contains(object) && !state.isStreamOut() && !state.isStreamOutUnderDemand()) {
+                intermediates.add(object.getClass().getSimpleName());
+            }
+        }
+        if (!intermediates.isEmpty()) {
+            sb.append(", device-only intermediates: ").append(intermediates);
+        }
+        report.add(sb.toString());
+    }
+
+    private void printReport() {
+        final StringBuilder sb = new StringBuilder("Task fusion of task-graph ").append(executionContext.getId());
+        for (String line : report) {
+            sb.append("\n\t").append(line);
+        }
+        if (TornadoOptions.PRINT_FUSION_REPORT) {
+            System.out.println(sb);
+        } else {
+            info(sb.toString());
+        }
+    }
+
+    private static final class Launch {
+        private final int globalTaskId;
+        private final int taskIndex;
+        private final byte[] operations;
+        private final int[] variables;
+
+        private Launch(int globalTaskId, int taskIndex, byte[] operations, int[] variables) {
+            this.globalTaskId = globalTaskId;
+            this.taskIndex = taskIndex;
+            this.operations = operations;
+            this.variables = variables;
+        }
+    }
+
+    private static final class TaskSummary {
+        private final SchedulableTask task;
+        private final Object[] arguments;
+        private final List<String> domain = new ArrayList<>();
+        private final Map<Object, List<String>> reads = new IdentityHashMap<>();
+        private final Map<Object, List<String>> writes = new IdentityHashMap<>();
+        private String rejection;
+
+        private TaskSummary(SchedulableTask task) {
+            this.task = task;
+            this.arguments = task.getArguments();
+        }
+
+        private TaskSummary reject(String reason) {
+            if (rejection == null) {
+                rejection = reason;
+            }
+            return this;
+        }
+    }
+
+    private static final class FusedTask extends CompilableTask {
+        private final List<SchedulableTask> tasks;
+        private final int[][] mapping;
+
+        private FusedTask(ScheduleMetaData meta, String id, Method method, List<SchedulableTask> tasks, int[][] mapping, Object... args) {
+            super(meta, id, method, args);
+            this.tasks = tasks;
+            this.mapping = mapping;
+        }
+
+        private boolean fuses(List<SchedulableTask> others) {
+            if (others.size() != tasks.size()) {
+                return false;
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.get(i) != others.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
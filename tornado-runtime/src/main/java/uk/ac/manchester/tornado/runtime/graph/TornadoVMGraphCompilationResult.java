@@ -25,6 +25,11 @@ package uk.ac.manchester.tornado.runtime.graph;
 
 import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AllocateMultipleBuffersNode;
@@ -68,34 +73,77 @@ public class TornadoVMGraphCompilationResult {
         bitcodeASM.end();
     }
 
+    void bufferSlot(int slot) {
+        bitcodeASM.bufferSlot(slot);
+    }
+
     private void incTaskID() {
         globalTaskID++;
     }
 
-    void emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, long offset, long batchSize, long nThreads) {
+    /**
+     * Emits the bytecodes of an asynchronous node.
+     *
+     * @param batches
+     *            chunk geometry of the task-graph, or null when it does not run
+     *            in batches.
+     * @param chunk
+     *            index of the batch.
+     * @param transferBroadcast
+     *            whether objects that are not split in batches must be allocated
+     *            and copied.
+     */
+    void emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, BatchConfiguration batches, int chunk, boolean transferBroadcast) {
         if (node instanceof AllocateMultipleBuffersNode) {
-            bitcodeASM.allocate(((AllocateMultipleBuffersNode) node).getValues(), contextID, batchSize);
+            // Objects are grouped in one ALLOC per batch size
+            final Map<Long, List<AbstractNode>> allocations = new LinkedHashMap<>();
+            for (AbstractNode value : ((AllocateMultipleBuffersNode) node).getValues()) {
+                if (transferBroadcast || !isBroadcast(batches, value.getIndex())) {
+                    allocations.computeIfAbsent(getSize(batches, value.getIndex(), chunk), size -> new ArrayList<>()).add(value);
+                }
+            }
+            allocations.forEach((size, values) -> bitcodeASM.allocate(values, contextID, size));
         } else if (node instanceof CopyInNode) {
-            bitcodeASM.transferToDeviceOnce(((CopyInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+            final int index = ((CopyInNode) node).getValue().getIndex();
+            if (transferBroadcast || !isBroadcast(batches, index)) {
+                bitcodeASM.transferToDeviceOnce(index, contextID, dependencyBC, getOffset(batches, index, chunk), getSize(batches, index, chunk));
+            }
         } else if (node instanceof AllocateNode) {
             TornadoLogger.info("[%s]: Skipping deprecated node %s", getClass().getSimpleName(), AllocateNode.class.getSimpleName());
         } else if (node instanceof CopyOutNode) {
             ObjectNode value = ((CopyOutNode) node).getValue().getValue();
             if (value != null) {
-                bitcodeASM.transferToHost(value.getIndex(), contextID, dependencyBC, offset, batchSize);
+                bitcodeASM.transferToHost(value.getIndex(), contextID, dependencyBC, getOffset(batches, value.getIndex(), chunk), getSize(batches, value.getIndex(), chunk));
             }
         } else if (node instanceof StreamInNode) {
-            bitcodeASM.transferToDeviceAlways(((StreamInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+            final int index = ((StreamInNode) node).getValue().getIndex();
+            if (transferBroadcast || !isBroadcast(batches, index)) {
+                bitcodeASM.transferToDeviceAlways(index, contextID, dependencyBC, getOffset(batches, index, chunk), getSize(batches, index, chunk));
+            }
         } else if (node instanceof DeallocateNode) {
             bitcodeASM.deallocate(((DeallocateNode) node).getValue().getIndex(), contextID);
         } else if (node instanceof TaskNode) {
             final TaskNode taskNode = (TaskNode) node;
+            final long offset = (batches == null) ? 0 : batches.getIterationOffset(chunk);
+            final long nThreads = (batches == null) ? 0 : batches.getIterations(chunk);
             bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, offset, nThreads);
             emitArgList(taskNode);
             incTaskID();
         }
     }
 
+    private static boolean isBroadcast(BatchConfiguration batches, int objectIndex) {
+        return batches != null && batches.isBroadcast(objectIndex);
+    }
+
+    private static long getOffset(BatchConfiguration batches, int objectIndex, int chunk) {
+        return (batches == null) ? 0 : batches.getOffset(objectIndex, chunk);
+    }
+
+    private static long getSize(BatchConfiguration batches, int objectIndex, int chunk) {
+        return (batches == null) ? 0 : batches.getSize(objectIndex, chunk);
+    }
+
     private void emitArgList(TaskNode taskNode) {
         final int numArgs = taskNode.getNumArgs();
         for (int i = 0; i < numArgs; i++) {
@@ -25,13 +25,11 @@
  */
 package uk.ac.manchester.tornado.runtime.graph;
 
-import java.lang.reflect.Array;
 import java.nio.BufferOverflowException;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.nodes.StructuredGraph;
@@ -40,28 +38,19 @@ import org.graalvm.compiler.nodes.loop.LoopEx;
 import org.graalvm.compiler.nodes.loop.LoopsData;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
-import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.nodes.TornadoLoopsData;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphAssembler.TornadoVMBytecode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.AllocateMultipleBuffersNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextOpNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.CopyOutNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.DeallocateNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
 
 public class TornadoVMGraphCompiler {
-    private static HashMap<Class<?>, Byte> dataTypesSize = new HashMap<>();
-
-    static {
-        dataTypesSize.put(byte.class, (byte) 1);
-        dataTypesSize.put(char.class, (byte) 2);
-        dataTypesSize.put(short.class, (byte) 2);
-        dataTypesSize.put(int.class, (byte) 4);
-        dataTypesSize.put(float.class, (byte) 4);
-        dataTypesSize.put(long.class, (byte) 8);
-        dataTypesSize.put(double.class, (byte) 8);
-    }
 
     /**
      * Generate TornadoVM byte-code from a Tornado Task Graph.
@@ -78,73 +67,6 @@ public class TornadoVMGraphCompiler {
         return compileContext(graph, context, batchSize);
     }
 
-    private static class BatchSizeMetaData {
-
-        private final int totalChunks;
-        private final int remainingChunkSize;
-        private final short numBytesType;
-
-        BatchSizeMetaData(int totalChunks, int remainingChunkSize, short numBytesType) {
-            this.totalChunks = totalChunks;
-            this.remainingChunkSize = remainingChunkSize;
-            this.numBytesType = numBytesType;
-        }
-
-        private int getTotalChunks() {
-            return totalChunks;
-        }
-
-        private int getRemainingChunkSize() {
-            return remainingChunkSize;
-        }
-
-        private short getNumBytesType() {
-            return numBytesType;
-        }
-    }
-
-    private static BatchSizeMetaData computeChunkSizes(TornadoExecutionContext context, long batchSize) {
-        // Get the size of the batch
-        List<Object> inputObjects = context.getObjects();
-        long totalSize = 0;
-        byte typeSize = 1;
-
-        HashSet<Class<?>> classObjects = new HashSet<>();
-        HashSet<Long> inputSizes = new HashSet<>();
-
-        // XXX: Get a list for all objects
-        for (Object o : inputObjects) {
-            if (o.getClass().isArray()) {
-                Class<?> componentType = o.getClass().getComponentType();
-                if (dataTypesSize.get(componentType) == null) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
-                }
-                long size = Array.getLength(o);
-                typeSize = dataTypesSize.get(componentType);
-                totalSize = size * typeSize;
-
-                classObjects.add(componentType);
-                inputSizes.add(totalSize);
-                if (classObjects.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different data types not currently supported");
-                }
-                if (inputSizes.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different sizes not currently supported");
-                }
-            }
-        }
-
-        int totalChunks = (int) (totalSize / batchSize);
-        int remainingChunkSize = (int) (totalSize % batchSize);
-
-        if (Tornado.DEBUG) {
-            System.out.println("Batch Size: " + batchSize);
-            System.out.println("Total chunks: " + totalChunks);
-            System.out.println("remainingChunkSize: " + remainingChunkSize);
-        }
-        return new BatchSizeMetaData(totalChunks, remainingChunkSize, typeSize);
-    }
-
     private static TornadoVMGraphCompilationResult compileContext(TornadoGraph graph, TornadoExecutionContext context, long batchSize) {
         final TornadoVMGraphCompilationResult result = new TornadoVMGraphCompilationResult();
 
@@ -167,31 +89,33 @@ public class TornadoVMGraphCompiler {
             index++;
         }
 
-        // Generate Context + BEGIN bytecode
-        result.begin(1, tasks.cardinality(), numDepLists + 1);
-
-        BatchSizeMetaData sizeBatch = null;
+        BatchConfiguration batches = null;
         if (batchSize != -1) {
-            sizeBatch = computeChunkSizes(context, batchSize);
+            batches = BatchConfiguration.computeChunkSizes(context, batchSize);
+            context.meta().setBatchIterations(batches.getTotalIterations());
+        } else {
+            context.meta().setBatchIterations(0);
         }
 
-        if (batchSize != -1) {
-            // compute in batches
-            long offset = 0;
-            long nthreads = batchSize / sizeBatch.getNumBytesType();
-            for (int i = 0; i < sizeBatch.getTotalChunks(); i++) {
-                offset = (batchSize * i);
-                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, offset, batchSize, nthreads);
-            }
-            // Last chunk
-            if (sizeBatch.getRemainingChunkSize() != 0) {
-                offset += (batchSize);
-                nthreads = sizeBatch.getRemainingChunkSize() / sizeBatch.getNumBytesType();
-                long realBatchSize = sizeBatch.getTotalChunks() == 0 ? 0 : sizeBatch.getRemainingChunkSize();
-                long realOffsetSize = sizeBatch.getTotalChunks() == 0 ? 0 : offset;
-                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, realOffsetSize, realBatchSize, nthreads);
-            }
+        if (batches != null && TornadoOptions.BATCH_PIPELINE_DEPTH > 1) {
+            return compilePipelinedBatches(result, graph, nodeIds, dependencies, numDepLists, tasks.cardinality(), batches, TornadoOptions.BATCH_PIPELINE_DEPTH);
+        }
 
+        // Generate Context + BEGIN bytecode
+        result.begin(1, tasks.cardinality(), numDepLists + 1);
+
+        if (batches != null) {
+            // compute in batches. Broadcast objects are allocated and copied in the
+            // first batch, and released after the last one.
+            final int[] order = scheduleNodes(graph, nodeIds, dependencies);
+            final int[] depLists = computeDependencyLists(graph, nodeIds, dependencies);
+            final BatchConfiguration batchConfiguration = batches;
+            final int numChunks = batches.getNumChunks();
+            for (int i = 0; i < numChunks; i++) {
+                final boolean lastChunk = (i == numChunks - 1);
+                emitScheduledNodes(result, graph, nodeIds, dependencies, depLists, order, 0, batches, i, i == 0,
+                        (AbstractNode n) -> !(n instanceof DeallocateNode) || lastChunk || !batchConfiguration.isBroadcast(((DeallocateNode) n).getValue().getIndex()));
+            }
         } else {
             // Generate bytecodes with no batches
             scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies);
@@ -210,6 +134,66 @@ public class TornadoVMGraphCompiler {
         return result;
     }
 
+    /**
+     * Generates the bytecodes for a task-graph that runs in batches using
+     * multiple device buffers per object. Each batch is assigned to a buffer slot
+     * in a round-robin fashion, and it uses its own set of event lists. The
+     * copy-out of batch N is emitted after the copy-in and the launch of batch
+     * N + depth - 1, so the device can overlap the transfers of a batch with the
+     * kernels of the next ones. Since copy-outs are blocking, a slot is never
+     * overwritten while a previous batch still reads it.
+     *
+     * The last (smaller) batch uses its own slot, because device buffers are
+     * sized for the batch they were allocated for. All buffers are released after
+     * the last batch.
+     */
+    private static TornadoVMGraphCompilationResult compilePipelinedBatches(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] dependencies, int numDepLists,
+            int numTasks, BatchConfiguration batches, int depth) {
+        final int numFullChunks = batches.getTotalChunks();
+        final int numChunks = batches.getNumChunks();
+
+        final int[] slots = new int[numChunks];
+        for (int i = 0; i < numChunks; i++) {
+            slots[i] = (i < numFullChunks) ? i % depth : Math.min(numFullChunks, depth);
+        }
+        final int numSlots = numChunks == 0 ? 1 : Arrays.stream(slots).max().getAsInt() + 1;
+
+        // Each slot owns a copy of the event lists, plus one extra list for the
+        // final barrier
+        result.begin(1, numTasks, numDepLists * numSlots + 1);
+
+        final int[] order = scheduleNodes(graph, nodeIds, dependencies);
+        final int[] depLists = computeDependencyLists(graph, nodeIds, dependencies);
+
+        final BitSet allocatedSlots = new BitSet(numSlots);
+        final int lag = depth - 1;
+        for (int step = 0; step < numChunks + lag; step++) {
+            if (step < numChunks) {
+                final int chunk = step;
+                final boolean firstUse = !allocatedSlots.get(slots[chunk]);
+                allocatedSlots.set(slots[chunk]);
+                result.bufferSlot(slots[chunk]);
+                emitScheduledNodes(result, graph, nodeIds, dependencies, depLists, order, slots[chunk] * numDepLists, batches, chunk, firstUse,
+                        (AbstractNode n) -> !(n instanceof CopyOutNode || n instanceof DeallocateNode) && (firstUse || !(n instanceof AllocateMultipleBuffersNode)));
+            }
+            final int chunk = step - lag;
+            if (chunk >= 0) {
+                result.bufferSlot(slots[chunk]);
+                emitScheduledNodes(result, graph, nodeIds, dependencies, depLists, order, slots[chunk] * numDepLists, batches, chunk, false, (AbstractNode n) -> n instanceof CopyOutNode);
+            }
+        }
+
+        for (int slot = allocatedSlots.nextSetBit(0); slot != -1; slot = allocatedSlots.nextSetBit(slot + 1)) {
+            result.bufferSlot(slot);
+            emitScheduledNodes(result, graph, nodeIds, dependencies, depLists, order, slot * numDepLists, batches, 0, false, (AbstractNode n) -> n instanceof DeallocateNode);
+        }
+        result.bufferSlot(0);
+
+        result.barrier(numDepLists * numSlots);
+        result.end();
+        return result;
+    }
+
     private static void synchronizeOperationLastByteCode(TornadoVMGraphCompilationResult result, int numDepLists) {
         final byte[] code = result.getCode();
         final int codeSize = result.getCodeSize();
@@ -243,13 +227,12 @@ public class TornadoVMGraphCompiler {
     }
 
     private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps) {
-        scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, deps, 0, 0, 0);
+        final int[] order = scheduleNodes(graph, nodeIds, deps);
+        final int[] depLists = computeDependencyLists(graph, nodeIds, deps);
+        emitScheduledNodes(result, graph, nodeIds, deps, depLists, order, 0, null, 0, true, (AbstractNode n) -> true);
     }
 
-    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, long offset, long bufferBatchSize, long nThreads) {
-        final BitSet scheduled = new BitSet(deps.length);
-        scheduled.clear();
-        final BitSet nodes = new BitSet(graph.getValid().length());
+    private static int[] computeDependencyLists(TornadoGraph graph, int[] nodeIds, BitSet[] deps) {
         final int[] depLists = new int[deps.length];
         Arrays.fill(depLists, -1);
         int index = 0;
@@ -263,8 +246,21 @@ public class TornadoVMGraphCompiler {
                 index++;
             }
         }
+        return depLists;
+    }
 
-        while (scheduled.cardinality() < deps.length) {
+    /**
+     * Orders the asynchronous nodes, so each node is placed after all the nodes
+     * it depends on.
+     *
+     * @return indexes of the nodes in emission order
+     */
+    private static int[] scheduleNodes(TornadoGraph graph, int[] nodeIds, BitSet[] deps) {
+        final BitSet scheduled = new BitSet(deps.length);
+        final BitSet nodes = new BitSet(graph.getValid().length());
+        final int[] order = new int[deps.length];
+        int numScheduled = 0;
+        while (numScheduled < deps.length) {
             for (int i = 0; i < deps.length; i++) {
                 if (!scheduled.get(i)) {
                     final BitSet outstandingDeps = new BitSet(nodes.length());
@@ -272,29 +268,41 @@ public class TornadoVMGraphCompiler {
                     outstandingDeps.andNot(nodes);
 
                     if (outstandingDeps.isEmpty()) {
-                        final ContextOpNode asyncNode = (ContextOpNode) graph.getNode(nodeIds[i]);
-
-                        try {
-                            result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), (deps[i].isEmpty()) ? -1 : depLists[i], offset, bufferBatchSize, nThreads);
-                        } catch (BufferOverflowException e) {
-                            throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. Use -Dtornado.tvm.maxbytecodesize=<value> with value > "
-                                    + TornadoVMGraphCompilationResult.MAX_TORNADO_VM_BYTECODE_SIZE + " to increase the buffer code size");
-                        }
-
-                        for (int j = 0; j < deps.length; j++) {
-                            if (j == i) {
-                                continue;
-                            }
-                            if (deps[j].get(nodeIds[i]) && depLists[j] != -1) {
-                                result.emitAddDep(depLists[j]);
-                            }
-                        }
+                        order[numScheduled++] = i;
                         scheduled.set(i);
                         nodes.set(nodeIds[i]);
                     }
                 }
             }
         }
+        return order;
+    }
+
+    private static void emitScheduledNodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, int[] depLists, int[] order, int depListOffset,
+            BatchConfiguration batches, int chunk, boolean transferBroadcast, Predicate<AbstractNode> filter) {
+        for (int i : order) {
+            final ContextOpNode asyncNode = (ContextOpNode) graph.getNode(nodeIds[i]);
+            if (!filter.test(asyncNode)) {
+                continue;
+            }
+
+            final int dependencyList = (deps[i].isEmpty() || depLists[i] == -1) ? -1 : depLists[i] + depListOffset;
+            try {
+                result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), dependencyList, batches, chunk, transferBroadcast);
+            } catch (BufferOverflowException e) {
+                throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. Use -Dtornado.tvm.maxbytecodesize=<value> with value > "
+                        + TornadoVMGraphCompilationResult.MAX_TORNADO_VM_BYTECODE_SIZE + " to increase the buffer code size");
+            }
+
+            for (int j = 0; j < deps.length; j++) {
+                if (j == i) {
+                    continue;
+                }
+                if (deps[j].get(nodeIds[i]) && depLists[j] != -1) {
+                    result.emitAddDep(depLists[j] + depListOffset);
+                }
+            }
+        }
     }
 
     private static String toString(BitSet set) {
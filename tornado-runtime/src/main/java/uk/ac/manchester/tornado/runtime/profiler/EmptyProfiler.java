@@ -81,6 +81,11 @@ public class EmptyProfiler implements TornadoProfiler {
         return 0;
     }
 
+    @Override
+    public long getMetric(ProfilerType type, String taskName) {
+        return 0;
+    }
+
     @Override
     public void setTimer(ProfilerType type, long time) {
 
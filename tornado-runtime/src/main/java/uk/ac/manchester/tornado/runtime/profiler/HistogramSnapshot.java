@@ -0,0 +1,121 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.profiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link ProfilerHistogram}.
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long min, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return (count == 0) ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values
+     * fall, within the precision of the histogram.
+     *
+     * @param percentile
+     *            Percentile in the range [0, 100].
+     * @return value at the percentile.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        long target = Math.max(1, (long) Math.ceil((p / 100.0) * count));
+        long accumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+            if (accumulated >= target) {
+                return Math.min(ProfilerHistogram.bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Cumulative counts at power-of-two boundaries, from the smallest boundary
+     * that covers the minimum value to the one that covers the maximum value.
+     * These boundaries are aligned with the histogram buckets, so the counts are
+     * exact.
+     *
+     * @return list of {upperBound, cumulativeCount} pairs.
+     */
+    public List<long[]> getCumulativeBuckets() {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<long[]> buckets = new ArrayList<>();
+        long accumulated = 0;
+        long bound = ProfilerHistogram.SUB_BUCKET_COUNT - 1;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+            if (ProfilerHistogram.bucketUpperBound(i) == bound) {
+                if (bound >= min) {
+                    buckets.add(new long[] { bound, accumulated });
+                }
+                if (accumulated == count || bound == Long.MAX_VALUE) {
+                    break;
+                }
+                bound = (bound << 1) | 1;
+            }
+        }
+        return buckets;
+    }
+}
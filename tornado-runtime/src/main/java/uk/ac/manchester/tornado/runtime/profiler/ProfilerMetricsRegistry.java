@@ -0,0 +1,333 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+
+/**
+ * Process-wide registry of {@link ProfilerHistogram}s, one per task-graph,
+ * task and {@link ProfilerType}. Task graphs publish the values of their
+ * profiler after every execution (see {@link TimeProfiler#publishMetrics}), so
+ * the registry keeps the distribution of each metric over time instead of the
+ * last value.
+ *
+ * <p>
+ * Metrics can be pulled with {@link #snapshot()} or exported in the Prometheus
+ * text exposition format with {@link #writePrometheus(Appendable)}. The file
+ * export of {@link #exportPrometheusFile(String, long)} runs in a background
+ * thread, so the executions of the task-graphs do not wait for any file I/O.
+ * </p>
+ */
+public final class ProfilerMetricsRegistry {
+
+    /**
+     * Value of the task label for metrics that belong to the whole task-graph.
+     */
+    public static final String GRAPH_LEVEL = "";
+
+    private static final String PROMETHEUS_PREFIX = "tornado_";
+
+    private static final ProfilerMetricsRegistry INSTANCE = new ProfilerMetricsRegistry();
+
+    private final ConcurrentHashMap<MetricKey, ProfilerHistogram> histograms;
+
+    /**
+     * Number of recorded values, used to skip the writes of the file when nothing
+     * changed.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile String exportedFile;
+
+    private static final class MetricKey implements Comparable<MetricKey> {
+        private final String taskGraph;
+        private final String task;
+        private final ProfilerType type;
+
+        MetricKey(String taskGraph, String task, ProfilerType type) {
+            this.taskGraph = taskGraph;
+            this.task = task;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey other = (MetricKey) obj;
+            return type == other.type && taskGraph.equals(other.taskGraph) && task.equals(other.task);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(taskGraph, task, type);
+        }
+
+        @Override
+        public int compareTo(MetricKey other) {
+            int cmp = type.compareTo(other.type);
+            if (cmp == 0) {
+                cmp = taskGraph.compareTo(other.taskGraph);
+            }
+            if (cmp == 0) {
+                cmp = task.compareTo(other.task);
+            }
+            return cmp;
+        }
+    }
+
+    /**
+     * Snapshot of one metric, as returned by {@link #snapshot()}.
+     */
+    public static final class MetricSnapshot {
+        private final String taskGraph;
+        private final String task;
+        private final ProfilerType type;
+        private final HistogramSnapshot histogram;
+
+        MetricSnapshot(MetricKey key, HistogramSnapshot histogram) {
+            this.taskGraph = key.taskGraph;
+            this.task = key.task;
+            this.type = key.type;
+            this.histogram = histogram;
+        }
+
+        public String getTaskGraph() {
+            return taskGraph;
+        }
+
+        /**
+         * @return name of the task, or {@link #GRAPH_LEVEL} for task-graph metrics.
+         */
+        public String getTask() {
+            return task;
+        }
+
+        public ProfilerType getType() {
+            return type;
+        }
+
+        public HistogramSnapshot getHistogram() {
+            return histogram;
+        }
+    }
+
+    private ProfilerMetricsRegistry() {
+        histograms = new ConcurrentHashMap<>();
+    }
+
+    public static ProfilerMetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Whether a profiler type carries a numeric value that can be aggregated.
+     * Types such as {@link ProfilerType#DEVICE} or {@link ProfilerType#METHOD}
+     * only label the task.
+     */
+    public static boolean isNumeric(ProfilerType type) {
+        switch (type) {
+            case METHOD:
+            case IP:
+            case DEVICE_ID:
+            case DEVICE:
+            case BACKEND:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    public void record(String taskGraph, String task, ProfilerType type, long value) {
+        MetricKey key = new MetricKey(taskGraph, task, type);
+        ProfilerHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new ProfilerHistogram());
+        }
+        histogram.record(value);
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return point-in-time copy of all metrics, sorted by type, task-graph and
+     *         task.
+     */
+    public List<MetricSnapshot> snapshot() {
+        List<MetricKey> keys = new ArrayList<>(histograms.keySet());
+        Collections.sort(keys);
+        List<MetricSnapshot> snapshots = new ArrayList<>(keys.size());
+        for (MetricKey key : keys) {
+            snapshots.add(new MetricSnapshot(key, histograms.get(key).snapshot()));
+        }
+        return snapshots;
+    }
+
+    public void reset() {
+        histograms.clear();
+        version.incrementAndGet();
+    }
+
+    private static String metricName(ProfilerType type) {
+        String name = PROMETHEUS_PREFIX + type.name().toLowerCase(Locale.ROOT);
+        if (name.contains("bytes")) {
+            return name.replace("_size_bytes", "_size") + "_bytes";
+        } else if (name.contains("cache") || name.contains("launches")) {
+            return name;
+        }
+        return name + "_nanoseconds";
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version
+     * 0.0.4). Each {@link ProfilerType} is exported as a histogram family with
+     * the labels {@code task_graph} and {@code task}.
+     *
+     * @param out
+     *            Destination of the metrics.
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        ProfilerType currentType = null;
+        for (MetricSnapshot metric : snapshot()) {
+            String name = metricName(metric.getType());
+            if (metric.getType() != currentType) {
+                currentType = metric.getType();
+                out.append("# HELP ").append(name).append(' ').append(currentType.getDescription()).append('\n');
+                out.append("# TYPE ").append(name).append(" histogram\n");
+            }
+            String labels = "task_graph=\"" + escapeLabel(metric.getTaskGraph()) + "\",task=\"" + escapeLabel(metric.getTask()) + "\"";
+            HistogramSnapshot histogram = metric.getHistogram();
+            for (long[] bucket : histogram.getCumulativeBuckets()) {
+                out.append(name).append("_bucket{").append(labels).append(",le=\"").append(Long.toString(bucket[0])).append("\"} ").append(Long.toString(bucket[1])).append('\n');
+            }
+            out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(Long.toString(histogram.getCount())).append('\n');
+            out.append(name).append("_sum{").append(labels).append("} ").append(Long.toString(histogram.getSum())).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ").append(Long.toString(histogram.getCount())).append('\n');
+        }
+    }
+
+    public String toPrometheus() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writePrometheus(builder);
+        } catch (IOException e) {
+            throw new TornadoRuntimeException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the Prometheus text format into a file. The file is replaced
+     * atomically, so a scraper never reads a partially written file.
+     *
+     * @param fileName
+     *            Path of the file.
+     */
+    public synchronized void writePrometheusFile(String fileName) {
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writePrometheus(writer);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new TornadoRuntimeException("Unable to write the profiler metrics into " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts writing the metrics into a file every {@code periodMillis}
+     * milliseconds, and once more when the JVM exits. The file is only written
+     * again when new values have been recorded. Calls after the first one return
+     * immediately.
+     *
+     * @param fileName
+     *            Path of the file.
+     * @param periodMillis
+     *            Period of the writes, in milliseconds.
+     */
+    public void exportPrometheusFile(String fileName, long periodMillis) {
+        if (exportedFile != null) {
+            return;
+        }
+        synchronized (version) {
+            if (exportedFile != null) {
+                return;
+            }
+            exportedFile = fileName;
+        }
+
+        final AtomicLong writtenVersion = new AtomicLong(-1);
+        final Runnable writer = () -> {
+            long current = version.get();
+            if (writtenVersion.getAndSet(current) != current) {
+                writePrometheusFile(fileName);
+            }
+        };
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TornadoVM-Metrics-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                writer.run();
+            } catch (TornadoRuntimeException e) {
+                System.err.println(e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executor.shutdownNow();
+            writer.run();
+        }, "TornadoVM-Metrics-Writer-Exit"));
+    }
+}
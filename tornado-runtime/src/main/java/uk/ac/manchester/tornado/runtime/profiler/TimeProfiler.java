@@ -23,13 +23,23 @@
  */
 package uk.ac.manchester.tornado.runtime.profiler;
 
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 
+/**
+ * Profiler that records all timers and metrics into primitive arrays indexed by
+ * the ordinal of the {@link ProfilerType}. Each task is assigned a slot the
+ * first time it is used, so recording values does not allocate memory. All
+ * updates are lock-free and it can be shared by task graphs executed from
+ * multiple threads.
+ */
 public class TimeProfiler implements TornadoProfiler {
 
     /**
@@ -39,215 +49,246 @@ public class TimeProfiler implements TornadoProfiler {
      */
     public static String NO_TASK_NAME = "noTask";
 
-    private HashMap<ProfilerType, Long> profilerTime;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskTimers;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskThroughputMetrics;
-    private HashMap<String, HashMap<ProfilerType, String>> taskDeviceIdentifiers;
-    private HashMap<String, HashMap<ProfilerType, String>> taskMethodNames;
+    /**
+     * Marks the values that have not been recorded.
+     */
+    private static final long UNSET = Long.MIN_VALUE;
+
+    private static final ProfilerType[] TYPES = ProfilerType.values();
+
+    private final AtomicLongArray profilerTime;
+    private final ConcurrentHashMap<String, TaskSlot> taskSlots;
+    private final List<TaskSlot> taskSlotsInOrder;
+
+    private static class TaskSlot {
+        private final String taskName;
+        private final AtomicLongArray timers;
+        private final AtomicLongArray throughputMetrics;
+        private volatile String deviceName;
+        private volatile String deviceID;
+        private volatile String methodName;
+        private volatile String backend;
+
+        TaskSlot(String taskName) {
+            this.taskName = taskName;
+            this.timers = createArray();
+            this.throughputMetrics = createArray();
+        }
+    }
 
-    private HashMap<String, HashMap<ProfilerType, String>> taskBackends;
+    public TimeProfiler() {
+        profilerTime = createArray();
+        taskSlots = new ConcurrentHashMap<>();
+        taskSlotsInOrder = new CopyOnWriteArrayList<>();
+    }
 
-    private StringBuffer indent;
+    private static AtomicLongArray createArray() {
+        AtomicLongArray array = new AtomicLongArray(TYPES.length);
+        clear(array);
+        return array;
+    }
 
-    public TimeProfiler() {
-        profilerTime = new HashMap<>();
-        taskTimers = new HashMap<>();
-        taskDeviceIdentifiers = new HashMap<>();
-        taskMethodNames = new HashMap<>();
-        taskThroughputMetrics = new HashMap<>();
-        taskBackends = new HashMap<>();
-        indent = new StringBuffer("");
+    private static void clear(AtomicLongArray array) {
+        for (int i = 0; i < array.length(); i++) {
+            array.set(i, UNSET);
+        }
+    }
+
+    private static void accumulate(AtomicLongArray array, int index, long value) {
+        long current;
+        do {
+            current = array.get(index);
+        } while (!array.compareAndSet(index, current, (current == UNSET) ? value : current + value));
+    }
+
+    private static void stopTimer(AtomicLongArray array, int index, long end) {
+        long start = array.get(index);
+        if (start != UNSET) {
+            array.set(index, end - start);
+        }
+    }
+
+    private static long getValue(AtomicLongArray array, int index) {
+        long value = array.get(index);
+        return (value == UNSET) ? 0 : value;
+    }
+
+    private static boolean hasValues(AtomicLongArray array) {
+        for (int i = 0; i < array.length(); i++) {
+            if (array.get(i) != UNSET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TaskSlot getTaskSlot(String taskName) {
+        TaskSlot slot = taskSlots.get(taskName);
+        if (slot == null) {
+            slot = registerTaskSlot(taskName);
+        }
+        return slot;
+    }
+
+    private synchronized TaskSlot registerTaskSlot(String taskName) {
+        TaskSlot slot = taskSlots.get(taskName);
+        if (slot == null) {
+            slot = new TaskSlot(taskName);
+            taskSlots.put(taskName, slot);
+            taskSlotsInOrder.add(slot);
+        }
+        return slot;
     }
 
     @Override
     public void addValueToMetric(ProfilerType type, String taskName, long value) {
-        if (!taskThroughputMetrics.containsKey(taskName)) {
-            taskThroughputMetrics.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, Long> profilerType = taskThroughputMetrics.get(taskName);
-        profilerType.put(type, profilerType.get(type) != null ? profilerType.get(type) + value : value);
-        taskThroughputMetrics.put(taskName, profilerType);
+        accumulate(getTaskSlot(taskName).throughputMetrics, type.ordinal(), value);
     }
 
     @Override
     public void start(ProfilerType type) {
-        long start = System.nanoTime();
-        profilerTime.put(type, start);
+        profilerTime.set(type.ordinal(), System.nanoTime());
     }
 
     @Override
     public void start(ProfilerType type, String taskName) {
-        long start = System.nanoTime();
-        if (!taskTimers.containsKey(taskName)) {
-            taskTimers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, Long> profilerType = taskTimers.get(taskName);
-        profilerType.put(type, start);
-        taskTimers.put(taskName, profilerType);
+        getTaskSlot(taskName).timers.set(type.ordinal(), System.nanoTime());
     }
 
     @Override
     public void registerMethodHandle(ProfilerType type, String taskName, String methodName) {
-        if (!taskMethodNames.containsKey(taskName)) {
-            taskMethodNames.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskMethodNames.get(taskName);
-        profilerType.put(type, methodName);
-        taskMethodNames.put(methodName, profilerType);
+        getTaskSlot(taskName).methodName = methodName;
     }
 
     @Override
     public void registerDeviceName(String taskName, String deviceInfo) {
-        if (!taskDeviceIdentifiers.containsKey(taskName)) {
-            taskDeviceIdentifiers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskDeviceIdentifiers.get(taskName);
-        profilerType.put(ProfilerType.DEVICE, deviceInfo);
-        taskDeviceIdentifiers.put(taskName, profilerType);
+        getTaskSlot(taskName).deviceName = deviceInfo;
     }
 
     @Override
     public void registerBackend(String taskName, String backend) {
-        if (!taskBackends.containsKey(taskName)) {
-            taskBackends.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskBackends.get(taskName);
-
-        profilerType.put(ProfilerType.BACKEND, backend);
-        taskBackends.put(taskName, profilerType);
+        getTaskSlot(taskName).backend = backend;
     }
 
     @Override
     public void registerDeviceID(String taskName, String deviceID) {
-        if (!taskDeviceIdentifiers.containsKey(taskName)) {
-            taskDeviceIdentifiers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskDeviceIdentifiers.get(taskName);
-        profilerType.put(ProfilerType.DEVICE_ID, deviceID);
-        taskDeviceIdentifiers.put(taskName, profilerType);
+        getTaskSlot(taskName).deviceID = deviceID;
     }
 
     @Override
     public void stop(ProfilerType type) {
-        long end = System.nanoTime();
-        long start = profilerTime.get(type);
-        long total = end - start;
-        profilerTime.put(type, total);
+        stopTimer(profilerTime, type.ordinal(), System.nanoTime());
     }
 
     @Override
     public void stop(ProfilerType type, String taskName) {
-        long end = System.nanoTime();
-        HashMap<ProfilerType, Long> profiledType = taskTimers.get(taskName);
-        long start = profiledType.get(type);
-        long total = end - start;
-        profiledType.put(type, total);
-        taskTimers.put(taskName, profiledType);
+        stopTimer(getTaskSlot(taskName).timers, type.ordinal(), System.nanoTime());
     }
 
     @Override
     public long getTimer(ProfilerType type) {
-        if (!profilerTime.containsKey(type)) {
-            return 0;
-        }
-        return profilerTime.get(type);
+        return getValue(profilerTime, type.ordinal());
     }
 
     @Override
     public long getTaskTimer(ProfilerType type, String taskName) {
-        if (!taskTimers.containsKey(taskName)) {
+        TaskSlot slot = taskSlots.get(taskName);
+        if (slot == null) {
             return 0;
         }
-        if (!taskTimers.get(taskName).containsKey(type)) {
+        return getValue(slot.timers, type.ordinal());
+    }
+
+    @Override
+    public long getMetric(ProfilerType type, String taskName) {
+        TaskSlot slot = taskSlots.get(taskName);
+        if (slot == null) {
             return 0;
         }
-        return taskTimers.get(taskName).get(type);
+        return getValue(slot.throughputMetrics, type.ordinal());
     }
 
     @Override
     public void setTimer(ProfilerType type, long time) {
-        profilerTime.put(type, time);
+        profilerTime.set(type.ordinal(), time);
     }
 
     @Override
     public void dump() {
-        for (ProfilerType p : profilerTime.keySet()) {
-            System.out.println("[PROFILER] " + p.getDescription() + ": " + profilerTime.get(p));
+        for (ProfilerType p : TYPES) {
+            long value = profilerTime.get(p.ordinal());
+            if (value != UNSET) {
+                System.out.println("[PROFILER] " + p.getDescription() + ": " + value);
+            }
         }
 
-        for (String p : taskTimers.keySet()) {
-            System.out.println("[PROFILER-TASK] " + p + ": " + taskTimers.get(p));
-
+        for (TaskSlot slot : taskSlotsInOrder) {
+            if (hasValues(slot.timers)) {
+                StringBuilder timers = new StringBuilder("{");
+                for (ProfilerType p : TYPES) {
+                    long value = slot.timers.get(p.ordinal());
+                    if (value != UNSET) {
+                        timers.append(timers.length() > 1 ? ", " : "").append(p).append("=").append(value);
+                    }
+                }
+                System.out.println("[PROFILER-TASK] " + slot.taskName + ": " + timers.append("}"));
+            }
         }
     }
 
-    private void increaseIndent() {
-        indent.append("    ");
-    }
-
-    private void decreaseIndent() {
-        indent.delete(indent.length() - 4, indent.length());
-    }
-
-    private void closeScope(StringBuffer json) {
-        json.append(indent.toString() + "}");
-    }
-
-    private void newLine(StringBuffer json) {
-        json.append("\n");
+    private static void appendValues(StringBuffer json, String indent, AtomicLongArray values) {
+        for (ProfilerType p : TYPES) {
+            long value = values.get(p.ordinal());
+            if (value != UNSET) {
+                json.append(indent + "\"" + p + "\"" + ": " + "\"" + value + "\",\n");
+            }
+        }
     }
 
     @Override
     public String createJson(StringBuffer json, String sectionName) {
+        final String indent1 = "    ";
+        final String indent2 = indent1 + indent1;
+        final String indent3 = indent2 + indent1;
         json.append("{\n");
-        increaseIndent();
-        json.append(indent.toString() + "\"" + sectionName + "\": " + "{\n");
-        increaseIndent();
-        for (ProfilerType p : profilerTime.keySet()) {
-            json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + profilerTime.get(p) + "\",\n");
+        json.append(indent1 + "\"" + sectionName + "\": " + "{\n");
+        appendValues(json, indent2, profilerTime);
+        TaskSlot noTask = taskSlots.get(NO_TASK_NAME);
+        if (noTask != null) {
+            appendValues(json, indent2, noTask.throughputMetrics);
         }
-        if (taskThroughputMetrics.containsKey(NO_TASK_NAME)) {
-            HashMap<ProfilerType, Long> noTaskValues = taskThroughputMetrics.get(NO_TASK_NAME);
-            for (ProfilerType p : noTaskValues.keySet()) {
-                json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + noTaskValues.get(p) + "\",\n");
+
+        int size = 0;
+        for (TaskSlot slot : taskSlotsInOrder) {
+            if (hasValues(slot.timers)) {
+                size++;
             }
         }
-
-        final int size = taskTimers.keySet().size();
         int counter = 0;
-        for (String p : taskTimers.keySet()) {
-            json.append(indent.toString() + "\"" + p + "\"" + ": {\n");
-            increaseIndent();
+        for (TaskSlot slot : taskSlotsInOrder) {
+            if (!hasValues(slot.timers)) {
+                continue;
+            }
+            json.append(indent2 + "\"" + slot.taskName + "\"" + ": {\n");
             counter++;
             if (TornadoOptions.LOG_IP) {
-                json.append(indent.toString() + "\"" + "IP" + "\"" + ": " + "\"" + RuntimeUtilities.getTornadoInstanceIP() + "\",\n");
-            }
-            json.append(indent.toString() + "\"" + ProfilerType.BACKEND + "\"" + ": " + "\"" + taskBackends.get(p).get(ProfilerType.BACKEND) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.METHOD + "\"" + ": " + "\"" + taskMethodNames.get(p).get(ProfilerType.METHOD) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.DEVICE_ID + "\"" + ": " + "\"" + taskDeviceIdentifiers.get(p).get(ProfilerType.DEVICE_ID) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.DEVICE + "\"" + ": " + "\"" + taskDeviceIdentifiers.get(p).get(ProfilerType.DEVICE) + "\",\n");
-            if (taskThroughputMetrics.containsKey(p)) {
-                for (ProfilerType p1 : taskThroughputMetrics.get(p).keySet()) {
-                    json.append(indent.toString() + "\"" + p1 + "\"" + ": " + "\"" + taskThroughputMetrics.get(p).get(p1) + "\",\n");
-                }
-            }
-            for (ProfilerType p2 : taskTimers.get(p).keySet()) {
-                json.append(indent.toString() + "\"" + p2 + "\"" + ": " + "\"" + taskTimers.get(p).get(p2) + "\",\n");
+                json.append(indent3 + "\"" + "IP" + "\"" + ": " + "\"" + RuntimeUtilities.getTornadoInstanceIP() + "\",\n");
             }
+            json.append(indent3 + "\"" + ProfilerType.BACKEND + "\"" + ": " + "\"" + slot.backend + "\",\n");
+            json.append(indent3 + "\"" + ProfilerType.METHOD + "\"" + ": " + "\"" + slot.methodName + "\",\n");
+            json.append(indent3 + "\"" + ProfilerType.DEVICE_ID + "\"" + ": " + "\"" + slot.deviceID + "\",\n");
+            json.append(indent3 + "\"" + ProfilerType.DEVICE + "\"" + ": " + "\"" + slot.deviceName + "\",\n");
+            appendValues(json, indent3, slot.throughputMetrics);
+            appendValues(json, indent3, slot.timers);
             json.delete(json.length() - 2, json.length() - 1); // remove last comma
-            decreaseIndent();
-            closeScope(json);
+            json.append(indent2 + "}");
             if (counter != size) {
                 json.append(", ");
             }
-            newLine(json);
+            json.append("\n");
         }
-        decreaseIndent();
-        closeScope(json);
-        newLine(json);
-        decreaseIndent();
-        closeScope(json);
-        newLine(json);
+        json.append(indent1 + "}\n");
+        json.append("}\n");
         return json.toString();
     }
 
@@ -259,24 +300,49 @@ public class TimeProfiler implements TornadoProfiler {
 
     @Override
     public void clean() {
-        taskThroughputMetrics.clear();
-        profilerTime.clear();
-        taskTimers.clear();
-        indent = new StringBuffer("");
+        clear(profilerTime);
+        for (TaskSlot slot : taskSlotsInOrder) {
+            clear(slot.timers);
+            clear(slot.throughputMetrics);
+        }
+    }
+
+    /**
+     * Records every value set in this profiler into the histograms of the
+     * registry. Task-graph timers and the metrics of {@link #NO_TASK_NAME} are
+     * recorded under {@link ProfilerMetricsRegistry#GRAPH_LEVEL}.
+     *
+     * @param taskGraphName
+     *            Name of the task-graph that owns this profiler.
+     * @param registry
+     *            {@link ProfilerMetricsRegistry}
+     */
+    public void publishMetrics(String taskGraphName, ProfilerMetricsRegistry registry) {
+        publishValues(taskGraphName, ProfilerMetricsRegistry.GRAPH_LEVEL, profilerTime, registry);
+        for (TaskSlot slot : taskSlotsInOrder) {
+            String task = NO_TASK_NAME.equals(slot.taskName) ? ProfilerMetricsRegistry.GRAPH_LEVEL : slot.taskName;
+            publishValues(taskGraphName, task, slot.throughputMetrics, registry);
+            publishValues(taskGraphName, task, slot.timers, registry);
+        }
+    }
+
+    private static void publishValues(String taskGraphName, String task, AtomicLongArray values, ProfilerMetricsRegistry registry) {
+        for (ProfilerType p : TYPES) {
+            long value = values.get(p.ordinal());
+            if (value != UNSET && ProfilerMetricsRegistry.isNumeric(p)) {
+                registry.record(taskGraphName, task, p, value);
+            }
+        }
     }
 
     @Override
     public void setTaskTimer(ProfilerType type, String taskID, long timer) {
-        if (!taskTimers.containsKey(taskID)) {
-            taskTimers.put(taskID, new HashMap<>());
-        }
-        taskTimers.get(taskID).put(type, timer);
+        getTaskSlot(taskID).timers.set(type.ordinal(), timer);
     }
 
     @Override
     public void sum(ProfilerType acc, long value) {
-        long sum = getTimer(acc) + value;
-        profilerTime.put(acc, sum);
+        accumulate(profilerTime, acc.ordinal(), value);
     }
 
 }
@@ -25,6 +25,8 @@
  */
 package uk.ac.manchester.tornado.runtime.sketcher;
 
+import java.util.List;
+
 import org.graalvm.compiler.graph.CachedGraph;
 import uk.ac.manchester.tornado.api.common.Access;
 
@@ -38,9 +40,16 @@ public class Sketch {
      */
     private final Access[] argumentsAccess;
 
-    Sketch(CachedGraph<?> graph, Access[] argumentAccesses) {
+    /**
+     * Pairs of parameters that must not share an array for the loops parallelised
+     * by the auto-paralleliser to be correct.
+     */
+    private final List<int[]> distinctParameters;
+
+    Sketch(CachedGraph<?> graph, Access[] argumentAccesses, List<int[]> distinctParameters) {
         this.graph = graph;
         this.argumentsAccess = argumentAccesses;
+        this.distinctParameters = distinctParameters;
     }
 
     public CachedGraph<?> getGraph() {
@@ -51,4 +60,8 @@ public class Sketch {
         return argumentsAccess;
     }
 
+    public List<int[]> getDistinctParameters() {
+        return distinctParameters;
+    }
+
 }
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.sketcher;
+
+/**
+ * Snapshot of the state of the {@link TornadoSketcher} cache.
+ */
+public class SketchCacheStatistics {
+
+    private final int entries;
+    private final long residentNodes;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long buildTime;
+
+    SketchCacheStatistics(int entries, long residentNodes, long hits, long misses, long evictions, long buildTime) {
+        this.entries = entries;
+        this.residentNodes = residentNodes;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.buildTime = buildTime;
+    }
+
+    /**
+     * Number of sketches in the cache.
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Number of Graal nodes held by the sketches in the cache.
+     */
+    public long getResidentNodes() {
+        return residentNodes;
+    }
+
+    /**
+     * Number of sketch requests served from the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of sketches built, including the ones built again by a lookup after
+     * they were evicted or invalidated.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Accumulated time, in nanoseconds, spent building sketches.
+     */
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sketches=%d, nodes=%d, hits=%d, misses=%d, evictions=%d, buildTime=%d ns", entries, residentNodes, hits, misses, evictions, buildTime);
+    }
+}
@@ -41,13 +41,25 @@ public class SketchRequest {
     final PhaseSuite<HighTierContext> graphBuilderSuite;
     final TornadoSketchTier sketchTier;
 
+    /**
+     * Class loader of the task that requested the sketch. It is used to invalidate
+     * the sketches of dynamically loaded classes.
+     */
+    final ClassLoader classLoader;
+
     public SketchRequest(ResolvedJavaMethod resolvedMethod, Providers providers, PhaseSuite<HighTierContext> graphBuilderSuite, TornadoSketchTier sketchTier, int driverIndex, int deviceIndex) {
+        this(resolvedMethod, providers, graphBuilderSuite, sketchTier, driverIndex, deviceIndex, null);
+    }
+
+    public SketchRequest(ResolvedJavaMethod resolvedMethod, Providers providers, PhaseSuite<HighTierContext> graphBuilderSuite, TornadoSketchTier sketchTier, int driverIndex, int deviceIndex,
+            ClassLoader classLoader) {
         this.resolvedMethod = resolvedMethod;
         this.providers = providers;
         this.graphBuilderSuite = graphBuilderSuite;
         this.sketchTier = sketchTier;
         this.driverIndex = driverIndex;
         this.deviceIndex = deviceIndex;
+        this.classLoader = classLoader;
     }
 
     public void run() {
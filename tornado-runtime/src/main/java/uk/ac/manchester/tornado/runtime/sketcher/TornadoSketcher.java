@@ -44,51 +44,88 @@ import org.graalvm.compiler.phases.PhaseSuite;
 import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
 import org.graalvm.compiler.phases.tiers.HighTierContext;
 import org.graalvm.compiler.phases.util.Providers;
-import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.TornadoAcceleratorDriver;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoCompilerIdentifier;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSketchTier;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSuitesProvider;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoSketchTierContext;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import static org.graalvm.compiler.phases.common.DeadCodeEliminationPhase.Optionality.Optional;
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guarantee;
 import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
 import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getOptions;
 import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoExecutor;
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoRuntime;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.fatal;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.info;
 
 public class TornadoSketcher {
 
-    private static class TornadoSketcherCacheEntry {
+    private static class SketchKey {
 
+        private final ResolvedJavaMethod method;
         private final int driverIndex;
         private final int deviceIndex;
-        private final Future<Sketch> sketchFuture;
 
-        private TornadoSketcherCacheEntry(int driverIndex, int deviceIndex, Future<Sketch> sketchFuture) {
+        private SketchKey(ResolvedJavaMethod method, int driverIndex, int deviceIndex) {
+            this.method = method;
             this.driverIndex = driverIndex;
             this.deviceIndex = deviceIndex;
-            this.sketchFuture = sketchFuture;
         }
 
-        public boolean matchesDriverAndDevice(int driverIndex, int deviceIndex) {
-            return this.driverIndex == driverIndex && this.deviceIndex == deviceIndex;
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SketchKey)) {
+                return false;
+            }
+            SketchKey other = (SketchKey) obj;
+            return method.equals(other.method) && driverIndex == other.driverIndex && deviceIndex == other.deviceIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, driverIndex, deviceIndex);
+        }
+    }
+
+    private static class TornadoSketcherCacheEntry {
+
+        private final FutureTask<Sketch> sketchFuture;
+        private final ClassLoader classLoader;
+
+        /**
+         * Number of nodes of the sketch graph, or -1 while the sketch is being built.
+         */
+        private int nodeCount;
+        private boolean removed;
+
+        private TornadoSketcherCacheEntry(SketchRequest request) {
+            this.sketchFuture = new FutureTask<>(new TornadoSketcherCallable(request, this));
+            this.classLoader = request.classLoader;
+            this.nodeCount = -1;
+        }
+
+        private boolean isBuilt() {
+            return nodeCount >= 0;
         }
 
         public Future<Sketch> getSketchFuture() {
@@ -98,7 +135,17 @@ public class TornadoSketcher {
 
     private static final AtomicInteger sketchId = new AtomicInteger(0);
 
-    private static final Map<ResolvedJavaMethod, List<TornadoSketcherCacheEntry>> cache = new ConcurrentHashMap<>();
+    /**
+     * Sketches in least-recently-used order. All accesses are synchronized on the
+     * map itself.
+     */
+    private static final LinkedHashMap<SketchKey, TornadoSketcherCacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static long residentNodes;
+    private static long hits;
+    private static long misses;
+    private static long evictions;
+    private static long buildTime;
 
     private static final TimerKey Sketcher = DebugContext.timer("Sketcher");
 
@@ -125,35 +172,27 @@ public class TornadoSketcher {
         openCLTokens.add("complex");
     }
 
-    private static boolean cacheContainsSketch(ResolvedJavaMethod method, int driverIndex, int deviceIndex) {
-        List<TornadoSketcherCacheEntry> entries = cache.get(method);
-        if (entries == null) {
-            return false;
-        }
-
-        synchronized (entries) {
-            for (TornadoSketcherCacheEntry entry : entries) {
-                if (entry.matchesDriverAndDevice(driverIndex, deviceIndex)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
+    /**
+     * Returns the sketch of a method for the given device. The access was already
+     * counted by the {@link SketchRequest} of the sketch, so a lookup is only
+     * counted when the sketch has been evicted or invalidated since it was
+     * requested: it is then built again and recorded as a miss.
+     */
     public static Sketch lookup(ResolvedJavaMethod resolvedMethod, int driverIndex, int deviceIndex) {
         Sketch sketch = null;
-        guarantee(cache.containsKey(resolvedMethod), "cache miss for: %s", resolvedMethod.getName());
-        List<TornadoSketcherCacheEntry> entries = cache.get(resolvedMethod);
+        final SketchKey key = new SketchKey(resolvedMethod, driverIndex, deviceIndex);
+        TornadoSketcherCacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry == null) {
+            info("Building again the sketch of %s", resolvedMethod.getName());
+            TornadoAcceleratorDriver driver = getTornadoRuntime().getDriver(driverIndex);
+            TornadoSuitesProvider suites = driver.getSuitesProvider();
+            entry = buildSketch(new SketchRequest(resolvedMethod, driver.getProviders(), suites.getGraphBuilderSuite(), suites.getSketchTier(), driverIndex, deviceIndex));
+        }
         try {
-            synchronized (entries) {
-                for (TornadoSketcherCacheEntry entry : entries) {
-                    if (entry.matchesDriverAndDevice(driverIndex, deviceIndex)) {
-                        sketch = entry.getSketchFuture().get();
-                        break;
-                    }
-                }
-            }
+            sketch = entry.getSketchFuture().get();
             guarantee(sketch != null, "No sketch available for %d:%d %s", driverIndex, deviceIndex, resolvedMethod.getName());
         } catch (InterruptedException | ExecutionException e) {
             fatal("Failed to retrieve sketch for %d:%d %s ", driverIndex, deviceIndex, resolvedMethod.getName());
@@ -171,33 +210,140 @@ public class TornadoSketcher {
         return sketch;
     }
 
+    /**
+     * Removes the sketches of a method for all devices.
+     */
+    public static void invalidate(ResolvedJavaMethod resolvedMethod) {
+        invalidateIf(key -> key.method.equals(resolvedMethod), entry -> true);
+    }
+
+    /**
+     * Removes the sketches of all task methods loaded by the given class loader,
+     * including their callees.
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        invalidateIf(key -> true, entry -> entry.classLoader == classLoader);
+    }
+
+    /**
+     * Removes all the sketches built for a device.
+     */
+    public static void invalidate(int driverIndex, int deviceIndex) {
+        invalidateIf(key -> key.driverIndex == driverIndex && key.deviceIndex == deviceIndex, entry -> true);
+    }
+
+    public static void invalidateAll() {
+        invalidateIf(key -> true, entry -> true);
+    }
+
+    private static void invalidateIf(Predicate<SketchKey> keyFilter, Predicate<TornadoSketcherCacheEntry> entryFilter) {
+        synchronized (cache) {
+            Iterator<Map.Entry<SketchKey, TornadoSketcherCacheEntry>> iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<SketchKey, TornadoSketcherCacheEntry> mapEntry = iterator.next();
+                if (keyFilter.test(mapEntry.getKey()) && entryFilter.test(mapEntry.getValue())) {
+                    iterator.remove();
+                    remove(mapEntry.getValue());
+                }
+            }
+        }
+    }
+
+    private static void remove(TornadoSketcherCacheEntry entry) {
+        entry.removed = true;
+        if (entry.isBuilt()) {
+            residentNodes -= entry.nodeCount;
+        }
+    }
+
+    /**
+     * Evicts the least recently used sketches until the cache fits in the maximum
+     * number of sketches and graph nodes. Sketches still being built are kept.
+     */
+    private static void evict() {
+        synchronized (cache) {
+            Iterator<TornadoSketcherCacheEntry> iterator = cache.values().iterator();
+            while ((cache.size() > TornadoOptions.SKETCHER_CACHE_SIZE || residentNodes > TornadoOptions.SKETCHER_CACHE_NODES) && iterator.hasNext()) {
+                TornadoSketcherCacheEntry entry = iterator.next();
+                if (entry.isBuilt()) {
+                    iterator.remove();
+                    remove(entry);
+                    evictions++;
+                }
+            }
+        }
+    }
+
+    private static void sketchBuilt(TornadoSketcherCacheEntry entry, int nodeCount, long time) {
+        synchronized (cache) {
+            entry.nodeCount = nodeCount;
+            buildTime += time;
+            if (!entry.removed) {
+                residentNodes += nodeCount;
+            }
+        }
+        evict();
+    }
+
+    public static SketchCacheStatistics getStatistics() {
+        synchronized (cache) {
+            return new SketchCacheStatistics(cache.size(), residentNodes, hits, misses, evictions, buildTime);
+        }
+    }
+
     private static class TornadoSketcherCallable implements Callable<Sketch> {
         private final SketchRequest request;
+        private final TornadoSketcherCacheEntry entry;
 
-        public TornadoSketcherCallable(SketchRequest request) {
+        public TornadoSketcherCallable(SketchRequest request, TornadoSketcherCacheEntry entry) {
             this.request = request;
+            this.entry = entry;
         }
 
         @Override
         public Sketch call() throws Exception {
+            final long start = System.nanoTime();
+            int nodeCount = 0;
             try (DebugContext.Scope ignored = getDebugContext().scope("SketchCompiler")) {
-                return buildSketch(request.resolvedMethod, request.providers, request.graphBuilderSuite, request.sketchTier, request.driverIndex, request.deviceIndex);
+                Sketch sketch = build(request);
+                nodeCount = sketch.getGraph().getReadonlyCopy().getNodeCount();
+                return sketch;
             } catch (Throwable e) {
                 throw getDebugContext().handle(e);
+            } finally {
+                sketchBuilt(entry, nodeCount, System.nanoTime() - start);
             }
         }
     }
 
-    static void buildSketch(SketchRequest request) {
-        if (cacheContainsSketch(request.resolvedMethod, request.driverIndex, request.deviceIndex)) {
-            return;
+    /**
+     * Returns the cache entry of the requested sketch, and starts building it if
+     * it is not in the cache. Each call counts as one hit or one miss.
+     */
+    static TornadoSketcherCacheEntry buildSketch(SketchRequest request) {
+        final SketchKey key = new SketchKey(request.resolvedMethod, request.driverIndex, request.deviceIndex);
+        TornadoSketcherCacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+            misses++;
+            entry = new TornadoSketcherCacheEntry(request);
+            cache.put(key, entry);
         }
-        List<TornadoSketcherCacheEntry> sketches = cache.computeIfAbsent(request.resolvedMethod, k -> Collections.synchronizedList(new ArrayList<>(TornadoVMBackendType.values().length)));
-        Future<Sketch> result = getTornadoExecutor().submit(new TornadoSketcherCallable(request));
-        sketches.add(new TornadoSketcherCacheEntry(request.driverIndex, request.deviceIndex, result));
+        getTornadoExecutor().execute(entry.sketchFuture);
+        return entry;
     }
 
-    private static Sketch buildSketch(ResolvedJavaMethod resolvedMethod, Providers providers, PhaseSuite<HighTierContext> graphBuilderSuite, TornadoSketchTier sketchTier, int driverIndex, int deviceIndex) {
+    private static Sketch build(SketchRequest request) {
+        final ResolvedJavaMethod resolvedMethod = request.resolvedMethod;
+        final Providers providers = request.providers;
+        final PhaseSuite<HighTierContext> graphBuilderSuite = request.graphBuilderSuite;
+        final TornadoSketchTier sketchTier = request.sketchTier;
+        final int driverIndex = request.driverIndex;
+        final int deviceIndex = request.deviceIndex;
         info("Building sketch of %s", resolvedMethod.getName());
         TornadoCompilerIdentifier id = new TornadoCompilerIdentifier("sketch-" + resolvedMethod.getName(), sketchId.getAndIncrement());
         Builder builder = new Builder(getOptions(), getDebugContext(), AllowAssumptions.YES);
@@ -230,7 +376,8 @@ public class TornadoSketcher {
                             throw new TornadoRuntimeException(
                                     "[ERROR] Java method name corresponds to an OpenCL Token. Change the Java method's name: " + invoke.callTarget().targetMethod().getName());
                         }
-                        SketchRequest newRequest = new SketchRequest(invoke.callTarget().targetMethod(), providers, graphBuilderSuite, sketchTier, driverIndex, deviceIndex);
+                        SketchRequest newRequest = new SketchRequest(invoke.callTarget().targetMethod(), providers, graphBuilderSuite, sketchTier, driverIndex, deviceIndex,
+                                request.classLoader);
                         buildSketch(newRequest);
                     });
 
@@ -241,7 +388,7 @@ public class TornadoSketcher {
                 mergeAccesses(methodAccesses, invoke.callTarget(), sketch.getArgumentsAccess());
             });
 
-            return new Sketch(CachedGraph.fromReadonlyCopy(graph), methodAccesses);
+            return new Sketch(CachedGraph.fromReadonlyCopy(graph), methodAccesses, highTierContext.getDistinctParameters());
 
         } catch (Throwable e) {
             fatal("unable to build sketch for method: %s (%s)", resolvedMethod.getName(), e.getMessage());
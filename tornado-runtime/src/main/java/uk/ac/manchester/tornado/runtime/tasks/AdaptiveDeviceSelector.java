@@ -0,0 +1,139 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.util.HashMap;
+
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Online device selection for the {@link uk.ac.manchester.tornado.api.Policy#ADAPTIVE} policy.
+ * It keeps an exponentially decayed estimate of the execution time of each
+ * contender (devices and the JVM) per input-size bucket. Buckets are powers of
+ * two of the maximum input size.
+ *
+ * In each bucket, every contender is first executed once as warm-up (not
+ * measured, since it may include the JIT compilation or the allocation of
+ * buffers of the new size) and then once more to obtain its first estimate.
+ * After that, the contender with the lowest estimate is selected, except every
+ * {@code probePeriod} executions, where the contender with the oldest estimate
+ * is probed again. The execution migrates to another device as soon as its
+ * estimate becomes lower than the current one.
+ */
+public class AdaptiveDeviceSelector {
+
+    private final int numContenders;
+    private final double decay;
+    private final int probePeriod;
+    private final HashMap<Integer, Bucket> buckets;
+
+    private static class Bucket {
+        private final boolean[] warmedUp;
+        private final double[] estimates;
+        private final int[] samples;
+        private final long[] lastSample;
+        private long executions;
+        private int best;
+
+        Bucket(int numContenders) {
+            warmedUp = new boolean[numContenders];
+            estimates = new double[numContenders];
+            samples = new int[numContenders];
+            lastSample = new long[numContenders];
+            best = -1;
+        }
+    }
+
+    public AdaptiveDeviceSelector(int numContenders, double decay, int probePeriod) {
+        this.numContenders = numContenders;
+        this.decay = decay;
+        this.probePeriod = probePeriod;
+        this.buckets = new HashMap<>();
+    }
+
+    private static int bucketOf(int inputSize) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(inputSize, 1) - 1);
+    }
+
+    private Bucket getBucket(int inputSize) {
+        return buckets.computeIfAbsent(bucketOf(inputSize), k -> new Bucket(numContenders));
+    }
+
+    /**
+     * Returns the index of the contender to use for the next execution. The last
+     * index corresponds to the sequential execution in the JVM.
+     */
+    public synchronized int select(int inputSize) {
+        final Bucket bucket = getBucket(inputSize);
+        bucket.executions++;
+
+        // Explore all contenders first
+        for (int i = 0; i < numContenders; i++) {
+            if (bucket.samples[i] == 0) {
+                return i;
+            }
+        }
+
+        int best = 0;
+        for (int i = 1; i < numContenders; i++) {
+            if (bucket.estimates[i] < bucket.estimates[best]) {
+                best = i;
+            }
+        }
+        if (best != bucket.best) {
+            if (TornadoOptions.DEBUG_POLICY) {
+                System.out.println("[Adaptive] Input size bucket 2^" + bucketOf(inputSize) + ": migrating from contender #" + bucket.best + " to #" + best);
+            }
+            bucket.best = best;
+        }
+
+        if (probePeriod > 0 && numContenders > 1 && bucket.executions % probePeriod == 0) {
+            int probe = -1;
+            for (int i = 0; i < numContenders; i++) {
+                if (i != best && (probe == -1 || bucket.lastSample[i] < bucket.lastSample[probe])) {
+                    probe = i;
+                }
+            }
+            return probe;
+        }
+        return best;
+    }
+
+    /**
+     * Updates the estimate of a contender with the elapsed time of an execution.
+     */
+    public synchronized void record(int inputSize, int contender, long elapsedTime) {
+        final Bucket bucket = getBucket(inputSize);
+        if (!bucket.warmedUp[contender]) {
+            bucket.warmedUp[contender] = true;
+            return;
+        }
+        if (bucket.samples[contender] == 0) {
+            bucket.estimates[contender] = elapsedTime;
+        } else {
+            bucket.estimates[contender] = decay * elapsedTime + (1 - decay) * bucket.estimates[contender];
+        }
+        bucket.samples[contender]++;
+        bucket.lastSample[contender] = bucket.executions;
+    }
+}
@@ -25,6 +25,8 @@
  */
 package uk.ac.manchester.tornado.runtime.tasks;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
@@ -53,6 +55,35 @@ public class GlobalObjectState implements TornadoGlobalObjectState {
         deviceStates.clear();
     }
 
+    /**
+     * Detaches the states that hold a buffer on each device, so the buffers can
+     * be released later. It is used once the host object has been garbage
+     * collected.
+     *
+     * @return the device states with a buffer, per device.
+     */
+    public Map<TornadoAcceleratorDevice, DeviceObjectState> detachDeviceBuffers() {
+        Map<TornadoAcceleratorDevice, DeviceObjectState> buffers = new HashMap<>();
+        for (Map.Entry<TornadoAcceleratorDevice, DeviceObjectState> entry : deviceStates.entrySet()) {
+            DeviceObjectState state = entry.getValue();
+            if (state.hasObjectBuffer() && !state.isAtomicRegionPresent()) {
+                buffers.put(entry.getKey(), state);
+            }
+        }
+        deviceStates.clear();
+        return buffers;
+    }
+
+    /**
+     * Records a range of elements modified on the host for all the devices that
+     * hold a copy of the object.
+     */
+    public void markDirtyRange(long from, long to) {
+        for (DeviceObjectState state : deviceStates.values()) {
+            state.markDirtyRange(from, to);
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -29,6 +29,7 @@ import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getTornadoRunt
 
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
 
 public class LocalObjectState {
@@ -36,6 +37,8 @@ public class LocalObjectState {
     private boolean streamIn;
     private boolean forceStreamIn;
     private boolean streamOut;
+    private boolean streamOutUnderDemand;
+    private boolean pendingStreamOut;
 
     private final GlobalObjectState global;
 
@@ -69,16 +72,44 @@ public class LocalObjectState {
         this.streamOut = streamOut;
     }
 
+    public boolean isStreamOutUnderDemand() {
+        return streamOutUnderDemand;
+    }
+
+    public void setStreamOutUnderDemand(boolean streamOutUnderDemand) {
+        this.streamOutUnderDemand = streamOutUnderDemand;
+    }
+
+    /**
+     * Marks that the device holds a copy of the object more recent than the host
+     * one. Only used for objects copied out under demand.
+     */
+    public void setPendingStreamOut(boolean pendingStreamOut) {
+        this.pendingStreamOut = pendingStreamOut;
+    }
+
+    public boolean isPendingStreamOut() {
+        return pendingStreamOut;
+    }
+
     public GlobalObjectState getGlobalState() {
         return global;
     }
 
     public Event sync(Object object, TornadoDevice device) {
         DeviceObjectState objectState = global.getDeviceState(device);
+        if (streamOutUnderDemand && !pendingStreamOut) {
+            // The host copy is already up to date
+            return null;
+        }
         if (objectState.isLockedBuffer()) {
+            pendingStreamOut = false;
             int eventId = device.streamOutBlocking(object, 0, objectState, null);
             return device.resolveEvent(eventId);
         }
+        if (pendingStreamOut) {
+            throw new TornadoRuntimeException("[ERROR] The device buffer of the object was released before its results were copied out");
+        }
         return null;
     }
 
@@ -0,0 +1,265 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+
+/**
+ * Registry that maps host objects to their {@link GlobalObjectState}.
+ *
+ * <p>
+ * Objects are compared by identity, so two different arrays with the same
+ * contents never share device buffers. Keys are weak: once a host object is
+ * garbage collected, its entry is removed the next time the registry is
+ * accessed, and the device buffers of the object are queued for release.
+ * Commands enqueued before the collection may still use those buffers, so they
+ * are only returned to the buffer provider of each device by
+ * {@link #releasePendingBuffers}, after the device has finished its queues.
+ * </p>
+ *
+ * <p>
+ * The registry is split into stripes, each one guarded by its own lock, so
+ * task-graphs built from different threads do not contend on a single lock.
+ * </p>
+ */
+public class ObjectStateRegistry {
+
+    private static final int NUM_STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final ReferenceQueue<Object> collectedObjects;
+    private final AtomicLong evictedObjects;
+    private final AtomicLong releasedBuffers;
+    private final ConcurrentHashMap<TornadoAcceleratorDevice, ConcurrentLinkedQueue<DeviceObjectState>> pendingReleases;
+
+    private static final class Stripe {
+        private final HashMap<Object, GlobalObjectState> states = new HashMap<>();
+    }
+
+    /**
+     * Weak key stored in the registry. The hash is computed on creation, so the
+     * key can still be found and removed after the referent is collected.
+     */
+    private static final class WeakIdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        WeakIdentityKey(Object referent, int hash, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof WeakIdentityKey) {
+                Object referent = get();
+                return referent != null && referent == ((WeakIdentityKey) obj).get();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Strong key used for lookups.
+     */
+    private static final class LookupKey {
+        private final Object referent;
+        private final int hash;
+
+        LookupKey(Object referent, int hash) {
+            this.referent = referent;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof WeakIdentityKey && ((WeakIdentityKey) obj).get() == referent;
+        }
+    }
+
+    public ObjectStateRegistry() {
+        stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        collectedObjects = new ReferenceQueue<>();
+        evictedObjects = new AtomicLong();
+        releasedBuffers = new AtomicLong();
+        pendingReleases = new ConcurrentHashMap<>();
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & (NUM_STRIPES - 1)];
+    }
+
+    /**
+     * Returns the state of an object, creating it on the first lookup.
+     *
+     * @param object
+     *            Host object.
+     * @return {@link GlobalObjectState}
+     */
+    public GlobalObjectState resolve(Object object) {
+        expungeCollectedObjects();
+        final int hash = System.identityHashCode(object);
+        final Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            GlobalObjectState state = stripe.states.get(new LookupKey(object, hash));
+            if (state == null) {
+                state = new GlobalObjectState();
+                stripe.states.put(new WeakIdentityKey(object, hash, collectedObjects), state);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Removes the entries of the objects that have been garbage collected and
+     * queues their device buffers for release.
+     */
+    public void expungeCollectedObjects() {
+        Reference<?> reference;
+        while ((reference = collectedObjects.poll()) != null) {
+            final WeakIdentityKey key = (WeakIdentityKey) reference;
+            final Stripe stripe = stripeFor(key.hash);
+            final GlobalObjectState state;
+            synchronized (stripe) {
+                state = stripe.states.remove(key);
+            }
+            if (state != null) {
+                evictedObjects.incrementAndGet();
+                for (Map.Entry<TornadoAcceleratorDevice, DeviceObjectState> entry : state.detachDeviceBuffers().entrySet()) {
+                    pendingReleases.computeIfAbsent(entry.getKey(), device -> new ConcurrentLinkedQueue<>()).add(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the buffers queued for a device. If there is any, it first waits
+     * for the commands enqueued on the device by all host threads, since they may
+     * still use the buffers. It must be called from a thread that can use the
+     * device, after a synchronization point of its own commands.
+     *
+     * @param device
+     *            Device that owns the buffers.
+     * @return number of buffers released.
+     */
+    public int releasePendingBuffers(TornadoAcceleratorDevice device) {
+        final ConcurrentLinkedQueue<DeviceObjectState> pending = pendingReleases.get(device);
+        if (pending == null || pending.isEmpty()) {
+            return 0;
+        }
+
+        // Buffers queued after the synchronization are left for the next call
+        final int numPending = pending.size();
+        device.syncAllStreams();
+        int released = 0;
+        DeviceObjectState state;
+        while (released < numPending && (state = pending.poll()) != null) {
+            state.setLockBuffer(false);
+            device.deallocate(state);
+            released++;
+        }
+        releasedBuffers.addAndGet(released);
+        if (Tornado.DEBUG && released > 0) {
+            System.out.println("[DEBUG] Released " + released + " device buffers of collected objects");
+        }
+        return released;
+    }
+
+    /**
+     * @return number of buffers of collected objects that are waiting to be
+     *         released on a device.
+     */
+    public int getNumPendingBuffers(TornadoAcceleratorDevice device) {
+        final ConcurrentLinkedQueue<DeviceObjectState> pending = pendingReleases.get(device);
+        return (pending == null) ? 0 : pending.size();
+    }
+
+    /**
+     * Drops all the entries without releasing their device buffers.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (GlobalObjectState state : stripe.states.values()) {
+                    state.clear();
+                }
+                stripe.states.clear();
+            }
+        }
+        pendingReleases.clear();
+    }
+
+    /**
+     * @return number of objects in the registry, including collected objects
+     *         that have not been expunged yet.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.states.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return number of entries removed because their host object was collected.
+     */
+    public long getEvictedObjects() {
+        return evictedObjects.get();
+    }
+
+    /**
+     * @return number of device buffers released for collected objects.
+     */
+    public long getReleasedBuffers() {
+        return releasedBuffers.get();
+    }
+}
@@ -47,7 +47,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -58,11 +64,13 @@ import org.graalvm.compiler.phases.util.Providers;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.AbstractTaskGraph;
+import uk.ac.manchester.tornado.api.DynamicReconfigurationResult;
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.Policy;
 import uk.ac.manchester.tornado.api.TaskGraph;
 import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.collections.types.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -107,10 +115,12 @@ import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSuitesProvider;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraph;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphBuilder;
+import uk.ac.manchester.tornado.runtime.graph.TornadoTaskFusion;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMGraphCompilationResult;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMGraphCompiler;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextNode;
 import uk.ac.manchester.tornado.runtime.profiler.EmptyProfiler;
+import uk.ac.manchester.tornado.runtime.profiler.ProfilerMetricsRegistry;
 import uk.ac.manchester.tornado.runtime.profiler.TimeProfiler;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.SketchRequest;
@@ -161,11 +171,24 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
     private ArrayList<TaskPackage> taskPackages = new ArrayList<>();
     private ArrayList<Object> streamOutObjects = new ArrayList<>();
     private ArrayList<Object> streamInObjects = new ArrayList<>();
+    private ArrayList<Object> underDemandObjects = new ArrayList<>();
 
     private HashSet<Object> argumentsLookUp = new HashSet<>();
 
     private ArrayList<StreamingObject> streamingInputObjects = new ArrayList<>();
     private ConcurrentHashMap<Policy, Integer> policyTimeTable = new ConcurrentHashMap<>();
+    private DynamicReconfigurationResult reconfigurationResult;
+    private AdaptiveDeviceSelector adaptiveSelector;
+
+    /**
+     * Threads that run the contenders of the dynamic reconfiguration races. They
+     * are reused across races.
+     */
+    private static final ExecutorService reconfigurationExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "TornadoVM-Dynamic-Reconfiguration");
+        thread.setDaemon(true);
+        return thread;
+    });
     private ConcurrentHashMap<Integer, ArrayList<Object>> multiHeapManagerOutputs = new ConcurrentHashMap<>();
     private ConcurrentHashMap<Integer, ArrayList<Object>> multiHeapManagerInputs = new ConcurrentHashMap<>();
     private ConcurrentHashMap<Integer, TaskGraph> taskScheduleIndex = new ConcurrentHashMap<>();
@@ -363,6 +386,7 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
 
         // 2. Update from the stream out list of objects
         updateReference(oldParameter, newParameter, streamOutObjects);
+        updateReference(oldParameter, newParameter, underDemandObjects);
 
         // 3. Update from graphContext and replace the object state.
         // Otherwise, if the object is copied in (via COPY_IN), we might think the
@@ -488,7 +512,8 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
             CompilableTask compilableTask = (CompilableTask) task;
             final ResolvedJavaMethod resolvedMethod = getTornadoRuntime().resolveMethod(compilableTask.getMethod());
             final TaskMetaData taskMetaData = compilableTask.meta();
-            new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex()).run();
+            new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex(),
+                    compilableTask.getMethod().getDeclaringClass().getClassLoader()).run();
 
             Sketch lookup = TornadoSketcher.lookup(resolvedMethod, taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex());
             this.graph = lookup.getGraph();
@@ -509,7 +534,8 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
             CompilableTask compilableTask = (CompilableTask) task;
             final ResolvedJavaMethod resolvedMethod = getTornadoRuntime().resolveMethod(compilableTask.getMethod());
             final TaskMetaData taskMetaData = compilableTask.meta();
-            new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex()).run();
+            new SketchRequest(resolvedMethod, providers, suites.getGraphBuilderSuite(), suites.getSketchTier(), taskMetaData.getDriverIndex(), taskMetaData.getDeviceIndex(),
+                    compilableTask.getMethod().getDeclaringClass().getClassLoader()).run();
 
             Sketch lookup = TornadoSketcher.lookup(resolvedMethod, compilableTask.meta().getDriverIndex(), compilableTask.meta().getDeviceIndex());
             this.graph = lookup.getGraph();
@@ -566,7 +592,10 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.limit(hlBuffer.position());
 
-        final TornadoGraph tornadoGraph = TornadoGraphBuilder.buildGraph(executionContext, buffer);
+        TornadoGraph tornadoGraph = TornadoGraphBuilder.buildGraph(executionContext, buffer);
+        if (TornadoOptions.FUSE_TASKS && batchSizeBytes == -1) {
+            tornadoGraph = TornadoTaskFusion.fuse(executionContext, tornadoGraph, buffer, gridScheduler);
+        }
         if (setNewDevice) {
             updateDeviceContext(tornadoGraph);
         }
@@ -710,6 +739,14 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
             String jsonFile = timeProfiler.createJson(new StringBuffer(), this.getId());
             profilerFileWriter(jsonFile);
         }
+
+        if ((TornadoOptions.PROFILER_METRICS || !TornadoOptions.PROFILER_METRICS_FILE.isEmpty()) && timeProfiler instanceof TimeProfiler) {
+            ProfilerMetricsRegistry registry = ProfilerMetricsRegistry.getInstance();
+            ((TimeProfiler) timeProfiler).publishMetrics(this.getId(), registry);
+            if (!TornadoOptions.PROFILER_METRICS_FILE.isEmpty()) {
+                registry.exportPrometheusFile(TornadoOptions.PROFILER_METRICS_FILE, TornadoOptions.PROFILER_METRICS_FILE_PERIOD);
+            }
+        }
     }
 
     private void dumpDeoptReason(TornadoBailoutRuntimeException e) {
@@ -737,6 +774,8 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
             preCompilationForFPGA();
         }
 
+        keepUnderDemandObjectsOnDevice();
+
         try {
             event = vm.execute();
             timeProfiler.stop(ProfilerType.TOTAL_TASK_SCHEDULE_TIME);
@@ -792,6 +831,20 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         } else {
             executionContext.getDevices().stream().filter(Objects::nonNull).forEach(TornadoDevice::sync);
         }
+        releaseBuffersOfCollectedObjects();
+    }
+
+    /**
+     * Releases the device buffers of the host objects collected since the last
+     * execution. It runs after the commands of this task-graph have finished.
+     */
+    private void releaseBuffersOfCollectedObjects() {
+        final ObjectStateRegistry registry = getTornadoRuntime().getObjectStateRegistry();
+        for (TornadoAcceleratorDevice device : executionContext.getDevices()) {
+            if (device != null) {
+                registry.releasePendingBuffers(device);
+            }
+        }
     }
 
     @Override
@@ -807,13 +860,15 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
             }
 
             // Only add the object is the streamIn list if the data transfer mode is set to
-            // EVERY_EXECUTION
-            if (mode == DataTransferMode.EVERY_EXECUTION) {
+            // EVERY_EXECUTION. Objects copied out under demand keep their results on the
+            // device, so they are only copied in for the first execution
+            final LocalObjectState state = executionContext.getObjectState(object);
+            if (mode == DataTransferMode.EVERY_EXECUTION && !state.isStreamOutUnderDemand()) {
                 streamInObjects.add(object);
-                executionContext.getObjectState(object).setStreamIn(true);
+                state.setStreamIn(true);
             } else {
                 // Add to COPY-ONLY list
-                executionContext.getObjectState(object).setStreamIn(false);
+                state.setStreamIn(false);
             }
             argumentsLookUp.add(object);
 
@@ -835,6 +890,45 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         }
     }
 
+    @Override
+    public void transferToHostWithMode(final int mode, Object... objects) {
+        if (mode != DataTransferMode.UNDER_DEMAND) {
+            transferToHost(objects);
+            return;
+        }
+        for (Object object : objects) {
+            if (object == null) {
+                warn("null object passed into streamOut() in schedule %s", executionContext.getId());
+                continue;
+            }
+            // No copy-out node is emitted for the object. It is kept on the device
+            // until it is synchronized.
+            final LocalObjectState state = executionContext.getObjectState(object);
+            state.setStreamOutUnderDemand(true);
+
+            // A copy-in on every execution would overwrite the results kept on the
+            // device, so the object is only copied in for the first execution.
+            if (state.isStreamIn()) {
+                state.setStreamIn(false);
+                streamInObjects.remove(object);
+            }
+            underDemandObjects.add(object);
+            argumentsLookUp.add(object);
+        }
+    }
+
+    /**
+     * Objects copied out under demand are locked on the device, so their buffers
+     * are not released at the end of the execution.
+     */
+    private void keepUnderDemandObjectsOnDevice() {
+        for (Object object : underDemandObjects) {
+            final LocalObjectState localState = executionContext.getObjectState(object);
+            lockObjectInMemoryOnDevice(localState, meta().getLogicDevice());
+            localState.setPendingStreamOut(true);
+        }
+    }
+
     @Override
     public void dump() {
         final int width = 16;
@@ -894,6 +988,10 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         }
 
         final LocalObjectState localState = executionContext.getObjectState(object);
+        if (localState.isPendingStreamOut()) {
+            // The device holds the only up-to-date copy of the object
+            localState.sync(object, meta().getLogicDevice());
+        }
         unlockObjectFromDevice(localState, meta().getLogicDevice());
     }
 
@@ -914,29 +1012,53 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
     }
 
     @Override
-    public void syncObject(Object object) {
+    public void markDirtyRange(Object object, int fromIndex, int toIndex) {
+        final int length;
+        if (object instanceof TornadoNativeArray) {
+            length = ((TornadoNativeArray) object).getSize();
+        } else if (object != null && object.getClass().isArray() && object.getClass().getComponentType().isPrimitive()) {
+            length = Array.getLength(object);
+        } else {
+            throw new TornadoRuntimeException("[ERROR] Dirty ranges can only be marked on primitive and native arrays");
+        }
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > length) {
+            throw new TornadoRuntimeException(String.format("[ERROR] Invalid dirty range [%d, %d) for an array of length %d", fromIndex, toIndex, length));
+        }
         if (vm == null) {
+            // Nothing has been copied to the device yet
+            return;
+        }
+
+        final LocalObjectState localState = executionContext.getObjectState(object);
+        localState.getGlobalState().markDirtyRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public void syncObject(Object object) {
+        if (isStreamOutUnderDemand(object)) {
+            // Only copy out the requested object; the rest stay on the device
+            syncObjects(object);
             return;
         }
         /*
-         * Clean the profiler -- avoids the possibility of reporting the execute()
-         * profiling information twice.
+         * The object may not be tracked by the graph (e.g. a field of a locked
+         * object), so copy back every object of the execution context.
          */
-        timeProfiler.clean();
+        syncObjects();
+    }
 
-        executionContext.sync();
-        updateProfiler();
+    private boolean isStreamOutUnderDemand(Object object) {
+        for (Object underDemand : underDemandObjects) {
+            if (underDemand == object) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private Event syncObjectInner(Object object) {
         final LocalObjectState localState = executionContext.getObjectState(object);
-        final GlobalObjectState globalState = localState.getGlobalState();
-        final TornadoAcceleratorDevice device = meta().getLogicDevice();
-        final DeviceObjectState deviceState = globalState.getDeviceState(device);
-        if (deviceState.isLockedBuffer()) {
-            return device.resolveEvent(device.streamOutBlocking(object, 0, deviceState, null));
-        }
-        return null;
+        return localState.sync(object, meta().getLogicDevice());
     }
 
     @Override
@@ -1234,155 +1356,154 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         return deviceWinnerIndex;
     }
 
-    private int syncWinner(Thread[] threads) {
-        int winner = 0;
-        boolean isAlive = true;
-        while (isAlive) {
-
-            for (int i = 0; i < threads.length; i++) {
-                isAlive = threads[i].isAlive();
-                if (!isAlive) {
-                    if (TornadoOptions.DEBUG_POLICY) {
-                        System.out.println("Thread " + threads[i].getName() + " finished");
-                    }
-                    winner = i;
-                    // kill the others
-                    for (int j = 0; j < threads.length; j++) {
-                        if (i != j) {
-                            threads[j].interrupt();
-                        }
-                    }
-                    break;
-                }
-            }
-        }
-        return winner;
-    }
-
     private void runAllTasksJavaSequential() {
         for (TaskPackage taskPackage : taskPackages) {
             runSequentialCodeInThread(taskPackage);
         }
     }
 
-    private void runParallelSequential(Policy policy, Thread[] threads, int indexSequential, Timer timer, long[] totalTimers) {
-        // Last Thread runs the sequential code
-        threads[indexSequential] = new Thread(() -> {
-            long start = System.currentTimeMillis();
-            if (policy == Policy.PERFORMANCE) {
-                for (int k = 0; k < PERFORMANCE_WARMUP; k++) {
-                    runAllTasksJavaSequential();
-                }
-                start = timer.time();
-            }
-            final long endSequentialCode = timer.time();
-            Thread.currentThread().setName("Thread-sequential");
-            if (TornadoOptions.DEBUG_POLICY) {
-                System.out.println("Seq finished: " + Thread.currentThread().getName());
-            }
-
-            totalTimers[indexSequential] = (endSequentialCode - start);
-        });
+    private static void checkCancelled(AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            throw new CancellationException();
+        }
     }
 
-    private void runParallelTaskSchedules(int numDevices, Thread[] threads, Timer timer, Policy policy, long[] totalTimers) {
-        for (int i = 0; i < numDevices; i++) {
-            final int taskScheduleNumber = i;
-            threads[i] = new Thread(() -> {
-                String newTaskScheduleName = TASK_SCHEDULE_PREFIX + taskScheduleNumber;
-                TaskGraph task = new TaskGraph(newTaskScheduleName);
+    private long runSequentialContender(Policy policy, Timer timer, AtomicBoolean cancelled) {
+        if (policy == Policy.PERFORMANCE) {
+            for (int k = 0; k < PERFORMANCE_WARMUP; k++) {
+                checkCancelled(cancelled);
+                runAllTasksJavaSequential();
+            }
+        }
+        final long start = timer.time();
+        for (TaskPackage taskPackage : taskPackages) {
+            checkCancelled(cancelled);
+            runSequentialCodeInThread(taskPackage);
+        }
+        return timer.time() - start;
+    }
 
-                Thread.currentThread().setName("Thread-DEV: " + TornadoRuntime.getTornadoRuntime().getDriver(0).getDevice(taskScheduleNumber).getPhysicalDevice().getDeviceName());
+    private long runDeviceContender(int taskScheduleNumber, Policy policy, Timer timer, AtomicBoolean cancelled) {
+        String newTaskScheduleName = TASK_SCHEDULE_PREFIX + taskScheduleNumber;
+        TaskGraph task = new TaskGraph(newTaskScheduleName);
 
-                long start = timer.time();
+        long start = timer.time();
 
-                for (StreamingObject streamingObject : streamingInputObjects) {
-                    performStreamInObject(task, streamingObject.object, streamingObject.mode);
-                }
+        for (StreamingObject streamingObject : streamingInputObjects) {
+            performStreamInObject(task, streamingObject.object, streamingObject.mode);
+        }
 
-                for (TaskPackage taskPackage : taskPackages) {
-                    String taskID = taskPackage.getId();
-                    TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", "0:" + taskScheduleNumber);
-                    if (Tornado.DEBUG) {
-                        System.out.println("SET DEVICE: " + newTaskScheduleName + "." + taskID + ".device=0:" + taskScheduleNumber);
-                    }
-                    task.addTask(taskPackage);
-                }
-                performStreamOutThreads(task, streamOutObjects);
+        for (TaskPackage taskPackage : taskPackages) {
+            String taskID = taskPackage.getId();
+            TornadoRuntime.setProperty(newTaskScheduleName + "." + taskID + ".device", "0:" + taskScheduleNumber);
+            if (Tornado.DEBUG) {
+                System.out.println("SET DEVICE: " + newTaskScheduleName + "." + taskID + ".device=0:" + taskScheduleNumber);
+            }
+            task.addTask(taskPackage);
+        }
+        performStreamOutThreads(task, streamOutObjects);
 
-                if (policy == Policy.PERFORMANCE) {
-                    // first warm up
-                    for (int k = 0; k < PERFORMANCE_WARMUP; k++) {
-                        task.execute();
-                    }
-                    start = timer.time();
-                }
+        if (policy == Policy.PERFORMANCE) {
+            // first warm up
+            for (int k = 0; k < PERFORMANCE_WARMUP; k++) {
+                checkCancelled(cancelled);
                 task.execute();
-                final long end = timer.time();
-                taskScheduleIndex.put(taskScheduleNumber, task);
-
-                if (USE_GLOBAL_TASK_CACHE) {
-                    globalTaskScheduleIndex.put(offsetGlobalIndex.get(), task);
-                    offsetGlobalIndex.incrementAndGet();
-                } else {
-                    globalTaskScheduleIndex.put(taskScheduleNumber, task);
-                }
+            }
+            start = timer.time();
+        }
+        checkCancelled(cancelled);
+        task.execute();
+        final long end = timer.time();
+        taskScheduleIndex.put(taskScheduleNumber, task);
 
-                totalTimers[taskScheduleNumber] = end - start;
-            });
+        if (USE_GLOBAL_TASK_CACHE) {
+            globalTaskScheduleIndex.put(offsetGlobalIndex.get(), task);
+            offsetGlobalIndex.incrementAndGet();
+        } else {
+            globalTaskScheduleIndex.put(taskScheduleNumber, task);
         }
+        return end - start;
+    }
 
+    /**
+     * Returns a future that completes with the index of the first contender that
+     * finishes successfully, or with the fallback index if all of them fail.
+     */
+    private static CompletableFuture<Integer> firstCompleted(CompletableFuture<Long>[] contenders, int fallbackIndex) {
+        final CompletableFuture<Integer> winner = new CompletableFuture<>();
+        for (int i = 0; i < contenders.length; i++) {
+            final int index = i;
+            contenders[i].thenRun(() -> winner.complete(index));
+        }
+        CompletableFuture.allOf(contenders).whenComplete((result, exception) -> winner.complete(fallbackIndex));
+        return winner;
     }
 
+    @SuppressWarnings("unchecked")
     private void runScheduleWithParallelProfiler(Policy policy) {
 
         final Timer timer = (TIME_IN_NANOSECONDS) ? new NanoSecTimer() : new MilliSecTimer();
         TornadoDriver tornadoDriver = getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX);
         int numDevices = tornadoDriver.getDeviceCount();
-        long masterThreadID = Thread.currentThread().getId();
 
-        // One additional threads is reserved for sequential CPU execution
-        final int numThreads = numDevices + 1;
+        // One additional contender is reserved for sequential CPU execution
+        final int numContenders = numDevices + 1;
         final int indexSequential = numDevices;
-        Thread[] threads = new Thread[numThreads];
-        long[] totalTimers = new long[numThreads];
-
-        // Last Thread runs the sequential code
-        runParallelSequential(policy, threads, indexSequential, timer, totalTimers);
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+        final CompletableFuture<Long>[] contenders = new CompletableFuture[numContenders];
+        final String[] names = new String[numContenders];
 
-        // Run all task schedules in parallel
-        runParallelTaskSchedules(numDevices, threads, timer, policy, totalTimers);
-
-        // FORK
-        for (int i = 0; i < numThreads; i++) {
-            threads[i].start();
+        for (int i = 0; i < numDevices; i++) {
+            final int taskScheduleNumber = i;
+            names[i] = tornadoDriver.getDevice(i).getPhysicalDevice().getDeviceName();
+            contenders[i] = CompletableFuture.supplyAsync(() -> runDeviceContender(taskScheduleNumber, policy, timer, cancelled), reconfigurationExecutor);
         }
+        names[indexSequential] = "JVM";
+        contenders[indexSequential] = CompletableFuture.supplyAsync(() -> runSequentialContender(policy, timer, cancelled), reconfigurationExecutor);
 
-        // Define the winner, based on the first thread to finish
+        // Define the winner, based on the first contender to finish
+        int deviceWinnerIndex = -1;
         if (policy == Policy.LATENCY) {
-            int deviceWinnerIndex = syncWinner(threads);
-            policyTimeTable.put(policy, deviceWinnerIndex);
+            deviceWinnerIndex = firstCompleted(contenders, indexSequential).join();
+            // The others stop at their next cancellation point. They share the
+            // input and output objects, so wait for them before returning
+            cancelled.set(true);
+            CompletableFuture.allOf(contenders).handle((result, exception) -> null).join();
+        } else {
+            CompletableFuture.allOf(contenders).handle((result, exception) -> null).join();
         }
 
-        // JOIN
-        for (Thread t : threads) {
+        final long[] totalTimers = new long[numContenders];
+        final DynamicReconfigurationResult.Status[] status = new DynamicReconfigurationResult.Status[numContenders];
+        for (int i = 0; i < numContenders; i++) {
+            totalTimers[i] = Long.MAX_VALUE;
             try {
-                t.join();
-            } catch (InterruptedException e) {
-                throw new TornadoDynamicReconfigurationException(e);
+                totalTimers[i] = contenders[i].join();
+                status[i] = DynamicReconfigurationResult.Status.COMPLETED;
+            } catch (CompletionException | CancellationException e) {
+                status[i] = (e instanceof CancellationException || e.getCause() instanceof CancellationException) ? DynamicReconfigurationResult.Status.CANCELLED : DynamicReconfigurationResult.Status.FAILED;
+                if (status[i] == DynamicReconfigurationResult.Status.FAILED && TornadoOptions.DEBUG_POLICY) {
+                    System.out.println("Contender " + names[i] + " failed: " + e.getCause());
+                }
             }
         }
 
-        if ((policy == Policy.PERFORMANCE || policy == Policy.END_2_END) && (masterThreadID == Thread.currentThread().getId())) {
-            int deviceWinnerIndex = synchronizeWithPolicy(policy, totalTimers);
-            policyTimeTable.put(policy, deviceWinnerIndex);
-            if (TornadoOptions.DEBUG_POLICY) {
-                System.out.println(getListDevices());
-                System.out.println("BEST Position: #" + deviceWinnerIndex + " " + Arrays.toString(totalTimers));
-            }
+        if (policy == Policy.PERFORMANCE || policy == Policy.END_2_END) {
+            deviceWinnerIndex = synchronizeWithPolicy(policy, totalTimers);
+        }
+        policyTimeTable.put(policy, deviceWinnerIndex);
+        reconfigurationResult = new DynamicReconfigurationResult(policy, deviceWinnerIndex, names, totalTimers, status);
+
+        if (TornadoOptions.DEBUG_POLICY) {
+            System.out.println(reconfigurationResult);
         }
     }
 
+    @Override
+    public DynamicReconfigurationResult getDynamicReconfigurationResult() {
+        return reconfigurationResult;
+    }
+
     private void runSequential() {
         for (TaskPackage taskPackage : taskPackages) {
             runSequentialCodeInThread(taskPackage);
@@ -1424,9 +1545,23 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         task.execute();
     }
 
+    private void runWithAdaptivePolicy() {
+        int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
+        if (adaptiveSelector == null) {
+            adaptiveSelector = new AdaptiveDeviceSelector(numDevices + 1, TornadoOptions.ADAPTIVE_POLICY_DECAY, TornadoOptions.ADAPTIVE_POLICY_PROBE_PERIOD);
+        }
+        final int inputSize = getMaxInputSize();
+        final int deviceIndex = adaptiveSelector.select(inputSize);
+        final long start = System.nanoTime();
+        runInParallel(deviceIndex, numDevices);
+        adaptiveSelector.record(inputSize, deviceIndex, System.nanoTime() - start);
+    }
+
     @Override
     public AbstractTaskGraph scheduleWithProfile(Policy policy) {
-        if (policyTimeTable.get(policy) == null) {
+        if (policy == Policy.ADAPTIVE) {
+            runWithAdaptivePolicy();
+        } else if (policyTimeTable.get(policy) == null) {
             runScheduleWithParallelProfiler(policy);
         } else {
             // Run with the winner device
@@ -1708,7 +1843,9 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
     public AbstractTaskGraph scheduleWithProfileSequentialGlobal(Policy policy) {
         int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
 
-        if (!executionHistoryPolicy.containsKey(policy)) {
+        if (policy == Policy.ADAPTIVE) {
+            runWithAdaptivePolicy();
+        } else if (!executionHistoryPolicy.containsKey(policy)) {
             runWithSequentialProfiler(policy);
 
             if (EXPERIMENTAL_MULTI_HOST_HEAP) {
@@ -1761,7 +1898,9 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
     public AbstractTaskGraph scheduleWithProfileSequential(Policy policy) {
         int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDeviceCount();
 
-        if (policyTimeTable.get(policy) == null) {
+        if (policy == Policy.ADAPTIVE) {
+            runWithAdaptivePolicy();
+        } else if (policyTimeTable.get(policy) == null) {
             runWithSequentialProfiler(policy);
 
             if (EXPERIMENTAL_MULTI_HOST_HEAP) {
@@ -2067,6 +2206,21 @@ public class TornadoTaskGraph implements AbstractTaskGraph {
         return timeProfiler.getTimer(ProfilerType.COPY_OUT_TIME);
     }
 
+    @Override
+    public long getTotalBytesCopyIn() {
+        return timeProfiler.getMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME);
+    }
+
+    @Override
+    public long getTotalBytesCopyOut() {
+        return timeProfiler.getMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, TimeProfiler.NO_TASK_NAME);
+    }
+
+    @Override
+    public long getNumKernelLaunches() {
+        return timeProfiler.getMetric(ProfilerType.TOTAL_KERNEL_LAUNCHES, TimeProfiler.NO_TASK_NAME);
+    }
+
     @Override
     public String getProfileLog() {
         return bufferLogProfiler.toString();
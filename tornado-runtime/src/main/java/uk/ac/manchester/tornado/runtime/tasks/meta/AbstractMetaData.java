@@ -251,6 +251,18 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
         return useThreadCoarsener;
     }
 
+    public boolean enableLocalMemoryTiling() {
+        return useLocalMemoryTiling;
+    }
+
+    /**
+     * @return the largest tile size, per dimension, that the local-memory tiling
+     *         can use. Smaller tiles are used when it does not fit on the device.
+     */
+    public int getMaxTileSize() {
+        return maxTileSize;
+    }
+
     public boolean shouldUseVMDeps() {
         return vmUseDeps;
     }
@@ -292,6 +304,8 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
     private final boolean enableVectors;
     private final boolean enableMemChecks;
     private final boolean useThreadCoarsener;
+    private final boolean useLocalMemoryTiling;
+    private final int maxTileSize;
     private final boolean dumpTaskSchedule;
     private final boolean vmUseDeps;
     private final boolean coarsenWithCpuConfig;
@@ -453,6 +467,8 @@ public abstract class AbstractMetaData implements TaskMetaDataInterface {
         cpuConfig = getDefault("cpu.config", id, null);
         isCpuConfigDefined = getProperty(id + ".cpu.config") != null;
         useThreadCoarsener = Boolean.parseBoolean(getDefault("coarsener", id, "False"));
+        useLocalMemoryTiling = Boolean.parseBoolean(getDefault("tiling", id, "False"));
+        maxTileSize = parseInt(getDefault("tiling.size", id, "16"));
         vmUseDeps = Boolean.parseBoolean(getDefault("vm.deps", id, "False"));
     }
 
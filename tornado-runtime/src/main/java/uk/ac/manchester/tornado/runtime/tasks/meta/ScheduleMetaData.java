@@ -27,7 +27,22 @@ package uk.ac.manchester.tornado.runtime.tasks.meta;
 
 public class ScheduleMetaData extends AbstractMetaData {
 
+    private long batchIterations;
+
     public ScheduleMetaData(String id) {
         super(id, null);
     }
+
+    /**
+     * Sets the number of iterations of the parallel loop that are split in
+     * batches. It is used to compute the length of the array parameters of the
+     * kernels within each batch.
+     */
+    public void setBatchIterations(long batchIterations) {
+        this.batchIterations = batchIterations;
+    }
+
+    public long getBatchIterations() {
+        return batchIterations;
+    }
 }
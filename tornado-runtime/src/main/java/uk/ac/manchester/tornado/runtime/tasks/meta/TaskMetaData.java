@@ -58,6 +58,8 @@ public class TaskMetaData extends AbstractMetaData {
     private long[] localWork;
     private boolean localWorkDefined;
     private boolean globalWorkDefined;
+    private boolean boundsGuarded;
+    private int tileSize;
 
     public TaskMetaData(ScheduleMetaData scheduleMetaData, String taskID, int numParameters) {
         super(scheduleMetaData.getId() + "." + taskID, scheduleMetaData);
@@ -132,6 +134,33 @@ public class TaskMetaData extends AbstractMetaData {
         localWork = null;
     }
 
+    /**
+     * @return true if the compiler guarded every parallel loop of the kernel
+     *         with its upper bound, so the threads beyond the iteration space do
+     *         not execute any iteration. The global work of such a kernel can be
+     *         padded.
+     */
+    public boolean isBoundsGuarded() {
+        return boundsGuarded;
+    }
+
+    public void setBoundsGuarded(boolean boundsGuarded) {
+        this.boundsGuarded = boundsGuarded;
+    }
+
+    /**
+     * @return the size, per dimension, of the tiles that the compiler stages
+     *         through local memory, or 0 if the kernel is not tiled. The
+     *         work-groups of a tiled kernel must be square tiles of this size.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
     public long[] initLocalWork() {
         localWork = new long[] { 1, 1, 1 };
         return localWork;
@@ -155,6 +184,10 @@ public class TaskMetaData extends AbstractMetaData {
         return super.enableMemChecks() || scheduleMetaData.enableMemChecks();
     }
 
+    public long getBatchIterations() {
+        return scheduleMetaData.getBatchIterations();
+    }
+
     @Override
     public boolean enableOooExecution() {
         return super.enableOooExecution() || scheduleMetaData.enableOooExecution();
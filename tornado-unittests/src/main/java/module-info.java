@@ -1,6 +1,8 @@
 open module tornado.unittests {
     requires transitive junit;
     requires transitive tornado.api;
+    requires tornado.runtime;
+    requires tornado.drivers.common;
     requires lucene.core;
     requires java.desktop;
 
@@ -11,6 +13,7 @@ open module tornado.unittests {
     exports uk.ac.manchester.tornado.unittests.batches;
     exports uk.ac.manchester.tornado.unittests.bitsets;
     exports uk.ac.manchester.tornado.unittests.branching;
+    exports uk.ac.manchester.tornado.unittests.cache;
     exports uk.ac.manchester.tornado.unittests.common;
     exports uk.ac.manchester.tornado.unittests.dynamic;
     exports uk.ac.manchester.tornado.unittests.fields;
@@ -26,6 +29,7 @@ open module tornado.unittests {
     exports uk.ac.manchester.tornado.unittests.loops;
     exports uk.ac.manchester.tornado.unittests.math;
     exports uk.ac.manchester.tornado.unittests.matrices;
+    exports uk.ac.manchester.tornado.unittests.memory;
     exports uk.ac.manchester.tornado.unittests.prebuilt;
     exports uk.ac.manchester.tornado.unittests.profiler;
     exports uk.ac.manchester.tornado.unittests.reductions;
@@ -33,6 +37,7 @@ open module tornado.unittests {
     exports uk.ac.manchester.tornado.unittests.tasks;
     exports uk.ac.manchester.tornado.unittests.temporary.values;
     exports uk.ac.manchester.tornado.unittests.tools;
+    exports uk.ac.manchester.tornado.unittests.tuning;
     exports uk.ac.manchester.tornado.unittests.vectortypes;
     exports uk.ac.manchester.tornado.unittests.virtualization;
 }
@@ -21,6 +21,7 @@ package uk.ac.manchester.tornado.unittests.api;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -125,4 +126,138 @@ public class TestAPI extends TornadoTestBase {
         }
     }
 
+    @Test
+    public void testMarkDirtyRange() {
+        final int N = 1024;
+        int[] a = new int[N];
+        int[] b = new int[N];
+        int[] c = new int[N];
+
+        IntStream.range(0, N).forEach(idx -> {
+            a[idx] = idx;
+            b[idx] = 10;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestArrays::vectorAddInteger, a, b, c) //
+                .transferToHost(c);
+
+        taskGraph.execute();
+
+        // Update two windows of the input and copy in only those elements
+        for (int i = 100; i < 200; i++) {
+            a[i] = -1;
+        }
+        for (int i = 500; i < 510; i++) {
+            a[i] = -2;
+        }
+
+        // Elements outside the marked ranges are not copied, so the device keeps
+        // the old values
+        for (int i = 0; i < 50; i++) {
+            a[i] = 1000;
+        }
+        Arrays.fill(b, 99);
+
+        taskGraph.markDirtyRange(a, 100, 200) //
+                .markDirtyRange(a, 500, 510) //
+                .markDirtyRange(b, 0, 0) //
+                .execute();
+
+        for (int i = 0; i < N; i++) {
+            final int deviceA = (i < 50) ? i : a[i];
+            assertEquals(deviceA + 10, c[i]);
+        }
+    }
+
+    @Test
+    public void testTransferToHostUnderDemand() {
+        final int N = 1024;
+        final int iterations = 10;
+        int size = 20;
+        int[] data = new int[N];
+
+        IntStream.range(0, N).forEach(idx -> data[idx] = size);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, data) //
+                .task("t0", TestArrays::addAccumulator, data, 1) //
+                .transferToHostWithMode(DataTransferMode.UNDER_DEMAND, data);
+
+        for (int i = 0; i < iterations; i++) {
+            taskGraph.execute();
+        }
+
+        // Data stays on the device until it is requested
+        for (int i = 0; i < N; i++) {
+            assertEquals(size, data[i]);
+        }
+
+        taskGraph.syncObject(data);
+        taskGraph.unlockObjectFromMemory(data);
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(size + iterations, data[i]);
+        }
+    }
+
+    @Test
+    public void testTransferToDeviceAfterUnderDemand() {
+        final int N = 1024;
+        final int iterations = 10;
+        int size = 20;
+        int[] data = new int[N];
+
+        IntStream.range(0, N).forEach(idx -> data[idx] = size);
+
+        // The copy-in of every execution is ignored, since it would overwrite the
+        // results kept on the device
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToHostWithMode(DataTransferMode.UNDER_DEMAND, data) //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, data) //
+                .task("t0", TestArrays::addAccumulator, data, 1);
+
+        for (int i = 0; i < iterations; i++) {
+            taskGraph.execute();
+        }
+
+        taskGraph.syncObject(data);
+        taskGraph.unlockObjectFromMemory(data);
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(size + iterations, data[i]);
+        }
+    }
+
+    @Test
+    public void testUnlockUnderDemandCopiesOut() {
+        final int N = 1024;
+        final int iterations = 10;
+        int size = 20;
+        int[] data = new int[N];
+
+        IntStream.range(0, N).forEach(idx -> data[idx] = size);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, data) //
+                .task("t0", TestArrays::addAccumulator, data, 1) //
+                .transferToHostWithMode(DataTransferMode.UNDER_DEMAND, data);
+
+        for (int i = 0; i < iterations; i++) {
+            taskGraph.execute();
+        }
+
+        // Unlocking the object copies out the results before releasing the buffer
+        taskGraph.unlockObjectFromMemory(data);
+        for (int i = 0; i < N; i++) {
+            assertEquals(size + iterations, data[i]);
+        }
+
+        // Nothing is pending any more
+        taskGraph.syncObject(data);
+        for (int i = 0; i < N; i++) {
+            assertEquals(size + iterations, data[i]);
+        }
+    }
 }
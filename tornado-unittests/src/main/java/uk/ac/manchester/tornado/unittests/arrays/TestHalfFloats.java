@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.arrays;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.math.TornadoMath;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloat;
+import uk.ac.manchester.tornado.api.collections.types.HalfFloatArray;
+import uk.ac.manchester.tornado.api.collections.types.NativeVectorHalfFloat;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the half-precision type and collections. How to run?
+ *
+ * <code>
+ *     tornado-test.py -V uk.ac.manchester.tornado.unittests.arrays.TestHalfFloats
+ * </code>
+ */
+public class TestHalfFloats extends TornadoTestBase {
+
+    public static void vectorAddHalfFloat(HalfFloatArray a, HalfFloatArray b, HalfFloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.setFloat(i, a.getFloat(i) + b.getFloat(i));
+        }
+    }
+
+    public static void scaleVector(NativeVectorHalfFloat a, NativeVectorHalfFloat b) {
+        for (@Parallel int i = 0; i < a.size(); i++) {
+            b.setFloat(i, a.getFloat(i) * 2);
+        }
+    }
+
+    public static void toHalf(float[] input, short[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = HalfFloat.floatToHalf(input[i]);
+        }
+    }
+
+    public static void multiplyAccumulate(short[] a, short[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = TornadoMath.fmaHalf(a[i], b[i], c[i]);
+        }
+    }
+
+    @Test
+    public void testConversions() {
+        assertEquals(0x3c00, HalfFloat.floatToHalf(1.0f));
+        assertEquals((short) 0xc000, HalfFloat.floatToHalf(-2.0f));
+        assertEquals(0x7bff, HalfFloat.floatToHalf(65504.0f));
+        assertEquals(0x7c00, HalfFloat.floatToHalf(65520.0f));
+        assertEquals(0x0001, HalfFloat.floatToHalf(0x1p-24f));
+        assertEquals(0x0000, HalfFloat.floatToHalf(0x1p-25f));
+        // 1 + 2^-11 is a tie between 1 and 1 + 2^-10, and rounds to even
+        assertEquals(0x3c00, HalfFloat.floatToHalf(1.0f + 0x1p-11f));
+        assertEquals(0x3c02, HalfFloat.floatToHalf(1.0f + 3 * 0x1p-11f));
+
+        assertEquals(1.0f, HalfFloat.halfToFloat((short) 0x3c00), 0.0f);
+        assertEquals(0x1p-24f, HalfFloat.halfToFloat((short) 0x0001), 0.0f);
+        assertEquals(Float.NEGATIVE_INFINITY, HalfFloat.halfToFloat((short) 0xfc00), 0.0f);
+        assertEquals(true, Float.isNaN(HalfFloat.halfToFloat(HalfFloat.floatToHalf(Float.NaN))));
+
+        // Every half value converts to float and back without change
+        for (int i = 0; i < 0x10000; i++) {
+            short half = (short) i;
+            float value = HalfFloat.halfToFloat(half);
+            if (!Float.isNaN(value)) {
+                assertEquals(half, HalfFloat.floatToHalf(value));
+            }
+        }
+
+        HalfFloat a = new HalfFloat(1.5f);
+        HalfFloat b = new HalfFloat(2.0f);
+        assertEquals(3.5f, HalfFloat.add(a, b).getFloat32(), 0.0f);
+        assertEquals(3.0f, HalfFloat.mult(a, b).getFloat32(), 0.0f);
+        assertEquals(3.5f, TornadoMath.fma(a, b, 0.5f), 0.0f);
+        assertEquals(3.5f, TornadoMath.fmaHalf(a.getHalfFloatValue(), b.getHalfFloatValue(), 0.5f), 0.0f);
+
+        // Integer operands are values, not FP16 encodings
+        short two = 2;
+        short three = 3;
+        assertEquals(7.0f, TornadoMath.fma(two, three, 1.0f), 0.0f);
+    }
+
+    @Test
+    public void testVectorAddHalfFloat() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int numElements = 256;
+        HalfFloatArray a = new HalfFloatArray(numElements);
+        HalfFloatArray b = new HalfFloatArray(numElements);
+        HalfFloatArray c = new HalfFloatArray(numElements);
+        for (int i = 0; i < numElements; i++) {
+            a.setFloat(i, i);
+            b.setFloat(i, 0.5f);
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestHalfFloats::vectorAddHalfFloat, a, b, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(i + 0.5f, c.getFloat(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testScaleVectorHalfFloat() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int numElements = 128;
+        NativeVectorHalfFloat a = new NativeVectorHalfFloat(numElements);
+        NativeVectorHalfFloat b = new NativeVectorHalfFloat(numElements);
+        for (int i = 0; i < numElements; i++) {
+            a.setFloat(i, i * 0.25f);
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a.getArray()) //
+                .task("t0", TestHalfFloats::scaleVector, a, b) //
+                .transferToHost(b.getArray());
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(i * 0.5f, b.getFloat(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testFloatToHalf() {
+        final int numElements = 512;
+        float[] input = new float[numElements];
+        short[] output = new short[numElements];
+        Random r = new Random();
+        for (int i = 0; i < numElements; i++) {
+            input[i] = (r.nextFloat() - 0.5f) * 1000;
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestHalfFloats::toHalf, input, output) //
+                .transferToHost(output);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(HalfFloat.floatToHalf(input[i]), output[i]);
+        }
+    }
+
+    @Test
+    public void testMultiplyAccumulate() {
+        final int numElements = 512;
+        short[] a = new short[numElements];
+        short[] b = new short[numElements];
+        float[] c = new float[numElements];
+        float[] expected = new float[numElements];
+        for (int i = 0; i < numElements; i++) {
+            a[i] = HalfFloat.floatToHalf(i * 0.5f);
+            b[i] = HalfFloat.floatToHalf(0.25f);
+            c[i] = 1.0f;
+            expected[i] = i * 0.125f + 1.0f;
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b, c) //
+                .task("t0", TestHalfFloats::multiplyAccumulate, a, b, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(expected[i], c[i], 0.001f);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.arrays;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for multi-dimensional arrays, which are packed in a single device
+ * buffer. How to run?
+ *
+ * <code>
+ *     tornado-test.py -V uk.ac.manchester.tornado.unittests.arrays.TestMultiDimArrays
+ * </code>
+ */
+public class TestMultiDimArrays extends TornadoTestBase {
+
+    public static void addMatrices(float[][] a, float[][] b, float[][] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            for (int j = 0; j < c[i].length; j++) {
+                c[i][j] = a[i][j] + b[i][j];
+            }
+        }
+    }
+
+    public static void sumRows(int[][] matrix, int[] sums) {
+        for (@Parallel int i = 0; i < matrix.length; i++) {
+            int sum = 0;
+            for (int j = 0; j < matrix[i].length; j++) {
+                sum += matrix[i][j];
+            }
+            sums[i] = sum;
+        }
+    }
+
+    public static void scaleCube(double[][][] cube) {
+        for (@Parallel int i = 0; i < cube.length; i++) {
+            for (int j = 0; j < cube[i].length; j++) {
+                for (int k = 0; k < cube[i][j].length; k++) {
+                    cube[i][j][k] = cube[i][j][k] * 2;
+                }
+            }
+        }
+    }
+
+    public static void sumCubeRows(double[][][] cube, double[] sums) {
+        for (@Parallel int i = 0; i < cube.length; i++) {
+            double sum = 0;
+            for (int j = 0; j < cube[i].length; j++) {
+                for (int k = 0; k < cube[i][j].length; k++) {
+                    sum += cube[i][j][k];
+                }
+            }
+            sums[i] = sum;
+        }
+    }
+
+    @Test
+    public void testRectangular() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int rows = 128;
+        final int columns = 64;
+        float[][] a = new float[rows][columns];
+        float[][] b = new float[rows][columns];
+        float[][] c = new float[rows][columns];
+        Random r = new Random();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                a[i][j] = r.nextFloat();
+                b[i][j] = r.nextFloat();
+            }
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestMultiDimArrays::addMatrices, a, b, c) //
+                .transferToHost(new Object[] { c });
+        taskGraph.execute();
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                assertEquals(a[i][j] + b[i][j], c[i][j], 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testJagged() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int rows = 100;
+        int[][] matrix = new int[rows][];
+        int[] sums = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            // Rows of odd lengths, so the blocks of the rows need padding
+            matrix[i] = new int[2 * i + 1];
+            for (int j = 0; j < matrix[i].length; j++) {
+                matrix[i][j] = i + j;
+            }
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, new Object[] { matrix }) //
+                .task("t0", TestMultiDimArrays::sumRows, matrix, sums) //
+                .transferToHost(sums);
+        taskGraph.execute();
+
+        for (int i = 0; i < rows; i++) {
+            int expected = 0;
+            for (int j = 0; j < matrix[i].length; j++) {
+                expected += matrix[i][j];
+            }
+            assertEquals(expected, sums[i]);
+        }
+    }
+
+    @Test
+    public void testThreeDimensions() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int size = 16;
+        double[][][] cube = new double[size][size][];
+        double[][][] expected = new double[size][size][];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cube[i][j] = new double[j + 1];
+                expected[i][j] = new double[j + 1];
+                for (int k = 0; k <= j; k++) {
+                    cube[i][j][k] = i * j + k;
+                    expected[i][j][k] = 2 * (i * j + k);
+                }
+            }
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, new Object[] { cube }) //
+                .task("t0", TestMultiDimArrays::scaleCube, cube) //
+                .transferToHost(new Object[] { cube });
+        taskGraph.execute();
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                for (int k = 0; k <= j; k++) {
+                    assertEquals(expected[i][j][k], cube[i][j][k], 0.001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatches() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        // 2MB per matrix, processed in batches of 1MB with a smaller last batch
+        final int rows = 2048;
+        final int columns = 256;
+        float[][] a = new float[rows][columns];
+        float[][] b = new float[rows][columns];
+        float[][] c = new float[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                a[i][j] = i;
+                b[i][j] = j;
+            }
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0");
+        taskGraph.batch("1MB");
+        taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestMultiDimArrays::addMatrices, a, b, c) //
+                .transferToHost(new Object[] { c }) //
+                .execute();
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                assertEquals(i + j, c[i][j], 0.001f);
+            }
+        }
+    }
+
+    /**
+     * Every row holds 64 bytes, but the rows alternate between {@code [2][4]} and
+     * {@code [4][2]}, so they cannot be split in batches. The cube (2MB) does not
+     * fit in a batch either, so it is rejected before any buffer is allocated.
+     */
+    @Test(expected = TornadoRuntimeException.class)
+    public void testBatchesRowsWithDifferentShapes() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int rows = 32768;
+        double[][][] cube = new double[rows][][];
+        double[] sums = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            cube[i] = (i % 2 == 0) ? new double[2][4] : new double[4][2];
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0");
+        taskGraph.batch("1MB");
+        taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, new Object[] { cube }) //
+                .task("t0", TestMultiDimArrays::sumCubeRows, cube, sums) //
+                .transferToHost(sums) //
+                .execute();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.arrays;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.types.FloatArray;
+import uk.ac.manchester.tornado.api.collections.types.IntArray;
+import uk.ac.manchester.tornado.api.collections.types.NativeMatrix2DFloat;
+import uk.ac.manchester.tornado.api.collections.types.NativeVectorFloat;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the off-heap arrays of the API. How to run?
+ *
+ * <code>
+ *     tornado-test.py -V uk.ac.manchester.tornado.unittests.arrays.TestNativeArrays
+ * </code>
+ */
+public class TestNativeArrays extends TornadoTestBase {
+
+    public static void vectorAddFloat(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void vectorAddInt(IntArray a, IntArray b, IntArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void scaleVector(NativeVectorFloat a, NativeVectorFloat b) {
+        for (@Parallel int i = 0; i < a.size(); i++) {
+            b.set(i, a.get(i) * 2);
+        }
+    }
+
+    public static void transposeMatrix(NativeMatrix2DFloat a, NativeMatrix2DFloat b) {
+        for (@Parallel int i = 0; i < a.getNumRows(); i++) {
+            for (@Parallel int j = 0; j < a.getNumColumns(); j++) {
+                b.set(j, i, a.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testVectorAddFloat() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int numElements = 256;
+        FloatArray a = new FloatArray(numElements);
+        FloatArray b = new FloatArray(numElements);
+        FloatArray c = new FloatArray(numElements);
+        for (int i = 0; i < numElements; i++) {
+            a.set(i, i);
+            b.set(i, 2 * i);
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestNativeArrays::vectorAddFloat, a, b, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(3 * i, c.get(i), 0.01f);
+        }
+    }
+
+    @Test
+    public void testVectorAddInt() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int numElements = 256;
+        IntArray a = new IntArray(numElements);
+        IntArray b = new IntArray(numElements);
+        IntArray c = new IntArray(numElements);
+        a.init(10);
+        b.init(20);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestNativeArrays::vectorAddInt, a, b, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(30, c.get(i));
+        }
+
+        // The new values are copied in the next execution
+        b.init(40);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(50, c.get(i));
+        }
+    }
+
+    @Test
+    public void testNativeVector() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int numElements = 256;
+        NativeVectorFloat a = new NativeVectorFloat(numElements);
+        NativeVectorFloat b = new NativeVectorFloat(numElements);
+        for (int i = 0; i < numElements; i++) {
+            a.set(i, i);
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestNativeArrays::scaleVector, a, b) //
+                .transferToHost(b);
+        taskGraph.execute();
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(2 * i, b.get(i), 0.01f);
+        }
+    }
+
+    @Test
+    public void testNativeMatrix() {
+        assertNotBackend(TornadoVMBackendType.SPIRV);
+        final int rows = 64;
+        final int columns = 32;
+        NativeMatrix2DFloat a = new NativeMatrix2DFloat(rows, columns);
+        NativeMatrix2DFloat b = new NativeMatrix2DFloat(columns, rows);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                a.set(i, j, i * columns + j);
+            }
+        }
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a) //
+                .task("t0", TestNativeArrays::transposeMatrix, a, b) //
+                .transferToHost(b);
+        taskGraph.execute();
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                assertEquals(a.get(i, j), b.get(j, i), 0.01f);
+            }
+        }
+    }
+}
@@ -85,6 +85,24 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    public static void compute(float[] arrayA, int[] arrayB, float[] arrayC) {
+        for (@Parallel int i = 0; i < arrayC.length; i++) {
+            arrayC[i] = arrayA[i] + arrayB[i];
+        }
+    }
+
+    private static final int NUM_FEATURES = 4;
+
+    public static void classify(float[] features, int[] labels, float[] weights, float[] output) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            float sum = 0;
+            for (int j = 0; j < weights.length; j++) {
+                sum += features[i * NUM_FEATURES + j] * weights[j];
+            }
+            output[i] = sum + labels[i];
+        }
+    }
+
     @Test
     public void test100MB() {
 
@@ -337,6 +355,73 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    @Test
+    public void test50MBMixedTypes() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        int size = 20000000;
+        // or as much as we can
+        if (size * 4 > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 4 / 3) * 0.9);
+        }
+        float[] arrayA = new float[size];
+        int[] arrayB = new int[size];
+        float[] arrayC = new float[size];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> {
+            arrayA[idx] = idx;
+            arrayB[idx] = idx % 100;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0");
+
+        taskGraph.batch("50MB") // Process Slots of 50 MB
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, arrayA, arrayB) //
+                .task("t0", TestBatches::compute, arrayA, arrayB, arrayC) //
+                .transferToHost(arrayC) //
+                .execute();
+
+        for (int i = 0; i < arrayA.length; i++) {
+            assertEquals(arrayA[i] + arrayB[i], arrayC[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void test50MBMixedSizes() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        int size = 10000000;
+        // or as much as we can
+        if (size * 4 * (NUM_FEATURES + 2) > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 4 / (NUM_FEATURES + 2)) * 0.9);
+        }
+        // Features are split with 4 elements per iteration, and the weights are
+        // copied entirely in every batch
+        float[] features = new float[size * NUM_FEATURES];
+        int[] labels = new int[size];
+        float[] weights = new float[] { 0.5f, 0.25f, 0.125f, 0.125f };
+        float[] output = new float[size];
+
+        IntStream.range(0, features.length).sequential().forEach(idx -> features[idx] = idx % 8);
+        IntStream.range(0, labels.length).sequential().forEach(idx -> labels[idx] = idx % 10);
+
+        TaskGraph taskGraph = new TaskGraph("s0");
+
+        taskGraph.batch("50MB") // Process Slots of 50 MB
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, features, labels, weights) //
+                .task("t0", TestBatches::classify, features, labels, weights, output) //
+                .transferToHost(output) //
+                .execute();
+
+        float[] expected = new float[size];
+        classify(features, labels, weights, expected);
+        for (int i = 0; i < output.length; i++) {
+            assertEquals(expected[i], output[i], 0.01f);
+        }
+    }
+
     private long checkMaxHeapAllocation(int size, MemSize memSize) throws UnsupportedConfigurationException {
         long maxAllocMemory = getTornadoRuntime().getDefaultDevice().getDeviceContext().getMemoryManager().getHeapSize();
 
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.runtime.common.KernelCacheKey;
+import uk.ac.manchester.tornado.runtime.common.PersistentKernelCache;
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the keys and the entries of the persistent kernel cache. They use a
+ * temporary directory, so they do not need a device.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.cache.TestPersistentKernelCache
+ * </code>
+ */
+public class TestPersistentKernelCache extends TornadoTestBase {
+
+    private static final String OPTION = "tornado.unittests.cache.option";
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("tornado-kernel-cache");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        System.clearProperty(OPTION);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static String keyOf(String backend, Object... args) {
+        return new KernelCacheKey(backend).addOptions("tornado.unittests.").addArguments(args).getKey();
+    }
+
+    private static byte[] code(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRestoreMetadata() {
+        PersistentKernelCache cache = new PersistentKernelCache(directory, Long.MAX_VALUE);
+        DomainTree domain = new DomainTree(2);
+        domain.set(0, new IntDomain(1, 1, 126));
+        domain.set(1, new IntDomain(0, 2, 64));
+
+        cache.store("kernel", code("__kernel void k() {}"), "k", domain, true, 16);
+        PersistentKernelCache.Entry entry = cache.lookup("kernel");
+
+        assertNotNull(entry);
+        assertArrayEquals(code("__kernel void k() {}"), entry.getCode());
+        assertEquals("k", entry.getEntryPoint());
+        assertTrue(entry.isBoundsGuarded());
+        assertEquals(16, entry.getTileSize());
+
+        DomainTree restored = entry.getDomain();
+        assertEquals(2, restored.getDepth());
+        for (int i = 0; i < 2; i++) {
+            IntDomain expected = (IntDomain) domain.get(i);
+            IntDomain actual = (IntDomain) restored.get(i);
+            assertEquals(expected.getOffset(), actual.getOffset());
+            assertEquals(expected.getStep(), actual.getStep());
+            assertEquals(expected.cardinality(), actual.cardinality());
+        }
+    }
+
+    @Test
+    public void testRestoreDefaultMetadata() {
+        PersistentKernelCache cache = new PersistentKernelCache(directory, Long.MAX_VALUE);
+
+        cache.store("kernel", code("__kernel void k() {}"), "k", null, false, 0);
+        PersistentKernelCache.Entry entry = cache.lookup("kernel");
+
+        assertNotNull(entry);
+        assertNull(entry.getDomain());
+        assertFalse(entry.isBoundsGuarded());
+        assertEquals(0, entry.getTileSize());
+    }
+
+    @Test
+    public void testMissingEntry() {
+        PersistentKernelCache cache = new PersistentKernelCache(directory, Long.MAX_VALUE);
+        assertNull(cache.lookup("kernel"));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws IOException {
+        final byte[] kernel = new byte[1024];
+        PersistentKernelCache cache = new PersistentKernelCache(directory, 2 * kernel.length + 1024);
+
+        cache.store("first", kernel, "k", null, false, 0);
+        cache.store("second", kernel, "k", null, false, 0);
+        Files.setLastModifiedTime(directory.resolve("first.kernel"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(directory.resolve("second.kernel"), FileTime.fromMillis(2000));
+
+        // A hit makes the entry the most recently used one
+        assertNotNull(cache.lookup("first"));
+        cache.store("third", kernel, "k", null, false, 0);
+
+        assertNotNull(cache.lookup("first"));
+        assertNull(cache.lookup("second"));
+        assertNotNull(cache.lookup("third"));
+    }
+
+    @Test
+    public void testKeyIsStable() {
+        assertEquals(keyOf("OPENCL", new float[16], 3), keyOf("OPENCL", new float[16], 3));
+    }
+
+    @Test
+    public void testKeyChangesWithSpecialisedValues() {
+        final String key = keyOf("OPENCL", new float[16], 3);
+        assertNotEquals(key, keyOf("PTX", new float[16], 3));
+        assertNotEquals(key, keyOf("OPENCL", new float[32], 3));
+        assertNotEquals(key, keyOf("OPENCL", new int[16], 3));
+        assertNotEquals(key, keyOf("OPENCL", new float[16], 4));
+        assertNotEquals(key, keyOf("OPENCL", new float[16], 3L));
+    }
+
+    @Test
+    public void testKeyChangesWithAliasedArguments() {
+        final float[] a = new float[16];
+        final float[] b = new float[16];
+        assertNotEquals(keyOf("OPENCL", a, b), keyOf("OPENCL", a, a));
+
+        // Arrays of arrays alias when they share a row
+        final float[][] first = new float[][] { a, b };
+        assertNotEquals(keyOf("OPENCL", first, new float[][] { new float[16] }), keyOf("OPENCL", first, new float[][] { b }));
+    }
+
+    @Test
+    public void testKeyChangesWithOptions() {
+        final String key = keyOf("OPENCL", new float[16]);
+        System.setProperty(OPTION, "True");
+        assertNotEquals(key, keyOf("OPENCL", new float[16]));
+    }
+
+    @Test
+    public void testObjectArgumentsAreNotCacheable() {
+        assertTrue(new KernelCacheKey("OPENCL").addArguments(new Object[] { new float[16], 3 }).isCacheable());
+        assertFalse(new KernelCacheKey("OPENCL").addArguments(new Object[] { new float[16], new StringBuilder() }).isCacheable());
+    }
+}
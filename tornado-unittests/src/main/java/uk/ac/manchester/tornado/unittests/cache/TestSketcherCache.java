@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.runtime.TornadoAcceleratorDriver;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSuitesProvider;
+import uk.ac.manchester.tornado.runtime.sketcher.SketchCacheStatistics;
+import uk.ac.manchester.tornado.runtime.sketcher.SketchRequest;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the statistics and the size bound of the sketch cache. Each sketch
+ * request counts as one hit or one miss, and lookups only count when they build
+ * again an evicted sketch.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V -Dtornado.sketcher.cache.size=2 uk.ac.manchester.tornado.unittests.cache.TestSketcherCache
+ * </code>
+ */
+public class TestSketcherCache extends TornadoTestBase {
+
+    private static final int DRIVER_INDEX = 0;
+    private static final int DEVICE_INDEX = 0;
+
+    public static void add(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void sub(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
+        }
+    }
+
+    public static void mul(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+    }
+
+    private static Method method(String name) {
+        try {
+            return TestSketcherCache.class.getMethod(name, float[].class, float[].class, float[].class);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void request(Method method) {
+        TornadoAcceleratorDriver driver = TornadoCoreRuntime.getTornadoRuntime().getDriver(DRIVER_INDEX);
+        TornadoSuitesProvider suites = driver.getSuitesProvider();
+        new SketchRequest(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method), driver.getProviders(), suites.getGraphBuilderSuite(), suites.getSketchTier(), DRIVER_INDEX, DEVICE_INDEX)
+                .run();
+    }
+
+    private static void lookup(Method method) {
+        assertNotNull(TornadoSketcher.lookup(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method), DRIVER_INDEX, DEVICE_INDEX));
+    }
+
+    @Before
+    public void clearSketches() {
+        TornadoSketcher.invalidateAll();
+    }
+
+    @Test
+    public void testEachRequestIsCountedOnce() {
+        final Method add = method("add");
+        final SketchCacheStatistics before = TornadoSketcher.getStatistics();
+
+        request(add);
+        lookup(add);
+        request(add);
+        lookup(add);
+        lookup(add);
+
+        final SketchCacheStatistics after = TornadoSketcher.getStatistics();
+        assertEquals(1, after.getMisses() - before.getMisses());
+        assertEquals(1, after.getHits() - before.getHits());
+        assertEquals(1, after.getEntries());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBound() {
+        assertEquals("Run with -Dtornado.sketcher.cache.size=2", 2, TornadoOptions.SKETCHER_CACHE_SIZE);
+        final Method add = method("add");
+        final Method sub = method("sub");
+        final Method mul = method("mul");
+        final SketchCacheStatistics before = TornadoSketcher.getStatistics();
+
+        request(add);
+        lookup(add);
+        request(sub);
+        lookup(sub);
+        request(mul);
+        lookup(mul);
+
+        SketchCacheStatistics after = TornadoSketcher.getStatistics();
+        assertEquals(2, after.getEntries());
+        assertEquals(1, after.getEvictions() - before.getEvictions());
+        assertEquals(3, after.getMisses() - before.getMisses());
+        assertEquals(0, after.getHits() - before.getHits());
+
+        // The sketch of add was the least recently used one
+        request(sub);
+        lookup(add);
+
+        after = TornadoSketcher.getStatistics();
+        assertEquals(2, after.getEntries());
+        assertEquals(4, after.getMisses() - before.getMisses());
+        assertEquals(1, after.getHits() - before.getHits());
+        assertEquals(2, after.getEvictions() - before.getEvictions());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.dynamic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.runtime.tasks.AdaptiveDeviceSelector;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the device selection of the ADAPTIVE policy with synthetic timings,
+ * so they do not need a device. Contenders 0 and 1 play the devices and
+ * contender 2 the sequential execution in the JVM.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.dynamic.TestAdaptiveDeviceSelector
+ * </code>
+ */
+public class TestAdaptiveDeviceSelector extends TornadoTestBase {
+
+    private static final int NUM_CONTENDERS = 3;
+
+    private static final double DECAY = 0.5;
+
+    private static final int SMALL_SIZE = 1000;
+
+    private static final int LARGE_SIZE = 1_000_000;
+
+    /**
+     * Time of the first execution of each contender in a bucket, e.g., the JIT
+     * compilation. It must not be taken into account.
+     */
+    private static final long WARM_UP_TIME = 1_000_000;
+
+    /**
+     * Runs the selected contender with synthetic timings and returns its index.
+     */
+    private static int run(AdaptiveDeviceSelector selector, int inputSize, long[] times, boolean[] warmedUp) {
+        final int contender = selector.select(inputSize);
+        selector.record(inputSize, contender, warmedUp[contender] ? times[contender] : WARM_UP_TIME);
+        warmedUp[contender] = true;
+        return contender;
+    }
+
+    private static int[] run(AdaptiveDeviceSelector selector, int inputSize, long[] times, boolean[] warmedUp, int executions) {
+        final int[] selected = new int[executions];
+        for (int i = 0; i < executions; i++) {
+            selected[i] = run(selector, inputSize, times, warmedUp);
+        }
+        return selected;
+    }
+
+    @Test
+    public void testWarmUp() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(NUM_CONTENDERS, DECAY, 0);
+        final long[] times = { 100, 50, 200 };
+
+        // One warm-up and one measured execution per contender
+        int[] explored = run(selector, SMALL_SIZE, times, new boolean[NUM_CONTENDERS], 2 * NUM_CONTENDERS);
+        assertArrayEquals(new int[] { 0, 0, 1, 1, 2, 2 }, explored);
+
+        // The warm-up times are ignored, so the fastest contender is selected
+        assertArrayEquals(new int[] { 1, 1, 1 }, run(selector, SMALL_SIZE, times, new boolean[] { true, true, true }, 3));
+    }
+
+    @Test
+    public void testMigration() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(NUM_CONTENDERS, DECAY, 0);
+        final boolean[] warmedUp = new boolean[NUM_CONTENDERS];
+        final long[] times = { 100, 50, 200 };
+        run(selector, SMALL_SIZE, times, warmedUp, 2 * NUM_CONTENDERS);
+        assertEquals(1, run(selector, SMALL_SIZE, times, warmedUp));
+
+        // Contender 1 becomes slower: its estimate is 0.5 * 500 + 0.5 * 50 = 275
+        times[1] = 500;
+        assertEquals(1, run(selector, SMALL_SIZE, times, warmedUp));
+        assertArrayEquals(new int[] { 0, 0, 0 }, run(selector, SMALL_SIZE, times, warmedUp, 3));
+    }
+
+    @Test
+    public void testProbing() {
+        final int probePeriod = 4;
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(NUM_CONTENDERS, DECAY, probePeriod);
+        final boolean[] warmedUp = new boolean[NUM_CONTENDERS];
+        final long[] times = { 100, 50, 200 };
+
+        // The 8th execution of the bucket probes the contender with the oldest estimate
+        run(selector, SMALL_SIZE, times, warmedUp, 2 * NUM_CONTENDERS);
+        assertArrayEquals(new int[] { 1, 0, 1, 1, 1, 2 }, run(selector, SMALL_SIZE, times, warmedUp, 6));
+    }
+
+    @Test
+    public void testWarmUpPerSizeBucket() {
+        AdaptiveDeviceSelector selector = new AdaptiveDeviceSelector(NUM_CONTENDERS, DECAY, 0);
+        final long[] smallTimes = { 100, 50, 200 };
+        final long[] largeTimes = { 1000, 2000, 50000 };
+        run(selector, SMALL_SIZE, smallTimes, new boolean[NUM_CONTENDERS], 2 * NUM_CONTENDERS);
+
+        // A new size bucket warms up every contender again
+        int[] explored = run(selector, LARGE_SIZE, largeTimes, new boolean[NUM_CONTENDERS], 2 * NUM_CONTENDERS);
+        assertArrayEquals(new int[] { 0, 0, 1, 1, 2, 2 }, explored);
+        assertEquals(0, run(selector, LARGE_SIZE, largeTimes, new boolean[] { true, true, true }));
+
+        // The estimates of the first bucket are kept
+        assertEquals(1, run(selector, SMALL_SIZE, smallTimes, new boolean[] { true, true, true }));
+    }
+}
@@ -18,15 +18,21 @@
 package uk.ac.manchester.tornado.unittests.dynamic;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.Arrays;
 
 import org.junit.Test;
 
+import uk.ac.manchester.tornado.api.DynamicReconfigurationResult;
 import uk.ac.manchester.tornado.api.Policy;
 import uk.ac.manchester.tornado.api.TaskGraph;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
 import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
 
 /**
@@ -214,4 +220,75 @@ public class TestDynamic extends TornadoTestBase {
             assertEquals(a[i] * 2, b[i]);
         }
     }
+
+    @Test
+    public void testLatencyResult() {
+        int numElements = 16000;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+
+        Arrays.fill(a, 10);
+
+        TaskGraph taskGraph = new TaskGraph("latencyResult") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestDynamic::compute, a, b) //
+                .transferToHost(b);
+
+        assertNull(taskGraph.getDynamicReconfigurationResult());
+        taskGraph.executeWithProfiler(Policy.LATENCY);
+
+        DynamicReconfigurationResult result = taskGraph.getDynamicReconfigurationResult();
+        assertNotNull(result);
+        assertEquals(Policy.LATENCY, result.getPolicy());
+        assertEquals(TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount() + 1, result.getNumContenders());
+
+        // The others are cancelled if they are still running when the winner finishes
+        final int winner = result.getWinnerIndex();
+        assertEquals(DynamicReconfigurationResult.Status.COMPLETED, result.getStatus(winner));
+        assertNotEquals(Long.MAX_VALUE, result.getTime(winner));
+        for (int i = 0; i < result.getNumContenders(); i++) {
+            if (result.getStatus(i) != DynamicReconfigurationResult.Status.COMPLETED) {
+                assertEquals(Long.MAX_VALUE, result.getTime(i));
+            }
+        }
+
+        // The next executions run on the winner only, without a new race
+        final int numDevices = TornadoRuntime.getTornadoRuntime().getDriver(0).getDeviceCount();
+        final String deviceProperty = "latencyResult.t0.device";
+        Arrays.fill(a, 20);
+        taskGraph.executeWithProfiler(Policy.LATENCY);
+        assertSame(result, taskGraph.getDynamicReconfigurationResult());
+        if (winner < numDevices) {
+            assertEquals("0:" + winner, TornadoRuntime.getProperty(deviceProperty));
+        } else {
+            // The sequential Java contender won, so no device has been selected
+            assertNull(TornadoRuntime.getProperty(deviceProperty));
+        }
+        for (int i = 0; i < b.length; i++) {
+            assertEquals(a[i] * 2, b[i]);
+        }
+    }
+
+    @Test
+    public void testDynamicAdaptive() {
+        int numElements = 16000;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+
+        Arrays.fill(a, 10);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestDynamic::compute, a, b) //
+                .transferToHost(b);
+
+        // Explore all devices, exploit the fastest one and probe the others periodically
+        for (int i = 0; i < 40; i++) {
+            Arrays.fill(b, 0);
+            taskGraph.executeWithProfiler(Policy.ADAPTIVE);
+            for (int j = 0; j < b.length; j++) {
+                assertEquals(a[j] * 2, b[j]);
+            }
+        }
+    }
 }
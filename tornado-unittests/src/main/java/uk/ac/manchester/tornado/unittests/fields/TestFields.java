@@ -19,6 +19,7 @@ package uk.ac.manchester.tornado.unittests.fields;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Random;
@@ -255,4 +256,106 @@ public class TestFields extends TornadoTestBase {
         assertEquals(-1, a.b.someField, 0.01f);
     }
 
+    private static class C {
+        final int[] input;
+        final int[] output;
+
+        public C(int elements) {
+            input = new int[elements];
+            output = new int[elements];
+        }
+    }
+
+    public static void scaleFields(C c) {
+        for (@Parallel int i = 0; i < c.input.length; i++) {
+            c.output[i] = c.input[i] * 2;
+        }
+    }
+
+    @Test
+    public void testUpdateArrayFields() {
+        final int N = 256;
+        C c = new C(N);
+        Arrays.fill(c.input, 1);
+
+        // The profiler counts the bytes copied in each execution
+        System.setProperty("tornado.profiler", "True");
+        try {
+            TaskGraph taskGraph = new TaskGraph("s0");
+            taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, c);
+            taskGraph.task("t0", TestFields::scaleFields, c);
+            taskGraph.transferToHost(c);
+            taskGraph.execute();
+
+            for (int i = 0; i < N; i++) {
+                assertEquals(2, c.output[i]);
+            }
+            final long fullCopy = taskGraph.getTotalBytesCopyIn();
+            assertTrue(fullCopy >= 2L * N * Integer.BYTES);
+
+            // Only the modified elements are copied to the device on the next execution
+            c.input[7] = 50;
+            c.input[N - 1] = 100;
+            taskGraph.execute();
+
+            for (int i = 0; i < N; i++) {
+                assertEquals(c.input[i] * 2, c.output[i]);
+            }
+            assertEquals(100, c.output[7]);
+            assertEquals(200, c.output[N - 1]);
+
+            final long partialCopy = taskGraph.getTotalBytesCopyIn();
+            assertTrue(partialCopy > 0);
+            assertTrue(partialCopy <= 2 * Integer.BYTES);
+        } finally {
+            System.setProperty("tornado.profiler", "False");
+        }
+    }
+
+    private static class D {
+        int[] input;
+        int[] output;
+
+        public D(int elements) {
+            input = new int[elements];
+            output = new int[elements];
+        }
+    }
+
+    public static void scaleFields(D d) {
+        for (@Parallel int i = 0; i < d.input.length; i++) {
+            d.output[i] = d.input[i] * 2;
+        }
+    }
+
+    /**
+     * The device buffer of the object is sized on the first execution. Setting
+     * its fields to larger arrays moves the object to a larger buffer.
+     */
+    @Test
+    public void testReassignLargerArrayFields() {
+        final int N = 256;
+        D d = new D(N);
+        Arrays.fill(d.input, 1);
+
+        TaskGraph taskGraph = new TaskGraph("s0");
+        taskGraph.transferToDevice(DataTransferMode.EVERY_EXECUTION, d);
+        taskGraph.task("t0", TestFields::scaleFields, d);
+        taskGraph.transferToHost(d);
+        taskGraph.execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(2, d.output[i]);
+        }
+
+        d.input = new int[4 * N];
+        d.output = new int[4 * N];
+        Arrays.fill(d.input, 3);
+        taskGraph.execute();
+
+        for (int i = 0; i < 4 * N; i++) {
+            assertEquals(6, d.output[i]);
+        }
+    }
+
 }
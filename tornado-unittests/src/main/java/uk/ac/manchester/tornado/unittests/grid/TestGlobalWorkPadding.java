@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020-2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.grid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.WorkerGrid1D;
+import uk.ac.manchester.tornado.api.WorkerGrid2D;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.runtime.common.GlobalWorkPadding;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+import uk.ac.manchester.tornado.unittests.arrays.TestArrays;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of kernels whose iteration space is not a multiple of a large
+ * work-group size. The global work of bounds-guarded kernels is padded, so the
+ * extra threads must not write any element. The padding chosen for each kernel
+ * is checked with the metadata of the task.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *      tornado-test.py -V --debug uk.ac.manchester.tornado.unittests.grid.TestGlobalWorkPadding
+ * </code>
+ *
+ */
+public class TestGlobalWorkPadding extends TornadoTestBase {
+
+    private static final int PRIME_SIZE = 100003;
+
+    private static void addMatrices(final float[] a, final float[] b, final float[] c, final int rows, final int columns) {
+        for (@Parallel int i = 0; i < rows; i++) {
+            for (@Parallel int j = 0; j < columns; j++) {
+                c[i * columns + j] = a[i * columns + j] + b[i * columns + j];
+            }
+        }
+    }
+
+    private static void reduceAdd(final int[] input, @Reduce int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    private static TaskMetaData getMeta(TaskGraph taskGraph) {
+        return (TaskMetaData) taskGraph.getTask("t0").meta();
+    }
+
+    /**
+     * Checks that the global work of each dimension of the task was rounded up to
+     * a multiple of the padding block of the device, and that the work-groups
+     * selected for it are not smaller than the block. The CPU scheduler runs one
+     * thread per compute unit, so its global work is not padded.
+     */
+    private static void assertPaddedWork(TaskGraph taskGraph, long... iterationSpace) {
+        final TaskMetaData meta = getMeta(taskGraph);
+        assertTrue(meta.isBoundsGuarded());
+        assertTrue(GlobalWorkPadding.isEnabled(meta));
+        if (meta.getLogicDevice().getDeviceType() == TornadoDeviceType.CPU) {
+            return;
+        }
+
+        final int dims = meta.getDims();
+        final long[] maxWorkItemSizes = meta.getLogicDevice().getPhysicalDevice().getDeviceMaxWorkItemSizes();
+        final long maxWorkGroupSize = meta.getLogicDevice().getPhysicalDevice().getDeviceMaxWorkGroupSize()[0];
+        assertEquals(iterationSpace.length, dims);
+        for (int i = 0; i < dims; i++) {
+            final long maxItems = (dims == 1) ? maxWorkItemSizes[i] : (long) Math.sqrt(maxWorkItemSizes[i]);
+            final long maxBlockSize = Math.min(maxItems, maxWorkGroupSize);
+            assertEquals(GlobalWorkPadding.padGlobalWork(iterationSpace[i], maxBlockSize, dims), meta.getGlobalWork()[i]);
+
+            // The tuner may replace the local work with one of its candidates
+            if (meta.getLocalWork() != null && !TornadoOptions.TUNING_ENABLE) {
+                assertEquals(0, meta.getGlobalWork()[i] % meta.getLocalWork()[i]);
+                assertTrue(meta.getLocalWork()[i] >= GlobalWorkPadding.getPaddingBlock(maxBlockSize, dims));
+            }
+        }
+    }
+
+    @Test
+    public void testPaddingBlocks() {
+        assertEquals(256, GlobalWorkPadding.roundUp(256, 256));
+        assertEquals(512, GlobalWorkPadding.roundUp(257, 256));
+        assertEquals(7, GlobalWorkPadding.roundUp(7, 1));
+
+        // Iteration spaces that fit in a single work-group are not padded
+        assertEquals(100, GlobalWorkPadding.padGlobalWork(100, 1024, 1));
+        assertEquals(100096, GlobalWorkPadding.padGlobalWork(PRIME_SIZE, 1024, 1));
+        assertEquals(128, GlobalWorkPadding.padGlobalWork(113, 32, 2));
+        assertEquals(120, GlobalWorkPadding.padGlobalWork(113, 8, 2));
+
+        long[] padded = GlobalWorkPadding.padToLocalWork(new long[] { 1000, 30, 1 }, new long[] { 64, 16, 1 }, 2);
+        assertArrayEquals(new long[] { 1024, 32, 1 }, padded);
+    }
+
+    @Test
+    public void testPrimeSize1D() {
+        float[] a = new float[PRIME_SIZE];
+        float[] b = new float[PRIME_SIZE];
+        float[] c = new float[PRIME_SIZE];
+
+        Random r = new Random();
+        IntStream.range(0, PRIME_SIZE).forEach(i -> {
+            a[i] = r.nextFloat();
+            b[i] = r.nextFloat();
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestArrays::vectorAddFloat, a, b, c) //
+                .transferToHost(c); //
+        taskGraph.execute();
+
+        // 100003 threads are rounded up to 100096 on devices with work-groups of 256
+        assertPaddedWork(taskGraph, PRIME_SIZE);
+        for (int i = 0; i < PRIME_SIZE; i++) {
+            assertEquals(a[i] + b[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testPrimeSize2D() {
+        final int rows = 257;
+        final int columns = 263;
+        float[] a = new float[rows * columns];
+        float[] b = new float[rows * columns];
+        float[] c = new float[rows * columns];
+
+        Random r = new Random();
+        IntStream.range(0, rows * columns).forEach(i -> {
+            a[i] = r.nextFloat();
+            b[i] = r.nextFloat();
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestGlobalWorkPadding::addMatrices, a, b, c, rows, columns) //
+                .transferToHost(c); //
+        taskGraph.execute();
+
+        assertPaddedWork(taskGraph, rows, columns);
+        for (int i = 0; i < rows * columns; i++) {
+            assertEquals(a[i] + b[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testGridNotMultipleOfLocalWork() {
+        final int size = 1000;
+        float[] a = new float[size];
+        float[] b = new float[size];
+        float[] c = new float[size];
+
+        IntStream.range(0, size).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestArrays::vectorAddFloat, a, b, c) //
+                .transferToHost(c); //
+
+        WorkerGrid1D worker = new WorkerGrid1D(size);
+        worker.setLocalWork(64, 1, 1);
+        GridScheduler gridScheduler = new GridScheduler("s0.t0", worker);
+        taskGraph.execute(gridScheduler);
+
+        // The launch is padded to 1024 threads, the user-defined grid is not modified
+        assertTrue(getMeta(taskGraph).isBoundsGuarded());
+        assertArrayEquals(new long[] { size, 1, 1 }, worker.getGlobalWork());
+        assertArrayEquals(new long[] { 1024, 1, 1 }, GlobalWorkPadding.padToLocalWork(worker.getGlobalWork(), worker.getLocalWork(), worker.dimension()));
+        for (int i = 0; i < size; i++) {
+            assertEquals(a[i] + b[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testGrid2DNotMultipleOfLocalWork() {
+        final int rows = 100;
+        final int columns = 70;
+        float[] a = new float[rows * columns];
+        float[] b = new float[rows * columns];
+        float[] c = new float[rows * columns];
+
+        IntStream.range(0, rows * columns).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestGlobalWorkPadding::addMatrices, a, b, c, rows, columns) //
+                .transferToHost(c); //
+
+        WorkerGrid2D worker = new WorkerGrid2D(rows, columns);
+        worker.setLocalWork(16, 16, 1);
+        GridScheduler gridScheduler = new GridScheduler("s0.t0", worker);
+        taskGraph.execute(gridScheduler);
+
+        assertTrue(getMeta(taskGraph).isBoundsGuarded());
+        assertArrayEquals(new long[] { rows, columns, 1 }, worker.getGlobalWork());
+        assertArrayEquals(new long[] { 112, 80, 1 }, GlobalWorkPadding.padToLocalWork(worker.getGlobalWork(), worker.getLocalWork(), worker.dimension()));
+        for (int i = 0; i < rows * columns; i++) {
+            assertEquals(a[i] + b[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testReductionPrimeSize() {
+        int[] input = new int[PRIME_SIZE];
+        int[] result = new int[] { 0 };
+
+        IntStream.range(0, PRIME_SIZE).forEach(i -> input[i] = i % 10);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestGlobalWorkPadding::reduceAdd, input, result) //
+                .transferToHost(result); //
+        taskGraph.execute();
+
+        // Every thread of a reduction takes part in it, so it is not padded
+        assertFalse(getMeta(taskGraph).isBoundsGuarded());
+        assertFalse(GlobalWorkPadding.isEnabled(getMeta(taskGraph)));
+
+        int[] sequential = new int[] { 0 };
+        reduceAdd(input, sequential);
+        assertEquals(sequential[0], result[0]);
+    }
+
+    @Test
+    public void testCoarsenedKernelIsNotPadded() {
+        float[] a = new float[PRIME_SIZE];
+        float[] b = new float[PRIME_SIZE];
+        float[] c = new float[PRIME_SIZE];
+
+        IntStream.range(0, PRIME_SIZE).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        System.setProperty("coarsened.t0.coarsener", "True");
+        TaskGraph taskGraph = new TaskGraph("coarsened") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestArrays::vectorAddFloat, a, b, c) //
+                .transferToHost(c); //
+        taskGraph.execute();
+
+        // The threads of a coarsened kernel iterate over blocks of the loop
+        final TaskMetaData meta = getMeta(taskGraph);
+        assertTrue(meta.enableThreadCoarsener());
+        assertFalse(meta.isBoundsGuarded());
+        assertFalse(GlobalWorkPadding.isEnabled(meta));
+        assertEquals(PRIME_SIZE, meta.getGlobalWork()[0]);
+        for (int i = 0; i < PRIME_SIZE; i++) {
+            assertEquals(a[i] + b[i], c[i], 0.01f);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2020-2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package uk.ac.manchester.tornado.unittests.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of plain Java loops, without {@code @Parallel} annotations, compiled
+ * with the auto-paralleliser. Loops with dependences between iterations must
+ * stay sequential and still compute the same results. The number of parallel
+ * dimensions of each kernel is checked with the domain of the task.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V -Dtornado.parallelise.auto=True -Dtornado.parallelise.auto.report=True uk.ac.manchester.tornado.unittests.loops.TestAutoParallelisation
+ * </code>
+ *
+ */
+public class TestAutoParallelisation extends TornadoTestBase {
+
+    private static final int SIZE = 2048;
+
+    public static void vectorAdd(float[] a, float[] b, float[] c) {
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void matrixMultiplication(float[] a, float[] b, float[] c, int size) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < size; k++) {
+                    sum += a[i * size + k] * b[k * size + j];
+                }
+                c[i * size + j] = sum;
+            }
+        }
+    }
+
+    public static void stencil(float[] input, float[] output) {
+        for (int i = 1; i < output.length - 1; i++) {
+            output[i] = (input[i - 1] + input[i] + input[i + 1]) / 3.0f;
+        }
+    }
+
+    public static void prefixSum(int[] input, int[] output) {
+        int sum = 0;
+        for (int i = 0; i < input.length; i++) {
+            sum += input[i];
+            output[i] = sum;
+        }
+    }
+
+    public static void shiftInPlace(int[] a) {
+        for (int i = 0; i < a.length - 1; i++) {
+            a[i] = a[i + 1];
+        }
+    }
+
+    public static void shift(int[] a, int[] b) {
+        for (int i = 0; i < a.length - 1; i++) {
+            a[i] = b[i + 1];
+        }
+    }
+
+    public static void polynomialProduct(float[] a, float[] b, float[] c) {
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                c[i + j] += a[i] * b[j];
+            }
+        }
+    }
+
+    public static void countProducts(int[] counts, int size) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                counts[i * j] += 1;
+            }
+        }
+    }
+
+    public static void sum(int[] input, int[] result) {
+        int sum = 0;
+        for (int i = 0; i < input.length; i++) {
+            sum += input[i];
+        }
+        result[0] = sum;
+    }
+
+    private static int getParallelDimensions(TaskGraph taskGraph) {
+        final DomainTree domain = ((TaskMetaData) taskGraph.getTask("t0").meta()).getDomain();
+        return domain == null ? 0 : domain.getDepth();
+    }
+
+    @Test
+    public void testVectorAdd() {
+        float[] a = new float[SIZE];
+        float[] b = new float[SIZE];
+        float[] c = new float[SIZE];
+        IntStream.range(0, SIZE).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestAutoParallelisation::vectorAdd, a, b, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        assertEquals(1, getParallelDimensions(taskGraph));
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(a[i] + b[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testMatrixMultiplication() {
+        final int size = 64;
+        float[] a = new float[size * size];
+        float[] b = new float[size * size];
+        float[] c = new float[size * size];
+        float[] expected = new float[size * size];
+        IntStream.range(0, size * size).forEach(i -> {
+            a[i] = i % 7;
+            b[i] = i % 5;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestAutoParallelisation::matrixMultiplication, a, b, c, size) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        // The i and j loops are parallel, the k loop performs a reduction
+        assertEquals(2, getParallelDimensions(taskGraph));
+        matrixMultiplication(a, b, expected, size);
+        for (int i = 0; i < size * size; i++) {
+            assertEquals(expected[i], c[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void testStencil() {
+        float[] input = new float[SIZE];
+        float[] output = new float[SIZE];
+        float[] expected = new float[SIZE];
+        IntStream.range(0, SIZE).forEach(i -> input[i] = i % 10);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestAutoParallelisation::stencil, input, output) //
+                .transferToHost(output);
+        taskGraph.execute();
+
+        // input and output are different arrays
+        assertEquals(1, getParallelDimensions(taskGraph));
+        stencil(input, expected);
+        for (int i = 1; i < SIZE - 1; i++) {
+            assertEquals(expected[i], output[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testPrefixSum() {
+        int[] input = new int[SIZE];
+        int[] output = new int[SIZE];
+        int[] expected = new int[SIZE];
+        IntStream.range(0, SIZE).forEach(i -> input[i] = i % 3);
+
+        // The scalar sum carries a value between iterations
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestAutoParallelisation::prefixSum, input, output) //
+                .transferToHost(output);
+        taskGraph.execute();
+
+        assertEquals(0, getParallelDimensions(taskGraph));
+        prefixSum(input, expected);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected[i], output[i]);
+        }
+    }
+
+    @Test
+    public void testShiftInPlace() {
+        int[] a = new int[SIZE];
+        int[] expected = new int[SIZE];
+        IntStream.range(0, SIZE).forEach(i -> {
+            a[i] = i;
+            expected[i] = i;
+        });
+
+        // a[i] is written in one iteration and read in the previous one
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestAutoParallelisation::shiftInPlace, a) //
+                .transferToHost(a);
+        taskGraph.execute();
+
+        assertEquals(0, getParallelDimensions(taskGraph));
+        shiftInPlace(expected);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected[i], a[i]);
+        }
+    }
+
+    @Test
+    public void testScalarReduction() {
+        int[] input = new int[SIZE];
+        int[] result = new int[1];
+        IntStream.range(0, SIZE).forEach(i -> input[i] = i % 4);
+
+        new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestAutoParallelisation::sum, input, result) //
+                .transferToHost(result) //
+                .execute();
+
+        int expected = IntStream.of(input).sum();
+        assertEquals(expected, result[0]);
+    }
+
+    @Test
+    public void testShiftDifferentArrays() {
+        int[] a = new int[SIZE];
+        int[] b = new int[SIZE];
+        IntStream.range(0, SIZE).forEach(i -> b[i] = i);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, b) //
+                .task("t0", TestAutoParallelisation::shift, a, b) //
+                .transferToHost(a);
+        taskGraph.execute();
+
+        assertEquals(1, getParallelDimensions(taskGraph));
+        for (int i = 0; i < SIZE - 1; i++) {
+            assertEquals(i + 1, a[i]);
+        }
+    }
+
+    @Test
+    public void testShiftAliasedArrays() {
+        int[] a = new int[SIZE];
+        int[] expected = new int[SIZE];
+        IntStream.range(0, SIZE).forEach(i -> {
+            a[i] = i;
+            expected[i] = i;
+        });
+
+        // The same array is passed as a and b, so a[i] = b[i + 1] carries a
+        // dependence between iterations and the kernel must be sequential
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestAutoParallelisation::shift, a, a) //
+                .transferToHost(a);
+        taskGraph.execute();
+
+        assertEquals(0, getParallelDimensions(taskGraph));
+        shift(expected, expected);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected[i], a[i]);
+        }
+    }
+
+    @Test
+    public void testPolynomialProduct() {
+        final int size = 256;
+        float[] a = new float[size];
+        float[] b = new float[size];
+        float[] c = new float[2 * size - 1];
+        float[] expected = new float[2 * size - 1];
+        IntStream.range(0, size).forEach(i -> {
+            a[i] = i % 3;
+            b[i] = i % 5;
+        });
+
+        // c[i + j] is written by several iterations of both loops
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b, c) //
+                .task("t0", TestAutoParallelisation::polynomialProduct, a, b, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        assertEquals(0, getParallelDimensions(taskGraph));
+        polynomialProduct(a, b, expected);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], c[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void testCountProducts() {
+        final int size = 64;
+        int[] counts = new int[size * size];
+        int[] expected = new int[size * size];
+
+        // counts[i * j] is written by every iteration where i or j is 0
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, counts) //
+                .task("t0", TestAutoParallelisation::countProducts, counts, size) //
+                .transferToHost(counts);
+        taskGraph.execute();
+
+        assertEquals(0, getParallelDimensions(taskGraph));
+        countProducts(expected, size);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], counts[i]);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package uk.ac.manchester.tornado.unittests.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of 2D kernels whose arrays are staged through local memory by the
+ * local-memory tiling. The results must be the same as the ones of the kernels
+ * without tiling, also when the sizes are not multiples of the tiles. The tile
+ * size chosen for each kernel is checked with the metadata of the task.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V -Dtornado.tiling=True -Dtornado.tiling.report=True uk.ac.manchester.tornado.unittests.loops.TestLocalMemoryTiling
+ * </code>
+ *
+ */
+public class TestLocalMemoryTiling extends TornadoTestBase {
+
+    public static void matrixMultiplication(float[] a, float[] b, float[] c, int size) {
+        for (@Parallel int i = 0; i < size; i++) {
+            for (@Parallel int j = 0; j < size; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < size; k++) {
+                    sum += a[i * size + k] * b[k * size + j];
+                }
+                c[i * size + j] = sum;
+            }
+        }
+    }
+
+    public static void stencil(float[] input, float[] output, int size) {
+        for (@Parallel int i = 1; i < size - 1; i++) {
+            for (@Parallel int j = 1; j < size - 1; j++) {
+                output[i * size + j] = 0.2f * (input[i * size + j] + input[(i - 1) * size + j] + input[(i + 1) * size + j] + input[i * size + j - 1] + input[i * size + j + 1]);
+            }
+        }
+    }
+
+    public static void stencilIntoSecondHalf(float[] data, int size) {
+        final int half = size * size;
+        for (@Parallel int i = 1; i < size - 1; i++) {
+            for (@Parallel int j = 1; j < size - 1; j++) {
+                data[half + i * size + j] = 0.2f * (data[i * size + j] + data[(i - 1) * size + j] + data[(i + 1) * size + j] + data[i * size + j - 1] + data[i * size + j + 1]);
+            }
+        }
+    }
+
+    public static void convolution(float[] image, float[] filter, float[] output, int width, int height, int filterSize) {
+        final int offset = filterSize / 2;
+        for (@Parallel int y = 0; y < height; y++) {
+            for (@Parallel int x = 0; x < width; x++) {
+                float sum = 0.0f;
+                for (int v = 0; v < filterSize; v++) {
+                    for (int u = 0; u < filterSize; u++) {
+                        final int row = y + v - offset;
+                        final int column = x + u - offset;
+                        if (row >= 0 && row < height && column >= 0 && column < width) {
+                            sum += filter[v * filterSize + u] * image[row * width + column];
+                        }
+                    }
+                }
+                output[y * width + x] = sum;
+            }
+        }
+    }
+
+    public static void blur(int[] image, int[] output, int width, int height) {
+        for (@Parallel int y = 0; y < height; y++) {
+            for (@Parallel int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int v = -1; v <= 1; v++) {
+                    for (int u = -1; u <= 1; u++) {
+                        final int row = Math.min(Math.max(y + v, 0), height - 1);
+                        final int column = Math.min(Math.max(x + u, 0), width - 1);
+                        sum += image[row * width + column];
+                    }
+                }
+                output[y * width + x] = sum / 9;
+            }
+        }
+    }
+
+    private static TaskMetaData getMeta(TaskGraph taskGraph) {
+        return (TaskMetaData) taskGraph.getTask("t0").meta();
+    }
+
+    /**
+     * The tiles of these kernels fit in the local memory of any device, so the
+     * tile size is the largest size, halved until the square work-groups fit on
+     * the device.
+     */
+    private static int getExpectedTileSize(TaskGraph taskGraph) {
+        final TaskMetaData meta = getMeta(taskGraph);
+        final long[] maxWorkItemSizes = meta.getLogicDevice().getPhysicalDevice().getDeviceMaxWorkItemSizes();
+        final long maxWorkGroupSize = meta.getLogicDevice().getPhysicalDevice().getDeviceMaxWorkGroupSize()[0];
+        int tileSize = Integer.highestOneBit(meta.getMaxTileSize());
+        while (tileSize > maxWorkItemSizes[0] || tileSize > maxWorkItemSizes[1] || (long) tileSize * tileSize > maxWorkGroupSize) {
+            tileSize /= 2;
+        }
+        return tileSize;
+    }
+
+    @Test
+    public void testMatrixMultiplication() {
+        final int size = 64;
+        float[] a = new float[size * size];
+        float[] b = new float[size * size];
+        float[] c = new float[size * size];
+        float[] expected = new float[size * size];
+        IntStream.range(0, size * size).forEach(i -> {
+            a[i] = i % 7;
+            b[i] = i % 5;
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestLocalMemoryTiling::matrixMultiplication, a, b, c, size) //
+                .transferToHost(c);
+        taskGraph.execute();
+
+        assertEquals(getExpectedTileSize(taskGraph), getMeta(taskGraph).getTileSize());
+        matrixMultiplication(a, b, expected, size);
+        for (int i = 0; i < size * size; i++) {
+            assertEquals(expected[i], c[i], 0.1f);
+        }
+    }
+
+    @Test
+    public void testStencil() {
+        final int size = 130;
+        float[] input = new float[size * size];
+        float[] output = new float[size * size];
+        float[] expected = new float[size * size];
+        IntStream.range(0, size * size).forEach(i -> input[i] = i % 10);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestLocalMemoryTiling::stencil, input, output, size) //
+                .transferToHost(output);
+        taskGraph.execute();
+
+        assertEquals(getExpectedTileSize(taskGraph), getMeta(taskGraph).getTileSize());
+        stencil(input, expected, size);
+        for (int i = 0; i < size * size; i++) {
+            assertEquals(expected[i], output[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testConvolution() {
+        final int width = 100;
+        final int height = 75;
+        final int filterSize = 5;
+        float[] image = new float[width * height];
+        float[] filter = new float[filterSize * filterSize];
+        float[] output = new float[width * height];
+        float[] expected = new float[width * height];
+        IntStream.range(0, width * height).forEach(i -> image[i] = i % 13);
+        IntStream.range(0, filterSize * filterSize).forEach(i -> filter[i] = 1.0f / (i + 1));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, image, filter) //
+                .task("t0", TestLocalMemoryTiling::convolution, image, filter, output, width, height, filterSize) //
+                .transferToHost(output);
+        taskGraph.execute();
+
+        assertEquals(getExpectedTileSize(taskGraph), getMeta(taskGraph).getTileSize());
+        convolution(image, filter, expected, width, height, filterSize);
+        for (int i = 0; i < width * height; i++) {
+            assertEquals(expected[i], output[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testBlur() {
+        final int width = 90;
+        final int height = 60;
+        int[] image = new int[width * height];
+        int[] output = new int[width * height];
+        int[] expected = new int[width * height];
+        IntStream.range(0, width * height).forEach(i -> image[i] = i % 256);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, image) //
+                .task("t0", TestLocalMemoryTiling::blur, image, output, width, height) //
+                .transferToHost(output);
+        taskGraph.execute();
+
+        assertEquals(getExpectedTileSize(taskGraph), getMeta(taskGraph).getTileSize());
+        blur(image, expected, width, height);
+        for (int i = 0; i < width * height; i++) {
+            assertEquals(expected[i], output[i]);
+        }
+    }
+
+    @Test
+    public void testWrittenStencilInputIsNotTiled() {
+        final int size = 66;
+        float[] data = new float[2 * size * size];
+        float[] expected = new float[2 * size * size];
+        IntStream.range(0, size * size).forEach(i -> {
+            data[i] = i % 10;
+            expected[i] = i % 10;
+        });
+
+        // The kernel writes the array it reads the stencil from
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, data) //
+                .task("t0", TestLocalMemoryTiling::stencilIntoSecondHalf, data, size) //
+                .transferToHost(data);
+        taskGraph.execute();
+
+        assertEquals(0, getMeta(taskGraph).getTileSize());
+        stencilIntoSecondHalf(expected, size);
+        for (int i = 0; i < 2 * size * size; i++) {
+            assertEquals(expected[i], data[i], 0.01f);
+        }
+    }
+}
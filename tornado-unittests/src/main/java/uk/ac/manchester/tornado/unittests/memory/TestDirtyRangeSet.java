@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.runtime.common.DirtyRangeSet;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the set of host ranges copied by
+ * {@link uk.ac.manchester.tornado.api.TaskGraph#markDirtyRange}. They do not
+ * need a device.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestDirtyRangeSet
+ * </code>
+ */
+public class TestDirtyRangeSet extends TornadoTestBase {
+
+    private static DirtyRangeSet rangesOf(long... pairs) {
+        DirtyRangeSet ranges = new DirtyRangeSet();
+        for (int i = 0; i < pairs.length; i += 2) {
+            ranges.add(pairs[i], pairs[i + 1]);
+        }
+        return ranges;
+    }
+
+    @Test
+    public void testEmptyRangeIsIgnored() {
+        DirtyRangeSet ranges = rangesOf(5, 5, 10, 3);
+        assertTrue(ranges.isEmpty());
+        assertEquals(0, ranges.getNumElements());
+    }
+
+    @Test
+    public void testDisjointRangesAreSorted() {
+        DirtyRangeSet ranges = rangesOf(50, 60, 10, 20, 30, 40);
+        assertArrayEquals(new long[] { 10, 20, 30, 40, 50, 60 }, ranges.toArray());
+        assertEquals(30, ranges.getNumElements());
+    }
+
+    @Test
+    public void testOverlappingRangesAreMerged() {
+        assertArrayEquals(new long[] { 10, 30 }, rangesOf(10, 20, 15, 30).toArray());
+        assertArrayEquals(new long[] { 5, 20 }, rangesOf(10, 20, 5, 15).toArray());
+        assertArrayEquals(new long[] { 10, 20 }, rangesOf(10, 20, 12, 18).toArray());
+    }
+
+    @Test
+    public void testAdjacentRangesAreMerged() {
+        assertArrayEquals(new long[] { 10, 30 }, rangesOf(10, 20, 20, 30).toArray());
+        assertArrayEquals(new long[] { 0, 20 }, rangesOf(10, 20, 0, 10).toArray());
+    }
+
+    @Test
+    public void testRangeSpanningSeveralRanges() {
+        DirtyRangeSet ranges = rangesOf(0, 5, 10, 20, 30, 40, 50, 60, 70, 80);
+        ranges.add(15, 55);
+        assertArrayEquals(new long[] { 0, 5, 10, 60, 70, 80 }, ranges.toArray());
+        assertEquals(3, ranges.getNumRanges());
+        assertEquals(65, ranges.getNumElements());
+    }
+
+    @Test
+    public void testGrowth() {
+        DirtyRangeSet ranges = new DirtyRangeSet();
+        for (int i = 99; i >= 0; i--) {
+            ranges.add(i * 10, i * 10 + 5);
+        }
+        assertEquals(100, ranges.getNumRanges());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 10, ranges.getFrom(i));
+            assertEquals(i * 10 + 5, ranges.getTo(i));
+        }
+
+        // Filling the gaps leaves a single range
+        for (int i = 0; i < 99; i++) {
+            ranges.add(i * 10 + 5, i * 10 + 10);
+        }
+        assertArrayEquals(new long[] { 0, 995 }, ranges.toArray());
+    }
+
+    @Test
+    public void testClear() {
+        DirtyRangeSet ranges = rangesOf(10, 20);
+        ranges.clear();
+        assertTrue(ranges.isEmpty());
+        ranges.add(1, 2);
+        assertArrayEquals(new long[] { 1, 2 }, ranges.toArray());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
+import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
+import uk.ac.manchester.tornado.runtime.tasks.ObjectStateRegistry;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the registry of object states. The device is a fake that records
+ * its calls, so they do not need a real device.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestObjectStateRegistry
+ * </code>
+ */
+public class TestObjectStateRegistry extends TornadoTestBase {
+
+    /**
+     * Records the calls to the device, in order.
+     */
+    private static TornadoAcceleratorDevice fakeDevice(List<String> calls) {
+        return (TornadoAcceleratorDevice) Proxy.newProxyInstance(TornadoAcceleratorDevice.class.getClassLoader(), new Class<?>[] { TornadoAcceleratorDevice.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "fake-device";
+                case "syncAllStreams":
+                    calls.add("sync");
+                    return null;
+                case "deallocate":
+                    calls.add("deallocate");
+                    ((DeviceObjectState) args[0]).setObjectBuffer(null);
+                    return -1;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static ObjectBuffer fakeBuffer() {
+        return (ObjectBuffer) Proxy.newProxyInstance(ObjectBuffer.class.getClassLoader(), new Class<?>[] { ObjectBuffer.class }, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * Registers a new object with a buffer on the device and drops it.
+     */
+    private static void registerGarbage(ObjectStateRegistry registry, TornadoAcceleratorDevice device, boolean withBuffer) {
+        float[] array = new float[1024];
+        DeviceObjectState state = registry.resolve(array).getDeviceState(device);
+        if (withBuffer) {
+            state.setObjectBuffer(fakeBuffer());
+            state.setLockBuffer(true);
+        }
+    }
+
+    private static void collect(ObjectStateRegistry registry, long evictedObjects) throws InterruptedException {
+        for (int i = 0; i < 100 && registry.getEvictedObjects() < evictedObjects; i++) {
+            System.gc();
+            Thread.sleep(10);
+            registry.expungeCollectedObjects();
+        }
+        assertEquals("The objects were not collected", evictedObjects, registry.getEvictedObjects());
+    }
+
+    @Test
+    public void testIdentity() {
+        ObjectStateRegistry registry = new ObjectStateRegistry();
+        float[] a = new float[16];
+        float[] b = new float[16];
+
+        GlobalObjectState state = registry.resolve(a);
+        assertSame(state, registry.resolve(a));
+        assertNotSame(state, registry.resolve(b));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testReleaseIsDeferred() throws InterruptedException {
+        final List<String> calls = new ArrayList<>();
+        final TornadoAcceleratorDevice device = fakeDevice(calls);
+        ObjectStateRegistry registry = new ObjectStateRegistry();
+
+        registerGarbage(registry, device, true);
+        registerGarbage(registry, device, true);
+        collect(registry, 2);
+
+        // Collecting the objects only queues their buffers
+        assertTrue(calls.isEmpty());
+        assertEquals(0, registry.size());
+        assertEquals(2, registry.getNumPendingBuffers(device));
+        assertEquals(0, registry.getReleasedBuffers());
+
+        // The device finishes all its queues before the buffers are released
+        assertEquals(2, registry.releasePendingBuffers(device));
+        assertEquals(List.of("sync", "deallocate", "deallocate"), calls);
+        assertEquals(0, registry.getNumPendingBuffers(device));
+        assertEquals(2, registry.getReleasedBuffers());
+    }
+
+    @Test
+    public void testNoSyncWithoutPendingBuffers() throws InterruptedException {
+        final List<String> calls = new ArrayList<>();
+        final TornadoAcceleratorDevice device = fakeDevice(calls);
+        ObjectStateRegistry registry = new ObjectStateRegistry();
+
+        assertEquals(0, registry.releasePendingBuffers(device));
+
+        // An object without a buffer on the device has nothing to release
+        registerGarbage(registry, device, false);
+        collect(registry, 1);
+        assertEquals(0, registry.releasePendingBuffers(device));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void testReleasesArePerDevice() throws InterruptedException {
+        final List<String> firstCalls = new ArrayList<>();
+        final List<String> secondCalls = new ArrayList<>();
+        final TornadoAcceleratorDevice first = fakeDevice(firstCalls);
+        final TornadoAcceleratorDevice second = fakeDevice(secondCalls);
+        ObjectStateRegistry registry = new ObjectStateRegistry();
+
+        registerGarbage(registry, first, true);
+        collect(registry, 1);
+
+        assertEquals(0, registry.releasePendingBuffers(second));
+        assertTrue(secondCalls.isEmpty());
+        assertEquals(1, registry.getNumPendingBuffers(first));
+
+        assertEquals(1, registry.releasePendingBuffers(first));
+        assertEquals(List.of("sync", "deallocate"), firstCalls);
+    }
+
+    @Test
+    public void testClearDropsPendingBuffers() throws InterruptedException {
+        final List<String> calls = new ArrayList<>();
+        final TornadoAcceleratorDevice device = fakeDevice(calls);
+        ObjectStateRegistry registry = new ObjectStateRegistry();
+
+        registerGarbage(registry, device, true);
+        collect(registry, 1);
+        registry.clear();
+
+        assertEquals(0, registry.releasePendingBuffers(device));
+        assertFalse(calls.contains("deallocate"));
+    }
+}
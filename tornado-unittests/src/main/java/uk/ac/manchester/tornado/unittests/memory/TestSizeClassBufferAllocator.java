@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.drivers.common.mm.NativeBufferAllocator;
+import uk.ac.manchester.tornado.drivers.common.mm.SizeClassBufferAllocator;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the size-class allocator of device buffers on top of a fake
+ * backend, so they do not need a device.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestSizeClassBufferAllocator
+ * </code>
+ */
+public class TestSizeClassBufferAllocator extends TornadoTestBase {
+
+    private static final long BUDGET = 64 * 1024;
+
+    private static final long SLAB_SIZE = 4096;
+
+    /**
+     * Backend that hands out increasing handles and records every native call.
+     */
+    private static class FakeNativeAllocator implements NativeBufferAllocator {
+        private final boolean subBuffers;
+        private final boolean failingSubBuffers;
+        private final Map<Long, Long> buffers = new HashMap<>();
+        private final List<Long> releasedBuffers = new ArrayList<>();
+        private final List<Long> subBufferHandles = new ArrayList<>();
+        private long nextHandle = 0x1000;
+
+        FakeNativeAllocator(boolean subBuffers, boolean failingSubBuffers) {
+            this.subBuffers = subBuffers;
+            this.failingSubBuffers = failingSubBuffers;
+        }
+
+        @Override
+        public long allocateBuffer(long size) {
+            long handle = nextHandle++;
+            buffers.put(handle, size);
+            return handle;
+        }
+
+        @Override
+        public void releaseBuffer(long buffer) {
+            assertTrue("Released a buffer that is not allocated", buffers.containsKey(buffer));
+            buffers.remove(buffer);
+            releasedBuffers.add(buffer);
+        }
+
+        @Override
+        public boolean supportsSubBuffers() {
+            return subBuffers;
+        }
+
+        @Override
+        public long allocateSubBuffer(long buffer, long offset, long size) {
+            assertTrue("Sub-buffers are not supported by this backend", subBuffers);
+            assertTrue(offset + size <= buffers.get(buffer));
+            if (failingSubBuffers) {
+                return INVALID_BUFFER;
+            }
+            long handle = nextHandle++;
+            subBufferHandles.add(handle);
+            return handle;
+        }
+    }
+
+    @Test
+    public void testSlabReuse() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(true, false);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, BUDGET, BUDGET, SLAB_SIZE);
+
+        long first = allocator.allocate(100);
+        long second = allocator.allocate(200);
+        assertNotEquals(first, second);
+        assertEquals(1, backend.buffers.size());
+        assertEquals(SLAB_SIZE, (long) backend.buffers.values().iterator().next());
+        assertEquals(2, backend.subBufferHandles.size());
+        assertTrue(backend.subBufferHandles.contains(first));
+
+        // A released chunk is handed out again without any native call
+        allocator.release(first);
+        assertEquals(first, allocator.allocate(150));
+        assertEquals(1, backend.buffers.size());
+        assertEquals(2, backend.subBufferHandles.size());
+        assertEquals(BUDGET - SLAB_SIZE, allocator.getAvailableMemory());
+    }
+
+    @Test
+    public void testDedicatedBufferReuse() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(true, false);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, BUDGET, BUDGET, SLAB_SIZE);
+
+        // Larger than the chunks of a slab, so it gets its own buffer rounded up to its size class
+        long buffer = allocator.allocate(10_000);
+        assertEquals(16384L, (long) backend.buffers.get(buffer));
+        assertTrue(backend.subBufferHandles.isEmpty());
+
+        allocator.release(buffer);
+        assertEquals(1, allocator.getNumFreeBuffers());
+        assertEquals(buffer, allocator.allocate(9000));
+        assertEquals(1, backend.buffers.size());
+        assertEquals(0, allocator.getNumFreeBuffers());
+    }
+
+    @Test
+    public void testEvictionOfFreeBuffers() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(false, false);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, BUDGET, BUDGET, 0);
+
+        long first = allocator.allocate(16384);
+        long second = allocator.allocate(16384);
+        allocator.release(first);
+        allocator.release(second);
+        assertEquals(BUDGET - 32768, allocator.getAvailableMemory());
+
+        // It only fits when the least recently released buffer is returned to the device
+        long large = allocator.allocate(32768 + 16384);
+        assertEquals(List.of(first), backend.releasedBuffers);
+        assertTrue(backend.buffers.containsKey(second));
+        assertTrue(backend.buffers.containsKey(large));
+        assertEquals(0, allocator.getAvailableMemory());
+    }
+
+    @Test
+    public void testEvictionOfEmptySlabs() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(true, false);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, 2 * SLAB_SIZE, 2 * SLAB_SIZE, SLAB_SIZE);
+
+        long chunk = allocator.allocate(100);
+        long slab = backend.buffers.keySet().iterator().next();
+        allocator.release(chunk);
+
+        allocator.allocate(2 * SLAB_SIZE);
+        assertEquals(List.of(slab), backend.releasedBuffers);
+        assertFalse(backend.buffers.containsKey(slab));
+    }
+
+    @Test
+    public void testSubBufferFailureFallsBackToDedicatedBuffer() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(true, true);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, BUDGET, BUDGET, SLAB_SIZE);
+
+        long buffer = allocator.allocate(100);
+        assertNotEquals(NativeBufferAllocator.INVALID_BUFFER, buffer);
+        assertTrue(backend.buffers.containsKey(buffer));
+        assertTrue(backend.buffers.get(buffer) >= 100);
+
+        allocator.release(buffer);
+        assertEquals(buffer, allocator.allocate(100));
+    }
+
+    @Test
+    public void testNoSubBuffersWithoutBackendSupport() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(false, false);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, BUDGET, BUDGET, SLAB_SIZE);
+
+        long buffer = allocator.allocate(100);
+        assertTrue(backend.buffers.containsKey(buffer));
+        assertTrue(backend.subBufferHandles.isEmpty());
+    }
+
+    @Test(expected = TornadoOutOfMemoryException.class)
+    public void testOutOfMemory() {
+        FakeNativeAllocator backend = new FakeNativeAllocator(true, false);
+        SizeClassBufferAllocator allocator = new SizeClassBufferAllocator(backend, BUDGET, BUDGET, SLAB_SIZE);
+
+        allocator.allocate(BUDGET / 2);
+        allocator.allocate(BUDGET);
+    }
+}
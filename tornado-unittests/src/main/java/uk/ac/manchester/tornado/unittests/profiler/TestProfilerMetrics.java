@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.runtime.profiler.ProfilerMetricsRegistry;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the Prometheus text format of the profiler metrics. They record the
+ * values directly in the registry, so they do not need a device.
+ *
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.profiler.TestProfilerMetrics
+ * </code>
+ */
+public class TestProfilerMetrics extends TornadoTestBase {
+
+    private final ProfilerMetricsRegistry registry = ProfilerMetricsRegistry.getInstance();
+
+    @Before
+    @After
+    public void resetRegistry() {
+        registry.reset();
+    }
+
+    @Test
+    public void testHistogramFormat() {
+        registry.record("s0", "t0", ProfilerType.TASK_KERNEL_TIME, 10);
+        registry.record("s0", "t0", ProfilerType.TASK_KERNEL_TIME, 100);
+
+        final String expected = "# HELP tornado_task_kernel_time_nanoseconds Task-Kernel\n" //
+                + "# TYPE tornado_task_kernel_time_nanoseconds histogram\n" //
+                + "tornado_task_kernel_time_nanoseconds_bucket{task_graph=\"s0\",task=\"t0\",le=\"31\"} 1\n" //
+                + "tornado_task_kernel_time_nanoseconds_bucket{task_graph=\"s0\",task=\"t0\",le=\"63\"} 1\n" //
+                + "tornado_task_kernel_time_nanoseconds_bucket{task_graph=\"s0\",task=\"t0\",le=\"127\"} 2\n" //
+                + "tornado_task_kernel_time_nanoseconds_bucket{task_graph=\"s0\",task=\"t0\",le=\"+Inf\"} 2\n" //
+                + "tornado_task_kernel_time_nanoseconds_sum{task_graph=\"s0\",task=\"t0\"} 110\n" //
+                + "tornado_task_kernel_time_nanoseconds_count{task_graph=\"s0\",task=\"t0\"} 2\n";
+        assertEquals(expected, registry.toPrometheus());
+    }
+
+    @Test
+    public void testMetricNames() {
+        registry.record("s0", ProfilerMetricsRegistry.GRAPH_LEVEL, ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, 1024);
+        registry.record("s0", "t0", ProfilerType.TASK_KERNEL_CACHE_HIT, 1);
+
+        final String metrics = registry.toPrometheus();
+        assertTrue(metrics.contains("# TYPE tornado_total_copy_in_size_bytes histogram\n"));
+        assertTrue(metrics.contains("tornado_total_copy_in_size_bytes_sum{task_graph=\"s0\",task=\"\"} 1024\n"));
+        assertTrue(metrics.contains("# TYPE tornado_task_kernel_cache_hit histogram\n"));
+        assertTrue(metrics.contains("tornado_task_kernel_cache_hit_count{task_graph=\"s0\",task=\"t0\"} 1\n"));
+    }
+
+    @Test
+    public void testOneHeaderPerFamily() {
+        registry.record("s0", "t0", ProfilerType.TASK_KERNEL_TIME, 5);
+        registry.record("s1", "t0", ProfilerType.TASK_KERNEL_TIME, 5);
+
+        final String metrics = registry.toPrometheus();
+        assertEquals(metrics.indexOf("# TYPE tornado_task_kernel_time_nanoseconds"), metrics.lastIndexOf("# TYPE tornado_task_kernel_time_nanoseconds"));
+        assertTrue(metrics.indexOf("task_graph=\"s0\"") < metrics.indexOf("task_graph=\"s1\""));
+    }
+
+    @Test
+    public void testEscapedLabels() {
+        registry.record("graph \"a\"\\b", "line\nbreak", ProfilerType.TASK_KERNEL_TIME, 5);
+        assertTrue(registry.toPrometheus().contains("{task_graph=\"graph \\\"a\\\"\\\\b\",task=\"line\\nbreak\"}"));
+    }
+
+    @Test
+    public void testPeriodicFileExport() throws IOException, InterruptedException {
+        final Path file = Files.createTempFile("tornado-metrics", ".prom");
+        try {
+            registry.record("s0", "t0", ProfilerType.TASK_KERNEL_TIME, 5);
+            registry.exportPrometheusFile(file.toString(), 10);
+
+            String content = "";
+            for (int i = 0; i < 500 && content.isEmpty(); i++) {
+                Thread.sleep(10);
+                content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            }
+            assertEquals(registry.toPrometheus(), content);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2013-2020, 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Stress test for independent {@link TaskGraph}s executed from different Java
+ * threads on the same device. It requires concurrent execution to be enabled.
+ * When running on the virtual device, kernels are not launched, so only the
+ * host-side paths (compilation, buffer allocation, call wrappers) are checked.
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V --jvm="-Dtornado.concurrent.execution=True" uk.ac.manchester.tornado.unittests.tasks.TestConcurrentTaskGraphs
+ * </code>
+ *
+ */
+public class TestConcurrentTaskGraphs extends TornadoTestBase {
+
+    private static final int NUM_THREADS = 4;
+    private static final int NUM_ITERATIONS = 100;
+    private static final int NUM_ELEMENTS = 1024;
+
+    private static final boolean VIRTUAL_DEVICE = Boolean.parseBoolean(System.getProperty("tornado.virtual.device", "False"));
+
+    public static void vectorAdd(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void vectorScale(int[] c, int[] d, int factor) {
+        for (@Parallel int i = 0; i < d.length; i++) {
+            d[i] = c[i] * factor;
+        }
+    }
+
+    private static Callable<Boolean> createWorker(final int id) {
+        return () -> {
+            int[] a = new int[NUM_ELEMENTS];
+            int[] b = new int[NUM_ELEMENTS];
+            int[] c = new int[NUM_ELEMENTS];
+            int[] d = new int[NUM_ELEMENTS];
+            final int factor = id + 2;
+
+            TaskGraph taskGraph = new TaskGraph("concurrent" + id) //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                    .task("t0", TestConcurrentTaskGraphs::vectorAdd, a, b, c) //
+                    .task("t1", TestConcurrentTaskGraphs::vectorScale, c, d, factor) //
+                    .transferToHost(d);
+
+            for (int iteration = 0; iteration < NUM_ITERATIONS; iteration++) {
+                for (int i = 0; i < NUM_ELEMENTS; i++) {
+                    a[i] = i + iteration;
+                    b[i] = id;
+                }
+                taskGraph.execute();
+                if (!VIRTUAL_DEVICE) {
+                    for (int i = 0; i < NUM_ELEMENTS; i++) {
+                        assertEquals((a[i] + b[i]) * factor, d[i]);
+                    }
+                }
+            }
+            return true;
+        };
+    }
+
+    private static void runWorkers(int firstId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                results.add(executor.submit(createWorker(firstId + i)));
+            }
+            for (Future<Boolean> result : results) {
+                // Rethrows any assertion or runtime error raised by the worker
+                assertEquals(true, result.get());
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void testConcurrentTaskGraphsSameDevice() throws Exception {
+        runWorkers(0);
+    }
+
+    /**
+     * Every round uses new threads, which take over the command queues of the
+     * threads of the previous round.
+     */
+    @Test
+    public void testThreadPoolChurn() throws Exception {
+        for (int round = 0; round < 4; round++) {
+            runWorkers(round * NUM_THREADS);
+        }
+    }
+}
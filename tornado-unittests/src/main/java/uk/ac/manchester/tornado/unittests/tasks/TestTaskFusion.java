@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2020-2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of producer-consumer task fusion. Consecutive tasks with the same
+ * iteration space, in which each thread only consumes the elements it has
+ * produced, are compiled into a single kernel. Tasks that cannot be fused must
+ * still produce the same results. The profiler counts the kernels launched by
+ * each execution, so the tests check which tasks were fused. Without
+ * {@code tornado.fusion.enable}, every task is launched on its own.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ *     tornado-test -V -Dtornado.fusion.enable=True -Dtornado.fusion.report=True uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion
+ * </code>
+ *
+ */
+public class TestTaskFusion extends TornadoTestBase {
+
+    private static final int SIZE = 4096;
+
+    public static void scale(float[] input, float[] output, float alpha) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = alpha * input[i];
+        }
+    }
+
+    public static void addVectors(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void square(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * input[i];
+        }
+    }
+
+    public static void shiftLeft(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < output.length - 1; i++) {
+            output[i] = input[i + 1];
+        }
+    }
+
+    public static void scaleHalf(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length / 2; i++) {
+            output[i] = 2.0f * input[i];
+        }
+    }
+
+    @Before
+    public void enableProfiler() {
+        System.setProperty("tornado.profiler", "True");
+    }
+
+    @After
+    public void disableProfiler() {
+        System.setProperty("tornado.profiler", "False");
+    }
+
+    private static void assertKernelLaunches(TaskGraph taskGraph, int fusedLaunches, int launches) {
+        assertEquals(TornadoOptions.FUSE_TASKS ? fusedLaunches : launches, taskGraph.getNumKernelLaunches());
+    }
+
+    private static float[] createInput() {
+        float[] input = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = i % 100;
+        }
+        return input;
+    }
+
+    @Test
+    public void testFuseTwoTasks() {
+        float[] a = createInput();
+        float[] tmp = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, tmp, 2.0f) //
+                .task("t1", TestTaskFusion::addVectors, tmp, a, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+        assertKernelLaunches(taskGraph, 1, 2);
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(3.0f * a[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testFuseThreeTasks() {
+        float[] a = createInput();
+        float[] tmp0 = new float[SIZE];
+        float[] tmp1 = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, tmp0, 2.0f) //
+                .task("t1", TestTaskFusion::square, tmp0, tmp1) //
+                .task("t2", TestTaskFusion::addVectors, tmp1, a, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+        assertKernelLaunches(taskGraph, 1, 3);
+
+        for (int i = 0; i < SIZE; i++) {
+            float expected = (2.0f * a[i]) * (2.0f * a[i]) + a[i];
+            assertEquals(expected, c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testIntermediateCopiedOut() {
+        float[] a = createInput();
+        float[] tmp = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, tmp, 2.0f) //
+                .task("t1", TestTaskFusion::square, tmp, c) //
+                .transferToHost(tmp, c);
+        taskGraph.execute();
+        assertKernelLaunches(taskGraph, 1, 2);
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(2.0f * a[i], tmp[i], 0.01f);
+            assertEquals(4.0f * a[i] * a[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testNeighbourAccessNotFused() {
+        float[] a = createInput();
+        float[] tmp = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        // t1 reads an element produced by another thread of t0
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, tmp, 2.0f) //
+                .task("t1", TestTaskFusion::shiftLeft, tmp, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+        assertKernelLaunches(taskGraph, 2, 2);
+
+        for (int i = 0; i < SIZE - 1; i++) {
+            assertEquals(2.0f * a[i + 1], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testDifferentDomainsNotFused() {
+        float[] a = createInput();
+        float[] tmp = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, tmp, 2.0f) //
+                .task("t1", TestTaskFusion::scaleHalf, tmp, c) //
+                .transferToHost(c);
+        taskGraph.execute();
+        assertKernelLaunches(taskGraph, 2, 2);
+
+        for (int i = 0; i < SIZE / 2; i++) {
+            assertEquals(4.0f * a[i], c[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testRepeatedExecution() {
+        float[] a = createInput();
+        float[] tmp = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTaskFusion::scale, a, tmp, 2.0f) //
+                .task("t1", TestTaskFusion::addVectors, tmp, a, c) //
+                .transferToHost(c);
+
+        for (int iteration = 0; iteration < 3; iteration++) {
+            for (int i = 0; i < SIZE; i++) {
+                a[i] = (i + iteration) % 100;
+            }
+            taskGraph.execute();
+            assertKernelLaunches(taskGraph, 1, 2);
+            for (int i = 0; i < SIZE; i++) {
+                assertEquals(3.0f * a[i], c[i], 0.01f);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2020, 2022, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.tuning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.runtime.common.TuningDatabase;
+import uk.ac.manchester.tornado.runtime.common.WorkGroupTuner;
+import uk.ac.manchester.tornado.runtime.common.WorkGroupTuner.Configuration;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * <p>
+ * How to test?
+ * </p>
+ * <code>
+ *     tornado-test -V uk.ac.manchester.tornado.unittests.tuning.TestWorkGroupTuner
+ * </code>
+ */
+public class TestWorkGroupTuner extends TornadoTestBase {
+
+    private static final long[] MAX_WORK_ITEM_SIZES = { 1024, 1024, 64 };
+
+    /**
+     * Synthetic cost model: the time grows with the distance between the
+     * work-group size and the preferred one.
+     */
+    private static ToLongFunction<Configuration> costModel(long preferredGroupSize) {
+        return configuration -> 1000 + 10 * Math.abs(configuration.getWorkGroupSize() - preferredGroupSize);
+    }
+
+    @Test
+    public void testSearchOneDimension() {
+        final long[] global = { 4096, 1, 1 };
+        List<Configuration> candidates = WorkGroupTuner.generateCandidates(global, new long[] { 1024, 1, 1 }, 1, MAX_WORK_ITEM_SIZES, 1024, 24);
+
+        assertArrayEquals(new long[] { 1024, 1, 1 }, candidates.get(0).getLocalWork());
+        for (Configuration candidate : candidates) {
+            assertEquals(0, global[0] % candidate.getLocalWork()[0]);
+        }
+
+        Configuration best = WorkGroupTuner.search(candidates, costModel(128), 3);
+        assertArrayEquals(new long[] { 128, 1, 1 }, best.getLocalWork());
+        assertArrayEquals(global, best.getGlobalWork());
+    }
+
+    @Test
+    public void testSearchPrimeSize() {
+        final long[] global = { 997, 1, 1 };
+        List<Configuration> candidates = WorkGroupTuner.generateCandidates(global, new long[] { 1, 1, 1 }, 1, MAX_WORK_ITEM_SIZES, 1024, 24);
+
+        // Without padding, only 1 and the whole size divide a prime size
+        assertEquals(2, candidates.size());
+        Configuration best = WorkGroupTuner.search(candidates, costModel(1024), 1);
+        assertArrayEquals(new long[] { 997, 1, 1 }, best.getLocalWork());
+    }
+
+    @Test
+    public void testSearchPaddedPrimeSize() {
+        final long[] iterationSpace = { 997, 1, 1 };
+        final Configuration defaultConfiguration = new Configuration(new long[] { 1024, 1, 1 }, new long[] { 256, 1, 1 });
+        List<Configuration> candidates = WorkGroupTuner.generateCandidates(iterationSpace, defaultConfiguration, 1, MAX_WORK_ITEM_SIZES, 512, 24, true);
+
+        // With padding, every power of two is a candidate local size
+        assertEquals(defaultConfiguration, candidates.get(0));
+        assertTrue(candidates.size() > 2);
+        for (Configuration candidate : candidates) {
+            assertTrue(candidate.getGlobalWork()[0] >= iterationSpace[0]);
+            assertEquals(0, candidate.getGlobalWork()[0] % candidate.getLocalWork()[0]);
+        }
+
+        // Each work-group has a fixed cost, and each thread a smaller one
+        ToLongFunction<Configuration> cost = configuration -> 100 * (configuration.getGlobalWork()[0] / configuration.getLocalWork()[0]) + configuration.getGlobalWork()[0];
+        Configuration best = WorkGroupTuner.search(candidates, cost, 1);
+        assertArrayEquals(new long[] { 512, 1, 1 }, best.getLocalWork());
+        assertArrayEquals(new long[] { 1024, 1, 1 }, best.getGlobalWork());
+    }
+
+    @Test
+    public void testSearchTwoDimensions() {
+        final long[] global = { 512, 512, 1 };
+        List<Configuration> candidates = WorkGroupTuner.generateCandidates(global, new long[] { 32, 32, 1 }, 2, MAX_WORK_ITEM_SIZES, 256, 64);
+
+        for (Configuration candidate : candidates) {
+            if (candidate != candidates.get(0)) {
+                assertTrue(candidate.getWorkGroupSize() <= 256);
+            }
+        }
+
+        // Prefer square work-groups of 256 threads
+        ToLongFunction<Configuration> cost = configuration -> costModel(256).applyAsLong(configuration) + Math.abs(configuration.getLocalWork()[0] - configuration.getLocalWork()[1]);
+        Configuration best = WorkGroupTuner.search(candidates, cost, 2);
+        assertArrayEquals(new long[] { 16, 16, 1 }, best.getLocalWork());
+    }
+
+    @Test
+    public void testMaxCandidates() {
+        List<Configuration> candidates = WorkGroupTuner.generateCandidates(new long[] { 1024, 1024, 1 }, new long[] { 32, 32, 1 }, 2, MAX_WORK_ITEM_SIZES, 1024, 10);
+        assertEquals(10, candidates.size());
+        assertArrayEquals(new long[] { 32, 32, 1 }, candidates.get(0).getLocalWork());
+        assertEquals(candidates.size(), candidates.stream().distinct().count());
+    }
+
+    @Test
+    public void testSizeClassKeys() {
+        final String key = WorkGroupTuner.getKey("device", "s0.t0.kernel", new long[] { 1024, 1, 1 }, 1);
+        assertEquals(key, WorkGroupTuner.getKey("device", "s0.t0.kernel", new long[] { 1000, 1, 1 }, 1));
+        assertFalse(key.equals(WorkGroupTuner.getKey("device", "s0.t0.kernel", new long[] { 1025, 1, 1 }, 1)));
+
+        // The configuration of the size class is adapted to each problem size
+        final Configuration tuned = new Configuration(new long[] { 1024, 1, 1 }, new long[] { 256, 1, 1 });
+        Configuration padded = WorkGroupTuner.fitToIterationSpace(tuned, new long[] { 1000, 1, 1 }, 1, true);
+        assertArrayEquals(new long[] { 1024, 1, 1 }, padded.getGlobalWork());
+        assertArrayEquals(new long[] { 256, 1, 1 }, padded.getLocalWork());
+
+        Configuration divisor = WorkGroupTuner.fitToIterationSpace(tuned, new long[] { 1000, 1, 1 }, 1, false);
+        assertArrayEquals(new long[] { 1000, 1, 1 }, divisor.getGlobalWork());
+        assertArrayEquals(new long[] { 250, 1, 1 }, divisor.getLocalWork());
+    }
+
+    @Test
+    public void testStaleReportsAreIgnored() {
+        List<Configuration> candidates = WorkGroupTuner.generateCandidates(new long[] { 64, 1, 1 }, new long[] { 64, 1, 1 }, 1, MAX_WORK_ITEM_SIZES, 1024, 24);
+        WorkGroupTuner.Search search = new WorkGroupTuner.Search(candidates, 1);
+
+        Configuration first = search.next();
+        search.report(first, 500);
+        // A late report for the first candidate must not be counted for the second
+        search.report(first, 1);
+        assertFalse(first.equals(search.next()));
+    }
+
+    @Test
+    public void testPersistentTuningTable() throws IOException {
+        Path file = Files.createTempFile("tornado-tuning", ".properties");
+        try {
+            final String key = WorkGroupTuner.getKey("device", "s0.t0.kernel", new long[] { 2048, 1, 1 }, 1);
+            final ToLongFunction<Configuration> cost = costModel(64);
+            final List<Configuration> candidates = WorkGroupTuner.generateCandidates(new long[] { 2048, 1, 1 }, new long[] { 1024, 1, 1 }, 1, MAX_WORK_ITEM_SIZES, 1024, 24);
+
+            WorkGroupTuner tuner = new WorkGroupTuner(new TuningDatabase(file));
+            int executions = 0;
+            Configuration configuration = tuner.getConfiguration(key, () -> candidates);
+            while (tuner.isTuning(key)) {
+                tuner.report(key, configuration, cost.applyAsLong(configuration));
+                configuration = tuner.getConfiguration(key, () -> candidates);
+                executions++;
+            }
+            assertEquals(candidates.size() * 3, executions);
+            assertArrayEquals(new long[] { 64, 1, 1 }, configuration.getLocalWork());
+
+            // A new process reads the winner from the table without searching again
+            WorkGroupTuner newTuner = new WorkGroupTuner(new TuningDatabase(file));
+            Configuration stored = newTuner.getConfiguration(key, () -> {
+                throw new AssertionError("The stored configuration should be used");
+            });
+            assertNotNull(stored);
+            assertArrayEquals(new long[] { 64, 1, 1 }, stored.getLocalWork());
+            assertFalse(newTuner.isTuning(key));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public static void vectorAdd(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    /**
+     * Run with `-Dtornado.tuning.enable=True`: the executions that measure
+     * different work-group sizes must all be correct.
+     */
+    @Test
+    public void testTunedExecutions() {
+        final int size = 3000;
+        int[] a = new int[size];
+        int[] b = new int[size];
+        int[] c = new int[size];
+        Arrays.setAll(a, i -> i);
+        Arrays.setAll(b, i -> 2 * i);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestWorkGroupTuner::vectorAdd, a, b, c) //
+                .transferToHost(c);
+
+        for (int execution = 0; execution < 100; execution++) {
+            Arrays.fill(c, 0);
+            taskGraph.execute();
+            for (int i = 0; i < size; i++) {
+                assertEquals(3 * i, c[i]);
+            }
+        }
+    }
+}